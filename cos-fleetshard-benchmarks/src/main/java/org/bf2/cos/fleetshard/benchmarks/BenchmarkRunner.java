@@ -0,0 +1,150 @@
+package org.bf2.cos.fleetshard.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled and compares the results with a baseline, failing if any score or
+ * allocation rate per operation regressed by more than a given threshold, or has no baseline to be compared to. An
+ * empty baseline, like the committed one, only records the results as the baseline is only meaningful on the machine
+ * it has been captured on.
+ * </p>
+ * The runner is configured through system properties:
+ * <ul>
+ * <li>{@code benchmarks.results}: where the results are written, defaults to {@code target/benchmarks.json}</li>
+ * <li>{@code benchmarks.baseline}: the baseline to compare to, defaults to {@code baseline.json}</li>
+ * <li>{@code benchmarks.threshold}: the tolerated regression ratio, defaults to {@code 0.10}</li>
+ * <li>{@code benchmarks.update}: replace the baseline with the results instead of comparing them</li>
+ * </ul>
+ * Any argument is used as a regular expression to select the benchmarks to run.
+ */
+public final class BenchmarkRunner {
+    public static final String METRIC_ALLOCATION = "gc.alloc.rate.norm";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Path results = Path.of(System.getProperty("benchmarks.results", "target/benchmarks.json"));
+        final Path baseline = Path.of(System.getProperty("benchmarks.baseline", "baseline.json"));
+        final double threshold = Double.parseDouble(System.getProperty("benchmarks.threshold", "0.10"));
+        final boolean update = Boolean.getBoolean("benchmarks.update");
+
+        if (results.getParent() != null) {
+            Files.createDirectories(results.getParent());
+        }
+
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(results.toString());
+
+        for (String arg : args) {
+            options.include(arg);
+        }
+
+        new Runner(options.build()).run();
+
+        if (update) {
+            Files.copy(results, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline " + baseline + " updated");
+            return;
+        }
+
+        final List<String> regressions = compare(read(baseline), read(results), threshold);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(System.err::println);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compare the results of a run with a baseline. Nothing is compared to an empty baseline, which only records the
+     * results.
+     *
+     * @param  baseline  the baseline scores, by benchmark
+     * @param  current   the current scores, by benchmark
+     * @param  threshold the tolerated regression ratio
+     * @return           a description of each regression or missing baseline
+     */
+    public static List<String> compare(Map<String, Double> baseline, Map<String, Double> current, double threshold) {
+        final List<String> answer = new ArrayList<>();
+
+        if (baseline.isEmpty()) {
+            System.out.println("No baseline, recording the results only (capture it with -Dbenchmarks.update=true)");
+            return answer;
+        }
+
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            final Double reference = baseline.get(entry.getKey());
+
+            if (reference == null) {
+                // a missing baseline would let any regression through, it must be recorded with benchmarks.update
+                answer.add(String.format("No baseline for %s: %.3f (record it with -Dbenchmarks.update=true)",
+                    entry.getKey(), entry.getValue()));
+                continue;
+            }
+
+            final double ratio = reference == 0 ? 0 : (entry.getValue() - reference) / reference;
+
+            System.out.printf("%s: %.3f -> %.3f (%+.1f%%)%n", entry.getKey(), reference, entry.getValue(), ratio * 100);
+
+            if (ratio > threshold) {
+                answer.add(String.format("Regression of %s: %.3f -> %.3f (%+.1f%%, threshold %.1f%%)",
+                    entry.getKey(), reference, entry.getValue(), ratio * 100, threshold * 100));
+            }
+        }
+
+        return answer;
+    }
+
+    /**
+     * Read the primary score and the allocation rate per operation of each benchmark from a JMH JSON result file.
+     *
+     * @param  path the result file
+     * @return      the scores, keyed by benchmark, parameters and metric
+     */
+    public static Map<String, Double> read(Path path) throws IOException {
+        final Map<String, Double> answer = new LinkedHashMap<>();
+
+        if (!Files.exists(path)) {
+            return answer;
+        }
+
+        for (JsonNode result : new ObjectMapper().readTree(path.toFile())) {
+            final StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+
+            for (Iterator<Map.Entry<String, JsonNode>> it = result.path("params").fields(); it.hasNext();) {
+                Map.Entry<String, JsonNode> param = it.next();
+                key.append(':').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+
+            answer.put(key.toString(), result.path("primaryMetric").path("score").asDouble());
+
+            for (Iterator<Map.Entry<String, JsonNode>> it = result.path("secondaryMetrics").fields(); it.hasNext();) {
+                Map.Entry<String, JsonNode> metric = it.next();
+                if (metric.getKey().endsWith(METRIC_ALLOCATION)) {
+                    answer.put(key + ":" + METRIC_ALLOCATION, metric.getValue().path("score").asDouble());
+                }
+            }
+        }
+
+        return answer;
+    }
+}
@@ -0,0 +1,241 @@
+package org.bf2.cos.fleetshard.benchmarks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bf2.cos.fleet.manager.model.ServiceAccount;
+import org.bf2.cos.fleetshard.api.DeploymentSpecBuilder;
+import org.bf2.cos.fleetshard.api.KafkaSpecBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.ManagedConnectorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorSpecBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorStatus;
+import org.bf2.cos.fleetshard.api.OperatorSelectorBuilder;
+import org.bf2.cos.fleetshard.api.SchemaRegistrySpecBuilder;
+import org.bf2.cos.fleetshard.operator.FleetShardOperatorConfig;
+import org.bf2.cos.fleetshard.support.metrics.MetricsRecorderConfig;
+import org.bf2.cos.fleetshard.support.resources.Connectors;
+import org.bf2.cos.fleetshard.support.resources.Secrets;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+
+import static org.bf2.cos.fleetshard.api.ManagedConnector.DESIRED_STATE_READY;
+import static org.bf2.cos.fleetshard.support.resources.Secrets.SECRET_ENTRY_CONNECTOR;
+import static org.bf2.cos.fleetshard.support.resources.Secrets.SECRET_ENTRY_META;
+import static org.bf2.cos.fleetshard.support.resources.Secrets.SECRET_ENTRY_SERVICE_ACCOUNT;
+
+/**
+ * Fixtures shared by the benchmarks.
+ */
+public final class BenchmarkSupport {
+    public static final String OPERATOR_ID = "cos-fleetshard-operator-camel";
+    public static final String OPERATOR_TYPE = "camel-connector-operator";
+    public static final String OPERATOR_VERSION = "1.5.0";
+
+    public static final String CLUSTER_ID = "cid";
+    public static final String CONNECTOR_ID = "mid";
+    public static final String DEPLOYMENT_ID = "did";
+    public static final String CONNECTOR_TYPE_ID = "ctid";
+    public static final String KAFKA_URL = "kafka.acme.com:443";
+    public static final String SCHEMA_REGISTRY_URL = "https://registry.acme.com/apis/registry/v2";
+    public static final String CLIENT_ID = "kcid";
+    public static final String CLIENT_SECRET = Secrets.toBase64("kcs");
+
+    public static final List<String> METRICS_LABELS = List.of(
+        "cos.bf2.org/organization-id",
+        "cos.bf2.org/pricing-tier");
+    public static final List<String> METRICS_ANNOTATIONS = List.of(
+        "my.cos.bf2.org/connector-group");
+
+    static {
+        // benchmarks must measure the code, not the logging
+        Logger.getLogger("").setLevel(Level.WARNING);
+    }
+
+    private BenchmarkSupport() {
+    }
+
+    public static MetricsRecorderConfig metricsRecorderConfig() {
+        final MetricsRecorderConfig.Tags tags = new MetricsRecorderConfig.Tags() {
+            @Override
+            public Map<String, String> common() {
+                return Map.of();
+            }
+
+            @Override
+            public Optional<List<String>> labels() {
+                return Optional.of(METRICS_LABELS);
+            }
+
+            @Override
+            public Optional<List<String>> annotations() {
+                return Optional.of(METRICS_ANNOTATIONS);
+            }
+        };
+
+        return () -> tags;
+    }
+
+    public static FleetShardOperatorConfig operatorConfig() {
+        final MetricsRecorderConfig recorder = metricsRecorderConfig();
+
+        return new FleetShardOperatorConfig() {
+            @Override
+            public String namespace() {
+                return "cos";
+            }
+
+            @Override
+            public Operator operator() {
+                return new Operator() {
+                    @Override
+                    public String id() {
+                        return OPERATOR_ID;
+                    }
+
+                    @Override
+                    public String version() {
+                        return OPERATOR_VERSION;
+                    }
+                };
+            }
+
+            @Override
+            public Connectors connectors() {
+                return new Connectors() {
+                    @Override
+                    public Optional<Set<String>> targetLabels() {
+                        return Optional.of(Set.copyOf(METRICS_LABELS));
+                    }
+
+                    @Override
+                    public Optional<Set<String>> targetAnnotations() {
+                        return Optional.of(Set.copyOf(METRICS_ANNOTATIONS));
+                    }
+
+                    @Override
+                    public double upgradeEventsPerSecond() {
+                        return 0;
+                    }
+                };
+            }
+
+            @Override
+            public Sharding sharding() {
+                return new Sharding() {
+                    @Override
+                    public boolean enabled() {
+                        return false;
+                    }
+
+                    @Override
+                    public Optional<String> member() {
+                        return Optional.empty();
+                    }
+
+                    @Override
+                    public Duration leaseDuration() {
+                        return Duration.ofSeconds(15);
+                    }
+
+                    @Override
+                    public Duration renewInterval() {
+                        return Duration.ofSeconds(5);
+                    }
+
+                    @Override
+                    public int virtualNodes() {
+                        return 128;
+                    }
+                };
+            }
+
+            @Override
+            public Metrics metrics() {
+                return new Metrics() {
+                    @Override
+                    public String baseName() {
+                        return "cos.fleetshard";
+                    }
+
+                    @Override
+                    public MetricsRecorderConfig recorder() {
+                        return recorder;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @return a connector as created by the synchronizer, assigned to the benchmark operator.
+     */
+    public static ManagedConnector connector() {
+        final ManagedConnector answer = new ManagedConnectorBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withName(Connectors.generateConnectorId(DEPLOYMENT_ID))
+                .withNamespace("mctr-" + CLUSTER_ID)
+                .withUid("51eba005-daft-punk-afe1-b2178bcb523d")
+                .addToLabels("cos.bf2.org/organization-id", "20000000")
+                .addToLabels("cos.bf2.org/pricing-tier", "essential")
+                .addToLabels("cos.bf2.org/operator.type", OPERATOR_TYPE)
+                .addToAnnotations("my.cos.bf2.org/connector-group", "foo")
+                .build())
+            .withSpec(new ManagedConnectorSpecBuilder()
+                .withClusterId(CLUSTER_ID)
+                .withConnectorId(CONNECTOR_ID)
+                .withDeploymentId(DEPLOYMENT_ID)
+                .withOperatorSelector(new OperatorSelectorBuilder()
+                    .withId(OPERATOR_ID)
+                    .withType(OPERATOR_TYPE)
+                    .withVersion("[1.0.0,2.0.0)")
+                    .build())
+                .withDeployment(new DeploymentSpecBuilder()
+                    .withConnectorTypeId(CONNECTOR_TYPE_ID)
+                    .withConnectorResourceVersion(1L)
+                    .withDeploymentResourceVersion(1L)
+                    .withKafka(new KafkaSpecBuilder().withUrl(KAFKA_URL).build())
+                    .withSchemaRegistry(new SchemaRegistrySpecBuilder().withUrl(SCHEMA_REGISTRY_URL).build())
+                    .withDesiredState(DESIRED_STATE_READY)
+                    .withSecret(Secrets.generateConnectorSecretId(DEPLOYMENT_ID))
+                    .withUnitOfWork("uow-1")
+                    .build())
+                .build())
+            .build();
+
+        answer.setStatus(new ManagedConnectorStatus());
+
+        return answer;
+    }
+
+    /**
+     * Create a connector secret as created by the synchronizer.
+     *
+     * @param  meta      the shard metadata
+     * @param  connector the connector configuration
+     * @return           the secret
+     */
+    public static Secret secret(Object meta, Object connector) {
+        final Secret secret = new SecretBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withName(Secrets.generateConnectorSecretId(DEPLOYMENT_ID))
+                .withNamespace("mctr-" + CLUSTER_ID)
+                .build())
+            .build();
+
+        Secrets.set(secret, SECRET_ENTRY_SERVICE_ACCOUNT, new ServiceAccount()
+            .clientId(CLIENT_ID)
+            .clientSecret(CLIENT_SECRET));
+        Secrets.set(secret, SECRET_ENTRY_META, meta);
+        Secrets.set(secret, SECRET_ENTRY_CONNECTOR, connector);
+
+        return secret;
+    }
+}
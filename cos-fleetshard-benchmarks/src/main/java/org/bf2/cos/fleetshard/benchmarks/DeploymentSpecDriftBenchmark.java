@@ -0,0 +1,91 @@
+package org.bf2.cos.fleetshard.benchmarks;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.bf2.cos.fleetshard.api.DeploymentSpec;
+import org.bf2.cos.fleetshard.api.DeploymentSpecBuilder;
+import org.bf2.cos.fleetshard.api.KafkaSpecBuilder;
+import org.bf2.cos.fleetshard.operator.connector.DeploymentSpecDrift;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.zjsonpatch.JsonDiff;
+
+/**
+ * Compares the drift detection performed by the ConnectorController when the deployment of a connector differs from
+ * the one it has been reconciled with: the JSON diff based one it used to perform, and the field-wise one.
+ * </p>
+ * Run with the GC profiler ({@code -prof gc}) to compare the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeploymentSpecDriftBenchmark {
+
+    @Param({ "resync", "upgrade" })
+    public String scenario;
+
+    private DeploymentSpec status;
+    private DeploymentSpec spec;
+
+    @Setup
+    public void setup() {
+        status = deployment(1L, "uow-1");
+
+        switch (scenario) {
+            case "resync":
+                spec = deployment(1L, "uow-2");
+                break;
+            case "upgrade":
+                spec = deployment(2L, "uow-2");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+    }
+
+    @Benchmark
+    public boolean jsonDiff() {
+        JsonNode specNode = Serialization.jsonMapper().valueToTree(spec);
+        JsonNode statusNode = Serialization.jsonMapper().valueToTree(status);
+        JsonNode diff = JsonDiff.asJson(statusNode, specNode);
+
+        return diff.isArray() && diff.size() == 1 && diff.get(0).at("/path").asText().equals("/unitOfWork");
+    }
+
+    @Benchmark
+    public boolean fieldWise() {
+        EnumSet<DeploymentSpecDrift.Field> drift = DeploymentSpecDrift.compare(status, spec);
+
+        return drift.size() == 1 && drift.contains(DeploymentSpecDrift.Field.UNIT_OF_WORK);
+    }
+
+    private static DeploymentSpec deployment(long deploymentResourceVersion, String unitOfWork) {
+        return new DeploymentSpecBuilder()
+            .withConnectorTypeId("connector-type-id")
+            .withConnectorResourceVersion(1L)
+            .withDeploymentResourceVersion(deploymentResourceVersion)
+            .withKafka(new KafkaSpecBuilder().withId("kafka-id").withUrl("kafka.acme.com:443").build())
+            .withDesiredState("ready")
+            .withSecret("connector-secret")
+            .withConfigMapChecksum("cafebabe")
+            .withUnitOfWork(unitOfWork)
+            .build();
+    }
+}
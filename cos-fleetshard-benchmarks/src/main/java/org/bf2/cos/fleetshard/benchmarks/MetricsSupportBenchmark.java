@@ -0,0 +1,57 @@
+package org.bf2.cos.fleetshard.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.support.metrics.MetricsRecorderConfig;
+import org.bf2.cos.fleetshard.support.metrics.MetricsSupport;
+import org.bf2.cos.fleetshard.support.metrics.ResourceAwareMetricsRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Computation of the metrics tags of a resource, performed each time a metric is recorded for a connector, and the
+ * overall overhead of recording a connector metric.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsSupportBenchmark {
+
+    private MetricsRecorderConfig config;
+    private ManagedConnector connector;
+    private ResourceAwareMetricsRecorder recorder;
+
+    @Setup
+    public void setup() {
+        config = BenchmarkSupport.metricsRecorderConfig();
+        connector = BenchmarkSupport.connector();
+        connector.getMetadata().setResourceVersion("1");
+        recorder = ResourceAwareMetricsRecorder.of(config, new SimpleMeterRegistry(), "cos.fleetshard.benchmark");
+    }
+
+    @Benchmark
+    public List<Tag> tags() {
+        return MetricsSupport.tags(config, connector);
+    }
+
+    @Benchmark
+    public Integer record() {
+        return recorder.recordCallable(connector, () -> 1, ".Monitor");
+    }
+}
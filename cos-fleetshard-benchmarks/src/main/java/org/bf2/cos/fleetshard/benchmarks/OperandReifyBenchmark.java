@@ -0,0 +1,256 @@
+package org.bf2.cos.fleetshard.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.operator.FleetShardOperatorConfig;
+import org.bf2.cos.fleetshard.operator.camel.CamelOperandConfiguration;
+import org.bf2.cos.fleetshard.operator.camel.CamelOperandController;
+import org.bf2.cos.fleetshard.operator.camel.model.CamelShardMetadata;
+import org.bf2.cos.fleetshard.operator.camel.model.EndpointKamelet;
+import org.bf2.cos.fleetshard.operator.debezium.DebeziumOperandConfiguration;
+import org.bf2.cos.fleetshard.operator.debezium.DebeziumOperandController;
+import org.bf2.cos.fleetshard.operator.debezium.DebeziumShardMetadata;
+import org.bf2.cos.fleetshard.support.resources.Secrets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.LocalObjectReference;
+import io.fabric8.kubernetes.api.model.Secret;
+
+/**
+ * Generation of the operand resources of a connector by the camel and debezium operators, from the connector secret
+ * to the list of resources to apply. The kubernetes client is not involved in the reify phase, hence it is not set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperandReifyBenchmark {
+
+    private ManagedConnector connector;
+
+    private CamelOperandController camel;
+    private Secret camelSecret;
+
+    private DebeziumOperandController debezium;
+    private Secret debeziumSecret;
+
+    @Setup
+    public void setup() {
+        final FleetShardOperatorConfig config = BenchmarkSupport.operatorConfig();
+
+        connector = BenchmarkSupport.connector();
+
+        final CamelShardMetadata camelMeta = new CamelShardMetadata();
+        camelMeta.setConnectorImage("quay.io/mcs/cos-connector-aws-kinesis:1");
+        camelMeta.setConnectorType("source");
+        camelMeta.getKamelets().setAdapter(new EndpointKamelet("aws-kinesis-source", "aws"));
+        camelMeta.getKamelets().setKafka(new EndpointKamelet("cos-kafka-sink", "kafka"));
+
+        camel = new CamelOperandController(config, null, camelConfiguration());
+        camelSecret = BenchmarkSupport.secret(
+            camelMeta,
+            Map.of(
+                "kafka_topic", "kafka-foo",
+                "aws_foo", "aws-foo",
+                "aws_foo_bar", "aws-foo-bar",
+                "aws_bar", Map.of("kind", "base64", "value", Secrets.toBase64("bar")),
+                "processors", List.of(
+                    Map.of("transform", Map.of("jq", "{\"field\": .field, \"foo_field\": .foo}"))),
+                "data_shape", Map.of(
+                    "produces", Map.of("format", "application/json"),
+                    "consumes", Map.of("format", "application/json"))));
+
+        final DebeziumShardMetadata debeziumMeta = new DebeziumShardMetadata();
+        debeziumMeta.setContainerImage("quay.io/cos/pg:1");
+        debeziumMeta.setConnectorClass("io.debezium.connector.postgresql.PostgresConnector");
+
+        debezium = new DebeziumOperandController(config, null, debeziumConfiguration());
+        debeziumSecret = BenchmarkSupport.secret(
+            debeziumMeta,
+            Map.ofEntries(
+                Map.entry("database.hostname", "orderdb"),
+                Map.entry("database.port", "5432"),
+                Map.entry("database.user", "orderuser"),
+                Map.entry("database.dbname", "orderdb"),
+                Map.entry("database.server.name", "dbserver1"),
+                Map.entry("database.password", Map.of("kind", "base64", "value", Secrets.toBase64("orderpw"))),
+                Map.entry("schema.include.list", "purchaseorder"),
+                Map.entry("table.include.list", "purchaseorder.outboxevent"),
+                Map.entry("tombstones.on.delete", "false"),
+                Map.entry("poll.interval.ms", "100"),
+                Map.entry("data_shape", Map.of("key", "JSON", "value", "JSON"))));
+    }
+
+    @Benchmark
+    public List<HasMetadata> camel() {
+        return camel.reify(connector, camelSecret, null);
+    }
+
+    @Benchmark
+    public List<HasMetadata> debezium() {
+        return debezium.reify(connector, debeziumSecret, null);
+    }
+
+    private static CamelOperandConfiguration camelConfiguration() {
+        return new CamelOperandConfiguration() {
+            @Override
+            public LabelSelection labelSelection() {
+                return () -> true;
+            }
+
+            @Override
+            public RouteController routeController() {
+                return new RouteController() {
+                    @Override
+                    public String backoffDelay() {
+                        return "10s";
+                    }
+
+                    @Override
+                    public String initialDelay() {
+                        return "0s";
+                    }
+
+                    @Override
+                    public String backoffMultiplier() {
+                        return "1";
+                    }
+
+                    @Override
+                    public String backoffMaxAttempts() {
+                        return "6";
+                    }
+                };
+            }
+
+            @Override
+            public Health health() {
+                return new Health() {
+                    @Override
+                    public String livenessSuccessThreshold() {
+                        return "1";
+                    }
+
+                    @Override
+                    public String livenessFailureThreshold() {
+                        return "3";
+                    }
+
+                    @Override
+                    public String livenessPeriodSeconds() {
+                        return "10";
+                    }
+
+                    @Override
+                    public String livenessTimeoutSeconds() {
+                        return "1";
+                    }
+
+                    @Override
+                    public String readinessSuccessThreshold() {
+                        return "1";
+                    }
+
+                    @Override
+                    public String readinessFailureThreshold() {
+                        return "3";
+                    }
+
+                    @Override
+                    public String readinessPeriodSeconds() {
+                        return "10";
+                    }
+
+                    @Override
+                    public String readinessTimeoutSeconds() {
+                        return "1";
+                    }
+                };
+            }
+
+            @Override
+            public ExchangePooling exchangePooling() {
+                return new ExchangePooling() {
+                    @Override
+                    public String exchangeFactory() {
+                        return "prototype";
+                    }
+
+                    @Override
+                    public String exchangeFactoryCapacity() {
+                        return "100";
+                    }
+
+                    @Override
+                    public String exchangeFactoryStatisticsEnabled() {
+                        return "false";
+                    }
+                };
+            }
+
+            @Override
+            public Connectors connectors() {
+                return new Connectors() {
+                    @Override
+                    public Map<String, ConnectorConfiguration> types() {
+                        return Map.of();
+                    }
+
+                    @Override
+                    public Processors processors() {
+                        return () -> true;
+                    }
+
+                    @Override
+                    public Map<String, String> traits() {
+                        return Map.of();
+                    }
+                };
+            }
+        };
+    }
+
+    private static DebeziumOperandConfiguration debeziumConfiguration() {
+        return new DebeziumOperandConfiguration() {
+            @Override
+            public LocalObjectReference imagePullSecretsName() {
+                return new LocalObjectReference("my-pullsecret");
+            }
+
+            @Override
+            public String apicurioAuthServiceUrl() {
+                return "https://identity.api.openshift.com/myauth";
+            }
+
+            @Override
+            public String apicurioAuthRealm() {
+                return "my-rhoas";
+            }
+
+            @Override
+            public KafkaConnect kafkaConnect() {
+                return Map::of;
+            }
+
+            @Override
+            public KafkaConnector kafkaConnector() {
+                return Map::of;
+            }
+        };
+    }
+}
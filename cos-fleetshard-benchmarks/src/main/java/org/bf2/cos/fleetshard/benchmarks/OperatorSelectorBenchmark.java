@@ -0,0 +1,89 @@
+package org.bf2.cos.fleetshard.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorSpecBuilder;
+import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.api.OperatorSelector;
+import org.bf2.cos.fleetshard.api.OperatorSelectorBuilder;
+import org.bf2.cos.fleetshard.operator.client.OperatorIndex;
+import org.bf2.cos.fleetshard.support.OperatorSelectorUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+
+/**
+ * Selection of the operator a connector should be assigned to, with a linear scan that parses versions on each call,
+ * as done by {@link OperatorSelectorUtil}, and with the pre-sorted {@link OperatorIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorSelectorBenchmark {
+
+    @Param({ "4", "64" })
+    public int operators;
+
+    private List<Operator> list;
+    private OperatorIndex index;
+    private OperatorSelector selector;
+
+    @Setup
+    public void setup() {
+        list = new ArrayList<>(operators);
+        index = new OperatorIndex();
+
+        for (int i = 0; i < operators; i++) {
+            // half of the operators are of another type, the others span several minor versions
+            final String type = i % 2 == 0 ? BenchmarkSupport.OPERATOR_TYPE : "debezium-connector-operator";
+            final String version = "1." + (i / 2) + ".0";
+
+            final ManagedConnectorOperator mco = new ManagedConnectorOperatorBuilder()
+                .withMetadata(new ObjectMetaBuilder()
+                    .withName("operator-" + i)
+                    .withNamespace("cos")
+                    .build())
+                .withSpec(new ManagedConnectorOperatorSpecBuilder()
+                    .withType(type)
+                    .withVersion(version)
+                    .build())
+                .build();
+
+            list.add(new Operator(mco.getMetadata().getName(), type, version));
+            index.onAdd(mco);
+        }
+
+        selector = new OperatorSelectorBuilder()
+            .withType(BenchmarkSupport.OPERATOR_TYPE)
+            .withVersion("[1.0.0,2.0.0)")
+            .build();
+    }
+
+    @Benchmark
+    public Optional<Operator> scan() {
+        return OperatorSelectorUtil.available(selector, list);
+    }
+
+    @Benchmark
+    public Optional<Operator> index() {
+        return index.available(selector);
+    }
+}
@@ -0,0 +1,64 @@
+package org.bf2.cos.fleetshard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bf2.cos.fleet.manager.model.ServiceAccount;
+import org.bf2.cos.fleetshard.support.resources.Secrets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import static org.bf2.cos.fleetshard.support.resources.Secrets.SECRET_ENTRY_CONNECTOR;
+import static org.bf2.cos.fleetshard.support.resources.Secrets.SECRET_ENTRY_SERVICE_ACCOUNT;
+
+/**
+ * Decoding of the entries of a connector secret and computation of its checksum, both performed on every
+ * augmentation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecretsBenchmark {
+
+    private Secret secret;
+
+    @Setup
+    public void setup() {
+        final ObjectNode connector = Serialization.jsonMapper().createObjectNode();
+        for (int i = 0; i < 32; i++) {
+            connector.put("aws_property_" + i, "value-" + i);
+        }
+
+        secret = BenchmarkSupport.secret(Serialization.jsonMapper().createObjectNode(), connector);
+    }
+
+    @Benchmark
+    public ObjectNode extractTree() {
+        return Secrets.extract(secret, SECRET_ENTRY_CONNECTOR);
+    }
+
+    @Benchmark
+    public ServiceAccount extractType() {
+        return Secrets.extract(secret, SECRET_ENTRY_SERVICE_ACCOUNT, ServiceAccount.class);
+    }
+
+    @Benchmark
+    public String computeChecksum() {
+        return Secrets.computeChecksum(secret);
+    }
+}
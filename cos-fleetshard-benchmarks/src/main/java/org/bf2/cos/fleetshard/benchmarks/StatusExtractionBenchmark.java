@@ -0,0 +1,72 @@
+package org.bf2.cos.fleetshard.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bf2.cos.fleet.manager.model.ConnectorDeploymentStatus;
+import org.bf2.cos.fleetshard.api.ConnectorStatusSpecBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.ManagedConnectorStatus;
+import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.sync.resources.ConnectorStatusExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fabric8.kubernetes.api.model.Condition;
+import io.fabric8.kubernetes.api.model.ConditionBuilder;
+
+/**
+ * Extraction of the status reported to the Control Plane from a connector, performed for every connector on each
+ * status sync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusExtractionBenchmark {
+
+    private ManagedConnector connector;
+
+    @Setup
+    public void setup() {
+        final List<Condition> conditions = new ArrayList<>();
+        for (String type : List.of("Ready", "Augmentation", "Monitor", "Resync")) {
+            conditions.add(new ConditionBuilder()
+                .withType(type)
+                .withStatus("True")
+                .withReason(type)
+                .withMessage(type)
+                .withLastTransitionTime("2023-01-01T00:00:00Z")
+                .build());
+        }
+
+        connector = BenchmarkSupport.connector();
+        connector.getStatus().setPhase(ManagedConnectorStatus.PhaseType.Monitor);
+        connector.getStatus().setDeployment(connector.getSpec().getDeployment());
+        connector.getStatus().setConnectorStatus(new ConnectorStatusSpecBuilder()
+            .withPhase("ready")
+            .withConditions(conditions)
+            .withAssignedOperator(new Operator(
+                BenchmarkSupport.OPERATOR_ID,
+                BenchmarkSupport.OPERATOR_TYPE,
+                BenchmarkSupport.OPERATOR_VERSION))
+            .withAvailableOperator(new Operator())
+            .build());
+    }
+
+    @Benchmark
+    public ConnectorDeploymentStatus extract() {
+        return ConnectorStatusExtractor.extract(connector);
+    }
+}
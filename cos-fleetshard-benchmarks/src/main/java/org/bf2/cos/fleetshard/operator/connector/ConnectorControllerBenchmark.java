@@ -0,0 +1,204 @@
+package org.bf2.cos.fleetshard.operator.connector;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorSpecBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorStatus;
+import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.api.OperatorSelector;
+import org.bf2.cos.fleetshard.benchmarks.BenchmarkSupport;
+import org.bf2.cos.fleetshard.operator.client.FleetShardClient;
+import org.bf2.cos.fleetshard.operator.operand.OperandController;
+import org.bf2.cos.fleetshard.operator.operand.OperandResourceApplier;
+import org.bf2.cos.fleetshard.support.resources.ConfigMaps;
+import org.bf2.cos.fleetshard.support.resources.Resources;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+import io.javaoperatorsdk.operator.api.reconciler.UpdateControl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The reconcile loop of the {@link ConnectorController}, one phase at a time, against in-memory collaborators: the
+ * secret and config map are served as if they were in the informer caches, the operand resources are generated by a
+ * canned {@link OperandController} and their apply is skipped as if they were unchanged.
+ * </p>
+ * This benchmark lives in the package of the controller to be able to wire its collaborators without CDI.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectorControllerBenchmark {
+
+    @Param({ "Initialization", "Augmentation", "Monitor" })
+    public String phase;
+
+    private ConnectorController controller;
+    private ManagedConnector connector;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final ManagedConnectorOperator mco = new ManagedConnectorOperatorBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withName(BenchmarkSupport.OPERATOR_ID)
+                .withNamespace("cos")
+                .build())
+            .withSpec(new ManagedConnectorOperatorSpecBuilder()
+                .withType(BenchmarkSupport.OPERATOR_TYPE)
+                .withVersion(BenchmarkSupport.OPERATOR_VERSION)
+                .build())
+            .build();
+
+        final ConnectorShards shards = new ConnectorShards();
+        shards.config = BenchmarkSupport.operatorConfig();
+
+        controller = new ConnectorController();
+        controller.managedConnectorOperator = mco;
+        controller.fleetShard = new InMemoryFleetShardClient(mco);
+        controller.operandController = new CannedOperandController();
+        controller.operandApplier = new UnchangedOperandResourceApplier();
+        controller.shards = shards;
+        controller.registry = new SimpleMeterRegistry();
+        controller.config = BenchmarkSupport.operatorConfig();
+        controller.setUp();
+    }
+
+    /**
+     * Each reconcile moves the connector to the next phase, so a new connector is brought to the benchmarked phase
+     * before each invocation.
+     */
+    @Setup(Level.Invocation)
+    public void prepare() {
+        final ManagedConnectorStatus.PhaseType target = ManagedConnectorStatus.PhaseType.valueOf(phase);
+
+        connector = BenchmarkSupport.connector();
+
+        for (int i = 0; connector.getStatus().getPhase() != target; i++) {
+            if (i > target.ordinal()) {
+                throw new IllegalStateException("Unable to reach phase " + target + ": " + connector.getStatus());
+            }
+
+            controller.reconcile(connector, null);
+        }
+    }
+
+    @Benchmark
+    public UpdateControl<ManagedConnector> reconcile() {
+        return controller.reconcile(connector, null);
+    }
+
+    private static class InMemoryFleetShardClient extends FleetShardClient {
+        private final Secret secret;
+        private final ConfigMap configMap;
+        private final Optional<Operator> operator;
+
+        InMemoryFleetShardClient(ManagedConnectorOperator mco) {
+            final ManagedConnector connector = BenchmarkSupport.connector();
+
+            this.secret = new SecretBuilder(BenchmarkSupport.secret(Map.of(), Map.of()))
+                .editMetadata()
+                .addToLabels(Resources.LABEL_UOW, connector.getSpec().getDeployment().getUnitOfWork())
+                .endMetadata()
+                .build();
+            this.configMap = new ConfigMapBuilder()
+                .withMetadata(new ObjectMetaBuilder()
+                    .withName(ConfigMaps.generateConnectorConfigMapId(connector.getSpec().getDeploymentId()))
+                    .withNamespace(connector.getMetadata().getNamespace())
+                    .build())
+                .build();
+            this.operator = Optional.of(new Operator(
+                mco.getMetadata().getName(),
+                mco.getSpec().getType(),
+                mco.getSpec().getVersion()));
+        }
+
+        @Override
+        public Secret getSecret(String namespace, String name) {
+            return secret;
+        }
+
+        @Override
+        public ConfigMap getConfigMap(String namespace, String name) {
+            return configMap;
+        }
+
+        @Override
+        public Optional<Operator> lookupAvailableOperator(OperatorSelector selector) {
+            return operator;
+        }
+    }
+
+    private static class CannedOperandController implements OperandController {
+        @Override
+        public List<ResourceDefinitionContext> getResourceTypes() {
+            return List.of();
+        }
+
+        @Override
+        public List<HasMetadata> reify(ManagedConnector connector, Secret secret, ConfigMap configMap) {
+            return List.of(
+                new GenericKubernetesResourceBuilder()
+                    .withApiVersion("camel.apache.org/v1alpha1")
+                    .withKind("KameletBinding")
+                    .withMetadata(new ObjectMetaBuilder()
+                        .withName(connector.getMetadata().getName())
+                        .build())
+                    .build(),
+                new SecretBuilder()
+                    .withMetadata(new ObjectMetaBuilder()
+                        .withName(connector.getMetadata().getName() + "-config")
+                        .build())
+                    .addToData("application.properties", "")
+                    .build());
+        }
+
+        @Override
+        public void status(ManagedConnector connector) {
+            // the operand status is left untouched
+        }
+
+        @Override
+        public boolean stop(ManagedConnector connector) {
+            return true;
+        }
+
+        @Override
+        public boolean delete(ManagedConnector connector) {
+            return true;
+        }
+    }
+
+    private static class UnchangedOperandResourceApplier extends OperandResourceApplier {
+        @Override
+        public boolean apply(String namespace, HasMetadata resource, boolean force) {
+            return false;
+        }
+    }
+}
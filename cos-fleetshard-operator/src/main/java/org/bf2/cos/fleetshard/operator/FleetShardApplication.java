@@ -15,7 +15,7 @@ public class FleetShardApplication {
     FleetShardOperator operator;
 
     void onStart(
-        @Observes @Priority(Interceptor.Priority.APPLICATION + 10) StartupEvent ignored) {
+        @Observes @Priority(Interceptor.Priority.APPLICATION + 10) StartupEvent ignored) throws Exception {
         operator.start();
     }
 
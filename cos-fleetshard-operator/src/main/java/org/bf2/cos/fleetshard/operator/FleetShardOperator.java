@@ -6,9 +6,12 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.operator.client.FleetShardClient;
 import org.bf2.cos.fleetshard.operator.connector.ConnectorConfigMapWatcher;
+import org.bf2.cos.fleetshard.operator.connector.ConnectorShards;
 import org.bf2.cos.fleetshard.support.client.EventClient;
 import org.bf2.cos.fleetshard.support.metrics.ResourceAwareMetricsRecorder;
+import org.bf2.cos.fleetshard.support.resources.Resources;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,10 +36,14 @@ public class FleetShardOperator {
     EventClient eventClient;
     @Inject
     MeterRegistry registry;
+    @Inject
+    FleetShardClient fleetShard;
+    @Inject
+    ConnectorShards shards;
 
     private ConnectorConfigMapWatcher configMapWatcher;
 
-    public void start() {
+    public void start() throws Exception {
         LOGGER.info("Starting operator (id: {}, type: {}, version: {})",
             managedConnectorOperator.getMetadata().getName(),
             managedConnectorOperator.getSpec().getType(),
@@ -63,6 +70,8 @@ public class FleetShardOperator {
 
         configMapWatcher.start();
 
+        fleetShard.start();
+        shards.start();
         operator.start();
     }
 
@@ -77,5 +86,8 @@ public class FleetShardOperator {
         }
 
         operator.stop();
+
+        Resources.closeQuietly(shards);
+        Resources.closeQuietly(fleetShard);
     }
 }
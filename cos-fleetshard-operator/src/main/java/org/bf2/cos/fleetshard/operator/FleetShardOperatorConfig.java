@@ -1,5 +1,6 @@
 package org.bf2.cos.fleetshard.operator;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.Set;
 
@@ -39,6 +40,13 @@ public interface FleetShardOperatorConfig {
      */
     Metrics metrics();
 
+    /**
+     * Sharding configuration options.
+     *
+     * @return {@link Sharding}
+     */
+    Sharding sharding();
+
     interface Operator {
         /**
          * The ID assigned to the operator.
@@ -73,6 +81,59 @@ public interface FleetShardOperatorConfig {
          * @return the list fo annotations
          */
         Optional<Set<String>> targetAnnotations();
+
+        /**
+         * Determine the maximum number of reconcile events per second triggered for connectors that may be upgraded
+         * when a new operator is installed, a value lower or equal to zero means unlimited.
+         *
+         * @return the number of events per second
+         */
+        @WithDefault("50")
+        double upgradeEventsPerSecond();
+    }
+
+    interface Sharding {
+        /**
+         * Determine if the connectors should be split among the replicas of this operator, each replica reconciling
+         * only the connectors it owns according to a consistent hash of their namespace and name.
+         *
+         * @return true if sharding is enabled
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * The identity of this replica, defaults to the host name which, on Kubernetes, is the name of the pod.
+         *
+         * @return the identity of this replica
+         */
+        Optional<String> member();
+
+        /**
+         * Determine how long the lease of a replica is valid if not renewed, after which the connectors owned by that
+         * replica are re-distributed among the remaining ones.
+         *
+         * @return the lease duration
+         */
+        @WithDefault("15s")
+        Duration leaseDuration();
+
+        /**
+         * Determine how often a replica renews its lease and re-evaluates the set of live replicas.
+         *
+         * @return the renew interval
+         */
+        @WithDefault("5s")
+        Duration renewInterval();
+
+        /**
+         * Determine how many times each replica is placed on the hash ring, the higher the value the more evenly the
+         * connectors are spread.
+         *
+         * @return the number of virtual nodes per replica
+         */
+        @WithDefault("128")
+        int virtualNodes();
     }
 
     interface Metrics {
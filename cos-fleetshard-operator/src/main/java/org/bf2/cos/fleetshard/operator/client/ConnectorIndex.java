@@ -0,0 +1,166 @@
+package org.bf2.cos.fleetshard.operator.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.api.Version;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+
+/**
+ * Keeps the known {@link ManagedConnector}s grouped by the type of the assigned operator and, for each type, sorted
+ * by the version of the assigned operator, as notified by an informer.
+ * </p>
+ * This makes it possible to find the connectors that may be upgraded when a new operator is installed without
+ * scanning, or listing, all the connectors. Connectors that have no assigned operator, or whose assigned operator has
+ * an unsupported version format, are not indexed.
+ */
+public class ConnectorIndex implements ResourceEventHandler<ManagedConnector> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectorIndex.class);
+
+    private final Map<ResourceID, Key> keys;
+    private final Map<String, NavigableMap<Version, Set<ResourceID>>> byType;
+
+    public ConnectorIndex() {
+        this.keys = new ConcurrentHashMap<>();
+        this.byType = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Find the connectors assigned to an operator of the given type with a version lower than the given one.
+     *
+     * @param  type    the operator type
+     * @param  version the operator version
+     * @return         the id of the matching connectors
+     */
+    public List<ResourceID> assignedBefore(String type, Version version) {
+        final NavigableMap<Version, Set<ResourceID>> versions = byType.get(type);
+        if (versions == null) {
+            return List.of();
+        }
+
+        final List<ResourceID> answer = new ArrayList<>();
+        for (Collection<ResourceID> ids : versions.headMap(version, false).values()) {
+            answer.addAll(ids);
+        }
+
+        return answer;
+    }
+
+    @Override
+    public void onAdd(ManagedConnector obj) {
+        index(obj);
+    }
+
+    @Override
+    public void onUpdate(ManagedConnector oldObj, ManagedConnector newObj) {
+        index(newObj);
+    }
+
+    @Override
+    public void onDelete(ManagedConnector obj, boolean deletedFinalStateUnknown) {
+        final ResourceID id = ResourceID.fromResource(obj);
+
+        synchronized (this) {
+            remove(id, keys.remove(id));
+        }
+    }
+
+    private synchronized void index(ManagedConnector connector) {
+        final ResourceID id = ResourceID.fromResource(connector);
+        final Key key = Key.of(connector);
+        final Key old = key != null ? keys.put(id, key) : keys.remove(id);
+
+        if (Objects.equals(old, key)) {
+            return;
+        }
+
+        remove(id, old);
+
+        if (key != null) {
+            byType.computeIfAbsent(key.type, k -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(key.version, k -> ConcurrentHashMap.newKeySet())
+                .add(id);
+        }
+    }
+
+    private void remove(ResourceID id, Key key) {
+        if (key == null) {
+            return;
+        }
+
+        final NavigableMap<Version, Set<ResourceID>> versions = byType.get(key.type);
+        if (versions == null) {
+            return;
+        }
+
+        final Set<ResourceID> ids = versions.get(key.version);
+        if (ids != null) {
+            ids.remove(id);
+
+            if (ids.isEmpty()) {
+                versions.remove(key.version);
+            }
+        }
+    }
+
+    private static final class Key {
+        final String type;
+        final Version version;
+
+        Key(String type, Version version) {
+            this.type = type;
+            this.version = version;
+        }
+
+        static Key of(ManagedConnector connector) {
+            if (connector.getStatus() == null || connector.getStatus().getConnectorStatus() == null) {
+                return null;
+            }
+
+            final Operator assigned = connector.getStatus().getConnectorStatus().getAssignedOperator();
+            if (assigned == null || assigned.getType() == null || assigned.getVersion() == null) {
+                return null;
+            }
+
+            try {
+                return new Key(assigned.getType(), new Version(assigned.getVersion()));
+            } catch (IllegalArgumentException e) {
+                LOGGER.debug("Unsupported operator version {} assigned to connector {}/{}",
+                    assigned.getVersion(),
+                    connector.getMetadata().getNamespace(),
+                    connector.getMetadata().getName());
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(type, key.type) && Objects.equals(version, key.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, version);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package org.bf2.cos.fleetshard.operator.client;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -11,18 +13,116 @@ import javax.inject.Inject;
 import org.bf2.cos.fleetshard.api.ManagedConnector;
 import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
 import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.api.OperatorSelector;
+import org.bf2.cos.fleetshard.api.Version;
 import org.bf2.cos.fleetshard.operator.FleetShardOperatorConfig;
+import org.bf2.cos.fleetshard.operator.operand.OperandController;
+import org.bf2.cos.fleetshard.support.Service;
+import org.bf2.cos.fleetshard.support.resources.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
 
 @ApplicationScoped
-public class FleetShardClient {
+public class FleetShardClient implements Service {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FleetShardClient.class);
 
     @Inject
     KubernetesClient kubernetesClient;
     @Inject
     FleetShardOperatorConfig config;
+    @Inject
+    ManagedConnectorOperator managedConnectorOperator;
+    @Inject
+    OperandController operandController;
+
+    private final OperatorIndex operators = new OperatorIndex();
+    private final ConnectorIndex connectors = new ConnectorIndex();
+
+    private volatile SharedIndexInformer<ManagedConnectorOperator> operatorsInformer;
+    private volatile SharedIndexInformer<ManagedConnector> connectorsInformer;
+    volatile SharedIndexInformer<Secret> secretsInformer;
+    volatile SharedIndexInformer<ConfigMap> configMapsInformer;
+    final Map<String, SharedIndexInformer<GenericKubernetesResource>> operandsInformers = new ConcurrentHashMap<>();
+
+    @Override
+    public void start() throws Exception {
+        LOGGER.info("Starting FleetShardClient");
+
+        operatorsInformer = kubernetesClient.resources(ManagedConnectorOperator.class)
+            .inNamespace(getNamespace())
+            .inform(operators);
+        connectorsInformer = kubernetesClient.resources(ManagedConnector.class)
+            .inAnyNamespace()
+            .withLabel(Resources.LABEL_OPERATOR_TYPE, managedConnectorOperator.getSpec().getType())
+            .inform(connectors);
+
+        // the connector secrets selected by ConnectorSecretEventSource and the secrets generated for the operands are
+        // both labeled with the operator type, so a single informer serves them all
+        secretsInformer = kubernetesClient.secrets()
+            .inAnyNamespace()
+            .withLabel(Resources.LABEL_OPERATOR_TYPE, managedConnectorOperator.getSpec().getType())
+            .inform();
+        configMapsInformer = kubernetesClient.configMaps()
+            .inAnyNamespace()
+            .withLabel(Resources.LABEL_OPERATOR_TYPE, managedConnectorOperator.getSpec().getType())
+            .inform();
+
+        exitOnFailure(operatorsInformer, "Operators");
+        exitOnFailure(connectorsInformer, "Connectors");
+        exitOnFailure(secretsInformer, "Secrets");
+        exitOnFailure(configMapsInformer, "ConfigMaps");
+
+        // same selectors as the OperandResourceWatcher
+        for (ResourceDefinitionContext type : operandController.getResourceTypes()) {
+            final String apiVersion = apiVersion(type);
+
+            if (isSecret(apiVersion, type.getKind()) || isConfigMap(apiVersion, type.getKind())) {
+                continue;
+            }
+
+            final SharedIndexInformer<GenericKubernetesResource> informer = kubernetesClient
+                .genericKubernetesResources(type)
+                .inAnyNamespace()
+                .withLabel(Resources.LABEL_OPERATOR_OWNER, managedConnectorOperator.getMetadata().getName())
+                .withLabel(Resources.LABEL_OPERATOR_TYPE, managedConnectorOperator.getSpec().getType())
+                .inform();
+
+            exitOnFailure(informer, type.getKind());
+
+            operandsInformers.put(apiVersion + "/" + type.getKind(), informer);
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        Resources.closeQuietly(operatorsInformer);
+        Resources.closeQuietly(connectorsInformer);
+        Resources.closeQuietly(secretsInformer);
+        Resources.closeQuietly(configMapsInformer);
+
+        operandsInformers.values().forEach(Resources::closeQuietly);
+        operandsInformers.clear();
+    }
+
+    @SuppressWarnings("PMD.DoNotTerminateVM")
+    private static void exitOnFailure(SharedIndexInformer<?> informer, String type) {
+        informer.stopped().whenComplete((unused, throwable) -> {
+            if (throwable != null) {
+                LOGGER.warn("{} informer has stopped working, exiting", type, throwable);
+                System.exit(-1);
+            }
+        });
+    }
 
     public String getNamespace() {
         return config.namespace();
@@ -32,27 +132,131 @@ public class FleetShardClient {
         return kubernetesClient;
     }
 
+    /**
+     * @return the known operators, as seen by the operators informer.
+     */
     public List<Operator> lookupOperators() {
-        return kubernetesClient.resources(ManagedConnectorOperator.class)
-            .inNamespace(getNamespace())
-            .list()
-            .getItems()
-            .stream()
-            .map(mco -> new Operator(
-                mco.getMetadata().getName(),
-                mco.getSpec().getType(),
-                mco.getSpec().getVersion()))
-            .collect(Collectors.toList());
+        return operators.list();
     }
 
+    /**
+     * Find the operator with the highest version that matches the given selector, as seen by the operators informer.
+     *
+     * @param  selector the selector
+     * @return          the matching operator, if any
+     */
+    public Optional<Operator> lookupAvailableOperator(OperatorSelector selector) {
+        return operators.available(selector);
+    }
+
+    /**
+     * @return the connectors handled by operators of the same type of this operator, as seen by the connectors
+     *         informer.
+     */
     public List<ManagedConnector> lookupManagedConnectors() {
-        List<ManagedConnector> answer = kubernetesClient
-            .resources(ManagedConnector.class)
-            .inAnyNamespace()
-            .list()
-            .getItems();
+        return connectorsInformer != null
+            ? connectorsInformer.getIndexer().list()
+            : Collections.emptyList();
+    }
+
+    /**
+     * Find the connectors assigned to an operator of the given type with a version lower than the given one, as seen by
+     * the connectors informer.
+     *
+     * @param  type    the operator type
+     * @param  version the operator version
+     * @return         the id of the matching connectors
+     */
+    public List<ResourceID> lookupConnectorsAssignedBefore(String type, Version version) {
+        return connectors.assignedBefore(type, version);
+    }
+
+    /**
+     * Lookup a connector secret from the secrets informer cache.
+     * </p>
+     * The API server is queried only if the cache is not yet available, as any secret created or updated afterwards
+     * triggers a new reconciliation through the ConnectorSecretEventSource.
+     *
+     * @param  namespace the namespace
+     * @param  name      the name
+     * @return           the secret or null if not found
+     */
+    public Secret getSecret(String namespace, String name) {
+        final SharedIndexInformer<Secret> informer = secretsInformer;
+
+        if (informer == null || !informer.hasSynced()) {
+            return kubernetesClient.secrets().inNamespace(namespace).withName(name).get();
+        }
+
+        return informer.getStore().getByKey(Cache.namespaceKeyFunc(namespace, name));
+    }
+
+    /**
+     * Lookup a connector config map from the config maps informer cache, falling back to the API server on a cache
+     * miss as the config map may have been just created and not yet been notified to the informer.
+     *
+     * @param  namespace the namespace
+     * @param  name      the name
+     * @return           the config map or null if not found
+     */
+    public ConfigMap getConfigMap(String namespace, String name) {
+        final SharedIndexInformer<ConfigMap> informer = configMapsInformer;
+
+        if (informer != null && informer.hasSynced()) {
+            ConfigMap answer = informer.getStore().getByKey(Cache.namespaceKeyFunc(namespace, name));
+            if (answer != null) {
+                return answer;
+            }
+        }
+
+        return kubernetesClient.configMaps().inNamespace(namespace).withName(name).get();
+    }
+
+    /**
+     * Lookup a resource generated for a connector by this operator from an informer cache. Secrets and config maps are
+     * served by the typed informers, the other resource types by the informers created on startup for the types
+     * declared by the {@link OperandController}. The API server is queried for any other type, or if the cache is not
+     * yet available.
+     *
+     * @param  apiVersion the api version
+     * @param  kind       the kind
+     * @param  namespace  the namespace
+     * @param  name       the name
+     * @return            the resource or null if not found
+     */
+    public HasMetadata lookupOperandResource(String apiVersion, String kind, String namespace, String name) {
+        final SharedIndexInformer<? extends HasMetadata> informer;
+
+        if (isSecret(apiVersion, kind)) {
+            informer = secretsInformer;
+        } else if (isConfigMap(apiVersion, kind)) {
+            informer = configMapsInformer;
+        } else {
+            informer = operandsInformers.get(apiVersion + "/" + kind);
+        }
+
+        if (informer == null || !informer.hasSynced()) {
+            return kubernetesClient.genericKubernetesResources(apiVersion, kind)
+                .inNamespace(namespace)
+                .withName(name)
+                .get();
+        }
+
+        return informer.getStore().getByKey(Cache.namespaceKeyFunc(namespace, name));
+    }
+
+    private static String apiVersion(ResourceDefinitionContext type) {
+        return type.getGroup() == null || type.getGroup().isEmpty()
+            ? type.getVersion()
+            : type.getGroup() + "/" + type.getVersion();
+    }
+
+    private static boolean isSecret(String apiVersion, String kind) {
+        return "v1".equals(apiVersion) && "Secret".equals(kind);
+    }
 
-        return answer != null ? answer : Collections.emptyList();
+    private static boolean isConfigMap(String apiVersion, String kind) {
+        return "v1".equals(apiVersion) && "ConfigMap".equals(kind);
     }
 
     public ManagedConnector create(ManagedConnector connector) {
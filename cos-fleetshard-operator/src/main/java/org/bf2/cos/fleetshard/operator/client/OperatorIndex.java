@@ -0,0 +1,137 @@
+package org.bf2.cos.fleetshard.operator.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.api.OperatorSelector;
+import org.bf2.cos.fleetshard.api.Version;
+import org.bf2.cos.fleetshard.api.VersionRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+/**
+ * Keeps the known {@link ManagedConnectorOperator}s grouped by type, each group sorted by descending version, as
+ * notified by an informer.
+ * </p>
+ * Versions are parsed once, when an operator is added or updated, and a new immutable snapshot of the index is
+ * published on every change so that lookups never block nor parse versions. Operators with an unsupported version
+ * format are retained as they are still returned by {@link #list()}, but they are never selected.
+ */
+public class OperatorIndex implements ResourceEventHandler<ManagedConnectorOperator> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OperatorIndex.class);
+
+    private static final Comparator<Entry> BY_VERSION_DESC = Comparator.comparing((Entry e) -> e.version).reversed();
+
+    private final Map<String, Entry> entries;
+    private volatile Map<String, List<Entry>> byType;
+    private volatile List<Operator> operators;
+
+    public OperatorIndex() {
+        this.entries = new ConcurrentHashMap<>();
+        this.byType = Collections.emptyMap();
+        this.operators = Collections.emptyList();
+    }
+
+    /**
+     * @return all the known operators.
+     */
+    public List<Operator> list() {
+        return operators;
+    }
+
+    /**
+     * Find the operator with the highest version that matches the given selector.
+     *
+     * @param  selector the selector
+     * @return          the matching operator, if any
+     */
+    public Optional<Operator> available(OperatorSelector selector) {
+        final List<Entry> candidates = byType.get(selector.getType());
+        if (candidates == null) {
+            return Optional.empty();
+        }
+
+        final VersionRange range = new VersionRange(selector.getVersion());
+
+        for (Entry candidate : candidates) {
+            if (candidate.version != null && range.includes(candidate.version)) {
+                return Optional.of(candidate.operator);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    @Override
+    public void onAdd(ManagedConnectorOperator obj) {
+        entries.put(Cache.metaNamespaceKeyFunc(obj), new Entry(obj));
+        publish();
+    }
+
+    @Override
+    public void onUpdate(ManagedConnectorOperator oldObj, ManagedConnectorOperator newObj) {
+        entries.put(Cache.metaNamespaceKeyFunc(newObj), new Entry(newObj));
+        publish();
+    }
+
+    @Override
+    public void onDelete(ManagedConnectorOperator obj, boolean deletedFinalStateUnknown) {
+        entries.remove(Cache.metaNamespaceKeyFunc(obj));
+        publish();
+    }
+
+    private synchronized void publish() {
+        final Collection<Entry> current = new ArrayList<>(entries.values());
+        final Map<String, List<Entry>> index = new HashMap<>();
+
+        for (Entry entry : current) {
+            if (entry.version != null) {
+                index.computeIfAbsent(entry.operator.getType(), k -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        index.values().forEach(l -> l.sort(BY_VERSION_DESC));
+
+        this.byType = Collections.unmodifiableMap(index);
+        this.operators = current.stream().map(e -> e.operator).collect(Collectors.toUnmodifiableList());
+    }
+
+    private static final class Entry {
+        final Operator operator;
+        final Version version;
+
+        Entry(ManagedConnectorOperator mco) {
+            this.operator = new Operator(
+                mco.getMetadata().getName(),
+                mco.getSpec().getType(),
+                mco.getSpec().getVersion());
+            this.version = parse(operator);
+        }
+
+        private static Version parse(Operator operator) {
+            if (operator.getVersion() == null || operator.getType() == null) {
+                return null;
+            }
+
+            try {
+                return new Version(operator.getVersion());
+            } catch (IllegalArgumentException e) {
+                LOGGER.info("CR with unsupported version found for operator {}", operator.getId());
+                return null;
+            }
+        }
+    }
+}
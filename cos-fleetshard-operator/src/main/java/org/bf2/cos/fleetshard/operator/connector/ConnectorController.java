@@ -1,6 +1,7 @@
 package org.bf2.cos.fleetshard.operator.connector;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,7 +24,9 @@ import org.bf2.cos.fleetshard.api.OperatorBuilder;
 import org.bf2.cos.fleetshard.operator.FleetShardOperatorConfig;
 import org.bf2.cos.fleetshard.operator.client.FleetShardClient;
 import org.bf2.cos.fleetshard.operator.operand.OperandController;
+import org.bf2.cos.fleetshard.operator.operand.OperandResourceApplier;
 import org.bf2.cos.fleetshard.operator.operand.OperandResourceWatcher;
+import org.bf2.cos.fleetshard.support.RateLimiter;
 import org.bf2.cos.fleetshard.support.exceptions.WrappedRuntimeException;
 import org.bf2.cos.fleetshard.support.metrics.ResourceAwareMetricsRecorder;
 import org.bf2.cos.fleetshard.support.resources.ConfigMaps;
@@ -31,8 +34,6 @@ import org.bf2.cos.fleetshard.support.resources.Resources;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.databind.JsonNode;
-
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
@@ -41,8 +42,6 @@ import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
 import io.fabric8.kubernetes.client.utils.KubernetesResourceUtil;
-import io.fabric8.kubernetes.client.utils.Serialization;
-import io.fabric8.zjsonpatch.JsonDiff;
 import io.javaoperatorsdk.operator.api.reconciler.Context;
 import io.javaoperatorsdk.operator.api.reconciler.ControllerConfiguration;
 import io.javaoperatorsdk.operator.api.reconciler.EventSourceContext;
@@ -50,6 +49,7 @@ import io.javaoperatorsdk.operator.api.reconciler.EventSourceInitializer;
 import io.javaoperatorsdk.operator.api.reconciler.Reconciler;
 import io.javaoperatorsdk.operator.api.reconciler.UpdateControl;
 import io.javaoperatorsdk.operator.processing.event.source.EventSource;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 
 import static org.bf2.cos.fleetshard.api.ManagedConnector.DESIRED_STATE_DELETED;
@@ -63,7 +63,6 @@ import static org.bf2.cos.fleetshard.api.ManagedConnector.STATE_PROVISIONING;
 import static org.bf2.cos.fleetshard.api.ManagedConnector.STATE_STOPPED;
 import static org.bf2.cos.fleetshard.api.ManagedConnectorConditions.hasCondition;
 import static org.bf2.cos.fleetshard.api.ManagedConnectorConditions.setCondition;
-import static org.bf2.cos.fleetshard.support.OperatorSelectorUtil.available;
 import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_CLUSTER_ID;
 import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_CONNECTOR_ID;
 import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_CONNECTOR_OPERATOR;
@@ -96,6 +95,10 @@ public class ConnectorController implements Reconciler<ManagedConnector>, EventS
     FleetShardClient fleetShard;
     @Inject
     OperandController operandController;
+    @Inject
+    OperandResourceApplier operandApplier;
+    @Inject
+    ConnectorShards shards;
 
     @Inject
     MeterRegistry registry;
@@ -131,12 +134,27 @@ public class ConnectorController implements Reconciler<ManagedConnector>, EventS
             new ConnectorOperatorEventSource(
                 kubernetesClient,
                 managedConnectorOperator,
-                fleetShard.getNamespace(),
+                fleetShard,
+                RateLimiter.create(config.connectors().upgradeEventsPerSecond()),
+                DistributionSummary.builder(config.metrics().baseName() + ".controller.event.operators.fanout")
+                    .description("The number of connectors triggered by a managed connector operator event")
+                    .register(registry),
                 ResourceAwareMetricsRecorder.of(
                     config.metrics().recorder(),
                     registry,
                     config.metrics().baseName() + ".controller.event.operators")));
 
+        if (shards.isEnabled()) {
+            eventSources.put(
+                "_shards",
+                new ConnectorShardsEventSource(
+                    shards,
+                    fleetShard,
+                    DistributionSummary.builder(config.metrics().baseName() + ".controller.event.shards.fanout")
+                        .description("The number of connectors triggered by a change of the operator replicas")
+                        .register(registry)));
+        }
+
         for (ResourceDefinitionContext res : operandController.getResourceTypes()) {
             final String id = res.getGroup() + "-" + res.getVersion() + "-" + res.getKind();
 
@@ -167,6 +185,15 @@ public class ConnectorController implements Reconciler<ManagedConnector>, EventS
             connector.getMetadata().getNamespace(),
             connector.getStatus().getPhase());
 
+        if (!shards.owns(connector)) {
+            // sharding is enabled and this connector is owned by another replica of this operator
+            LOGGER.debug("Connector {}/{} is owned by another replica of this operator.",
+                connector.getMetadata().getNamespace(),
+                connector.getMetadata().getName());
+
+            return UpdateControl.noUpdate();
+        }
+
         final boolean selected = selected(connector);
         final boolean assigned = assigned(connector);
 
@@ -366,10 +393,9 @@ public class ConnectorController implements Reconciler<ManagedConnector>, EventS
             return UpdateControl.noUpdate();
         }
 
-        Secret secret = kubernetesClient.secrets()
-            .inNamespace(connector.getMetadata().getNamespace())
-            .withName(connector.getSpec().getDeployment().getSecret())
-            .get();
+        Secret secret = fleetShard.getSecret(
+            connector.getMetadata().getNamespace(),
+            connector.getSpec().getDeployment().getSecret());
 
         if (secret == null) {
             boolean retry = hasCondition(
@@ -434,10 +460,9 @@ public class ConnectorController implements Reconciler<ManagedConnector>, EventS
             }
         }
 
-        ConfigMap configMap = kubernetesClient.configMaps()
-            .inNamespace(connector.getMetadata().getNamespace())
-            .withName(ConfigMaps.generateConnectorConfigMapId(connector.getSpec().getDeploymentId()))
-            .get();
+        ConfigMap configMap = fleetShard.getConfigMap(
+            connector.getMetadata().getNamespace(),
+            ConfigMaps.generateConnectorConfigMapId(connector.getSpec().getDeploymentId()));
 
         if (configMap == null) {
             LOGGER.info(
@@ -544,19 +569,11 @@ public class ConnectorController implements Reconciler<ManagedConnector>, EventS
                     .withKind(connector.getKind())
                     .withName(connector.getMetadata().getName())
                     .withUid(connector.getMetadata().getUid())
-                    .withAdditionalProperties(Map.of("namespace", connector.getMetadata().getNamespace()))
                     .withBlockOwnerDeletion(true)
                     .build()));
 
-            var result = kubernetesClient.resource(resource)
-                .inNamespace(connector.getMetadata().getNamespace())
-                .createOrReplace();
-
-            LOGGER.debug("Resource {}:{}:{}@{} updated/created",
-                result.getApiVersion(),
-                result.getKind(),
-                result.getMetadata().getName(),
-                result.getMetadata().getNamespace());
+            // on re-sync the resources are applied regardless of their checksum, so any drift is repaired
+            operandApplier.apply(connector.getMetadata().getNamespace(), resource, isResync(connector));
         }
 
         connector.getStatus().setDeployment(connector.getSpec().getDeployment());
@@ -577,10 +594,9 @@ public class ConnectorController implements Reconciler<ManagedConnector>, EventS
         //
         // Search for newly installed ManagedOperators
         //
-        final List<Operator> operators = fleetShard.lookupOperators();
         final Operator assignedOperator = connector.getStatus().getConnectorStatus().getAssignedOperator();
         final Operator availableOperator = connector.getStatus().getConnectorStatus().getAvailableOperator();
-        final Optional<Operator> selected = available(connector.getSpec().getOperatorSelector(), operators);
+        final Optional<Operator> selected = fleetShard.lookupAvailableOperator(connector.getSpec().getOperatorSelector());
 
         if (selected.isPresent()) {
             Operator selectedInstance = selected.get();
@@ -719,23 +735,17 @@ public class ConnectorController implements Reconciler<ManagedConnector>, EventS
         Function<ManagedConnector, UpdateControl<ManagedConnector>> okAction) {
 
         if (!Objects.equals(connector.getSpec().getDeployment(), connector.getStatus().getDeployment())) {
-            JsonNode specNode = Serialization.jsonMapper().valueToTree(connector.getSpec().getDeployment());
-            JsonNode statusNode = Serialization.jsonMapper().valueToTree(connector.getStatus().getDeployment());
-            JsonNode diff = JsonDiff.asJson(statusNode, specNode);
+            final EnumSet<DeploymentSpecDrift.Field> drift = DeploymentSpecDrift.compare(
+                connector.getStatus().getDeployment(),
+                connector.getSpec().getDeployment());
 
-            if (diff.isArray() && diff.size() == 1 && diff.get(0).at("/path").asText().equals("/unitOfWork")) {
+            if (drift.size() == 1 && drift.contains(DeploymentSpecDrift.Field.UNIT_OF_WORK)) {
                 final Long specResourceVersion = getDeploymentResourceVersion(connector.getSpec());
                 final Long statResourceVersion = getDeploymentResourceVersion(connector.getStatus());
 
                 if (specResourceVersion != null && specResourceVersion.equals(statResourceVersion)) {
                     //
-                    // In case of re-sink, the diff should looks like:
-                    //
-                    //   [{
-                    //      "op": "replace",
-                    //      "path": "/unitOfWork",
-                    //      "value": "61ba142d2a83cb1d0cf3dff2"
-                    //   }]
+                    // In case of re-sink, the only changed element is the unitOfWork.
                     //
                     // if the only changed element is unitOfWork then this reconciliation loop was triggered
                     // by a re-sink process: to be on the safe side, the Augmentation step is re-executed
@@ -796,7 +806,7 @@ public class ConnectorController implements Reconciler<ManagedConnector>, EventS
 
             LOGGER.info("Drift detected on connector deployment {}: {} -> move to phase: {}",
                 connector.getSpec().getDeploymentId(),
-                diff,
+                drift,
                 connector.getStatus().getPhase());
 
             return UpdateControl.updateStatus(connector);
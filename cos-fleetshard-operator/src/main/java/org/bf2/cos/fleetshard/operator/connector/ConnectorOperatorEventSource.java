@@ -1,11 +1,17 @@
 package org.bf2.cos.fleetshard.operator.connector;
 
-import java.util.Objects;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import org.bf2.cos.fleetshard.api.ManagedConnector;
 import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
 import org.bf2.cos.fleetshard.api.Version;
+import org.bf2.cos.fleetshard.operator.client.FleetShardClient;
 import org.bf2.cos.fleetshard.operator.support.InstrumentedWatcherEventSource;
+import org.bf2.cos.fleetshard.support.RateLimiter;
 import org.bf2.cos.fleetshard.support.metrics.ResourceAwareMetricsRecorder;
 import org.bf2.cos.fleetshard.support.resources.Resources;
 import org.slf4j.Logger;
@@ -13,32 +19,78 @@ import org.slf4j.LoggerFactory;
 
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.Watch;
+import io.javaoperatorsdk.operator.OperatorException;
 import io.javaoperatorsdk.operator.processing.event.Event;
 import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.micrometer.core.instrument.DistributionSummary;
 
+/**
+ * Triggers a reconciliation of the connectors assigned to an older version of an operator when a new version of the
+ * operator is deployed.
+ * </p>
+ * The events are emitted at a limited rate by a dedicated thread, so the watch is never blocked and the time recorded
+ * for an operator event only accounts for the lookup of the connectors to trigger.
+ */
 public class ConnectorOperatorEventSource extends InstrumentedWatcherEventSource<ManagedConnectorOperator> {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConnectorOperatorEventSource.class);
 
     private final ManagedConnectorOperator operator;
-    private final String operatorsNamespace;
+    private final FleetShardClient fleetShard;
+    private final RateLimiter limiter;
+    private final DistributionSummary fanOut;
+
+    // the connectors waiting to be triggered, in the order they have been looked up, guarded by this
+    private final Set<ResourceID> pending = new LinkedHashSet<>();
+    private ExecutorService emitter;
 
     public ConnectorOperatorEventSource(
         KubernetesClient kubernetesClient,
         ManagedConnectorOperator operator,
-        String operatorsNamespace,
+        FleetShardClient fleetShard,
+        RateLimiter limiter,
+        DistributionSummary fanOut,
         ResourceAwareMetricsRecorder recorder) {
 
         super(kubernetesClient, recorder);
 
         this.operator = operator;
-        this.operatorsNamespace = operatorsNamespace;
+        this.fleetShard = fleetShard;
+        this.limiter = limiter;
+        this.fanOut = fanOut;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (emitter == null) {
+            emitter = Executors.newSingleThreadExecutor(r -> {
+                Thread answer = new Thread(r, "connector-operator-events");
+                answer.setDaemon(true);
+                return answer;
+            });
+        }
+
+        super.start();
+    }
+
+    @Override
+    public void stop() throws OperatorException {
+        super.stop();
+
+        synchronized (this) {
+            if (emitter != null) {
+                emitter.shutdownNow();
+                emitter = null;
+            }
+
+            pending.clear();
+        }
     }
 
     @Override
     protected Watch doWatch() {
         return getClient()
             .resources(ManagedConnectorOperator.class)
-            .inNamespace(operatorsNamespace)
+            .inNamespace(fleetShard.getNamespace())
             .withLabel(Resources.LABEL_OPERATOR_TYPE, operator.getSpec().getType())
             .watch(this);
     }
@@ -50,28 +102,65 @@ public class ConnectorOperatorEventSource extends InstrumentedWatcherEventSource
             resource.getMetadata().getNamespace(),
             resource.getMetadata().getName());
 
-        getClient()
-            .resources(ManagedConnector.class)
-            .inAnyNamespace()
-            .withLabel(Resources.LABEL_OPERATOR_TYPE, resource.getSpec().getType())
-            .list().getItems().stream()
-            .filter(mc -> mc.getStatus() != null)
-            .filter(mc -> mc.getStatus().getConnectorStatus().getAssignedOperator() != null)
-            .filter(mc -> isSameOperatorType(resource, mc))
-            .filter(mc -> hasGreaterOperatorVersion(resource, mc))
-            .map(ResourceID::fromResource)
-            .forEach(resourceId -> getEventHandler().handleEvent(new Event(resourceId)));
+        final Version version;
+
+        try {
+            version = new Version(resource.getSpec().getVersion());
+        } catch (IllegalArgumentException e) {
+            LOGGER.info("CR with unsupported version found for operator {}", resource.getMetadata().getName());
+            return;
+        }
+
+        //
+        // Only the connectors assigned to an older version of the same operator type may be upgraded, and they are
+        // looked up from the connectors index, so no matter how many connectors exist, no request is made to the
+        // API server.
+        //
+        final List<ResourceID> ids = fleetShard.lookupConnectorsAssignedBefore(resource.getSpec().getType(), version);
+
+        fanOut.record(ids.size());
+
+        LOGGER.debug("Triggering {} connectors for managed connector operator: {}/{}",
+            ids.size(),
+            resource.getMetadata().getNamespace(),
+            resource.getMetadata().getName());
+
+        enqueue(ids);
     }
 
-    private boolean isSameOperatorType(ManagedConnectorOperator resource, ManagedConnector mc) {
-        return Objects.equals(resource.getSpec().getType(),
-            mc.getStatus().getConnectorStatus().getAssignedOperator().getType());
+    private synchronized void enqueue(List<ResourceID> ids) {
+        final boolean idle = pending.isEmpty();
+
+        // a connector triggered by several operator events before being emitted is triggered once
+        pending.addAll(ids);
+
+        if (idle && !pending.isEmpty() && emitter != null) {
+            emitter.execute(this::emit);
+        }
     }
 
-    private boolean hasGreaterOperatorVersion(ManagedConnectorOperator resource, ManagedConnector mc) {
-        final var rv = new Version(resource.getSpec().getVersion());
-        final var cv = new Version(mc.getStatus().getConnectorStatus().getAssignedOperator().getVersion());
-        return rv.compareTo(cv) > 0;
+    private synchronized ResourceID next() {
+        final Iterator<ResourceID> it = pending.iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+
+        final ResourceID answer = it.next();
+        it.remove();
+
+        return answer;
     }
 
+    private void emit() {
+        try {
+            for (ResourceID id = next(); id != null; id = next()) {
+                limiter.acquire();
+                getEventHandler().handleEvent(new Event(id));
+            }
+        } catch (InterruptedException e) {
+            LOGGER.debug("Interrupted while triggering connectors for managed connector operators");
+
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,369 @@
+package org.bf2.cos.fleetshard.operator.connector;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.operator.FleetShardOperatorConfig;
+import org.bf2.cos.fleetshard.operator.support.ConsistentHashRing;
+import org.bf2.cos.fleetshard.support.Service;
+import org.bf2.cos.fleetshard.support.resources.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseSpecBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Splits the connectors among the replicas of this operator.
+ * </p>
+ * Each replica holds a {@link Lease}, labeled with the id of the operator, which it renews periodically. The replicas
+ * holding a valid lease form a {@link ConsistentHashRing} and a connector is owned by the replica its namespace and
+ * name hash to, so when a replica joins or leaves only the connectors owned by that replica move. A replica that fails
+ * to renew its lease stops reconciling connectors as soon as its own lease expires, at about the same time the other
+ * replicas take over its connectors.
+ * </p>
+ * As the clocks of the replicas may be skewed, a lease is not expired based on its renew time but, like the leader
+ * election of the kubernetes client does, on the local time at which its renew time has last been seen changing. A
+ * lease seen for the first time, i.e. on start up, is aged according to its renew time, so the lease left by a crashed
+ * replica does not keep it in the ring for another lease duration. A lease that looks expired only joins the ring once
+ * it is seen being renewed, which is how a replica whose clock lags behind gets in.
+ * </p>
+ * The leases that have not been seen being renewed for {@link #EXPIRED_LEASE_RETENTION} lease durations are deleted, so
+ * the leases of the replicas that went away without releasing them do not pile up.
+ * </p>
+ * When sharding is disabled, every connector is owned by this replica.
+ */
+@ApplicationScoped
+public class ConnectorShards implements Service {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectorShards.class);
+
+    /**
+     * The number of lease durations after which a lease that has not been renewed is deleted.
+     */
+    public static final int EXPIRED_LEASE_RETENTION = 3;
+
+    @Inject
+    KubernetesClient kubernetesClient;
+    @Inject
+    ManagedConnectorOperator managedConnectorOperator;
+    @Inject
+    MeterRegistry registry;
+    @Inject
+    FleetShardOperatorConfig config;
+
+    private final List<BiConsumer<ConsistentHashRing, ConsistentHashRing>> listeners = new CopyOnWriteArrayList<>();
+    // the renew time of each lease, by name, along with the local time at which it has been observed
+    private final Map<String, Observed> observed = new HashMap<>();
+
+    // the local monotonic clock, in nanoseconds
+    LongSupplier clock = System::nanoTime;
+    // the local wall clock, only used to age the leases seen for the first time
+    Supplier<Instant> wallClock = Instant::now;
+    volatile SharedIndexInformer<Lease> informer;
+
+    private volatile ConsistentHashRing ring = ConsistentHashRing.empty();
+    private volatile String member;
+    private volatile ScheduledExecutorService executor;
+    private volatile Counter rebalances;
+
+    @PostConstruct
+    protected void setUp() {
+        member = config.sharding().member()
+            .or(() -> Optional.ofNullable(System.getenv("HOSTNAME")))
+            .orElseGet(() -> UUID.randomUUID().toString());
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        Gauge.builder(config.metrics().baseName() + ".controller.shards.members", this, s -> s.ring.members().size())
+            .description("The number of operator replicas the connectors are split among")
+            .register(registry);
+
+        rebalances = Counter.builder(config.metrics().baseName() + ".controller.shards.rebalances")
+            .description("The number of times the connectors have been re-distributed among the operator replicas")
+            .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return config.sharding().enabled();
+    }
+
+    /**
+     * @return the identity of this replica.
+     */
+    public String getMember() {
+        return member;
+    }
+
+    @Override
+    public void start() throws Exception {
+        if (!isEnabled()) {
+            return;
+        }
+
+        LOGGER.info("Starting connector sharding (operator: {}, member: {})",
+            managedConnectorOperator.getMetadata().getName(),
+            member);
+
+        renew();
+
+        informer = kubernetesClient.resources(Lease.class)
+            .inNamespace(config.namespace())
+            .withLabel(Resources.LABEL_OPERATOR_OWNER, managedConnectorOperator.getMetadata().getName())
+            .inform(new ResourceEventHandler<>() {
+                @Override
+                public void onAdd(Lease lease) {
+                    rebalance();
+                }
+
+                @Override
+                public void onUpdate(Lease oldLease, Lease newLease) {
+                    // renewals do not change the ring, they are handled by the periodic evaluation
+                }
+
+                @Override
+                public void onDelete(Lease lease, boolean deletedFinalStateUnknown) {
+                    rebalance();
+                }
+            });
+
+        rebalance();
+
+        final long interval = config.sharding().renewInterval().toMillis();
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread answer = new Thread(r, "connector-shards");
+            answer.setDaemon(true);
+            return answer;
+        });
+        executor.scheduleWithFixedDelay(
+            () -> {
+                renew();
+                rebalance();
+            },
+            interval,
+            interval,
+            TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        Resources.closeQuietly(informer);
+
+        if (isEnabled()) {
+            // releasing the lease lets the other replicas take over the connectors right away
+            try {
+                kubernetesClient.resources(Lease.class)
+                    .inNamespace(config.namespace())
+                    .withName(leaseName())
+                    .delete();
+            } catch (Exception e) {
+                LOGGER.warn("Failed to release lease {}", leaseName(), e);
+            }
+        }
+    }
+
+    /**
+     * Register a listener notified, with the previous and the new ring, each time the replicas change.
+     *
+     * @param listener the listener
+     */
+    public void addListener(BiConsumer<ConsistentHashRing, ConsistentHashRing> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BiConsumer<ConsistentHashRing, ConsistentHashRing> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Determine if the given connector is owned by this replica.
+     *
+     * @param  connector the connector
+     * @return           true if the connector is owned by this replica
+     */
+    public boolean owns(ManagedConnector connector) {
+        return !isEnabled() || owns(ring, connector);
+    }
+
+    /**
+     * Determine if the given connector is owned by this replica, according to the given ring.
+     *
+     * @param  shards    the ring
+     * @param  connector the connector
+     * @return           true if the connector is owned by this replica
+     */
+    public boolean owns(ConsistentHashRing shards, ManagedConnector connector) {
+        return member.equals(shards.owner(connector.getMetadata().getNamespace() + "/" + connector.getMetadata().getName()));
+    }
+
+    private String leaseName() {
+        return managedConnectorOperator.getMetadata().getName() + "-" + member;
+    }
+
+    private void renew() {
+        final Lease lease = new LeaseBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withName(leaseName())
+                .withNamespace(config.namespace())
+                .addToLabels(Resources.LABEL_OPERATOR_OWNER, managedConnectorOperator.getMetadata().getName())
+                .addToLabels(Resources.LABEL_OPERATOR_TYPE, managedConnectorOperator.getSpec().getType())
+                .build())
+            .withSpec(new LeaseSpecBuilder()
+                .withHolderIdentity(member)
+                .withLeaseDurationSeconds((int) config.sharding().leaseDuration().toSeconds())
+                .withRenewTime(ZonedDateTime.now())
+                .build())
+            .build();
+
+        try {
+            kubernetesClient.resource(lease)
+                .inNamespace(config.namespace())
+                .createOrReplace();
+        } catch (Exception e) {
+            LOGGER.warn("Failed to renew lease {}", leaseName(), e);
+        }
+    }
+
+    synchronized void rebalance() {
+        final SharedIndexInformer<Lease> leases = informer;
+        if (leases == null) {
+            return;
+        }
+
+        final long now = clock.getAsLong();
+        final List<String> members = new ArrayList<>();
+        final Map<String, Observed> seen = new HashMap<>();
+
+        for (Lease lease : leases.getStore().list()) {
+            if (lease.getSpec() == null || lease.getSpec().getHolderIdentity() == null) {
+                continue;
+            }
+            if (lease.getSpec().getRenewTime() == null || lease.getSpec().getLeaseDurationSeconds() == null) {
+                continue;
+            }
+
+            final String name = lease.getMetadata().getName();
+            final ZonedDateTime renewTime = lease.getSpec().getRenewTime();
+            final long duration = TimeUnit.SECONDS.toNanos(lease.getSpec().getLeaseDurationSeconds());
+
+            Observed entry = observed.get(name);
+            if (entry == null) {
+                entry = new Observed(renewTime, now - age(renewTime, duration));
+            } else if (!Objects.equals(entry.renewTime, renewTime)) {
+                entry = new Observed(renewTime, now);
+            }
+
+            if (now - entry.observedAt >= EXPIRED_LEASE_RETENTION * duration && !name.equals(leaseName())) {
+                delete(lease);
+                continue;
+            }
+
+            seen.put(name, entry);
+
+            if (now - entry.observedAt >= duration) {
+                continue;
+            }
+
+            members.add(lease.getSpec().getHolderIdentity());
+        }
+
+        // forget the leases that have been deleted
+        observed.clear();
+        observed.putAll(seen);
+
+        final ConsistentHashRing current = ring;
+        final ConsistentHashRing next = ConsistentHashRing.of(members, config.sharding().virtualNodes());
+
+        if (current.equals(next)) {
+            return;
+        }
+
+        LOGGER.info("Connector shards changed (operator: {}, member: {}, members: {} -> {})",
+            managedConnectorOperator.getMetadata().getName(),
+            member,
+            current.members(),
+            next.members());
+
+        ring = next;
+        rebalances.increment();
+
+        for (BiConsumer<ConsistentHashRing, ConsistentHashRing> listener : listeners) {
+            try {
+                listener.accept(current, next);
+            } catch (Exception e) {
+                LOGGER.warn("Failure notifying connector shards change", e);
+            }
+        }
+    }
+
+    /*
+     * The time elapsed since a lease seen for the first time has been renewed according to the local wall clock, between
+     * zero for a lease renewed ahead of the local clock and the lease duration for a lease that looks expired.
+     */
+    private long age(ZonedDateTime renewTime, long duration) {
+        final long age = Duration.between(renewTime.toInstant(), wallClock.get()).toNanos();
+
+        return Math.min(Math.max(0, age), duration);
+    }
+
+    private void delete(Lease lease) {
+        LOGGER.info("Deleting expired lease (operator: {}, lease: {}, holder: {})",
+            managedConnectorOperator.getMetadata().getName(),
+            lease.getMetadata().getName(),
+            lease.getSpec().getHolderIdentity());
+
+        try {
+            kubernetesClient.resources(Lease.class)
+                .inNamespace(config.namespace())
+                .withName(lease.getMetadata().getName())
+                .delete();
+        } catch (Exception e) {
+            LOGGER.warn("Failed to delete expired lease {}", lease.getMetadata().getName(), e);
+        }
+    }
+
+    private static final class Observed {
+        private final ZonedDateTime renewTime;
+        private final long observedAt;
+
+        Observed(ZonedDateTime renewTime, long observedAt) {
+            this.renewTime = renewTime;
+            this.observedAt = observedAt;
+        }
+    }
+}
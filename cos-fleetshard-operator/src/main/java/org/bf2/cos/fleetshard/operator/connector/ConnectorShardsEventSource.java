@@ -0,0 +1,65 @@
+package org.bf2.cos.fleetshard.operator.connector;
+
+import java.util.function.BiConsumer;
+
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.operator.client.FleetShardClient;
+import org.bf2.cos.fleetshard.operator.support.ConsistentHashRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.javaoperatorsdk.operator.OperatorException;
+import io.javaoperatorsdk.operator.processing.event.Event;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.javaoperatorsdk.operator.processing.event.source.AbstractEventSource;
+import io.micrometer.core.instrument.DistributionSummary;
+
+/**
+ * Triggers a reconciliation of the connectors this replica has just become the owner of, when the replicas of this
+ * operator change.
+ */
+public class ConnectorShardsEventSource extends AbstractEventSource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectorShardsEventSource.class);
+
+    private final ConnectorShards shards;
+    private final FleetShardClient fleetShard;
+    private final DistributionSummary fanOut;
+    private final BiConsumer<ConsistentHashRing, ConsistentHashRing> listener;
+
+    public ConnectorShardsEventSource(ConnectorShards shards, FleetShardClient fleetShard, DistributionSummary fanOut) {
+        this.shards = shards;
+        this.fleetShard = fleetShard;
+        this.fanOut = fanOut;
+        this.listener = this::onShardsChanged;
+    }
+
+    @Override
+    public void start() throws OperatorException {
+        super.start();
+
+        shards.addListener(listener);
+    }
+
+    @Override
+    public void stop() throws OperatorException {
+        shards.removeListener(listener);
+
+        super.stop();
+    }
+
+    private void onShardsChanged(ConsistentHashRing previous, ConsistentHashRing current) {
+        int count = 0;
+
+        // connectors are looked up from the informer cache, so no request is made to the API server.
+        for (ManagedConnector connector : fleetShard.lookupManagedConnectors()) {
+            if (shards.owns(current, connector) && !shards.owns(previous, connector)) {
+                getEventHandler().handleEvent(new Event(ResourceID.fromResource(connector)));
+                count++;
+            }
+        }
+
+        fanOut.record(count);
+
+        LOGGER.info("Triggered {} connectors taken over by member {}", count, shards.getMember());
+    }
+}
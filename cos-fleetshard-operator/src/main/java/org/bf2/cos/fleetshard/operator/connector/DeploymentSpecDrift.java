@@ -0,0 +1,76 @@
+package org.bf2.cos.fleetshard.operator.connector;
+
+import java.util.EnumSet;
+import java.util.Objects;
+
+import org.bf2.cos.fleetshard.api.DeploymentSpec;
+
+/**
+ * Field-wise comparison of {@link DeploymentSpec}s, used to find out what has changed between the deployment a
+ * connector has been reconciled with and the desired one, without serializing them.
+ */
+public final class DeploymentSpecDrift {
+
+    public enum Field {
+        CONNECTOR_TYPE_ID,
+        CONNECTOR_RESOURCE_VERSION,
+        DEPLOYMENT_RESOURCE_VERSION,
+        KAFKA,
+        SCHEMA_REGISTRY,
+        DESIRED_STATE,
+        SECRET,
+        CONFIG_MAP_CHECKSUM,
+        UNIT_OF_WORK
+    }
+
+    private DeploymentSpecDrift() {
+    }
+
+    /**
+     * Compare two deployments.
+     *
+     * @param  actual   the actual deployment
+     * @param  expected the expected deployment
+     * @return          the fields that differ, all the fields if only one of the deployments is null
+     */
+    public static EnumSet<Field> compare(DeploymentSpec actual, DeploymentSpec expected) {
+        if (actual == expected) {
+            return EnumSet.noneOf(Field.class);
+        }
+        if (actual == null || expected == null) {
+            return EnumSet.allOf(Field.class);
+        }
+
+        final EnumSet<Field> answer = EnumSet.noneOf(Field.class);
+
+        if (!Objects.equals(actual.getConnectorTypeId(), expected.getConnectorTypeId())) {
+            answer.add(Field.CONNECTOR_TYPE_ID);
+        }
+        if (!Objects.equals(actual.getConnectorResourceVersion(), expected.getConnectorResourceVersion())) {
+            answer.add(Field.CONNECTOR_RESOURCE_VERSION);
+        }
+        if (!Objects.equals(actual.getDeploymentResourceVersion(), expected.getDeploymentResourceVersion())) {
+            answer.add(Field.DEPLOYMENT_RESOURCE_VERSION);
+        }
+        if (!Objects.equals(actual.getKafka(), expected.getKafka())) {
+            answer.add(Field.KAFKA);
+        }
+        if (!Objects.equals(actual.getSchemaRegistry(), expected.getSchemaRegistry())) {
+            answer.add(Field.SCHEMA_REGISTRY);
+        }
+        if (!Objects.equals(actual.getDesiredState(), expected.getDesiredState())) {
+            answer.add(Field.DESIRED_STATE);
+        }
+        if (!Objects.equals(actual.getSecret(), expected.getSecret())) {
+            answer.add(Field.SECRET);
+        }
+        if (!Objects.equals(actual.getConfigMapChecksum(), expected.getConfigMapChecksum())) {
+            answer.add(Field.CONFIG_MAP_CHECKSUM);
+        }
+        if (!Objects.equals(actual.getUnitOfWork(), expected.getUnitOfWork())) {
+            answer.add(Field.UNIT_OF_WORK);
+        }
+
+        return answer;
+    }
+}
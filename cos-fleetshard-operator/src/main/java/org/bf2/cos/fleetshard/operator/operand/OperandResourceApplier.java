@@ -0,0 +1,234 @@
+package org.bf2.cos.fleetshard.operator.operand;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.operator.FleetShardOperatorConfig;
+import org.bf2.cos.fleetshard.operator.client.FleetShardClient;
+import org.bf2.cos.fleetshard.support.resources.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntry;
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntryBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.fabric8.kubernetes.client.utils.KubernetesResourceUtil;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Applies the resources generated for a connector, skipping those that have not changed since they were last applied.
+ * </p>
+ * The checksum of each desired resource is stored in the {@link #ANNOTATION_CHECKSUM} annotation and compared with
+ * the one of the live resource, as seen by the informers of the {@link FleetShardClient}, so repeated reconciliations
+ * of an unchanged connector do not write anything nor trigger any watch event or pod restart. The annotation only
+ * tells what was last applied, not whether the live resource has been altered since, so the resources are always
+ * applied when the connector is re-synced, which repairs any drift.
+ * </p>
+ * Changed resources are written with a server-side apply patch. Resources created before server-side apply was in use
+ * are owned by the default field manager of the client; the first time such a resource is applied, its fields are
+ * handed over to the field manager of this operator so that the properties that are no longer generated get pruned.
+ */
+@ApplicationScoped
+public class OperandResourceApplier {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OperandResourceApplier.class);
+
+    public static final String ANNOTATION_CHECKSUM = "cos.bf2.org/operand.checksum";
+
+    public static final String METRICS_APPLIED = ".controller.operands.applied";
+    public static final String METRICS_SKIPPED = ".controller.operands.skipped";
+
+    /*
+     * The field manager the API server derives from the user agent of the client, which owns the fields of the
+     * resources written with createOrReplace before server-side apply was in use.
+     */
+    static final String LEGACY_FIELD_MANAGER = "fabric8-kubernetes-client";
+    static final String OPERATION_APPLY = "Apply";
+    static final String OPERATION_UPDATE = "Update";
+
+    private static final ObjectMapper MAPPER = Serialization.jsonMapper()
+        .copy()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    @Inject
+    KubernetesClient kubernetesClient;
+    @Inject
+    FleetShardClient fleetShard;
+    @Inject
+    ManagedConnectorOperator managedConnectorOperator;
+    @Inject
+    MeterRegistry registry;
+    @Inject
+    FleetShardOperatorConfig config;
+
+    /**
+     * Apply the given resource, unless the live resource is up to date.
+     *
+     * @param  namespace the namespace
+     * @param  resource  the desired resource
+     * @param  force     true if the resource has to be applied even if the live resource looks up to date
+     * @return           true if the resource has been applied, false if it has been skipped
+     */
+    public boolean apply(String namespace, HasMetadata resource, boolean force) {
+        final String checksum = computeChecksum(resource);
+        final HasMetadata live = fleetShard.lookupOperandResource(
+            resource.getApiVersion(),
+            resource.getKind(),
+            namespace,
+            resource.getMetadata().getName());
+
+        if (!force && live != null && Objects.equals(checksum, Resources.getAnnotation(live, ANNOTATION_CHECKSUM))) {
+            registry.counter(config.metrics().baseName() + METRICS_SKIPPED, "kind", resource.getKind()).increment();
+
+            LOGGER.debug("Resource {}:{}:{}@{} unchanged",
+                resource.getApiVersion(),
+                resource.getKind(),
+                resource.getMetadata().getName(),
+                namespace);
+
+            return false;
+        }
+
+        if (live != null) {
+            migrateManagedFields(namespace, live);
+        }
+
+        KubernetesResourceUtil.getOrCreateAnnotations(resource).put(ANNOTATION_CHECKSUM, checksum);
+
+        var result = kubernetesClient.resource(resource)
+            .inNamespace(namespace)
+            .fieldManager(getFieldManager())
+            .forceConflicts()
+            .serverSideApply();
+
+        registry.counter(config.metrics().baseName() + METRICS_APPLIED, "kind", resource.getKind()).increment();
+
+        LOGGER.debug("Resource {}:{}:{}@{} applied",
+            result.getApiVersion(),
+            result.getKind(),
+            result.getMetadata().getName(),
+            result.getMetadata().getNamespace());
+
+        return true;
+    }
+
+    /*
+     * Hand the fields owned by the legacy field manager over to the field manager of this operator, unless the
+     * resource has already been applied by this operator. Without this, the fields written before server-side apply
+     * was in use would stay owned by the legacy field manager and never be pruned.
+     */
+    private void migrateManagedFields(String namespace, HasMetadata live) {
+        final List<ManagedFieldsEntry> entries = live.getMetadata().getManagedFields();
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        final String manager = getFieldManager();
+
+        for (ManagedFieldsEntry entry : entries) {
+            if (manager.equals(entry.getManager()) && OPERATION_APPLY.equals(entry.getOperation())) {
+                return;
+            }
+        }
+
+        final List<ManagedFieldsEntry> migrated = new ArrayList<>(entries.size());
+        boolean changed = false;
+
+        for (ManagedFieldsEntry entry : entries) {
+            if (LEGACY_FIELD_MANAGER.equals(entry.getManager())
+                && OPERATION_UPDATE.equals(entry.getOperation())
+                && (entry.getSubresource() == null || entry.getSubresource().isEmpty())) {
+
+                final ManagedFieldsEntry copy = new ManagedFieldsEntryBuilder(entry)
+                    .withManager(manager)
+                    .withOperation(OPERATION_APPLY)
+                    .build();
+
+                migrated.add(copy);
+                changed = true;
+            } else {
+                migrated.add(entry);
+            }
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        // the test on the resource version guarantees that the entries are not overwritten if they have changed since
+        // the live resource has been cached
+        final ArrayNode patch = MAPPER.createArrayNode();
+        patch.addObject()
+            .put("op", "test")
+            .put("path", "/metadata/resourceVersion")
+            .put("value", live.getMetadata().getResourceVersion());
+        patch.addObject()
+            .put("op", "replace")
+            .put("path", "/metadata/managedFields")
+            .set("value", MAPPER.valueToTree(migrated));
+
+        kubernetesClient.resource(live)
+            .inNamespace(namespace)
+            .patch(PatchContext.of(PatchType.JSON), patch.toString());
+
+        LOGGER.info("Resource {}:{}:{}@{} fields handed over from {} to {}",
+            live.getApiVersion(),
+            live.getKind(),
+            live.getMetadata().getName(),
+            namespace,
+            LEGACY_FIELD_MANAGER,
+            manager);
+    }
+
+    private String getFieldManager() {
+        return managedConnectorOperator.getSpec().getType();
+    }
+
+    /**
+     * Compute a stable checksum of the given resource, ignoring any checksum annotation it may already hold.
+     *
+     * @param  resource the resource
+     * @return          the checksum
+     */
+    public static String computeChecksum(HasMetadata resource) {
+        final String current = Resources.getAnnotation(resource, ANNOTATION_CHECKSUM);
+
+        try {
+            if (current != null) {
+                resource.getMetadata().getAnnotations().remove(ANNOTATION_CHECKSUM);
+            }
+
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+                MAPPER.writeValueAsString(resource).getBytes(StandardCharsets.UTF_8));
+
+            final StringBuilder answer = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                answer.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return answer.toString();
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (current != null) {
+                resource.getMetadata().getAnnotations().put(ANNOTATION_CHECKSUM, current);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.bf2.cos.fleetshard.operator.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An immutable consistent hash ring mapping keys to members.
+ * </p>
+ * Each member is placed on the ring a number of times (virtual nodes) so that keys are evenly spread, and when a
+ * member joins or leaves only the keys that were, or become, owned by that member move.
+ */
+public final class ConsistentHashRing {
+    private static final ConsistentHashRing EMPTY = new ConsistentHashRing(Set.of(), new TreeMap<>());
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Set<String> members;
+    private final NavigableMap<Long, String> ring;
+
+    private ConsistentHashRing(Set<String> members, NavigableMap<Long, String> ring) {
+        this.members = members;
+        this.ring = ring;
+    }
+
+    /**
+     * Create a new ring.
+     *
+     * @param  members      the members
+     * @param  virtualNodes the number of times each member is placed on the ring
+     * @return              the ring
+     */
+    public static ConsistentHashRing of(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            return EMPTY;
+        }
+
+        final NavigableMap<Long, String> ring = new TreeMap<>();
+
+        // members are sorted so that hash collisions are resolved the same way on every replica
+        for (String member : new TreeSet<>(members)) {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                ring.putIfAbsent(hash(member + "#" + i), member);
+            }
+        }
+
+        return new ConsistentHashRing(Set.copyOf(members), ring);
+    }
+
+    public static ConsistentHashRing empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the members of this ring.
+     */
+    public Set<String> members() {
+        return members;
+    }
+
+    /**
+     * Find the member owning the given key.
+     *
+     * @param  key the key
+     * @return     the owning member or null if the ring is empty
+     */
+    public String owner(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        if (entry == null) {
+            entry = ring.firstEntry();
+        }
+
+        return entry.getValue();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConsistentHashRing)) {
+            return false;
+        }
+
+        return Objects.equals(ring, ((ConsistentHashRing) o).ring);
+    }
+
+    @Override
+    public int hashCode() {
+        return ring.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistentHashRing{members=" + new TreeSet<>(members) + "}";
+    }
+
+    /*
+     * FNV-1a followed by the murmur3 finalizer, which is stable across JVMs, unlike String.hashCode() its output is
+     * spread over the whole 64 bits range.
+     */
+    static long hash(String key) {
+        long h = FNV_OFFSET_BASIS;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= FNV_PRIME;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+}
@@ -0,0 +1,123 @@
+package org.bf2.cos.fleetshard.operator.client;
+
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.ManagedConnectorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorStatus;
+import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.api.Version;
+import org.junit.jupiter.api.Test;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectorIndexTest {
+
+    @Test
+    void connectorsAssignedBeforeVersion() {
+        ConnectorIndex index = new ConnectorIndex();
+        index.onAdd(connector("c1", "camel", "1.0.0"));
+        index.onAdd(connector("c2", "camel", "1.1.0"));
+        index.onAdd(connector("c3", "camel", "2.0.0"));
+        index.onAdd(connector("c4", "strimzi", "1.0.0"));
+
+        assertThat(index.assignedBefore("camel", new Version("1.1.0")))
+            .containsExactly(id("c1"));
+        assertThat(index.assignedBefore("camel", new Version("2.0.0")))
+            .containsExactlyInAnyOrder(id("c1"), id("c2"));
+        assertThat(index.assignedBefore("camel", new Version("3.0.0")))
+            .containsExactlyInAnyOrder(id("c1"), id("c2"), id("c3"));
+        assertThat(index.assignedBefore("camel", new Version("1.0.0")))
+            .isEmpty();
+        assertThat(index.assignedBefore("strimzi", new Version("2.0.0")))
+            .containsExactly(id("c4"));
+        assertThat(index.assignedBefore("debezium", new Version("2.0.0")))
+            .isEmpty();
+    }
+
+    @Test
+    void connectorIsReindexedWhenAssignedVersionChanges() {
+        ConnectorIndex index = new ConnectorIndex();
+        ManagedConnector v1 = connector("c1", "camel", "1.0.0");
+        ManagedConnector v2 = connector("c1", "camel", "1.5.0");
+
+        index.onAdd(v1);
+
+        assertThat(index.assignedBefore("camel", new Version("1.2.0"))).containsExactly(id("c1"));
+
+        index.onUpdate(v1, v2);
+
+        assertThat(index.assignedBefore("camel", new Version("1.2.0"))).isEmpty();
+        assertThat(index.assignedBefore("camel", new Version("2.0.0"))).containsExactly(id("c1"));
+    }
+
+    @Test
+    void connectorIsReindexedWhenAssignedTypeChanges() {
+        ConnectorIndex index = new ConnectorIndex();
+        ManagedConnector v1 = connector("c1", "camel", "1.0.0");
+        ManagedConnector v2 = connector("c1", "strimzi", "1.0.0");
+
+        index.onAdd(v1);
+        index.onUpdate(v1, v2);
+
+        assertThat(index.assignedBefore("camel", new Version("2.0.0"))).isEmpty();
+        assertThat(index.assignedBefore("strimzi", new Version("2.0.0"))).containsExactly(id("c1"));
+    }
+
+    @Test
+    void connectorIsRemovedWhenUnassigned() {
+        ConnectorIndex index = new ConnectorIndex();
+        ManagedConnector v1 = connector("c1", "camel", "1.0.0");
+        ManagedConnector v2 = connector("c1", null, null);
+
+        index.onAdd(v1);
+        index.onUpdate(v1, v2);
+
+        assertThat(index.assignedBefore("camel", new Version("2.0.0"))).isEmpty();
+    }
+
+    @Test
+    void connectorIsRemovedWhenDeleted() {
+        ConnectorIndex index = new ConnectorIndex();
+        ManagedConnector c1 = connector("c1", "camel", "1.0.0");
+
+        index.onAdd(c1);
+        index.onAdd(connector("c2", "camel", "1.0.0"));
+        index.onDelete(c1, false);
+
+        assertThat(index.assignedBefore("camel", new Version("2.0.0"))).containsExactly(id("c2"));
+
+        index.onDelete(connector("c2", "camel", "1.0.0"), true);
+
+        assertThat(index.assignedBefore("camel", new Version("2.0.0"))).isEmpty();
+    }
+
+    @Test
+    void connectorWithUnsupportedVersionIsNotIndexed() {
+        ConnectorIndex index = new ConnectorIndex();
+        index.onAdd(connector("c1", "camel", "latest"));
+
+        assertThat(index.assignedBefore("camel", new Version("99.0.0"))).isEmpty();
+    }
+
+    private static ResourceID id(String name) {
+        return new ResourceID(name, "cos");
+    }
+
+    private static ManagedConnector connector(String name, String type, String version) {
+        ManagedConnector connector = new ManagedConnectorBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withNamespace("cos")
+                .withName(name)
+                .build())
+            .withStatus(new ManagedConnectorStatus())
+            .build();
+
+        if (type != null) {
+            connector.getStatus().getConnectorStatus().setAssignedOperator(new Operator("op", type, version));
+        }
+
+        return connector;
+    }
+}
@@ -0,0 +1,188 @@
+package org.bf2.cos.fleetshard.operator.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FleetShardClientTest {
+    private static final String NAMESPACE = "ns";
+
+    private FleetShardClient client;
+    private KubernetesClient kubernetesClient;
+    private SharedIndexInformer<Secret> secrets;
+    private Store<Secret> secretsStore;
+    private SharedIndexInformer<ConfigMap> configMaps;
+    private Store<ConfigMap> configMapsStore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kubernetesClient = Mockito.mock(KubernetesClient.class);
+        when(kubernetesClient.secrets()).thenReturn(Mockito.mock(MixedOperation.class));
+        when(kubernetesClient.configMaps()).thenReturn(Mockito.mock(MixedOperation.class));
+
+        secrets = Mockito.mock(SharedIndexInformer.class);
+        secretsStore = Mockito.mock(Store.class);
+        when(secrets.getStore()).thenReturn(secretsStore);
+
+        configMaps = Mockito.mock(SharedIndexInformer.class);
+        configMapsStore = Mockito.mock(Store.class);
+        when(configMaps.getStore()).thenReturn(configMapsStore);
+
+        client = new FleetShardClient();
+        client.kubernetesClient = kubernetesClient;
+        client.secretsInformer = secrets;
+        client.configMapsInformer = configMaps;
+    }
+
+    @Test
+    void secretIsServedFromCache() {
+        Secret cached = secret("s1");
+
+        when(secrets.hasSynced()).thenReturn(true);
+        when(secretsStore.getByKey(NAMESPACE + "/s1")).thenReturn(cached);
+
+        assertThat(client.getSecret(NAMESPACE, "s1")).isSameAs(cached);
+        assertThat(client.getSecret(NAMESPACE, "s2")).isNull();
+
+        verify(kubernetesClient, never()).secrets();
+    }
+
+    @Test
+    void secretIsReadFromApiServerUntilCacheIsSynced() {
+        Secret live = secret("s1");
+
+        when(secrets.hasSynced()).thenReturn(false);
+        live(kubernetesClient.secrets(), "s1", live);
+
+        assertThat(client.getSecret(NAMESPACE, "s1")).isSameAs(live);
+
+        verify(secretsStore, never()).getByKey(anyString());
+    }
+
+    @Test
+    void secretIsReadFromApiServerWithoutInformer() {
+        Secret live = secret("s1");
+
+        client.secretsInformer = null;
+        live(kubernetesClient.secrets(), "s1", live);
+
+        assertThat(client.getSecret(NAMESPACE, "s1")).isSameAs(live);
+    }
+
+    @Test
+    void configMapIsServedFromCache() {
+        ConfigMap cached = configMap("cm1");
+
+        when(configMaps.hasSynced()).thenReturn(true);
+        when(configMapsStore.getByKey(NAMESPACE + "/cm1")).thenReturn(cached);
+
+        assertThat(client.getConfigMap(NAMESPACE, "cm1")).isSameAs(cached);
+
+        verify(kubernetesClient, never()).configMaps();
+    }
+
+    @Test
+    void configMapIsReadFromApiServerOnCacheMiss() {
+        ConfigMap live = configMap("cm1");
+
+        when(configMaps.hasSynced()).thenReturn(true);
+        when(configMapsStore.getByKey(NAMESPACE + "/cm1")).thenReturn(null);
+        live(kubernetesClient.configMaps(), "cm1", live);
+
+        assertThat(client.getConfigMap(NAMESPACE, "cm1")).isSameAs(live);
+    }
+
+    @Test
+    void configMapIsReadFromApiServerUntilCacheIsSynced() {
+        ConfigMap live = configMap("cm1");
+
+        when(configMaps.hasSynced()).thenReturn(false);
+        live(kubernetesClient.configMaps(), "cm1", live);
+
+        assertThat(client.getConfigMap(NAMESPACE, "cm1")).isSameAs(live);
+
+        verify(configMapsStore, never()).getByKey(anyString());
+    }
+
+    @Test
+    void operandSecretsAndConfigMapsAreServedFromTypedInformers() {
+        Secret secret = secret("s1");
+        ConfigMap configMap = configMap("cm1");
+
+        when(secrets.hasSynced()).thenReturn(true);
+        when(secretsStore.getByKey(NAMESPACE + "/s1")).thenReturn(secret);
+        when(configMaps.hasSynced()).thenReturn(true);
+        when(configMapsStore.getByKey(NAMESPACE + "/cm1")).thenReturn(configMap);
+
+        assertThat(client.lookupOperandResource("v1", "Secret", NAMESPACE, "s1")).isSameAs(secret);
+        assertThat(client.lookupOperandResource("v1", "ConfigMap", NAMESPACE, "cm1")).isSameAs(configMap);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void operandResourcesAreServedFromOperandInformers() {
+        GenericKubernetesResource binding = new GenericKubernetesResource();
+        SharedIndexInformer<GenericKubernetesResource> informer = Mockito.mock(SharedIndexInformer.class);
+        Store<GenericKubernetesResource> store = Mockito.mock(Store.class);
+
+        when(informer.hasSynced()).thenReturn(true);
+        when(informer.getStore()).thenReturn(store);
+        when(store.getByKey(NAMESPACE + "/kb1")).thenReturn(binding);
+
+        client.operandsInformers.put("camel.apache.org/v1alpha1/KameletBinding", informer);
+
+        assertThat(client.lookupOperandResource("camel.apache.org/v1alpha1", "KameletBinding", NAMESPACE, "kb1"))
+            .isSameAs(binding);
+        assertThat(client.lookupOperandResource("camel.apache.org/v1alpha1", "KameletBinding", NAMESPACE, "kb2"))
+            .isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends HasMetadata> void live(MixedOperation<T, ?, ? extends Resource<T>> operation, String name,
+        T resource) {
+        NonNamespaceOperation<T, ?, Resource<T>> namespaced = Mockito.mock(NonNamespaceOperation.class);
+        Resource<T> named = Mockito.mock(Resource.class);
+
+        Mockito.doReturn(namespaced).when(operation).inNamespace(NAMESPACE);
+        when(namespaced.withName(name)).thenReturn(named);
+        when(named.get()).thenReturn(resource);
+    }
+
+    private static Secret secret(String name) {
+        return new SecretBuilder()
+            .withNewMetadata()
+            .withNamespace(NAMESPACE)
+            .withName(name)
+            .endMetadata()
+            .build();
+    }
+
+    private static ConfigMap configMap(String name) {
+        return new ConfigMapBuilder()
+            .withNewMetadata()
+            .withNamespace(NAMESPACE)
+            .withName(name)
+            .endMetadata()
+            .build();
+    }
+}
@@ -0,0 +1,108 @@
+package org.bf2.cos.fleetshard.operator.client;
+
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorSpecBuilder;
+import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.api.OperatorSelector;
+import org.junit.jupiter.api.Test;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OperatorIndexTest {
+
+    @Test
+    void availableOperatorHasHighestVersionInRange() {
+        OperatorIndex index = new OperatorIndex();
+        index.onAdd(operator("1", "camel", "1.0.0"));
+        index.onAdd(operator("3", "camel", "1.9.0"));
+        index.onAdd(operator("2", "camel", "1.1.0"));
+        index.onAdd(operator("4", "camel", "2.0.0"));
+        index.onAdd(operator("5", "strimzi", "1.9.0"));
+
+        assertThat(index.list()).extracting(Operator::getId).containsExactlyInAnyOrder("1", "2", "3", "4", "5");
+
+        assertThat(index.available(new OperatorSelector("camel", "[1.0.0,2.0.0)")))
+            .get()
+            .hasFieldOrPropertyWithValue("id", "3");
+        assertThat(index.available(new OperatorSelector("camel", "(1.0.0,1.8.9)")))
+            .get()
+            .hasFieldOrPropertyWithValue("id", "2");
+        assertThat(index.available(new OperatorSelector("camel", "[1.0.0,3.0.0)")))
+            .get()
+            .hasFieldOrPropertyWithValue("id", "4");
+        assertThat(index.available(new OperatorSelector("strimzi", "[1.0.0,2.0.0)")))
+            .get()
+            .hasFieldOrPropertyWithValue("id", "5");
+
+        assertThat(index.available(new OperatorSelector("camel", "[3.0.0,4.0.0)"))).isEmpty();
+        assertThat(index.available(new OperatorSelector("debezium", "[1.0.0,2.0.0)"))).isEmpty();
+    }
+
+    @Test
+    void updatedOperatorIsReindexed() {
+        OperatorIndex index = new OperatorIndex();
+        ManagedConnectorOperator v1 = operator("1", "camel", "1.0.0");
+        ManagedConnectorOperator v2 = operator("1", "camel", "1.5.0");
+
+        index.onAdd(v1);
+        index.onAdd(operator("2", "camel", "1.2.0"));
+
+        assertThat(index.available(new OperatorSelector("camel", "[1.0.0,2.0.0)")))
+            .get()
+            .hasFieldOrPropertyWithValue("id", "2");
+
+        index.onUpdate(v1, v2);
+
+        assertThat(index.list()).hasSize(2);
+        assertThat(index.available(new OperatorSelector("camel", "[1.0.0,2.0.0)")))
+            .get()
+            .hasFieldOrPropertyWithValue("id", "1")
+            .hasFieldOrPropertyWithValue("version", "1.5.0");
+    }
+
+    @Test
+    void deletedOperatorIsNoLongerAvailable() {
+        OperatorIndex index = new OperatorIndex();
+        ManagedConnectorOperator latest = operator("2", "camel", "1.9.0");
+
+        index.onAdd(operator("1", "camel", "1.0.0"));
+        index.onAdd(latest);
+        index.onDelete(latest, false);
+
+        assertThat(index.list()).extracting(Operator::getId).containsExactly("1");
+        assertThat(index.available(new OperatorSelector("camel", "[1.0.0,2.0.0)")))
+            .get()
+            .hasFieldOrPropertyWithValue("id", "1");
+
+        index.onDelete(operator("1", "camel", "1.0.0"), true);
+
+        assertThat(index.list()).isEmpty();
+        assertThat(index.available(new OperatorSelector("camel", "[1.0.0,2.0.0)"))).isEmpty();
+    }
+
+    @Test
+    void operatorWithUnsupportedVersionIsListedButNeverSelected() {
+        OperatorIndex index = new OperatorIndex();
+        index.onAdd(operator("1", "camel", "latest"));
+
+        assertThat(index.list()).extracting(Operator::getId).containsExactly("1");
+        assertThat(index.available(new OperatorSelector("camel", "[0.0.0,99.0.0)"))).isEmpty();
+    }
+
+    static ManagedConnectorOperator operator(String name, String type, String version) {
+        return new ManagedConnectorOperatorBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withNamespace("cos")
+                .withName(name)
+                .build())
+            .withSpec(new ManagedConnectorOperatorSpecBuilder()
+                .withType(type)
+                .withVersion(version)
+                .withRuntime("none")
+                .build())
+            .build();
+    }
+}
@@ -0,0 +1,125 @@
+package org.bf2.cos.fleetshard.operator.connector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorSpecBuilder;
+import org.bf2.cos.fleetshard.api.Version;
+import org.bf2.cos.fleetshard.operator.client.FleetShardClient;
+import org.bf2.cos.fleetshard.support.RateLimiter;
+import org.bf2.cos.fleetshard.support.metrics.ResourceAwareMetricsRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+public class ConnectorOperatorEventSourceTest {
+    private static final List<ResourceID> IDS = List.of(
+        new ResourceID("c1", "ns"),
+        new ResourceID("c2", "ns"),
+        new ResourceID("c3", "ns"));
+
+    private FleetShardClient fleetShard;
+    private DistributionSummary fanOut;
+    private ConnectorOperatorEventSource source;
+    private List<ResourceID> triggered;
+    private CountDownLatch latch;
+
+    @BeforeEach
+    void setUp() {
+        fleetShard = Mockito.mock(FleetShardClient.class);
+        when(fleetShard.lookupConnectorsAssignedBefore(eq("camel"), any(Version.class))).thenReturn(IDS);
+
+        ResourceAwareMetricsRecorder recorder = Mockito.mock(ResourceAwareMetricsRecorder.class);
+        doAnswer(i -> {
+            i.getArgument(1, Runnable.class).run();
+            return null;
+        }).when(recorder).record(any(), any(Runnable.class));
+
+        fanOut = DistributionSummary.builder("fanout").register(new SimpleMeterRegistry());
+        triggered = new CopyOnWriteArrayList<>();
+        latch = new CountDownLatch(IDS.size());
+
+        // two events per second, emitting the connectors on the watch thread would block it for a second
+        source = new ConnectorOperatorEventSource(
+            Mockito.mock(KubernetesClient.class),
+            operator("1.0.0"),
+            fleetShard,
+            RateLimiter.create(2),
+            fanOut,
+            recorder) {
+            @Override
+            protected Watch doWatch() {
+                return Mockito.mock(Watch.class);
+            }
+        };
+
+        source.setEventHandler(event -> {
+            triggered.add(event.getRelatedCustomResourceID());
+            latch.countDown();
+        });
+        source.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        source.stop();
+    }
+
+    @Test
+    void connectorsAreTriggeredWithoutBlockingTheWatch() throws Exception {
+        final long start = System.nanoTime();
+
+        source.eventReceived(Watcher.Action.MODIFIED, operator("1.1.0"));
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(fanOut.totalAmount()).isEqualTo(IDS.size());
+
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(triggered).containsExactlyElementsOf(IDS);
+    }
+
+    @Test
+    void connectorsPendingTriggerAreTriggeredOnce() throws Exception {
+        source.eventReceived(Watcher.Action.MODIFIED, operator("1.1.0"));
+        source.eventReceived(Watcher.Action.MODIFIED, operator("1.2.0"));
+
+        assertThat(fanOut.totalAmount()).isEqualTo(2 * IDS.size());
+
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // the first connector may have been triggered before the second event has been received
+        assertThat(triggered).containsAll(IDS).hasSizeLessThanOrEqualTo(IDS.size() + 1);
+    }
+
+    private static ManagedConnectorOperator operator(String version) {
+        return new ManagedConnectorOperatorBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withNamespace("cos")
+                .withName("camel-" + version)
+                .build())
+            .withSpec(new ManagedConnectorOperatorSpecBuilder()
+                .withType("camel")
+                .withVersion(version)
+                .build())
+            .build();
+    }
+}
@@ -0,0 +1,308 @@
+package org.bf2.cos.fleetshard.operator.connector;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.ManagedConnectorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorBuilder;
+import org.bf2.cos.fleetshard.operator.FleetShardOperatorConfig;
+import org.bf2.cos.fleetshard.operator.client.FleetShardClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Store;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+public class ConnectorShardsTest {
+    private static final ZonedDateTime EPOCH = ZonedDateTime.parse("2023-01-01T00:00:00Z");
+    private static final List<ManagedConnector> CONNECTORS = IntStream.range(0, 200)
+        .mapToObj(i -> connector("c" + i))
+        .collect(Collectors.toList());
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> deleted = new CopyOnWriteArrayList<>();
+
+    private MeterRegistry registry;
+    private SharedIndexInformer<Lease> informer;
+    private KubernetesClient kubernetesClient;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+
+        Store<Lease> store = Mockito.mock(Store.class);
+        when(store.list()).thenAnswer(i -> List.copyOf(leases.values()));
+
+        informer = Mockito.mock(SharedIndexInformer.class);
+        when(informer.getStore()).thenReturn(store);
+
+        MixedOperation<Lease, KubernetesResourceList<Lease>, Resource<Lease>> operation = Mockito.mock(MixedOperation.class);
+        when(operation.inNamespace("cos")).thenReturn(operation);
+        when(operation.withName(anyString())).thenAnswer(i -> {
+            Resource<Lease> resource = Mockito.mock(Resource.class);
+            when(resource.delete()).thenAnswer(d -> {
+                deleted.add(i.getArgument(0, String.class));
+                return List.of();
+            });
+            return resource;
+        });
+
+        kubernetesClient = Mockito.mock(KubernetesClient.class);
+        when(kubernetesClient.resources(Lease.class)).thenReturn(operation);
+    }
+
+    @Test
+    void everyConnectorIsOwnedWhenDisabled() {
+        ConnectorShards shards = shards("m1", false);
+
+        assertThat(CONNECTORS).allMatch(shards::owns);
+    }
+
+    @Test
+    void connectorsAreSplitAmongMembers() {
+        renew("m1", EPOCH);
+        renew("m2", EPOCH);
+
+        ConnectorShards m1 = shards("m1", true);
+        ConnectorShards m2 = shards("m2", true);
+
+        m1.rebalance();
+        m2.rebalance();
+
+        // each connector is owned by exactly one member
+        assertThat(CONNECTORS).allMatch(c -> m1.owns(c) ^ m2.owns(c));
+        assertThat(CONNECTORS).anyMatch(m1::owns);
+        assertThat(CONNECTORS).anyMatch(m2::owns);
+    }
+
+    @Test
+    void leaseExpiresOnObservedTime() {
+        ConnectorShards shards = shards("m1", true);
+
+        // the clock of m2 lags behind, its renew time looks expired
+        renew("m1", EPOCH);
+        renew("m2", EPOCH.minusHours(1));
+
+        shards.rebalance();
+
+        assertThat(CONNECTORS).allMatch(shards::owns);
+
+        // both replicas renew their leases, m2 joins once it has been seen renewing its lease
+        advance(Duration.ofSeconds(10));
+        renew("m1", EPOCH.plusSeconds(10));
+        renew("m2", EPOCH.minusHours(1).plusSeconds(10));
+
+        shards.rebalance();
+
+        assertThat(CONNECTORS).anyMatch(c -> !shards.owns(c));
+
+        // m2 stops renewing its lease
+        advance(Duration.ofSeconds(10));
+        renew("m1", EPOCH.plusSeconds(20));
+
+        shards.rebalance();
+
+        assertThat(CONNECTORS).anyMatch(c -> !shards.owns(c));
+
+        advance(Duration.ofSeconds(10));
+        renew("m1", EPOCH.plusSeconds(30));
+
+        shards.rebalance();
+
+        // m2 has not been seen renewing for longer than its lease duration
+        assertThat(CONNECTORS).allMatch(shards::owns);
+    }
+
+    @Test
+    void leaseAheadOfLocalClockExpires() {
+        ConnectorShards shards = shards("m1", true);
+
+        // the clock of m2 is ahead, its renew time would be valid for another hour
+        renew("m1", EPOCH);
+        renew("m2", EPOCH.plusHours(1));
+
+        shards.rebalance();
+
+        assertThat(CONNECTORS).anyMatch(c -> !shards.owns(c));
+
+        advance(Duration.ofSeconds(20));
+        renew("m1", EPOCH.plusSeconds(20));
+
+        shards.rebalance();
+
+        assertThat(CONNECTORS).allMatch(shards::owns);
+    }
+
+    @Test
+    void leaseSeenForTheFirstTimeExpiresOnRenewTime() {
+        ConnectorShards shards = shards("m1", true);
+
+        // m2 has crashed 10 seconds ago, before m1 has started
+        renew("m1", EPOCH);
+        renew("m2", EPOCH.minusSeconds(10));
+
+        shards.rebalance();
+
+        assertThat(CONNECTORS).anyMatch(c -> !shards.owns(c));
+
+        advance(Duration.ofSeconds(5));
+        renew("m1", EPOCH.plusSeconds(5));
+
+        shards.rebalance();
+
+        // m2 is not given another lease duration by having been seen for the first time
+        assertThat(CONNECTORS).allMatch(shards::owns);
+    }
+
+    @Test
+    void expiredLeasesAreDeleted() {
+        ConnectorShards shards = shards("m1", true);
+
+        // m2 has gone away an hour ago without releasing its lease, which counts as one lease duration at first sight
+        renew("m1", EPOCH);
+        renew("m2", EPOCH.minusHours(1));
+
+        shards.rebalance();
+
+        advance(Duration.ofSeconds(15));
+        renew("m1", EPOCH.plusSeconds(15));
+
+        shards.rebalance();
+
+        assertThat(deleted).isEmpty();
+
+        advance(Duration.ofSeconds(15));
+        renew("m1", EPOCH.plusSeconds(30));
+
+        shards.rebalance();
+
+        // m2 has not been renewing its lease for three lease durations, while m1 keeps renewing its own
+        assertThat(deleted).containsExactly("op-m2");
+    }
+
+    @Test
+    void connectorsOfExpiredMemberAreTakenOver() {
+        ConnectorShards shards = shards("m1", true);
+
+        renew("m1", EPOCH);
+        renew("m2", EPOCH);
+
+        shards.rebalance();
+
+        List<String> taken = CONNECTORS.stream()
+            .filter(c -> !shards.owns(c))
+            .map(c -> c.getMetadata().getName())
+            .collect(Collectors.toList());
+
+        List<ResourceID> triggered = new CopyOnWriteArrayList<>();
+
+        FleetShardClient fleetShard = Mockito.mock(FleetShardClient.class);
+        when(fleetShard.lookupManagedConnectors()).thenReturn(CONNECTORS);
+
+        DistributionSummary fanOut = DistributionSummary.builder("fanout").register(registry);
+
+        ConnectorShardsEventSource source = new ConnectorShardsEventSource(shards, fleetShard, fanOut);
+        source.setEventHandler(event -> triggered.add(event.getRelatedCustomResourceID()));
+        source.start();
+
+        // m2 stops renewing its lease
+        advance(Duration.ofSeconds(20));
+        renew("m1", EPOCH.plusSeconds(20));
+
+        shards.rebalance();
+
+        // only the connectors previously owned by m2 are reconciled by m1
+        assertThat(taken).isNotEmpty();
+        assertThat(triggered)
+            .extracting(ResourceID::getName)
+            .containsExactlyInAnyOrderElementsOf(taken);
+        assertThat(fanOut.totalAmount()).isEqualTo(taken.size());
+
+        source.stop();
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    private void renew(String member, ZonedDateTime renewTime) {
+        leases.put(member, new LeaseBuilder()
+            .withNewMetadata()
+            .withName("op-" + member)
+            .withNamespace("cos")
+            .endMetadata()
+            .withNewSpec()
+            .withHolderIdentity(member)
+            .withLeaseDurationSeconds(15)
+            .withRenewTime(renewTime)
+            .endSpec()
+            .build());
+    }
+
+    private ConnectorShards shards(String member, boolean enabled) {
+        FleetShardOperatorConfig config = Mockito.mock(FleetShardOperatorConfig.class);
+        FleetShardOperatorConfig.Sharding sharding = Mockito.mock(FleetShardOperatorConfig.Sharding.class);
+        when(sharding.enabled()).thenReturn(enabled);
+        when(sharding.member()).thenReturn(Optional.of(member));
+        when(sharding.leaseDuration()).thenReturn(Duration.ofSeconds(15));
+        when(sharding.virtualNodes()).thenReturn(128);
+        when(config.sharding()).thenReturn(sharding);
+        when(config.namespace()).thenReturn("cos");
+        FleetShardOperatorConfig.Metrics metrics = Mockito.mock(FleetShardOperatorConfig.Metrics.class);
+        when(metrics.baseName()).thenReturn("base." + member);
+        when(config.metrics()).thenReturn(metrics);
+
+        ManagedConnectorOperator operator = new ManagedConnectorOperatorBuilder()
+            .withMetadata(new ObjectMetaBuilder().withName("op").build())
+            .build();
+
+        ConnectorShards answer = new ConnectorShards();
+        answer.config = config;
+        answer.managedConnectorOperator = operator;
+        answer.registry = registry;
+        answer.kubernetesClient = kubernetesClient;
+        answer.informer = informer;
+        answer.clock = clock::get;
+        answer.wallClock = () -> EPOCH.toInstant().plusNanos(clock.get());
+        answer.setUp();
+
+        return answer;
+    }
+
+    private static ManagedConnector connector(String name) {
+        return new ManagedConnectorBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withNamespace("ns")
+                .withName(name)
+                .build())
+            .build();
+    }
+}
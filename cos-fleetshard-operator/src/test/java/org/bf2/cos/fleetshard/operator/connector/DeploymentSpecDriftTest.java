@@ -0,0 +1,101 @@
+package org.bf2.cos.fleetshard.operator.connector;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.bf2.cos.fleetshard.api.DeploymentSpec;
+import org.bf2.cos.fleetshard.api.DeploymentSpecBuilder;
+import org.bf2.cos.fleetshard.api.KafkaSpecBuilder;
+import org.bf2.cos.fleetshard.api.SchemaRegistrySpecBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeploymentSpecDriftTest {
+    private static final Map<DeploymentSpecDrift.Field, Consumer<DeploymentSpec>> CHANGES = Map.of(
+        DeploymentSpecDrift.Field.CONNECTOR_TYPE_ID, d -> d.setConnectorTypeId("ctid-2"),
+        DeploymentSpecDrift.Field.CONNECTOR_RESOURCE_VERSION, d -> d.setConnectorResourceVersion(2L),
+        DeploymentSpecDrift.Field.DEPLOYMENT_RESOURCE_VERSION, d -> d.setDeploymentResourceVersion(2L),
+        DeploymentSpecDrift.Field.KAFKA, d -> d.getKafka().setUrl("kafka-2:9092"),
+        DeploymentSpecDrift.Field.SCHEMA_REGISTRY, d -> d.getSchemaRegistry().setUrl("registry-2:8080"),
+        DeploymentSpecDrift.Field.DESIRED_STATE, d -> d.setDesiredState("stopped"),
+        DeploymentSpecDrift.Field.SECRET, d -> d.setSecret("secret-2"),
+        DeploymentSpecDrift.Field.CONFIG_MAP_CHECKSUM, d -> d.setConfigMapChecksum("checksum-2"),
+        DeploymentSpecDrift.Field.UNIT_OF_WORK, d -> d.setUnitOfWork("uow-2"));
+
+    @Test
+    void sameDeploymentsHaveNoDrift() {
+        assertThat(DeploymentSpecDrift.compare(deployment(), deployment())).isEmpty();
+
+        DeploymentSpec deployment = deployment();
+        assertThat(DeploymentSpecDrift.compare(deployment, deployment)).isEmpty();
+        assertThat(DeploymentSpecDrift.compare(null, null)).isEmpty();
+    }
+
+    @Test
+    void missingDeploymentDriftsOnAllFields() {
+        assertThat(DeploymentSpecDrift.compare(null, deployment())).isEqualTo(EnumSet.allOf(DeploymentSpecDrift.Field.class));
+        assertThat(DeploymentSpecDrift.compare(deployment(), null)).isEqualTo(EnumSet.allOf(DeploymentSpecDrift.Field.class));
+    }
+
+    @ParameterizedTest
+    @EnumSource(DeploymentSpecDrift.Field.class)
+    void singleFieldChangeIsReported(DeploymentSpecDrift.Field field) {
+        DeploymentSpec expected = deployment();
+        CHANGES.get(field).accept(expected);
+
+        assertThat(DeploymentSpecDrift.compare(deployment(), expected)).containsExactly(field);
+        assertThat(DeploymentSpecDrift.compare(expected, deployment())).containsExactly(field);
+    }
+
+    @Test
+    void unitOfWorkOnlyChangeIsReportedAlone() {
+        // a re-sync only bumps the unit of work, which ConnectorController.validate relies on to re-augment
+        DeploymentSpec expected = deployment();
+        expected.setUnitOfWork("uow-2");
+
+        assertThat(DeploymentSpecDrift.compare(deployment(), expected))
+            .isEqualTo(EnumSet.of(DeploymentSpecDrift.Field.UNIT_OF_WORK));
+    }
+
+    @Test
+    void multipleFieldChangesAreReported() {
+        DeploymentSpec expected = deployment();
+        expected.setDeploymentResourceVersion(2L);
+        expected.setUnitOfWork("uow-2");
+        expected.setDesiredState("stopped");
+
+        assertThat(DeploymentSpecDrift.compare(deployment(), expected)).containsExactlyInAnyOrder(
+            DeploymentSpecDrift.Field.DEPLOYMENT_RESOURCE_VERSION,
+            DeploymentSpecDrift.Field.UNIT_OF_WORK,
+            DeploymentSpecDrift.Field.DESIRED_STATE);
+    }
+
+    @Test
+    void everyDeploymentFieldIsCompared() {
+        long fields = Arrays.stream(DeploymentSpec.class.getDeclaredFields())
+            .filter(f -> !Modifier.isStatic(f.getModifiers()))
+            .count();
+
+        assertThat(DeploymentSpecDrift.Field.values()).hasSize((int) fields);
+    }
+
+    private static DeploymentSpec deployment() {
+        return new DeploymentSpecBuilder()
+            .withConnectorTypeId("ctid")
+            .withConnectorResourceVersion(1L)
+            .withDeploymentResourceVersion(1L)
+            .withKafka(new KafkaSpecBuilder().withId("kafka").withUrl("kafka:9092").build())
+            .withSchemaRegistry(new SchemaRegistrySpecBuilder().withId("registry").withUrl("registry:8080").build())
+            .withDesiredState("ready")
+            .withSecret("secret")
+            .withConfigMapChecksum("checksum")
+            .withUnitOfWork("uow")
+            .build();
+    }
+}
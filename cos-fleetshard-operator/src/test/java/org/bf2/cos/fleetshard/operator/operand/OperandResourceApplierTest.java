@@ -0,0 +1,235 @@
+package org.bf2.cos.fleetshard.operator.operand;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperator;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorBuilder;
+import org.bf2.cos.fleetshard.operator.FleetShardOperatorConfig;
+import org.bf2.cos.fleetshard.operator.client.FleetShardClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntryBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.NamespaceableResource;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bf2.cos.fleetshard.operator.operand.OperandResourceApplier.ANNOTATION_CHECKSUM;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OperandResourceApplierTest {
+    private static final String NAMESPACE = "ns";
+    private static final String FIELD_MANAGER = "connector-operator";
+
+    private OperandResourceApplier applier;
+    private FleetShardClient fleetShard;
+    private Resource<HasMetadata> resource;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        fleetShard = Mockito.mock(FleetShardClient.class);
+        resource = Mockito.mock(Resource.class, Mockito.RETURNS_SELF);
+
+        NamespaceableResource<HasMetadata> namespaceable = Mockito.mock(NamespaceableResource.class);
+        when(namespaceable.inNamespace(NAMESPACE)).thenReturn(resource);
+        when(resource.serverSideApply()).thenAnswer(i -> configMap(Map.of("k", "v")));
+
+        KubernetesClient kubernetesClient = Mockito.mock(KubernetesClient.class);
+        when(kubernetesClient.resource(any(HasMetadata.class))).thenReturn(namespaceable);
+
+        FleetShardOperatorConfig config = Mockito.mock(FleetShardOperatorConfig.class);
+        FleetShardOperatorConfig.Metrics metrics = Mockito.mock(FleetShardOperatorConfig.Metrics.class);
+        when(metrics.baseName()).thenReturn("base");
+        when(config.metrics()).thenReturn(metrics);
+
+        ManagedConnectorOperator operator = new ManagedConnectorOperatorBuilder()
+            .withNewMetadata()
+            .withName("operator-1")
+            .endMetadata()
+            .withNewSpec()
+            .withType(FIELD_MANAGER)
+            .withVersion("1.0.0")
+            .endSpec()
+            .build();
+
+        applier = new OperandResourceApplier();
+        applier.kubernetesClient = kubernetesClient;
+        applier.fleetShard = fleetShard;
+        applier.managedConnectorOperator = operator;
+        applier.registry = registry;
+        applier.config = config;
+    }
+
+    @Test
+    void checksumIsStable() {
+        Map<String, String> data = new LinkedHashMap<>();
+        data.put("a", "1");
+        data.put("b", "2");
+
+        Map<String, String> reversed = new LinkedHashMap<>();
+        reversed.put("b", "2");
+        reversed.put("a", "1");
+
+        ConfigMap desired = configMap(data);
+        String checksum = OperandResourceApplier.computeChecksum(desired);
+
+        assertThat(OperandResourceApplier.computeChecksum(configMap(reversed))).isEqualTo(checksum);
+        assertThat(OperandResourceApplier.computeChecksum(configMap(Map.of("a", "1", "b", "3")))).isNotEqualTo(checksum);
+
+        // the checksum annotation itself does not contribute to the checksum, and is left in place
+        desired.getMetadata().getAnnotations().put(ANNOTATION_CHECKSUM, "previous");
+
+        assertThat(OperandResourceApplier.computeChecksum(desired)).isEqualTo(checksum);
+        assertThat(desired.getMetadata().getAnnotations()).containsEntry(ANNOTATION_CHECKSUM, "previous");
+    }
+
+    @Test
+    void missingResourceIsApplied() {
+        ConfigMap desired = configMap(Map.of("k", "v"));
+        String checksum = OperandResourceApplier.computeChecksum(desired);
+
+        assertThat(applier.apply(NAMESPACE, desired, false)).isTrue();
+
+        verify(resource).fieldManager(FIELD_MANAGER);
+        verify(resource).forceConflicts();
+        verify(resource).serverSideApply();
+        verify(resource, never()).patch(any(PatchContext.class), anyString());
+
+        assertThat(desired.getMetadata().getAnnotations()).containsEntry(ANNOTATION_CHECKSUM, checksum);
+        assertThat(registry.get("base" + OperandResourceApplier.METRICS_APPLIED).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void unchangedResourceIsSkipped() {
+        ConfigMap desired = configMap(Map.of("k", "v"));
+        live(desired, OperandResourceApplier.computeChecksum(desired));
+
+        assertThat(applier.apply(NAMESPACE, desired, false)).isFalse();
+
+        verify(resource, never()).serverSideApply();
+        assertThat(registry.get("base" + OperandResourceApplier.METRICS_SKIPPED).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void changedResourceIsApplied() {
+        ConfigMap desired = configMap(Map.of("k", "v2"));
+        live(desired, OperandResourceApplier.computeChecksum(configMap(Map.of("k", "v1"))));
+
+        assertThat(applier.apply(NAMESPACE, desired, false)).isTrue();
+
+        verify(resource).serverSideApply();
+    }
+
+    @Test
+    void unchangedResourceIsAppliedWhenForced() {
+        ConfigMap desired = configMap(Map.of("k", "v"));
+        live(desired, OperandResourceApplier.computeChecksum(desired));
+
+        // a re-sync re-applies the resource as the live one may have been altered
+        assertThat(applier.apply(NAMESPACE, desired, true)).isTrue();
+
+        verify(resource).serverSideApply();
+    }
+
+    @Test
+    void legacyFieldsAreHandedOverOnFirstApply() {
+        ConfigMap desired = configMap(Map.of("k", "v2"));
+        ConfigMap live = live(desired, null);
+        live.getMetadata().setResourceVersion("42");
+        live.getMetadata().setManagedFields(List.of(
+            new ManagedFieldsEntryBuilder()
+                .withManager(OperandResourceApplier.LEGACY_FIELD_MANAGER)
+                .withOperation(OperandResourceApplier.OPERATION_UPDATE)
+                .build(),
+            new ManagedFieldsEntryBuilder()
+                .withManager("kube-controller-manager")
+                .withOperation(OperandResourceApplier.OPERATION_UPDATE)
+                .build()));
+
+        assertThat(applier.apply(NAMESPACE, desired, false)).isTrue();
+
+        ArgumentCaptor<String> patch = ArgumentCaptor.forClass(String.class);
+        verify(resource).patch(any(PatchContext.class), patch.capture());
+        verify(resource).serverSideApply();
+
+        JsonNode ops = Serialization.unmarshal(patch.getValue(), JsonNode.class);
+
+        assertThat(ops.get(0).get("op").asText()).isEqualTo("test");
+        assertThat(ops.get(0).get("path").asText()).isEqualTo("/metadata/resourceVersion");
+        assertThat(ops.get(0).get("value").asText()).isEqualTo("42");
+
+        assertThat(ops.get(1).get("op").asText()).isEqualTo("replace");
+        assertThat(ops.get(1).get("path").asText()).isEqualTo("/metadata/managedFields");
+
+        JsonNode entries = ops.get(1).get("value");
+        assertThat(entries).hasSize(2);
+        assertThat(entries.get(0).get("manager").asText()).isEqualTo(FIELD_MANAGER);
+        assertThat(entries.get(0).get("operation").asText()).isEqualTo(OperandResourceApplier.OPERATION_APPLY);
+        assertThat(entries.get(1).get("manager").asText()).isEqualTo("kube-controller-manager");
+        assertThat(entries.get(1).get("operation").asText()).isEqualTo(OperandResourceApplier.OPERATION_UPDATE);
+    }
+
+    @Test
+    void fieldsAreNotHandedOverOnceApplied() {
+        ConfigMap desired = configMap(Map.of("k", "v2"));
+        ConfigMap live = live(desired, null);
+        live.getMetadata().setManagedFields(List.of(
+            new ManagedFieldsEntryBuilder()
+                .withManager(FIELD_MANAGER)
+                .withOperation(OperandResourceApplier.OPERATION_APPLY)
+                .build(),
+            new ManagedFieldsEntryBuilder()
+                .withManager(OperandResourceApplier.LEGACY_FIELD_MANAGER)
+                .withOperation(OperandResourceApplier.OPERATION_UPDATE)
+                .build()));
+
+        assertThat(applier.apply(NAMESPACE, desired, false)).isTrue();
+
+        verify(resource, never()).patch(any(PatchContext.class), anyString());
+        verify(resource).serverSideApply();
+    }
+
+    private ConfigMap live(ConfigMap desired, String checksum) {
+        ConfigMap live = new ConfigMapBuilder(desired).build();
+        live.getMetadata().setAnnotations(new LinkedHashMap<>());
+
+        if (checksum != null) {
+            live.getMetadata().getAnnotations().put(ANNOTATION_CHECKSUM, checksum);
+        }
+
+        when(fleetShard.lookupOperandResource("v1", "ConfigMap", NAMESPACE, desired.getMetadata().getName()))
+            .thenReturn(live);
+
+        return live;
+    }
+
+    private static ConfigMap configMap(Map<String, String> data) {
+        return new ConfigMapBuilder()
+            .withNewMetadata()
+            .withName("cm")
+            .withAnnotations(new LinkedHashMap<>())
+            .endMetadata()
+            .withData(new LinkedHashMap<>(data))
+            .build();
+    }
+}
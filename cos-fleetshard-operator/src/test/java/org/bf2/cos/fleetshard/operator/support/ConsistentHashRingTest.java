@@ -0,0 +1,78 @@
+package org.bf2.cos.fleetshard.operator.support;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConsistentHashRingTest {
+    private static final int VIRTUAL_NODES = 128;
+    private static final List<String> KEYS = IntStream.range(0, 10_000)
+        .mapToObj(i -> "ns-" + (i % 50) + "/connector-" + i)
+        .collect(Collectors.toList());
+
+    @Test
+    void emptyRingHasNoOwner() {
+        assertThat(ConsistentHashRing.empty().owner("ns/c1")).isNull();
+        assertThat(ConsistentHashRing.of(List.of(), VIRTUAL_NODES)).isEqualTo(ConsistentHashRing.empty());
+    }
+
+    @Test
+    void ownersAreStable() {
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of("m1", "m2", "m3"), VIRTUAL_NODES);
+        ConsistentHashRing other = ConsistentHashRing.of(List.of("m3", "m1", "m2"), VIRTUAL_NODES);
+
+        // every replica builds the same ring out of the same members, whatever the order they are listed in
+        assertThat(other).isEqualTo(ring);
+        assertThat(owners(other)).isEqualTo(owners(ring));
+        assertThat(owners(ring)).isEqualTo(owners(ring));
+    }
+
+    @Test
+    void keysAreSpreadAmongMembers() {
+        Map<String, String> owners = owners(ConsistentHashRing.of(List.of("m1", "m2", "m3"), VIRTUAL_NODES));
+
+        Map<String, Long> counts = owners.values().stream()
+            .collect(Collectors.groupingBy(m -> m, Collectors.counting()));
+
+        assertThat(counts).containsOnlyKeys("m1", "m2", "m3");
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(2_000L, 4_700L));
+    }
+
+    @Test
+    void onlyKeysOfJoiningMemberMove() {
+        Map<String, String> before = owners(ConsistentHashRing.of(List.of("m1", "m2", "m3"), VIRTUAL_NODES));
+        Map<String, String> after = owners(ConsistentHashRing.of(List.of("m1", "m2", "m3", "m4"), VIRTUAL_NODES));
+
+        long moved = KEYS.stream().filter(key -> !before.get(key).equals(after.get(key))).count();
+
+        // the keys that move all go to the new member, which gets about a fourth of them
+        assertThat(KEYS).filteredOn(key -> !before.get(key).equals(after.get(key)))
+            .allSatisfy(key -> assertThat(after.get(key)).isEqualTo("m4"));
+        assertThat(moved).isBetween(1_500L, 3_500L);
+    }
+
+    @Test
+    void onlyKeysOfLeavingMemberMove() {
+        Map<String, String> before = owners(ConsistentHashRing.of(List.of("m1", "m2", "m3"), VIRTUAL_NODES));
+        Map<String, String> after = owners(ConsistentHashRing.of(List.of("m1", "m3"), VIRTUAL_NODES));
+
+        // the keys of the remaining members stay where they are
+        assertThat(KEYS).filteredOn(key -> !before.get(key).equals(after.get(key)))
+            .allSatisfy(key -> assertThat(before.get(key)).isEqualTo("m2"));
+        assertThat(KEYS).filteredOn(key -> before.get(key).equals("m2"))
+            .allSatisfy(key -> assertThat(after.get(key)).isIn("m1", "m3"));
+    }
+
+    private static Map<String, String> owners(ConsistentHashRing ring) {
+        Map<String, String> answer = new HashMap<>();
+        KEYS.forEach(key -> answer.put(key, ring.owner(key)));
+
+        return answer;
+    }
+}
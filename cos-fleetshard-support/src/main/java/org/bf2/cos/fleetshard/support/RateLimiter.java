@@ -0,0 +1,83 @@
+package org.bf2.cos.fleetshard.support;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simple rate limiter that evenly spaces permits over time, without allowing bursts.
+ */
+public final class RateLimiter {
+    private final long intervalNanos;
+    private long next;
+
+    private RateLimiter(long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+        this.next = System.nanoTime();
+    }
+
+    /**
+     * Acquire a permit, blocking until it is available.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        if (intervalNanos <= 0) {
+            return;
+        }
+
+        final long wait;
+
+        synchronized (this) {
+            final long now = System.nanoTime();
+
+            wait = next - now;
+            next = Math.max(now, next) + intervalNanos;
+        }
+
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Acquire a permit if it is immediately available.
+     *
+     * @return true if the permit has been acquired, false otherwise
+     */
+    public boolean tryAcquire() {
+        if (intervalNanos <= 0) {
+            return true;
+        }
+
+        synchronized (this) {
+            final long now = System.nanoTime();
+            if (next - now > 0) {
+                return false;
+            }
+
+            next = now + intervalNanos;
+            return true;
+        }
+    }
+
+    /**
+     * Creates a new {@link RateLimiter}.
+     *
+     * @param  permitsPerSecond the number of permits per second, a value lower or equal to zero means unlimited.
+     * @return                  the rate limiter.
+     */
+    public static RateLimiter create(double permitsPerSecond) {
+        return new RateLimiter(
+            permitsPerSecond > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond)
+                : 0);
+    }
+
+    /**
+     * Creates an unlimited {@link RateLimiter}.
+     *
+     * @return the rate limiter.
+     */
+    public static RateLimiter unlimited() {
+        return new RateLimiter(0);
+    }
+}
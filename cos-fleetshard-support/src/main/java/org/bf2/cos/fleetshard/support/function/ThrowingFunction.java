@@ -0,0 +1,6 @@
+package org.bf2.cos.fleetshard.support.function;
+
+@FunctionalInterface
+public interface ThrowingFunction<I, O, T extends Throwable> {
+    O apply(I in) throws T;
+}
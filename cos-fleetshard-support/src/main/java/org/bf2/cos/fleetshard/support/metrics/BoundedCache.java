@@ -0,0 +1,153 @@
+package org.bf2.cos.fleetshard.support.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A size bounded cache evicting the least recently used entries, used to avoid building and looking up the same
+ * meters and tags over and over.
+ * </p>
+ * Lookups do not lock: the recency of an entry is a timestamp updated on access and the entries are only sorted by it
+ * when the size bound is exceeded, by a single thread at a time. Values are computed outside of any lock, so two
+ * threads missing the same key may both compute it, only the first value being kept.
+ */
+final class BoundedCache<K, V> {
+    private final ConcurrentHashMap<K, Entry<V>> entries;
+    private final ReentrantLock eviction;
+    private final int maxSize;
+    private final int evictedSize;
+    private final BiConsumer<K, V> evictionHandler;
+
+    BoundedCache(int maxSize) {
+        this(maxSize, (k, v) -> {
+        });
+    }
+
+    /**
+     * @param maxSize         the maximum number of entries
+     * @param evictionHandler notified of the entries evicted because of the size bound
+     */
+    BoundedCache(int maxSize, BiConsumer<K, V> evictionHandler) {
+        this.entries = new ConcurrentHashMap<>();
+        this.eviction = new ReentrantLock();
+        this.maxSize = maxSize;
+        // evict a tenth of the entries at once, so a full cache is not sorted on every miss
+        this.evictedSize = maxSize - maxSize / 10;
+        this.evictionHandler = evictionHandler;
+    }
+
+    V get(K key) {
+        final Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        entry.touch();
+
+        return entry.value;
+    }
+
+    void put(K key, V value) {
+        entries.put(key, new Entry<>(value));
+        evict();
+    }
+
+    V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        final V answer = get(key);
+        if (answer != null) {
+            return answer;
+        }
+
+        final V value = mappingFunction.apply(key);
+        if (value == null) {
+            return null;
+        }
+
+        final Entry<V> existing = entries.putIfAbsent(key, new Entry<>(value));
+        if (existing != null) {
+            existing.touch();
+            return existing.value;
+        }
+
+        evict();
+
+        return value;
+    }
+
+    V remove(K key) {
+        final Entry<V> entry = entries.remove(key);
+
+        return entry != null ? entry.value : null;
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /*
+     * Evict the least recently used entries once the size bound is exceeded. The access time of each entry is taken
+     * before sorting them, as it may change while the entries are being sorted.
+     */
+    private void evict() {
+        if (entries.size() <= maxSize || !eviction.tryLock()) {
+            return;
+        }
+
+        try {
+            final List<Candidate<K, V>> candidates = new ArrayList<>(entries.size());
+            entries.forEach((key, entry) -> candidates.add(new Candidate<>(key, entry)));
+
+            final int excess = candidates.size() - evictedSize;
+            if (excess <= 0) {
+                return;
+            }
+
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.accessed));
+
+            for (int i = 0; i < excess; i++) {
+                final Candidate<K, V> candidate = candidates.get(i);
+
+                if (entries.remove(candidate.key, candidate.entry)) {
+                    evictionHandler.accept(candidate.key, candidate.entry.value);
+                }
+            }
+        } finally {
+            eviction.unlock();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile long accessed;
+
+        Entry(V value) {
+            this.value = value;
+            this.accessed = System.nanoTime();
+        }
+
+        void touch() {
+            accessed = System.nanoTime();
+        }
+    }
+
+    private static final class Candidate<K, V> {
+        private final K key;
+        private final Entry<V> entry;
+        private final long accessed;
+
+        Candidate(K key, Entry<V> entry) {
+            this.key = key;
+            this.entry = entry;
+            this.accessed = entry.accessed;
+        }
+    }
+}
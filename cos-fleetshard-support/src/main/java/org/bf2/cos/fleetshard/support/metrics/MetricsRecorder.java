@@ -1,27 +1,55 @@
 package org.bf2.cos.fleetshard.support.metrics;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import org.bf2.cos.fleetshard.support.exceptions.WrappedRuntimeException;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 
 public class MetricsRecorder {
+    /**
+     * The maximum number of meters kept by a recorder, the least recently used ones being evicted from the cache (but
+     * not from the registry) once reached.
+     */
+    public static final int METERS_CACHE_SIZE = 10_000;
+
+    /**
+     * The recorders of each registry, notified by a single removal listener per registry as listeners can't be removed
+     * from a registry. Both registries and recorders are weakly referenced, so discarded recorders are not retained.
+     */
+    private static final Map<MeterRegistry, Set<MetricsRecorder>> RECORDERS = new WeakHashMap<>();
+
     private final MeterRegistry registry;
     private final String id;
     private final List<Tag> tags;
+    private final BoundedCache<MetersKey, Meters> meters;
+    private final Map<Meter.Id, MetersKey> keys;
 
     private MetricsRecorder(MeterRegistry registry, String id, List<Tag> tags) {
         this.registry = registry;
         this.id = id;
         this.tags = tags;
+        this.keys = new ConcurrentHashMap<>();
+        this.meters = new BoundedCache<>(METERS_CACHE_SIZE, (key, m) -> {
+            keys.remove(m.timer.getId());
+            keys.remove(m.counter.getId());
+        });
+
+        register(registry, this);
     }
 
     public String getId() {
@@ -62,17 +90,10 @@ public class MetricsRecorder {
 
     public void record(Runnable action, String subId, Iterable<Tag> additionalTags, Consumer<Exception> exceptionHandler) {
         try {
-            Timer.builder(id + subId + ".time")
-                .tags(tags)
-                .tags(additionalTags)
-                .register(registry)
-                .record(action);
+            final Meters m = meters(subId, additionalTags);
 
-            Counter.builder(id + subId + ".count")
-                .tags(tags)
-                .tags(additionalTags)
-                .register(registry)
-                .increment();
+            m.timer.record(action);
+            m.counter.increment();
         } catch (Exception e) {
             Counter.builder(id + subId + ".count.failure")
                 .tags(tags)
@@ -116,17 +137,10 @@ public class MetricsRecorder {
     public <T> T recordCallable(Callable<T> action, String subId, Iterable<Tag> additionalTags,
         Consumer<Exception> exceptionHandler) {
         try {
-            var answer = Timer.builder(id + subId + ".time")
-                .tags(tags)
-                .tags(additionalTags)
-                .register(registry)
-                .recordCallable(action);
+            final Meters m = meters(subId, additionalTags);
 
-            Counter.builder(id + subId + ".count")
-                .tags(tags)
-                .tags(additionalTags)
-                .register(registry)
-                .increment();
+            var answer = m.timer.recordCallable(action);
+            m.counter.increment();
 
             return answer;
         } catch (Exception e) {
@@ -143,6 +157,76 @@ public class MetricsRecorder {
         return null;
     }
 
+    /*
+     * The meters are registered outside of any lock of the cache: concurrent misses of the same key register the same
+     * meters, as the registry returns the existing meters of a given id.
+     */
+    private Meters meters(String subId, Iterable<Tag> additionalTags) {
+        return meters.computeIfAbsent(
+            new MetersKey(subId, Tags.of(additionalTags)),
+            key -> {
+                final Meters m = new Meters(
+                    Timer.builder(id + key.subId + ".time")
+                        .tags(tags)
+                        .tags(key.tags)
+                        .register(registry),
+                    Counter.builder(id + key.subId + ".count")
+                        .tags(tags)
+                        .tags(key.tags)
+                        .register(registry));
+
+                keys.put(m.timer.getId(), key);
+                keys.put(m.counter.getId(), key);
+
+                return m;
+            });
+    }
+
+    /**
+     * Evict the cached meters a meter removed from the registry, i.e. by a housekeeper, belongs to, as they would not
+     * be published anymore. The other cached meters are left untouched.
+     */
+    private void evict(Meter.Id meterId) {
+        if (!meterId.getName().startsWith(id)) {
+            return;
+        }
+
+        final MetersKey key = keys.remove(meterId);
+        if (key == null) {
+            return;
+        }
+
+        final Meters m = meters.remove(key);
+        if (m != null) {
+            keys.remove(m.timer.getId());
+            keys.remove(m.counter.getId());
+        }
+    }
+
+    private static void register(MeterRegistry registry, MetricsRecorder recorder) {
+        synchronized (RECORDERS) {
+            Set<MetricsRecorder> recorders = RECORDERS.get(registry);
+
+            if (recorders == null) {
+                final Set<MetricsRecorder> registered = Collections.newSetFromMap(new WeakHashMap<>());
+
+                registry.config().onMeterRemoved(meter -> {
+                    final List<MetricsRecorder> targets;
+                    synchronized (RECORDERS) {
+                        targets = new ArrayList<>(registered);
+                    }
+
+                    targets.forEach(r -> r.evict(meter.getId()));
+                });
+
+                recorders = registered;
+                RECORDERS.put(registry, recorders);
+            }
+
+            recorders.add(recorder);
+        }
+    }
+
     public static MetricsRecorder of(MeterRegistry registry, String id) {
         return new MetricsRecorder(registry, id, Collections.emptyList());
     }
@@ -150,4 +234,42 @@ public class MetricsRecorder {
     public static MetricsRecorder of(MeterRegistry registry, String id, List<Tag> tags) {
         return new MetricsRecorder(registry, id, tags);
     }
+
+    private static final class MetersKey {
+        private final String subId;
+        private final Tags tags;
+
+        MetersKey(String subId, Tags tags) {
+            this.subId = subId;
+            this.tags = tags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MetersKey)) {
+                return false;
+            }
+
+            MetersKey other = (MetersKey) o;
+            return subId.equals(other.subId) && tags.equals(other.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subId, tags);
+        }
+    }
+
+    private static final class Meters {
+        private final Timer timer;
+        private final Counter counter;
+
+        Meters(Timer timer, Counter counter) {
+            this.timer = timer;
+            this.counter = counter;
+        }
+    }
 }
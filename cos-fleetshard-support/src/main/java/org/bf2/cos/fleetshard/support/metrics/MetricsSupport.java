@@ -3,11 +3,15 @@ package org.bf2.cos.fleetshard.support.metrics;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.micrometer.core.instrument.Tag;
 
 public final class MetricsSupport {
+    // label and annotation keys are taken from the configuration, hence their tag names are computed only once
+    private static final Map<String, String> TAG_NAMES = new ConcurrentHashMap<>();
+
     private MetricsSupport() {
     }
 
@@ -40,10 +44,17 @@ public final class MetricsSupport {
     private static void metadata2tag(List<Tag> tags, String key, Map<String, String> elements) {
         String val = elements.get(key);
         if (val != null) {
-            String[] kv = key.split("/");
-            if (kv.length == 2) {
-                tags.add(Tag.of(kv[1].replace("-", "_"), val));
+            String name = TAG_NAMES.computeIfAbsent(key, MetricsSupport::tagName);
+            if (!name.isEmpty()) {
+                tags.add(Tag.of(name, val));
             }
         }
     }
+
+    private static String tagName(String key) {
+        String[] kv = key.split("/");
+        return kv.length == 2
+            ? kv[1].replace("-", "_")
+            : "";
+    }
 }
@@ -1,6 +1,7 @@
 package org.bf2.cos.fleetshard.support.metrics;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.function.Consumer;
 
@@ -10,12 +11,19 @@ import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
 
 public class ResourceAwareMetricsRecorder {
+    /**
+     * The maximum number of resources whose tags are kept, the least recently used ones being evicted once reached.
+     */
+    public static final int TAGS_CACHE_SIZE = 10_000;
+
     private final MetricsRecorder recorder;
     private final MetricsRecorderConfig config;
+    private final BoundedCache<String, ResourceTags> tags;
 
     private ResourceAwareMetricsRecorder(MetricsRecorder recorder, MetricsRecorderConfig config) {
         this.recorder = recorder;
         this.config = config;
+        this.tags = new BoundedCache<>(TAGS_CACHE_SIZE);
     }
 
     public MetricsRecorder recorder() {
@@ -125,11 +133,28 @@ public class ResourceAwareMetricsRecorder {
             exceptionHandler);
     }
 
-    private List<Tag> tags(HasMetadata resource, Iterable<Tag> additionalTags) {
-        List<Tag> tags = MetricsSupport.tags(config, resource);
-        additionalTags.forEach(tags::add);
+    private Tags tags(HasMetadata resource, Iterable<Tag> additionalTags) {
+        return tags(resource).and(additionalTags);
+    }
+
+    /**
+     * Compute the tags of a resource once per resource version, as they only depend on its labels and annotations.
+     */
+    private Tags tags(HasMetadata resource) {
+        final String uid = resource.getMetadata().getUid();
+        final String resourceVersion = resource.getMetadata().getResourceVersion();
+
+        if (uid == null || resourceVersion == null) {
+            return Tags.of(MetricsSupport.tags(config, resource));
+        }
 
-        return tags;
+        ResourceTags answer = this.tags.get(uid);
+        if (answer == null || !Objects.equals(resourceVersion, answer.resourceVersion)) {
+            answer = new ResourceTags(resourceVersion, Tags.of(MetricsSupport.tags(config, resource)));
+            this.tags.put(uid, answer);
+        }
+
+        return answer.tags;
     }
 
     public static ResourceAwareMetricsRecorder of(MetricsRecorder recorder, MetricsRecorderConfig config) {
@@ -144,4 +169,14 @@ public class ResourceAwareMetricsRecorder {
         List<Tag> tags) {
         return new ResourceAwareMetricsRecorder(MetricsRecorder.of(registry, id, tags), config);
     }
+
+    private static final class ResourceTags {
+        private final String resourceVersion;
+        private final Tags tags;
+
+        ResourceTags(String resourceVersion, Tags tags) {
+            this.resourceVersion = resourceVersion;
+            this.tags = tags;
+        }
+    }
 }
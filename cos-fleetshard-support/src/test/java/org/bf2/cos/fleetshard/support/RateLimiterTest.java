@@ -0,0 +1,73 @@
+package org.bf2.cos.fleetshard.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RateLimiterTest {
+
+    @Test
+    void unlimitedNeverWaits() throws Exception {
+        RateLimiter limiter = RateLimiter.unlimited();
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            limiter.acquire();
+        }
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void nonPositiveRateIsUnlimited() {
+        assertThat(RateLimiter.create(0).tryAcquire()).isTrue();
+        assertThat(RateLimiter.create(0).tryAcquire()).isTrue();
+        assertThat(RateLimiter.create(-1).tryAcquire()).isTrue();
+    }
+
+    @Test
+    void tryAcquireDoesNotAllowBursts() {
+        RateLimiter limiter = RateLimiter.create(1);
+
+        // the first permit is available right away, the next one only after a second
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void acquireSpacesPermits() throws Exception {
+        RateLimiter limiter = RateLimiter.create(100);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire();
+        }
+
+        // the first permit is immediate, the next five are 10ms apart from each other
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void acquireIsInterruptible() {
+        RateLimiter limiter = RateLimiter.create(0.1);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        Thread.currentThread().interrupt();
+
+        try {
+            // the next permit is 10 seconds away
+            assertThatThrownBy(limiter::acquire).isInstanceOf(InterruptedException.class);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
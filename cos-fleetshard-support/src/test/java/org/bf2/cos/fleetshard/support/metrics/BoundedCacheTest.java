@@ -0,0 +1,69 @@
+package org.bf2.cos.fleetshard.support.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedCacheTest {
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() throws Exception {
+        final Map<String, Integer> evicted = new ConcurrentHashMap<>();
+        final BoundedCache<String, Integer> cache = new BoundedCache<>(10, evicted::put);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, i);
+            Thread.sleep(1);
+        }
+
+        assertThat(evicted).isEmpty();
+
+        // k0 is the eldest entry, using it makes k1 and k2 the least recently used ones
+        assertThat(cache.get("k0")).isZero();
+        cache.put("k10", 10);
+
+        // a tenth of the entries are evicted at once
+        assertThat(cache.size()).isEqualTo(9);
+        assertThat(evicted).containsOnlyKeys("k1", "k2");
+        assertThat(cache.get("k0")).isZero();
+        assertThat(cache.get("k10")).isEqualTo(10);
+    }
+
+    @Test
+    void valuesAreComputedOnce() {
+        final AtomicInteger computed = new AtomicInteger();
+        final BoundedCache<String, Integer> cache = new BoundedCache<>(10);
+
+        assertThat(cache.computeIfAbsent("k", k -> computed.incrementAndGet())).isEqualTo(1);
+        assertThat(cache.computeIfAbsent("k", k -> computed.incrementAndGet())).isEqualTo(1);
+        assertThat(computed).hasValue(1);
+    }
+
+    @Test
+    void valuesAreComputedOutsideOfTheCache() {
+        final BoundedCache<String, Integer> cache = new BoundedCache<>(10);
+
+        // the computation of a value may use the cache itself, i.e. to register related entries
+        assertThat(cache.computeIfAbsent("a", a -> cache.computeIfAbsent("b", b -> 1) + 1)).isEqualTo(2);
+        assertThat(cache.get("b")).isEqualTo(1);
+    }
+
+    @Test
+    void removedEntriesAreNotEvicted() {
+        final Map<String, Integer> evicted = new ConcurrentHashMap<>();
+        final BoundedCache<String, Integer> cache = new BoundedCache<>(1, evicted::put);
+
+        cache.put("a", 1);
+
+        assertThat(cache.remove("a")).isEqualTo(1);
+        assertThat(cache.remove("a")).isNull();
+
+        cache.put("b", 2);
+
+        assertThat(evicted).isEmpty();
+    }
+}
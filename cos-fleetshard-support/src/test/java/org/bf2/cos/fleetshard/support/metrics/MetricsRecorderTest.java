@@ -0,0 +1,97 @@
+package org.bf2.cos.fleetshard.support.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsRecorderTest {
+    private MeterRegistry registry;
+    private MetricsRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        recorder = MetricsRecorder.of(registry, "base.recorder");
+    }
+
+    @Test
+    void removedMetersAreRegisteredAgain() {
+        record(recorder, "c1");
+
+        registry.remove(counter("base.recorder", "c1"));
+
+        record(recorder, "c1");
+
+        // the removed meters are registered again instead of recording into detached ones
+        assertThat(counter("base.recorder", "c1")).isNotNull();
+        assertThat(counter("base.recorder", "c1").count()).isEqualTo(1);
+    }
+
+    @Test
+    void onlyTheRemovedMetersAreEvicted() {
+        record(recorder, "c1");
+        record(recorder, "c2");
+
+        Counter c2 = counter("base.recorder", "c2");
+
+        // the meters of a connector being removed by a housekeeper
+        registry.remove(registry.find("base.recorder.time").tags("id", "c1").timer());
+        registry.remove(counter("base.recorder", "c1"));
+
+        record(recorder, "c2");
+        record(recorder, "c1");
+
+        assertThat(counter("base.recorder", "c2")).isSameAs(c2);
+        assertThat(c2.count()).isEqualTo(2);
+        assertThat(counter("base.recorder", "c1").count()).isEqualTo(1);
+        assertThat(registry.find("base.recorder.time").tags("id", "c1").timer()).isNotNull();
+    }
+
+    @Test
+    void removalOfOtherMetersIsIgnored() {
+        record(recorder, "c1");
+
+        Counter c1 = counter("base.recorder", "c1");
+
+        registry.remove(registry.counter("other.count", "id", "c1"));
+
+        record(recorder, "c1");
+
+        assertThat(counter("base.recorder", "c1")).isSameAs(c1);
+        assertThat(c1.count()).isEqualTo(2);
+    }
+
+    @Test
+    void recordersOfTheSameRegistryAreEvictedIndependently() {
+        MetricsRecorder other = MetricsRecorder.of(registry, "base.other");
+
+        record(recorder, "c1");
+        record(other, "c1");
+
+        Counter c1 = counter("base.recorder", "c1");
+
+        registry.remove(counter("base.other", "c1"));
+
+        record(other, "c1");
+        record(recorder, "c1");
+
+        assertThat(counter("base.other", "c1").count()).isEqualTo(1);
+        assertThat(counter("base.recorder", "c1")).isSameAs(c1);
+        assertThat(c1.count()).isEqualTo(2);
+    }
+
+    private static void record(MetricsRecorder recorder, String id) {
+        recorder.record(() -> {
+        }, Tags.of("id", id));
+    }
+
+    private Counter counter(String name, String id) {
+        return registry.find(name + ".count").tags("id", id).counter();
+    }
+}
@@ -0,0 +1,168 @@
+package org.bf2.cos.fleetshard.sync.it;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bf2.cos.fleetshard.api.ConnectorStatusSpecBuilder;
+import org.bf2.cos.fleetshard.api.DeploymentSpecBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.ManagedConnectorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorSpecBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorStatusBuilder;
+import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.api.OperatorSelectorBuilder;
+import org.bf2.cos.fleetshard.support.resources.Connectors;
+import org.bf2.cos.fleetshard.support.resources.Namespaces;
+import org.bf2.cos.fleetshard.sync.it.support.FleetManagerMockServer;
+import org.bf2.cos.fleetshard.sync.it.support.FleetManagerTestInstance;
+import org.bf2.cos.fleetshard.sync.it.support.SyncTestProfile;
+import org.bf2.cos.fleetshard.sync.it.support.SyncTestSupport;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.http.ContentTypeHeader;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static org.bf2.cos.fleetshard.api.ManagedConnector.DESIRED_STATE_READY;
+import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_CLUSTER_ID;
+import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_CONNECTOR_ID;
+import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_DEPLOYMENT_ID;
+import static org.bf2.cos.fleetshard.support.resources.Resources.uid;
+
+@QuarkusTest
+@TestProfile(ConnectorStatusBatchTest.Profile.class)
+public class ConnectorStatusBatchTest extends SyncTestSupport {
+    public static final String DEPLOYMENT_ID_1 = uid();
+    public static final String DEPLOYMENT_ID_2 = uid();
+
+    @FleetManagerTestInstance
+    FleetManagerMockServer server;
+
+    @ConfigProperty(name = "test.namespace")
+    String ns;
+
+    @Test
+    void statusesAreUpdatedInBulk() {
+        final String clusterUrl = "/api/connector_mgmt/v1/agent/kafka_connector_clusters/" + config.cluster().id();
+        final String statusUrl = clusterUrl + "/deployments/status";
+        final Operator operator = new Operator(uid(), "operator-type", "1.2.3");
+
+        createConnector(DEPLOYMENT_ID_1, operator);
+        createConnector(DEPLOYMENT_ID_2, operator);
+
+        untilAsserted(() -> {
+            server.verify(putRequestedFor(urlEqualTo(statusUrl))
+                .withHeader(ContentTypeHeader.KEY, equalTo(APPLICATION_JSON))
+                .withRequestBody(matchingJsonPath("$.items[?(@.id == '" + DEPLOYMENT_ID_1 + "')]"))
+                .withRequestBody(matchingJsonPath("$.items[?(@.id == '" + DEPLOYMENT_ID_2 + "')]"))
+                .withRequestBody(matchingJsonPath("$.items[?(@.status.phase == 'ready')]")));
+        });
+
+        server.verify(0, putRequestedFor(urlEqualTo(clusterUrl + "/deployments/" + DEPLOYMENT_ID_1 + "/status")));
+        server.verify(0, putRequestedFor(urlEqualTo(clusterUrl + "/deployments/" + DEPLOYMENT_ID_2 + "/status")));
+    }
+
+    private void createConnector(String deploymentId, Operator operator) {
+        final String connectorId = uid();
+
+        final ManagedConnector connector = new ManagedConnectorBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withName(Connectors.generateConnectorId(deploymentId))
+                .withNamespace(ns)
+                .addToLabels(LABEL_CLUSTER_ID, config.cluster().id())
+                .addToLabels(LABEL_CONNECTOR_ID, connectorId)
+                .addToLabels(LABEL_DEPLOYMENT_ID, deploymentId)
+                .build())
+            .withSpec(new ManagedConnectorSpecBuilder()
+                .withClusterId(config.cluster().id())
+                .withConnectorId(connectorId)
+                .withDeploymentId(deploymentId)
+                .withOperatorSelector(new OperatorSelectorBuilder().withId(operator.getId()).build())
+                .withDeployment(new DeploymentSpecBuilder()
+                    .withConnectorTypeId("http_sync_v0.1")
+                    .build())
+                .build())
+            .withStatus(new ManagedConnectorStatusBuilder().build())
+            .build();
+
+        kubernetesClient
+            .resources(ManagedConnector.class)
+            .inNamespace(ns)
+            .resource(connector)
+            .create();
+
+        connector.getStatus().setConnectorStatus(new ConnectorStatusSpecBuilder()
+            .withPhase(DESIRED_STATE_READY)
+            .withAssignedOperator(operator)
+            .build());
+
+        kubernetesClient
+            .resource(connector)
+            .inNamespace(ns)
+            .replaceStatus();
+    }
+
+    public static class Profile extends SyncTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "cos.cluster.id", getId(),
+                "test.namespace", Namespaces.generateNamespaceId(getId()),
+                "cos.namespace", Namespaces.generateNamespaceId(getId()),
+                "cos.resources.update-interval", "1s",
+                "cos.resources.poll-interval", "disabled",
+                "cos.resources.resync-interval", "disabled",
+                "cos.resources.status-batch-size", "2",
+                "cos.resources.status-batch-window", "5s");
+        }
+
+        @Override
+        public List<TestResourceEntry> testResources() {
+            return List.of(
+                new TestResourceEntry(FleetManagerTestResource.class));
+        }
+    }
+
+    public static class FleetManagerTestResource extends org.bf2.cos.fleetshard.sync.it.support.ControlPlaneTestResource {
+        @Override
+        protected void configure(FleetManagerMockServer server) {
+            server.stubMatching(
+                RequestMethod.GET,
+                "/api/connector_mgmt/v1/agent/kafka_connector_clusters/.*/namespaces",
+                resp -> {
+                    resp.withHeader(ContentTypeHeader.KEY, APPLICATION_JSON)
+                        .withJsonBody(namespaceList());
+                });
+
+            server.stubMatching(
+                RequestMethod.PUT,
+                "/api/connector_mgmt/v1/agent/kafka_connector_clusters/[^/]+/deployments/status",
+                () -> WireMock.okJson("{\"items\":[]}"));
+
+            server.stubMatching(
+                RequestMethod.PUT,
+                "/api/connector_mgmt/v1/agent/kafka_connector_clusters/[^/]+/deployments/[^/]+/status",
+                () -> WireMock.ok());
+
+            server.stubMatching(
+                RequestMethod.PUT,
+                "/api/connector_mgmt/v1/agent/kafka_connector_clusters/[^/]+/namespaces/[^/]+/status",
+                () -> WireMock.ok());
+
+            server.stubMatching(
+                RequestMethod.PUT,
+                "/api/connector_mgmt/v1/agent/kafka_connector_clusters/[^/]+/status",
+                () -> WireMock.ok());
+        }
+    }
+}
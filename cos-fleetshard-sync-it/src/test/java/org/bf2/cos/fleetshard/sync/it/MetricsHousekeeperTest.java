@@ -9,6 +9,7 @@ import org.bf2.cos.fleetshard.api.*;
 import org.bf2.cos.fleetshard.support.resources.Connectors;
 import org.bf2.cos.fleetshard.support.resources.Namespaces;
 import org.bf2.cos.fleetshard.sync.it.support.*;
+import org.bf2.cos.fleetshard.sync.resources.ConnectorStateMetrics;
 import org.bf2.cos.fleetshard.sync.resources.ConnectorStatusUpdater;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.junit.jupiter.api.Test;
@@ -129,7 +130,9 @@ public class MetricsHousekeeperTest extends SyncTestSupport {
 
         untilAsserted(() -> {
             assertThat(
-                MetricsSupport.counter(registry, "deletion_timestamp", config, ConnectorStatusUpdater.CONNECTOR_STATE_COUNT))
+                MetricsSupport.find(registry, config, ConnectorStatusUpdater.CONNECTOR_STATE_COUNT)
+                    .tag(ConnectorStateMetrics.TAG_STATE, DESIRED_STATE_DELETED)
+                    .counter())
                 .isNotNull()
                 .satisfies(counter -> assertThat(counter.count()).isGreaterThan(0));
         });
@@ -0,0 +1,89 @@
+package org.bf2.cos.fleetshard.sync.it;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bf2.cos.fleetshard.support.resources.Namespaces;
+import org.bf2.cos.fleetshard.sync.it.support.FleetManagerMockServer;
+import org.bf2.cos.fleetshard.sync.it.support.FleetManagerTestInstance;
+import org.bf2.cos.fleetshard.sync.it.support.SyncTestProfile;
+import org.bf2.cos.fleetshard.sync.it.support.SyncTestSupport;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.http.ContentTypeHeader;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+@QuarkusTest
+@TestProfile(ResourceWatchTest.Profile.class)
+public class ResourceWatchTest extends SyncTestSupport {
+    @FleetManagerTestInstance
+    FleetManagerMockServer server;
+
+    @Test
+    void resourcesAreWatched() {
+        final String namespacesUrl = "/api/connector_mgmt/v1/agent/kafka_connector_clusters/.*/namespaces";
+        final String deploymentsUrl = "/api/connector_mgmt/v1/agent/kafka_connector_clusters/.*/deployments";
+
+        untilAsserted(() -> {
+            server.verify(getRequestedFor(urlPathMatching(namespacesUrl))
+                .withQueryParam("watch", equalTo("true"))
+                .withQueryParam("timeout", equalTo("10"))
+                .withQueryParam("gt_version", equalTo("0")));
+            server.verify(getRequestedFor(urlPathMatching(deploymentsUrl))
+                .withQueryParam("watch", equalTo("true"))
+                .withQueryParam("timeout", equalTo("10"))
+                .withQueryParam("gt_version", equalTo("0")));
+        });
+    }
+
+    public static class Profile extends SyncTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "cos.cluster.id", getId(),
+                "test.namespace", Namespaces.generateNamespaceId(getId()),
+                "cos.namespace", Namespaces.generateNamespaceId(getId()),
+                "cos.resources.update-interval", "disabled",
+                "cos.resources.poll-interval", "disabled",
+                "cos.resources.resync-interval", "disabled",
+                "cos.resources.watch.enabled", "true",
+                "cos.resources.watch.timeout", "10s",
+                "cos.resources.watch.retry-interval", "1s");
+        }
+
+        @Override
+        public List<TestResourceEntry> testResources() {
+            return List.of(
+                new TestResourceEntry(FleetManagerTestResource.class));
+        }
+    }
+
+    public static class FleetManagerTestResource extends org.bf2.cos.fleetshard.sync.it.support.ControlPlaneTestResource {
+        @Override
+        protected void configure(FleetManagerMockServer server) {
+            server.stubMatching(
+                RequestMethod.GET,
+                "/api/connector_mgmt/v1/agent/kafka_connector_clusters/.*/namespaces",
+                resp -> {
+                    resp.withHeader(ContentTypeHeader.KEY, APPLICATION_JSON)
+                        .withJsonBody(namespaceList());
+                });
+
+            server.stubMatching(
+                RequestMethod.GET,
+                "/api/connector_mgmt/v1/agent/kafka_connector_clusters/.*/deployments",
+                resp -> {
+                    resp.withHeader(ContentTypeHeader.KEY, APPLICATION_JSON)
+                        .withJsonBody(deploymentList());
+                });
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package org.bf2.cos.fleetshard.sync.it;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.core.MediaType;
+
+import org.awaitility.Awaitility;
+import org.bf2.cos.fleet.manager.model.ConnectorDeployment;
+import org.bf2.cos.fleet.manager.model.ConnectorDesiredState;
+import org.bf2.cos.fleet.manager.model.ConnectorNamespaceDeployment;
+import org.bf2.cos.fleet.manager.model.KafkaConnectionSettings;
+import org.bf2.cos.fleet.manager.model.ServiceAccount;
+import org.bf2.cos.fleetshard.api.ConnectorStatusSpecBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.Operator;
+import org.bf2.cos.fleetshard.support.resources.Namespaces;
+import org.bf2.cos.fleetshard.sync.it.support.FleetManagerMockServer;
+import org.bf2.cos.fleetshard.sync.it.support.FleetManagerTestInstance;
+import org.bf2.cos.fleetshard.sync.it.support.SyncTestProfile;
+import org.bf2.cos.fleetshard.sync.it.support.SyncTestSupport;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.http.ContentTypeHeader;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bf2.cos.fleetshard.api.ManagedConnector.DESIRED_STATE_READY;
+import static org.bf2.cos.fleetshard.support.resources.Resources.uid;
+import static org.bf2.cos.fleetshard.support.resources.Secrets.toBase64;
+
+/**
+ * Scale and soak harness: a mock fleet manager serves a large number of namespaces and deployments across many pages
+ * and the sync is measured while it provisions them, resyncs them and propagates status changes back.
+ * </p>
+ * The test is disabled unless the {@code cos.scale.enabled} system property is set to {@code true} as it creates a lot
+ * of resources in the cluster the tests run against. The size of the fleet is controlled by the following system
+ * properties:
+ * <ul>
+ * <li>{@code cos.scale.connectors}: the number of deployments, defaults to 10000</li>
+ * <li>{@code cos.scale.namespaces}: the number of namespaces the deployments are spread across, defaults to 100</li>
+ * <li>{@code cos.scale.page-size}: the size of the pages served by the fleet manager, defaults to 500</li>
+ * <li>{@code cos.scale.samples}: the number of connectors used to measure the status propagation, defaults to 100</li>
+ * <li>{@code cos.scale.timeout}: how long to wait for each step, defaults to 10m</li>
+ * </ul>
+ * The resync duration, status propagation latency, heap usage and number of fleet manager calls are logged and
+ * written to {@code target/scale-test.json}.
+ */
+@QuarkusTest
+@TestProfile(ScaleTest.Profile.class)
+@EnabledIfSystemProperty(named = ScaleTest.PROPERTY_ENABLED, matches = "true")
+public class ScaleTest extends SyncTestSupport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScaleTest.class);
+
+    public static final String PROPERTY_ENABLED = "cos.scale.enabled";
+    public static final String PROPERTY_CONNECTORS = "cos.scale.connectors";
+    public static final String PROPERTY_NAMESPACES = "cos.scale.namespaces";
+    public static final String PROPERTY_PAGE_SIZE = "cos.scale.page-size";
+    public static final String PROPERTY_SAMPLES = "cos.scale.samples";
+    public static final String PROPERTY_TIMEOUT = "cos.scale.timeout";
+
+    public static final String KAFKA_URL = "kafka.acme.com:2181";
+    public static final String KAFKA_CLIENT_ID = uid();
+    public static final String KAFKA_CLIENT_SECRET = toBase64(uid());
+
+    public static final Path REPORT = Path.of("target", "scale-test.json");
+
+    @FleetManagerTestInstance
+    FleetManagerMockServer server;
+
+    @Test
+    void scale() throws IOException {
+        final int connectors = Integer.getInteger(PROPERTY_CONNECTORS, 10_000);
+        final int samples = Math.min(connectors, Integer.getInteger(PROPERTY_SAMPLES, 100));
+        final Duration timeout = Duration.parse("PT" + System.getProperty(PROPERTY_TIMEOUT, "10m"));
+        final String clusterUrl = "/api/connector_mgmt/v1/agent/kafka_connector_clusters/" + config.cluster().id();
+
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("connectors", connectors);
+        report.put("namespaces", Integer.getInteger(PROPERTY_NAMESPACES, 100));
+        report.put("pageSize", Integer.getInteger(PROPERTY_PAGE_SIZE, 500));
+        report.put("heapBefore", usedHeap());
+
+        //
+        // Initial provisioning
+        //
+
+        long start = System.nanoTime();
+
+        RestAssured.given()
+            .contentType(MediaType.TEXT_PLAIN)
+            .post("/test/provisioner/all");
+
+        Awaitility.await()
+            .atMost(timeout)
+            .pollInterval(1, TimeUnit.SECONDS)
+            .until(() -> fleetShardClient.getAllConnectors().size() >= connectors);
+
+        report.put("provisioningMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        report.put("heapProvisioned", usedHeap());
+
+        //
+        // Resync, nothing has changed
+        //
+
+        server.resetRequests();
+        start = System.nanoTime();
+
+        RestAssured.given()
+            .contentType(MediaType.TEXT_PLAIN)
+            .post("/test/provisioner/sync");
+
+        report.put("resyncMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        report.put("resyncNamespacesCalls", server.findAll(
+            getRequestedFor(urlPathMatching(clusterUrl + "/namespaces"))).size());
+        report.put("resyncDeploymentsCalls", server.findAll(
+            getRequestedFor(urlPathMatching(clusterUrl + "/deployments"))).size());
+        report.put("heapResynced", usedHeap());
+
+        //
+        // Status propagation
+        //
+
+        server.resetRequests();
+
+        final Operator operator = new Operator(uid(), "camel-connector-operator", "1.5.0");
+        final Map<String, Long> updates = new HashMap<>();
+
+        for (ManagedConnector cached : fleetShardClient.getAllConnectors().subList(0, samples)) {
+            // never modify the resources held by the informer cache
+            final ManagedConnector connector = Serialization.clone(cached);
+
+            connector.getStatus().setConnectorStatus(new ConnectorStatusSpecBuilder()
+                .withPhase(DESIRED_STATE_READY)
+                .withAssignedOperator(operator)
+                .build());
+
+            kubernetesClient.resource(connector)
+                .inNamespace(connector.getMetadata().getNamespace())
+                .replaceStatus();
+
+            updates.put(connector.getSpec().getDeploymentId(), System.currentTimeMillis());
+        }
+
+        final Map<String, Long> propagated = new HashMap<>();
+
+        Awaitility.await()
+            .atMost(timeout)
+            .pollInterval(1, TimeUnit.SECONDS)
+            .until(() -> {
+                for (LoggedRequest request : server.findAll(putRequestedFor(urlPathMatching(clusterUrl + "/deployments/.*")))) {
+                    for (String id : reportedDeployments(request)) {
+                        if (updates.containsKey(id)) {
+                            propagated.merge(id, request.getLoggedDate().getTime(), Math::min);
+                        }
+                    }
+                }
+
+                return propagated.keySet().containsAll(updates.keySet());
+            });
+
+        final List<Long> latencies = updates.entrySet().stream()
+            .map(e -> propagated.get(e.getKey()) - e.getValue())
+            .sorted()
+            .collect(Collectors.toList());
+
+        report.put("statusLatencyP50Millis", percentile(latencies, 0.50));
+        report.put("statusLatencyP99Millis", percentile(latencies, 0.99));
+        report.put("statusLatencyMaxMillis", latencies.get(latencies.size() - 1));
+        report.put("statusCalls", server.findAll(putRequestedFor(urlPathMatching(clusterUrl + "/deployments/.*"))).size());
+        report.put("heapAfter", usedHeap());
+
+        LOGGER.info("Scale test report: {}", report);
+
+        Files.createDirectories(REPORT.getParent());
+        Serialization.jsonMapper().writerWithDefaultPrettyPrinter().writeValue(REPORT.toFile(), report);
+
+        assertThat(propagated).hasSize(samples);
+    }
+
+    private static List<String> reportedDeployments(LoggedRequest request) throws IOException {
+        final String url = request.getUrl();
+
+        if (url.endsWith("/deployments/status")) {
+            final List<String> answer = new ArrayList<>();
+
+            for (JsonNode item : Serialization.jsonMapper().readTree(request.getBodyAsString()).path("items")) {
+                answer.add(item.path("id").asText());
+            }
+
+            return answer;
+        }
+
+        final String[] segments = url.split("/");
+        return segments.length > 1
+            ? List.of(segments[segments.length - 2])
+            : Collections.emptyList();
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    public static class Profile extends SyncTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                "cos.cluster.id", getId(),
+                "test.namespace", Namespaces.generateNamespaceId(getId()),
+                "cos.namespace", Namespaces.generateNamespaceId(getId()),
+                "cos.manager.page-size", Integer.toString(Integer.getInteger(PROPERTY_PAGE_SIZE, 500)),
+                "cos.resources.poll-interval", "disabled",
+                "cos.resources.resync-interval", "disabled",
+                "cos.resources.update-interval", "1s",
+                "cos.resources.status-batch-size", "100");
+        }
+
+        @Override
+        public List<TestResourceEntry> testResources() {
+            return List.of(
+                new TestResourceEntry(FleetManagerTestResource.class));
+        }
+    }
+
+    public static class FleetManagerTestResource extends org.bf2.cos.fleetshard.sync.it.support.ControlPlaneTestResource {
+        @Override
+        protected void configure(FleetManagerMockServer server) {
+            final String clusterId = ConfigProvider.getConfig().getValue("cos.cluster.id", String.class);
+            final String clusterUrl = "/api/connector_mgmt/v1/agent/kafka_connector_clusters/" + clusterId;
+            final int connectors = Integer.getInteger(PROPERTY_CONNECTORS, 10_000);
+            final int namespaces = Math.min(connectors, Integer.getInteger(PROPERTY_NAMESPACES, 100));
+            final int pageSize = Integer.getInteger(PROPERTY_PAGE_SIZE, 500);
+
+            final List<ConnectorNamespaceDeployment> namespaceItems = new ArrayList<>(namespaces);
+            for (int i = 0; i < namespaces; i++) {
+                String id = uid();
+                namespaceItems.add(namespace(id, id));
+            }
+
+            final List<ConnectorDeployment> deploymentItems = new ArrayList<>(connectors);
+            for (int i = 0; i < connectors; i++) {
+                final String id = uid();
+                final String namespaceId = namespaceItems.get(i % namespaces).getId();
+
+                deploymentItems.add(deployment(id, i + 1L, spec -> {
+                    spec.namespaceId(namespaceId);
+                    spec.connectorId(id);
+                    spec.connectorTypeId("connector-type-1");
+                    spec.connectorResourceVersion(1L);
+                    spec.kafka(new KafkaConnectionSettings().url(KAFKA_URL));
+                    spec.serviceAccount(new ServiceAccount().clientId(KAFKA_CLIENT_ID).clientSecret(KAFKA_CLIENT_SECRET));
+                    spec.connectorSpec(node(n -> {
+                        n.withObject("/connector").put("foo", "connector-bar");
+                        n.withObject("/kafka").put("topic", "kafka-bar");
+                    }));
+                    spec.shardMetadata(node(n -> {
+                        n.put("connector_type", "sink");
+                        n.put("connector_image", "quay.io/mcs_dev/aws-s3-sink:0.1.0");
+                        n.withArray("operators").addObject()
+                            .put("type", "camel-connector-operator")
+                            .put("version", "[1.0.0,2.0.0)");
+                    }));
+                    spec.desiredState(ConnectorDesiredState.READY);
+                }));
+            }
+
+            for (int page = 1; (page - 1) * pageSize < namespaces; page++) {
+                List<ConnectorNamespaceDeployment> items = namespaceItems.subList(
+                    (page - 1) * pageSize,
+                    Math.min(page * pageSize, namespaces));
+
+                ObjectNode list = namespaceList(items.toArray(ConnectorNamespaceDeployment[]::new));
+                list.put("page", page);
+                list.put("total", namespaces);
+
+                stubPage(server, clusterUrl + "/namespaces", page, list);
+            }
+
+            for (int page = 1; (page - 1) * pageSize < connectors; page++) {
+                List<ConnectorDeployment> items = deploymentItems.subList(
+                    (page - 1) * pageSize,
+                    Math.min(page * pageSize, connectors));
+
+                ObjectNode list = deploymentList(items.toArray(ConnectorDeployment[]::new));
+                list.put("page", page);
+                list.put("total", connectors);
+
+                stubPage(server, clusterUrl + "/deployments", page, list);
+            }
+
+            server.stubFor(WireMock.put(urlPathMatching(clusterUrl + "/deployments/.*")).willReturn(WireMock.ok()));
+            server.stubFor(WireMock.put(WireMock.urlPathEqualTo(clusterUrl + "/deployments/status"))
+                .willReturn(WireMock.okJson("{\"items\":[]}")));
+            server.stubMatching(RequestMethod.PUT, clusterUrl + "/status", resp -> resp.withStatus(200));
+
+            LOGGER.info("Serving {} namespaces and {} deployments with a page size of {}",
+                namespaces,
+                connectors,
+                pageSize);
+        }
+
+        private static void stubPage(FleetManagerMockServer server, String url, int page, ObjectNode list) {
+            server.stubFor(WireMock.get(WireMock.urlPathEqualTo(url))
+                .withQueryParam("page", equalTo(Integer.toString(page)))
+                .willReturn(WireMock.aResponse()
+                    .withHeader(ContentTypeHeader.KEY, APPLICATION_JSON)
+                    .withJsonBody(list)));
+        }
+    }
+}
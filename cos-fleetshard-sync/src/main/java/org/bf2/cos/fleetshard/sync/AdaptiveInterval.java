@@ -0,0 +1,93 @@
+package org.bf2.cos.fleetshard.sync;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Computes the interval between executions of a periodic task based on the outcome of the previous execution.
+ * </p>
+ * The interval is reset to the minimum as soon as an execution finds changes, so bursts are handled quickly, and it is
+ * progressively lengthened, up to the maximum, while executions find nothing to do or fail. A throttled execution
+ * immediately switches to the maximum interval. A random jitter is applied to the returned intervals so that many
+ * instances do not end up hitting the Control Plane in lock step.
+ */
+public class AdaptiveInterval {
+    private final long minMillis;
+    private final long maxMillis;
+    private final double multiplier;
+    private final double jitter;
+
+    private volatile long currentMillis;
+
+    public AdaptiveInterval(Duration initial, Duration min, Duration max, double multiplier, double jitter) {
+        if (min.compareTo(max) > 0) {
+            throw new IllegalArgumentException("The minimum interval must not be greater than the maximum interval");
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("The multiplier must not be lower than 1");
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("The jitter must be in the range [0, 1)");
+        }
+
+        this.minMillis = min.toMillis();
+        this.maxMillis = max.toMillis();
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.currentMillis = clamp(initial.toMillis());
+    }
+
+    /**
+     * @return the current interval, without jitter.
+     */
+    public Duration current() {
+        return Duration.ofMillis(currentMillis);
+    }
+
+    /**
+     * The last execution found changes.
+     *
+     * @return the interval to wait before the next execution.
+     */
+    public synchronized Duration changed() {
+        currentMillis = minMillis;
+        return next();
+    }
+
+    /**
+     * The last execution found no changes.
+     *
+     * @return the interval to wait before the next execution.
+     */
+    public synchronized Duration idle() {
+        currentMillis = clamp((long) (currentMillis * multiplier));
+        return next();
+    }
+
+    /**
+     * The last execution failed.
+     *
+     * @param  throttled if the failure is caused by the Control Plane throttling requests
+     * @return           the interval to wait before the next execution.
+     */
+    public synchronized Duration failed(boolean throttled) {
+        currentMillis = throttled ? maxMillis : clamp((long) (currentMillis * multiplier));
+        return next();
+    }
+
+    @SuppressFBWarnings(value = "PREDICTABLE_RANDOM", justification = "the jitter is not security sensitive")
+    private Duration next() {
+        if (jitter == 0) {
+            return Duration.ofMillis(currentMillis);
+        }
+
+        final double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return Duration.ofMillis(Math.max(1, (long) (currentMillis * factor)));
+    }
+
+    private long clamp(long millis) {
+        return Math.max(minMillis, Math.min(maxMillis, millis));
+    }
+}
@@ -1,5 +1,10 @@
 package org.bf2.cos.fleetshard.sync;
 
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -11,17 +16,43 @@ import org.bf2.cos.fleetshard.sync.housekeeping.Housekeeper;
 import org.bf2.cos.fleetshard.sync.housekeeping.MetricsHousekeeper;
 import org.bf2.cos.fleetshard.sync.resources.ConnectorClusterStatusSync;
 import org.bf2.cos.fleetshard.sync.resources.ConnectorStatusSync;
+import org.bf2.cos.fleetshard.sync.resources.ProvisioningExecutor;
 import org.bf2.cos.fleetshard.sync.resources.ResourcePoll;
+import org.bf2.cos.fleetshard.sync.resources.ResourceWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderCallbacks;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfigBuilder;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaseLock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @ApplicationScoped
 public class FleetShardSync implements Service {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FleetShardSync.class);
+
+    public static final String METRICS_LEADER = "leader";
+
+    @Inject
+    FleetShardSyncConfig config;
+    @Inject
+    KubernetesClient kubernetesClient;
+    @Inject
+    MeterRegistry registry;
     @Inject
     FleetShardClient fleetShardClient;
     @Inject
     FleetShardObservabilityClient fleetShardObservabilityClient;
     @Inject
+    ProvisioningExecutor provisioningExecutor;
+    @Inject
     ResourcePoll resourceSync;
     @Inject
+    ResourceWatch resourceWatch;
+    @Inject
     ConnectorStatusSync connectorStatusSync;
     @Inject
     ConnectorClusterStatusSync clusterStatusSync;
@@ -30,37 +61,122 @@ public class FleetShardSync implements Service {
     @Inject
     MetricsHousekeeper metricsHousekeeping;
 
+    private final AtomicBoolean leading = new AtomicBoolean();
+    private volatile boolean stopping;
+    private volatile CompletableFuture<?> election;
+
     @Override
     public void start() throws Exception {
-        fleetShardClient.getOrCreateManagedConnectorCluster();
-        fleetShardObservabilityClient.setupObservability();
+        // the caches, and the revisions derived from them, are populated on every replica so that a standby replica
+        // is ready to take over as soon as it is elected
         fleetShardClient.start();
 
-        startResourcesSync();
+        if (!config.leaderElection().enabled()) {
+            lead();
+            return;
+        }
 
-        housekeeping.start();
-        metricsHousekeeping.start();
+        final String identity = config.leaderElection().identity()
+            .or(() -> Optional.ofNullable(System.getenv("HOSTNAME")))
+            .orElseGet(() -> UUID.randomUUID().toString());
+
+        LOGGER.info("Starting leader election (lease: {}, identity: {})", config.leaderElection().leaseName(), identity);
+
+        Gauge.builder(config.metrics().baseName() + "." + METRICS_LEADER, leading, l -> l.get() ? 1 : 0)
+            .description("Whether this replica is the leader")
+            .register(registry);
+
+        election = kubernetesClient.leaderElector()
+            .withConfig(new LeaderElectionConfigBuilder()
+                .withName(config.leaderElection().leaseName())
+                .withLock(new LeaseLock(config.namespace(), config.leaderElection().leaseName(), identity))
+                .withLeaseDuration(config.leaderElection().leaseDuration())
+                .withRenewDeadline(config.leaderElection().renewDeadline())
+                .withRetryPeriod(config.leaderElection().retryPeriod())
+                .withReleaseOnCancel()
+                .withLeaderCallbacks(new LeaderCallbacks(
+                    this::onStartLeading,
+                    this::onStopLeading,
+                    leader -> LOGGER.info("New leader elected (identity: {})", leader)))
+                .build())
+            .build()
+            .start();
     }
 
     @Override
     public void stop() throws Exception {
+        stopping = true;
+
         stopResourcesSync();
 
         Resources.closeQuietly(housekeeping);
         Resources.closeQuietly(metricsHousekeeping);
+
+        if (election != null) {
+            // the lease is released on cancel, so a standby replica can take over right away
+            election.cancel(true);
+        }
+
         Resources.closeQuietly(fleetShardClient);
     }
 
+    public boolean isLeading() {
+        return leading.get();
+    }
+
     public void startResourcesSync() throws Exception {
+        provisioningExecutor.start();
         resourceSync.start();
+        resourceWatch.start();
         connectorStatusSync.start();
         clusterStatusSync.start();
     }
 
     public void stopResourcesSync() throws Exception {
+        Resources.closeQuietly(resourceWatch);
         Resources.closeQuietly(resourceSync);
         Resources.closeQuietly(connectorStatusSync);
         Resources.closeQuietly(clusterStatusSync);
+        Resources.closeQuietly(provisioningExecutor);
     }
 
+    private void lead() throws Exception {
+        leading.set(true);
+
+        fleetShardClient.getOrCreateManagedConnectorCluster();
+        fleetShardObservabilityClient.setupObservability();
+
+        startResourcesSync();
+
+        housekeeping.start();
+        metricsHousekeeping.start();
+    }
+
+    @SuppressWarnings("PMD.DoNotTerminateVM")
+    @SuppressFBWarnings(value = "DM_EXIT", justification = "a leader that cannot sync resources must step down")
+    private void onStartLeading() {
+        LOGGER.info("Leadership acquired, starting to sync resources");
+
+        try {
+            lead();
+        } catch (Exception e) {
+            LOGGER.warn("Failure starting to sync resources, exiting", e);
+            System.exit(-1);
+        }
+    }
+
+    @SuppressWarnings("PMD.DoNotTerminateVM")
+    @SuppressFBWarnings(value = "DM_EXIT", justification = "a replica that lost leadership must stop syncing resources")
+    private void onStopLeading() {
+        leading.set(false);
+
+        if (stopping) {
+            return;
+        }
+
+        // the services are not meant to be restarted, and another replica may already be syncing resources, so the
+        // only safe option is to exit and come back as a standby replica
+        LOGGER.warn("Leadership lost, exiting");
+        System.exit(-1);
+    }
 }
@@ -79,6 +79,13 @@ public interface FleetShardSyncConfig {
 
     Quota quota();
 
+    /**
+     * Configuration options for the leader election.
+     *
+     * @return {@link LeaderElection}
+     */
+    LeaderElection leaderElection();
+
     Observability observability();
 
     interface Cluster {
@@ -140,6 +147,38 @@ public interface FleetShardSyncConfig {
         @WithConverter(DurationConverter.class)
         Duration resyncInterval();
 
+        /**
+         * Determine in how many buckets the resources are split during a re-sync. One bucket is re-synced every re-sync
+         * interval / buckets, so every resource is still re-synced once per re-sync interval but the load is spread over
+         * time. A value of 1 means that all the resources are re-synced at once.
+         *
+         * @return the number of re-sync buckets.
+         */
+        @WithDefault("1")
+        int resyncBuckets();
+
+        /**
+         * Determine the fraction of the time between two re-sync buckets to randomize, in the range [0, 1), so that
+         * synchronizers started at the same time do not re-sync at the same time.
+         *
+         * @return the re-sync jitter.
+         */
+        @WithDefault("0.1")
+        double resyncJitter();
+
+        /**
+         * Determine if the synchronizer should skip re-applying the deployments whose connector and secret are already
+         * up to date, so that a re-sync does not trigger a new unit of work for unchanged connectors.
+         * </p>
+         * A new unit of work is what makes the operator re-apply the operands of a connector, so skipping unchanged
+         * deployments also gives up on repairing, on each re-sync, the operands that have drifted from the desired
+         * state: enable it only when the operator detects and repairs drift on its own.
+         *
+         * @return true if unchanged deployments should be skipped
+         */
+        @WithDefault("false")
+        boolean skipUnchangedDeployments();
+
         /**
          * Determine how often the synchronizer should update the status resources to the Control Plane.
          *
@@ -149,6 +188,66 @@ public interface FleetShardSyncConfig {
         @WithConverter(DurationConverter.class)
         Duration updateInterval();
 
+        /**
+         * Determine how many connector status updates the synchronizer should send to the Control Plane concurrently.
+         * A value of 1 means that statuses are sent sequentially.
+         *
+         * @return the update concurrency.
+         */
+        @WithDefault("1")
+        int updateConcurrency();
+
+        /**
+         * Determine the maximum number of connector status updates per second the synchronizer should send to the
+         * Control Plane. A value of 0 means no limit.
+         *
+         * @return the update rate limit.
+         */
+        @WithDefault("0")
+        double updateRateLimit();
+
+        /**
+         * Determine how often the status of a connector should be reported to the Control Plane even if it has not
+         * changed since the last report. A value of zero means that statuses are always reported.
+         * </p>
+         * This only applies to the statuses reported because a connector has changed: the periodic re-sync reports
+         * the status of every connector regardless, as the Control Plane rejecting the status of a deployment it has
+         * deleted is how the connector gets deleted.
+         *
+         * @return the status refresh interval.
+         */
+        @WithDefault("10m")
+        @WithConverter(DurationConverter.class)
+        Duration statusRefreshInterval();
+
+        /**
+         * The maximum number of reported connector statuses the synchronizer should remember in order to detect
+         * unchanged statuses.
+         *
+         * @return the status cache size.
+         */
+        @WithDefault("10000")
+        int statusCacheSize();
+
+        /**
+         * Determine the maximum number of connector statuses the synchronizer should group in a single bulk update to
+         * the Control Plane. A value lower or equal to 1 disables batching so each status is sent individually.
+         *
+         * @return the status batch size.
+         */
+        @WithDefault("0")
+        int statusBatchSize();
+
+        /**
+         * Determine how long the synchronizer should wait for more connector statuses before sending an incomplete
+         * batch to the Control Plane.
+         *
+         * @return the status batch window.
+         */
+        @WithDefault("1s")
+        @WithConverter(DurationConverter.class)
+        Duration statusBatchWindow();
+
         /**
          * Determine how often the synchronizer should perform house keeping tasks.
          *
@@ -175,6 +274,223 @@ public interface FleetShardSyncConfig {
         @WithDefault("6h")
         @WithConverter(DurationConverter.class)
         Duration metricsHousekeeperDeleteMetricsAfter();
+
+        /**
+         * Determine how many resources the synchronizer should provision concurrently. Resources belonging to the
+         * same namespace are always provisioned sequentially, in resource version order. A value of 1 means that
+         * resources are provisioned sequentially on the polling thread.
+         *
+         * @return the provisioning concurrency.
+         */
+        @WithDefault("1")
+        int provisionConcurrency();
+
+        /**
+         * Determine how many times the provisioning of a deployment should be retried before giving up. A deployment
+         * that still fails is reported once to the Control Plane and then skipped, until a new revision of the
+         * deployment is received or the dead letter interval elapses.
+         *
+         * @return the provision retries.
+         */
+        @WithDefault("2")
+        int provisionRetries();
+
+        /**
+         * Determine how long to wait before retrying the provisioning of a deployment.
+         *
+         * @return the provision retry delay.
+         */
+        @WithDefault("1s")
+        @WithConverter(DurationConverter.class)
+        Duration provisionRetryDelay();
+
+        /**
+         * Determine how long a deployment that has failed to be provisioned should be skipped before being attempted
+         * again, if no new revision of the deployment is received in the meantime.
+         *
+         * @return the dead letter interval.
+         */
+        @WithDefault("10m")
+        @WithConverter(DurationConverter.class)
+        Duration deadLetterInterval();
+
+        /**
+         * Configuration options for watching resources on the Control Plane.
+         *
+         * @return {@link Watch}
+         */
+        Watch watch();
+
+        /**
+         * Configuration options for adapting the poll interval to the Control Plane activity.
+         *
+         * @return {@link AdaptivePoll}
+         */
+        AdaptivePoll adaptivePoll();
+
+        /**
+         * Configuration options for checkpointing the provisioned resources.
+         *
+         * @return {@link Checkpoint}
+         */
+        Checkpoint checkpoint();
+    }
+
+    interface Checkpoint {
+        /**
+         * Determine if the synchronizer should persist the revisions of the resources it has provisioned so that, after
+         * a restart, it resumes polling the Control Plane from those revisions instead of performing a full re-sync.
+         *
+         * @return true if checkpointing is enabled.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * The name of the ConfigMap, in the main cos namespace, the checkpoint is stored to.
+         *
+         * @return the name of the checkpoint ConfigMap.
+         */
+        @WithDefault("cos-fleetshard-sync-checkpoint")
+        String name();
+
+        /**
+         * Determine the minimum interval between two writes of the checkpoint.
+         *
+         * @return the checkpoint interval.
+         */
+        @WithDefault("30s")
+        @WithConverter(DurationConverter.class)
+        Duration interval();
+    }
+
+    interface AdaptivePoll {
+        /**
+         * Determine if the synchronizer should adapt the poll interval, shortening it when the Control Plane reports
+         * changes and lengthening it while idle or when the Control Plane returns errors. If disabled, resources are
+         * polled at the fixed poll interval.
+         *
+         * @return true if the adaptive poll interval is enabled.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Determine the shortest interval between polls.
+         *
+         * @return the minimum poll interval.
+         */
+        @WithDefault("1s")
+        @WithConverter(DurationConverter.class)
+        Duration minInterval();
+
+        /**
+         * Determine the longest interval between polls.
+         *
+         * @return the maximum poll interval.
+         */
+        @WithDefault("60s")
+        @WithConverter(DurationConverter.class)
+        Duration maxInterval();
+
+        /**
+         * Determine the factor the poll interval is multiplied by after an idle or failed poll.
+         *
+         * @return the backoff multiplier.
+         */
+        @WithDefault("2")
+        double multiplier();
+
+        /**
+         * Determine the maximum random variation applied to the poll interval, as a fraction of the interval.
+         *
+         * @return the jitter.
+         */
+        @WithDefault("0.1")
+        double jitter();
+    }
+
+    interface LeaderElection {
+        /**
+         * Determine if the replicas of the synchronizer should elect a leader. Only the leader talks to the Control
+         * Plane and provisions resources, the other replicas keep their caches warm so they can take over quickly.
+         *
+         * @return true if leader election is enabled.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * The identity of this replica, defaults to the host name which, on Kubernetes, is the name of the pod.
+         *
+         * @return the identity of this replica.
+         */
+        Optional<String> identity();
+
+        /**
+         * The name of the lease used to elect the leader, in the main cos namespace.
+         *
+         * @return the name of the lease.
+         */
+        @WithDefault("cos-fleetshard-sync")
+        String leaseName();
+
+        /**
+         * Determine how long the non leader replicas wait before trying to acquire leadership.
+         *
+         * @return the lease duration.
+         */
+        @WithDefault("15s")
+        @WithConverter(DurationConverter.class)
+        Duration leaseDuration();
+
+        /**
+         * Determine how long the leader keeps retrying to renew the lease before giving up leadership.
+         *
+         * @return the renew deadline.
+         */
+        @WithDefault("10s")
+        @WithConverter(DurationConverter.class)
+        Duration renewDeadline();
+
+        /**
+         * Determine how long the replicas wait between attempts to acquire or renew the lease.
+         *
+         * @return the retry period.
+         */
+        @WithDefault("2s")
+        @WithConverter(DurationConverter.class)
+        Duration retryPeriod();
+    }
+
+    interface Watch {
+        /**
+         * Determine if the synchronizer should watch the Control Plane for resource changes using long polling
+         * requests. While watching, the periodic poll is skipped, but it takes over again as soon as a watch request
+         * fails.
+         *
+         * @return true if watching is enabled.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Determine how long the Control Plane should hold a watch request when there are no changes.
+         *
+         * @return the watch timeout.
+         */
+        @WithDefault("30s")
+        @WithConverter(DurationConverter.class)
+        Duration timeout();
+
+        /**
+         * Determine how long the synchronizer should wait before re-establishing a failed watch.
+         *
+         * @return the retry interval.
+         */
+        @WithDefault("5s")
+        @WithConverter(DurationConverter.class)
+        Duration retryInterval();
     }
 
     interface Addon {
@@ -308,6 +624,40 @@ public interface FleetShardSyncConfig {
         @WithDefault("10s")
         @WithConverter(DurationConverter.class)
         Duration readTimeout();
+
+        /**
+         * The number of items to request per page when retrieving resources from the Control Plane. If not set, the
+         * Control Plane default applies.
+         *
+         * @return the page size.
+         */
+        Optional<Integer> pageSize();
+
+        /**
+         * Determine if the next page of resources should be retrieved while the current one is being provisioned.
+         *
+         * @return true if pages should be prefetched.
+         */
+        @WithDefault("true")
+        boolean pagePrefetch();
+
+        /**
+         * Determine how many times the retrieval of a page of resources from the Control Plane should be retried before
+         * giving up. A value of 0 means that pages are not retried.
+         *
+         * @return the page retries.
+         */
+        @WithDefault("3")
+        int pageRetries();
+
+        /**
+         * Determine how long to wait before retrying the retrieval of a page of resources.
+         *
+         * @return the page retry delay.
+         */
+        @WithDefault("1s")
+        @WithConverter(DurationConverter.class)
+        Duration pageRetryDelay();
     }
 
     interface Observability {
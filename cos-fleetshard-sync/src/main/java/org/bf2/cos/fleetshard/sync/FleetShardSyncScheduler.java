@@ -1,6 +1,7 @@
 package org.bf2.cos.fleetshard.sync;
 
 import java.time.Duration;
+import java.util.Date;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -13,6 +14,7 @@ import org.quartz.SchedulerException;
 import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +48,31 @@ public class FleetShardSyncScheduler {
             trigger);
     }
 
+    /**
+     * Change the interval of a job previously scheduled with {@link #schedule(String, Class, Duration)}. The next
+     * execution happens once the new interval is elapsed.
+     *
+     * @param  id                 the job id
+     * @param  interval           the new interval
+     * @throws SchedulerException if the job cannot be rescheduled
+     */
+    public void reschedule(String id, Duration interval) throws SchedulerException {
+        final TriggerKey key = TriggerKey.triggerKey(id + ".trigger", id);
+
+        final Trigger trigger = TriggerBuilder.newTrigger()
+            .withIdentity(key)
+            .forJob(JobKey.jobKey(id + ".job", id))
+            .startAt(new Date(System.currentTimeMillis() + interval.toMillis()))
+            .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                .withIntervalInMilliseconds(interval.toMillis())
+                .repeatForever())
+            .build();
+
+        if (quartz.rescheduleJob(key, trigger) == null) {
+            LOGGER.debug("Unable to reschedule job with id {} as it does not exist", id);
+        }
+    }
+
     public void shutdown(String id) throws SchedulerException {
         quartz.deleteJob(JobKey.jobKey(id + ".job", id));
     }
@@ -0,0 +1,175 @@
+package org.bf2.cos.fleetshard.sync;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Spreads a re-sync over the re-sync window.
+ * </p>
+ * At the beginning of each window, a snapshot of the items to re-sync is taken and split in buckets according to the
+ * hash of their key, then one bucket is re-synced every window / buckets, so every item is still re-synced once per
+ * window but the load is flat over time. The time between two buckets is randomized by the given jitter so that
+ * synchronizers started at the same time do not stay aligned.
+ * </p>
+ * Every bucket that is due is re-synced by a run, so the window is honored even when the runs are less frequent than
+ * the buckets. A bucket that fails to re-sync is retried on the next run.
+ *
+ * @param <T> the type of the items to re-sync
+ */
+public class SlicedResync<T> {
+    public static final String TAG_BUCKET = "bucket";
+
+    private final int buckets;
+    private final long sliceMillis;
+    private final double jitter;
+    private final Function<T, String> keyFunction;
+    private final List<Timer> timers;
+    private final AtomicInteger backlog;
+
+    private List<List<T>> slices;
+    private int cursor;
+    private Instant due;
+
+    /**
+     * @param registry    the registry the bucket duration and backlog metrics are registered to
+     * @param name        the base name of the metrics
+     * @param buckets     the number of buckets
+     * @param window      the re-sync window
+     * @param jitter      the fraction of the time between two buckets to randomize, in the range [0, 1)
+     * @param keyFunction the function computing the key of an item
+     */
+    public SlicedResync(
+        MeterRegistry registry,
+        String name,
+        int buckets,
+        Duration window,
+        double jitter,
+        Function<T, String> keyFunction) {
+
+        if (buckets < 1) {
+            throw new IllegalArgumentException("The number of buckets must be greater than zero");
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("The jitter must be in the range [0, 1)");
+        }
+
+        this.buckets = buckets;
+        this.sliceMillis = Math.max(1, window.toMillis() / buckets);
+        this.jitter = jitter;
+        this.keyFunction = keyFunction;
+        this.slices = Collections.emptyList();
+        this.backlog = new AtomicInteger();
+        this.timers = new ArrayList<>(buckets);
+
+        for (int i = 0; i < buckets; i++) {
+            this.timers.add(
+                Timer.builder(name + ".bucket")
+                    .description("The time taken to re-sync a bucket")
+                    .tag(TAG_BUCKET, Integer.toString(i))
+                    .register(registry));
+        }
+
+        Gauge.builder(name + ".backlog", backlog, AtomicInteger::get)
+            .description("The number of items not yet re-synced in the current re-sync window")
+            .register(registry);
+    }
+
+    /**
+     * Defer the next bucket by the time between two buckets.
+     *
+     * @param now the current time
+     */
+    public synchronized void defer(Instant now) {
+        due = now.plusMillis(next());
+    }
+
+    /**
+     * Re-sync the buckets that are due, up to the last bucket of the window.
+     *
+     * @param  now      the current time
+     * @param  snapshot supplies the items to re-sync, invoked at the beginning of each window
+     * @param  action   re-syncs the items of a bucket
+     * @return          true if the last bucket of the window has been re-synced
+     */
+    public synchronized boolean run(Instant now, Supplier<Collection<T>> snapshot, Consumer<List<T>> action) {
+        while (due == null || !now.isBefore(due)) {
+            if (cursor == 0) {
+                slices = partition(snapshot.get());
+                backlog.set(slices.stream().mapToInt(List::size).sum());
+            }
+
+            final List<T> slice = slices.get(cursor);
+
+            timers.get(cursor).record(() -> action.accept(slice));
+
+            backlog.addAndGet(-slice.size());
+            cursor = (cursor + 1) % buckets;
+
+            if (cursor == 0) {
+                // the next window starts from now, so a late window is not caught up with by the next one
+                slices = Collections.emptyList();
+                due = now.plusMillis(next());
+                return true;
+            }
+
+            // the buckets are scheduled relative to each other, so the ones missed by a late run are caught up with
+            due = (due != null ? due : now).plusMillis(next());
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the number of buckets.
+     */
+    public int buckets() {
+        return buckets;
+    }
+
+    /**
+     * Determine the bucket an item belongs to.
+     *
+     * @param  key the key of the item
+     * @return     the bucket
+     */
+    public int bucket(String key) {
+        return Math.floorMod(key.hashCode(), buckets);
+    }
+
+    private List<List<T>> partition(Collection<T> items) {
+        final List<List<T>> answer = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            answer.add(new ArrayList<>());
+        }
+
+        for (T item : items) {
+            answer.get(bucket(keyFunction.apply(item))).add(item);
+        }
+
+        return answer;
+    }
+
+    @SuppressFBWarnings(value = "PREDICTABLE_RANDOM", justification = "the jitter is not security sensitive")
+    private long next() {
+        if (jitter == 0) {
+            return sliceMillis;
+        }
+
+        final double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return Math.max(1, (long) (sliceMillis * factor));
+    }
+}
@@ -0,0 +1,60 @@
+package org.bf2.cos.fleetshard.sync.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bf2.cos.fleet.manager.model.ConnectorDeploymentStatus;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The payload of a bulk connector deployment status update.
+ */
+public class ConnectorDeploymentStatusBatch {
+    @JsonProperty("items")
+    private List<Item> items = new ArrayList<>();
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public ConnectorDeploymentStatusBatch addItem(String deploymentId, ConnectorDeploymentStatus status) {
+        this.items.add(new Item(deploymentId, status));
+        return this;
+    }
+
+    public static class Item {
+        @JsonProperty("id")
+        private String id;
+        @JsonProperty("status")
+        private ConnectorDeploymentStatus status;
+
+        public Item() {
+        }
+
+        public Item(String id, ConnectorDeploymentStatus status) {
+            this.id = id;
+            this.status = status;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public ConnectorDeploymentStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(ConnectorDeploymentStatus status) {
+            this.status = status;
+        }
+    }
+}
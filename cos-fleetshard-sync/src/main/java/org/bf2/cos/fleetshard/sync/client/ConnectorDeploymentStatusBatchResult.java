@@ -0,0 +1,75 @@
+package org.bf2.cos.fleetshard.sync.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The response to a bulk connector deployment status update, holding the outcome of each item of the batch. An item
+ * the response does not hold an outcome for has been updated.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ConnectorDeploymentStatusBatchResult {
+    @JsonProperty("items")
+    private List<Item> items = new ArrayList<>();
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public ConnectorDeploymentStatusBatchResult addItem(String deploymentId, int code) {
+        this.items.add(new Item(deploymentId, code));
+        return this;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Item {
+        @JsonProperty("id")
+        private String id;
+        @JsonProperty("code")
+        private int code;
+        @JsonProperty("reason")
+        private String reason;
+
+        public Item() {
+        }
+
+        public Item(String id, int code) {
+            this.id = id;
+            this.code = code;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        /**
+         * @return the HTTP status code the update of the connector deployment status would have got as a single update
+         */
+        public int getCode() {
+            return code;
+        }
+
+        public void setCode(int code) {
+            this.code = code;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+}
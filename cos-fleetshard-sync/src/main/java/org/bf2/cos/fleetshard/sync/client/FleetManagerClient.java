@@ -4,11 +4,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.UriBuilder;
 
 import org.bf2.cos.fleet.manager.model.ConnectorClusterStatus;
@@ -19,22 +25,63 @@ import org.bf2.cos.fleet.manager.model.ConnectorNamespaceDeployment;
 import org.bf2.cos.fleet.manager.model.ConnectorNamespaceDeploymentList;
 import org.bf2.cos.fleet.manager.model.ConnectorNamespaceDeploymentStatus;
 import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.support.function.ThrowingFunction;
 import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
 import org.eclipse.microprofile.rest.client.RestClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.fabric8.kubernetes.client.utils.Serialization;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @ApplicationScoped
 public class FleetManagerClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(FleetManagerClient.class);
 
+    public static final String TYPE_DEPLOYMENTS = "deployments";
+    public static final String TYPE_NAMESPACES = "namespaces";
+    public static final String METRICS_PAGE_FETCH = "manager.page.fetch";
+    public static final String METRICS_PAGE_RETRIES = "manager.page.retries";
+
     final FleetShardSyncConfig config;
     final FleetManagerClientApi controlPlane;
+    final FleetManagerClientApi watchPlane;
+    final Long watchTimeout;
+    final String pageSize;
+    final boolean prefetch;
+    final ExecutorService pager;
+    final Timer deploymentsPageTimer;
+    final Timer namespacesPageTimer;
+    final DistributionSummary deploymentsPageRetries;
+    final DistributionSummary namespacesPageRetries;
 
-    public FleetManagerClient(FleetShardSyncConfig config, AuthRequestFilter filter) {
+    public FleetManagerClient(FleetShardSyncConfig config, AuthRequestFilter filter, MeterRegistry registry) {
         this.config = config;
+        this.pageSize = config.manager().pageSize().map(String::valueOf).orElse(null);
+        this.prefetch = config.manager().pagePrefetch();
+
+        this.pager = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "cos-fleet-manager-pager");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.deploymentsPageTimer = Timer.builder(config.metrics().baseName() + "." + METRICS_PAGE_FETCH)
+            .tag("type", TYPE_DEPLOYMENTS)
+            .register(registry);
+        this.namespacesPageTimer = Timer.builder(config.metrics().baseName() + "." + METRICS_PAGE_FETCH)
+            .tag("type", TYPE_NAMESPACES)
+            .register(registry);
+        this.deploymentsPageRetries = DistributionSummary.builder(config.metrics().baseName() + "." + METRICS_PAGE_RETRIES)
+            .description("The number of retries needed to retrieve a page of resources")
+            .tag("type", TYPE_DEPLOYMENTS)
+            .register(registry);
+        this.namespacesPageRetries = DistributionSummary.builder(config.metrics().baseName() + "." + METRICS_PAGE_RETRIES)
+            .description("The number of retries needed to retrieve a page of resources")
+            .tag("type", TYPE_NAMESPACES)
+            .register(registry);
 
         UriBuilder builder = UriBuilder.fromUri(config.manager().uri())
             .path("/api/connector_mgmt/v1/agent");
@@ -42,71 +89,220 @@ public class FleetManagerClient {
         this.controlPlane = RestClientBuilder.newBuilder()
             .baseUri(builder.build())
             .register(filter)
+            .register(new FleetManagerPageMetricsFilter(registry, config.metrics().baseName()))
             .connectTimeout(config.manager().connectTimeout().toMillis(), TimeUnit.MILLISECONDS)
             .readTimeout(config.manager().readTimeout().toMillis(), TimeUnit.MILLISECONDS)
             .build(FleetManagerClientApi.class);
+
+        if (config.resources().watch().enabled()) {
+            this.watchTimeout = config.resources().watch().timeout().toSeconds();
+
+            // watch requests are held by the server, so the read timeout must account for the watch timeout
+            this.watchPlane = RestClientBuilder.newBuilder()
+                .baseUri(builder.build())
+                .register(filter)
+                .connectTimeout(config.manager().connectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(
+                    config.manager().readTimeout().plus(config.resources().watch().timeout()).toMillis(),
+                    TimeUnit.MILLISECONDS)
+                .build(FleetManagerClientApi.class);
+        } else {
+            this.watchTimeout = null;
+            this.watchPlane = null;
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        pager.shutdownNow();
     }
 
     public void getNamespaces(long gv, Consumer<Collection<ConnectorNamespaceDeployment>> consumer) {
         RestClientHelper.run(() -> {
             LOGGER.debug("polling namespaces with gv: {}", gv);
 
-            final AtomicInteger counter = new AtomicInteger();
-            final List<ConnectorNamespaceDeployment> items = new ArrayList<>();
+            page(
+                TYPE_NAMESPACES,
+                namespacesPageTimer,
+                namespacesPageRetries,
+                page -> controlPlane.getConnectorNamespaces(config.cluster().id(), page, pageSize, gv),
+                ConnectorNamespaceDeploymentList::getItems,
+                ConnectorNamespaceDeploymentList::getTotal,
+                items -> consumer.accept(items));
+        });
+    }
 
-            for (int i = 1; i < Integer.MAX_VALUE; i++) {
-                ConnectorNamespaceDeploymentList list = controlPlane.getConnectorNamespaces(
-                    config.cluster().id(),
-                    Integer.toString(i),
-                    null,
-                    gv);
+    public void getDeployments(long gv, Consumer<Collection<ConnectorDeployment>> consumer) {
+        RestClientHelper.run(() -> {
+            LOGGER.debug("polling deployment with gv: {}", gv);
 
-                if (list == null || list.getItems() == null || list.getItems().isEmpty()) {
-                    LOGGER.info("No namespace for cluster {}", config.cluster().id());
-                    break;
-                }
+            page(
+                TYPE_DEPLOYMENTS,
+                deploymentsPageTimer,
+                deploymentsPageRetries,
+                page -> controlPlane.getConnectorDeployments(config.cluster().id(), page, pageSize, gv),
+                ConnectorDeploymentList::getItems,
+                ConnectorDeploymentList::getTotal,
+                items -> {
+                    items.sort(Comparator.comparingLong(d -> d.getMetadata().getResourceVersion()));
+                    consumer.accept(items);
+                });
+        });
+    }
 
-                items.addAll(list.getItems());
+    /**
+     * Waits for namespaces with a version greater than the given one. The consumer is not invoked if the watch
+     * times out without any change.
+     */
+    public void watchNamespaces(long gv, Consumer<Collection<ConnectorNamespaceDeployment>> consumer) {
+        if (watchPlane == null) {
+            throw new IllegalStateException("Watch is not enabled");
+        }
 
-                consumer.accept(items);
+        RestClientHelper.run(() -> {
+            LOGGER.debug("watching namespaces with gv: {}", gv);
 
-                if (counter.addAndGet(items.size()) >= list.getTotal()) {
-                    break;
-                }
-            }
+            page(
+                TYPE_NAMESPACES,
+                namespacesPageTimer,
+                namespacesPageRetries,
+                page -> watchPlane.watchConnectorNamespaces(config.cluster().id(), page, pageSize, gv, true, watchTimeout),
+                ConnectorNamespaceDeploymentList::getItems,
+                ConnectorNamespaceDeploymentList::getTotal,
+                items -> consumer.accept(items));
         });
     }
 
-    public void getDeployments(long gv, Consumer<Collection<ConnectorDeployment>> consumer) {
+    /**
+     * Waits for deployments with a version greater than the given one. The consumer is not invoked if the watch
+     * times out without any change.
+     */
+    public void watchDeployments(long gv, Consumer<Collection<ConnectorDeployment>> consumer) {
+        if (watchPlane == null) {
+            throw new IllegalStateException("Watch is not enabled");
+        }
+
         RestClientHelper.run(() -> {
-            LOGGER.debug("polling deployment with gv: {}", gv);
+            LOGGER.debug("watching deployment with gv: {}", gv);
+
+            page(
+                TYPE_DEPLOYMENTS,
+                deploymentsPageTimer,
+                deploymentsPageRetries,
+                page -> watchPlane.watchConnectorDeployments(config.cluster().id(), page, pageSize, gv, true, watchTimeout),
+                ConnectorDeploymentList::getItems,
+                ConnectorDeploymentList::getTotal,
+                items -> {
+                    items.sort(Comparator.comparingLong(d -> d.getMetadata().getResourceVersion()));
+                    consumer.accept(items);
+                });
+        });
+    }
+
+    /**
+     * Fetches all the pages of a resource and hands each page to the given consumer exactly once. If prefetch is
+     * enabled, the next page is retrieved while the current one is being processed by the consumer. The retrieval of
+     * a page is retried, so a transient failure does not cause the pages already processed to be fetched again.
+     */
+    <L, T> void page(
+        String type,
+        Timer timer,
+        DistributionSummary retries,
+        ThrowingFunction<String, L, Exception> fetcher,
+        Function<L, List<T>> itemsExtractor,
+        Function<L, Integer> totalExtractor,
+        Consumer<List<T>> consumer) throws Exception {
+
+        long counter = 0;
+
+        L list = fetch(type, timer, retries, fetcher, 1);
+
+        for (int i = 1; i < Integer.MAX_VALUE; i++) {
+            final List<T> items = list != null ? itemsExtractor.apply(list) : null;
 
-            final AtomicInteger counter = new AtomicInteger();
-            final List<ConnectorDeployment> items = new ArrayList<>();
+            if (items == null || items.isEmpty()) {
+                if (i == 1) {
+                    LOGGER.info("No {} for cluster {}", type, config.cluster().id());
+                }
+                break;
+            }
+
+            counter += items.size();
+
+            final Integer total = totalExtractor.apply(list);
+            if (total == null || counter >= total) {
+                consumer.accept(new ArrayList<>(items));
+                break;
+            }
 
-            for (int i = 1; i < Integer.MAX_VALUE; i++) {
-                ConnectorDeploymentList list = controlPlane.getConnectorDeployments(
-                    config.cluster().id(),
-                    Integer.toString(i),
-                    null,
-                    gv);
+            final int next = i + 1;
+            final Future<L> prefetched = prefetch
+                ? pager.submit(() -> fetch(type, timer, retries, fetcher, next))
+                : null;
 
-                if (list == null || list.getItems() == null || list.getItems().isEmpty()) {
-                    LOGGER.info("No connectors for cluster {}", config.cluster().id());
-                    break;
+            try {
+                consumer.accept(new ArrayList<>(items));
+            } catch (Exception e) {
+                if (prefetched != null) {
+                    prefetched.cancel(true);
                 }
+                throw e;
+            }
 
-                items.clear();
-                items.addAll(list.getItems());
-                items.sort(Comparator.comparingLong(d -> d.getMetadata().getResourceVersion()));
+            if (prefetched != null) {
+                try {
+                    list = prefetched.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            } else {
+                list = fetch(type, timer, retries, fetcher, next);
+            }
+        }
+    }
+
+    private <L> L fetch(
+        String type,
+        Timer timer,
+        DistributionSummary retries,
+        ThrowingFunction<String, L, Exception> fetcher,
+        int page) throws Exception {
 
-                consumer.accept(items);
+        final int maxRetries = config.manager().pageRetries();
 
-                if (counter.addAndGet(items.size()) >= list.getTotal()) {
-                    break;
+        for (int attempt = 0;; attempt++) {
+            try {
+                final L answer = timer.recordCallable(() -> fetcher.apply(Integer.toString(page)));
+                retries.record(attempt);
+
+                return answer;
+            } catch (Exception e) {
+                if (attempt >= maxRetries || !isRetryable(e)) {
+                    retries.record(attempt);
+                    throw e;
                 }
+
+                LOGGER.warn("Failure retrieving page {} of {} (attempt {} of {}), retrying: {}",
+                    page,
+                    type,
+                    attempt + 1,
+                    maxRetries + 1,
+                    e.getMessage());
+
+                Thread.sleep(config.manager().pageRetryDelay().toMillis());
             }
-        });
+        }
+    }
+
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof WebApplicationException) {
+            final int status = ((WebApplicationException) e).getResponse().getStatus();
+
+            // client errors are not going to be solved by retrying, except for timeouts and throttling
+            return status >= 500 || status == 408 || status == 429;
+        }
+
+        return !(e instanceof InterruptedException);
     }
 
     public void updateConnectorStatus(ManagedConnector connector, ConnectorDeploymentStatus status) {
@@ -118,10 +314,12 @@ public class FleetManagerClient {
 
     public void updateConnectorStatus(String clusterId, String deploymentId, ConnectorDeploymentStatus status) {
         RestClientHelper.run(() -> {
-            LOGGER.info("Update connector status: cluster_id={}, deployment_id={}, status={}",
-                clusterId,
-                deploymentId,
-                Serialization.asJson(status));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Update connector status: cluster_id={}, deployment_id={}, status={}",
+                    clusterId,
+                    deploymentId,
+                    Serialization.asJson(status));
+            }
 
             controlPlane.updateConnectorDeploymentStatus(
                 clusterId,
@@ -130,6 +328,24 @@ public class FleetManagerClient {
         });
     }
 
+    public ConnectorDeploymentStatusBatchResult updateConnectorStatuses(String clusterId,
+        ConnectorDeploymentStatusBatch batch) {
+        return RestClientHelper.call(() -> {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Update connector statuses: cluster_id={}, statuses={}",
+                    clusterId,
+                    Serialization.asJson(batch));
+            }
+
+            final ConnectorDeploymentStatusBatchResult answer = controlPlane.updateConnectorDeploymentStatuses(
+                clusterId,
+                batch);
+
+            // a response without content means every status has been updated
+            return answer != null ? answer : new ConnectorDeploymentStatusBatchResult();
+        });
+    }
+
     public void updateNamespaceStatus(String clusterId, String namespaceId, ConnectorNamespaceDeploymentStatus status) {
         RestClientHelper.run(() -> {
             LOGGER.info("Update namespace status: cluster_id={}, namespace_id={}, status={}",
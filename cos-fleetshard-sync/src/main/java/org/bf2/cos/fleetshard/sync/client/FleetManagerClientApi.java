@@ -57,6 +57,22 @@ public interface FleetManagerClientApi {
         @QueryParam("gt_version") Long gtVersion)
         throws ApiException, ProcessingException;
 
+    /**
+     * Watch the connector deployments assigned to the cluster. The request is held by the server until there is any
+     * deployment with a version greater than the given one, or the timeout expires.
+     */
+    @GET
+    @Path("/kafka_connector_clusters/{connector_cluster_id}/deployments")
+    @Produces(MediaType.APPLICATION_JSON)
+    ConnectorDeploymentList watchConnectorDeployments(
+        @PathParam("connector_cluster_id") String connectorClusterId,
+        @QueryParam("page") String page,
+        @QueryParam("size") String size,
+        @QueryParam("gt_version") Long gtVersion,
+        @QueryParam("watch") Boolean watch,
+        @QueryParam("timeout") Long timeout)
+        throws ApiException, ProcessingException;
+
     /**
      * Returns a connector namespace assigned to the cluster.
      */
@@ -81,6 +97,22 @@ public interface FleetManagerClientApi {
         @QueryParam("gt_version") Long gtVersion)
         throws ApiException, ProcessingException;
 
+    /**
+     * Watch the connector namespaces assigned to the cluster. The request is held by the server until there is any
+     * namespace with a version greater than the given one, or the timeout expires.
+     */
+    @GET
+    @Path("/kafka_connector_clusters/{connector_cluster_id}/namespaces")
+    @Produces(MediaType.APPLICATION_JSON)
+    ConnectorNamespaceDeploymentList watchConnectorNamespaces(
+        @PathParam("connector_cluster_id") String connectorClusterId,
+        @QueryParam("page") String page,
+        @QueryParam("size") String size,
+        @QueryParam("gt_version") Long gtVersion,
+        @QueryParam("watch") Boolean watch,
+        @QueryParam("timeout") Long timeout)
+        throws ApiException, ProcessingException;
+
     /**
      * Update the status of a connector deployment
      */
@@ -94,6 +126,18 @@ public interface FleetManagerClientApi {
         ConnectorDeploymentStatus connectorDeploymentStatus)
         throws ApiException, ProcessingException;
 
+    /**
+     * Update the status of multiple connector deployments, returning the outcome of each update
+     */
+    @PUT
+    @Path("/kafka_connector_clusters/{connector_cluster_id}/deployments/status")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    ConnectorDeploymentStatusBatchResult updateConnectorDeploymentStatuses(
+        @PathParam("connector_cluster_id") String connectorClusterId,
+        ConnectorDeploymentStatusBatch connectorDeploymentStatuses)
+        throws ApiException, ProcessingException;
+
     /**
      * Update the status of a connector namespace
      *
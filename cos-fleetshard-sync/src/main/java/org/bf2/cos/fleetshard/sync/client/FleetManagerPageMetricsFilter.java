@@ -0,0 +1,104 @@
+package org.bf2.cos.fleetshard.sync.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records the size of the pages of resources returned by the Control Plane. As responses may be chunked, the size is
+ * computed by counting the bytes read from the response entity rather than relying on the Content-Length header.
+ */
+public class FleetManagerPageMetricsFilter implements ClientResponseFilter {
+    public static final String METRICS_PAGE_BYTES = "manager.page.bytes";
+
+    private final DistributionSummary deployments;
+    private final DistributionSummary namespaces;
+
+    public FleetManagerPageMetricsFilter(MeterRegistry registry, String baseName) {
+        this.deployments = summary(registry, baseName, FleetManagerClient.TYPE_DEPLOYMENTS);
+        this.namespaces = summary(registry, baseName, FleetManagerClient.TYPE_NAMESPACES);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
+        if (!HttpMethod.GET.equals(requestContext.getMethod()) || !responseContext.hasEntity()) {
+            return;
+        }
+
+        final String path = requestContext.getUri().getPath();
+
+        if (path.endsWith("/" + FleetManagerClient.TYPE_DEPLOYMENTS)) {
+            responseContext.setEntityStream(new CountingInputStream(responseContext.getEntityStream(), deployments));
+        } else if (path.endsWith("/" + FleetManagerClient.TYPE_NAMESPACES)) {
+            responseContext.setEntityStream(new CountingInputStream(responseContext.getEntityStream(), namespaces));
+        }
+    }
+
+    private static DistributionSummary summary(MeterRegistry registry, String baseName, String type) {
+        return DistributionSummary.builder(baseName + "." + METRICS_PAGE_BYTES)
+            .baseUnit("bytes")
+            .tag("type", type)
+            .register(registry);
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final DistributionSummary summary;
+        private final AtomicBoolean recorded;
+        private long count;
+
+        CountingInputStream(InputStream in, DistributionSummary summary) {
+            super(in);
+
+            this.summary = summary;
+            this.recorded = new AtomicBoolean();
+        }
+
+        @Override
+        public int read() throws IOException {
+            int answer = super.read();
+            if (answer == -1) {
+                record();
+            } else {
+                count++;
+            }
+
+            return answer;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int answer = super.read(b, off, len);
+            if (answer == -1) {
+                record();
+            } else {
+                count += answer;
+            }
+
+            return answer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                record();
+            }
+        }
+
+        private void record() {
+            if (recorded.compareAndSet(false, true)) {
+                summary.record(count);
+            }
+        }
+    }
+}
@@ -47,6 +47,25 @@ public class FleetShardClient implements Service {
     private volatile SharedIndexInformer<ManagedConnectorOperator> operatorsInformer;
     private volatile SharedIndexInformer<Namespace> namespaceInformers;
 
+    private final RevisionTracker<ManagedConnector> deploymentRevisions = new RevisionTracker<>(
+        c -> {
+            Long rv = c.getSpec().getDeployment().getDeploymentResourceVersion();
+            if (rv == null) {
+                return 0;
+            }
+
+            return rv;
+        });
+    private final RevisionTracker<Namespace> namespaceRevisions = new RevisionTracker<>(
+        n -> {
+            String rv = Resources.getAnnotation(n, Resources.ANNOTATION_NAMESPACE_RESOURCE_VERSION);
+            if (rv == null) {
+                return 0;
+            }
+
+            return Long.parseLong(rv);
+        });
+
     @SuppressWarnings("PMD.DoNotTerminateVM")
     @Override
     public void start() throws Exception {
@@ -57,11 +76,11 @@ public class FleetShardClient implements Service {
             .inform();
         namespaceInformers = kubernetesClient.namespaces()
             .withLabel(Resources.LABEL_CLUSTER_ID, getClusterId())
-            .inform();
+            .inform(namespaceRevisions);
         connectorsInformer = kubernetesClient.resources(ManagedConnector.class)
             .inAnyNamespace()
             .withLabel(Resources.LABEL_CLUSTER_ID, getClusterId())
-            .inform();
+            .inform(deploymentRevisions);
 
         operatorsInformer.stopped().whenComplete((unused, throwable) -> {
             if (throwable != null) {
@@ -99,24 +118,11 @@ public class FleetShardClient implements Service {
     }
 
     public long getMaxDeploymentResourceRevision() {
-        return this.connectorsInformer.getIndexer().list().stream()
-            .mapToLong(c -> c.getSpec().getDeployment().getDeploymentResourceVersion())
-            .max()
-            .orElse(0);
+        return deploymentRevisions.max();
     }
 
     public long getMaxNamespaceResourceRevision() {
-        return this.namespaceInformers.getIndexer().list().stream()
-            .mapToLong(c -> {
-                String rv = Resources.getAnnotation(c, Resources.ANNOTATION_NAMESPACE_RESOURCE_VERSION);
-                if (rv == null) {
-                    return 0;
-                }
-
-                return Long.parseLong(rv);
-            })
-            .max()
-            .orElse(0);
+        return namespaceRevisions.max();
     }
 
     // *************************************
@@ -133,6 +139,20 @@ public class FleetShardClient implements Service {
                 .get());
     }
 
+    /**
+     * Lookup a namespace in the informer cache, which only holds the namespaces managed by this cluster.
+     *
+     * @param  namespaceId the id of the namespace
+     * @return             the cached namespace, if any
+     */
+    public Optional<Namespace> getCachedNamespace(String namespaceId) {
+        if (namespaceInformers == null) {
+            throw new IllegalStateException("Informer must be started before adding handlers");
+        }
+
+        return Optional.ofNullable(namespaceInformers.getIndexer().getByKey(generateNamespaceId(namespaceId)));
+    }
+
     public List<Namespace> getNamespaces() {
         return namespaceInformers != null
             ? namespaceInformers.getIndexer().list()
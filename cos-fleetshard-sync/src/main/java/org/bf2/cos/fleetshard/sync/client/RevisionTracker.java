@@ -0,0 +1,82 @@
+package org.bf2.cos.fleetshard.sync.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.ToLongFunction;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+/**
+ * Incrementally tracks the highest revision among a set of resources, as notified by an informer.
+ * </p>
+ * The revision of each resource is kept in a map, and all the known revisions are kept in a sorted multiset so that
+ * the current maximum can be retrieved without scanning the informer cache and that it can be correctly recomputed
+ * when resources are updated or deleted.
+ *
+ * @param <T> the resource type
+ */
+public class RevisionTracker<T extends HasMetadata> implements ResourceEventHandler<T> {
+    private final ToLongFunction<T> extractor;
+    private final Map<String, Long> revisions;
+    private final ConcurrentNavigableMap<Long, Integer> counts;
+
+    public RevisionTracker(ToLongFunction<T> extractor) {
+        this.extractor = extractor;
+        this.revisions = new ConcurrentHashMap<>();
+        this.counts = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * @return the highest revision among the tracked resources, or 0 if no resource is known.
+     */
+    public long max() {
+        final Map.Entry<Long, Integer> entry = counts.lastEntry();
+        return entry != null ? entry.getKey() : 0;
+    }
+
+    /**
+     * @return the number of tracked resources.
+     */
+    public int size() {
+        return revisions.size();
+    }
+
+    @Override
+    public void onAdd(T obj) {
+        set(Cache.metaNamespaceKeyFunc(obj), extractor.applyAsLong(obj));
+    }
+
+    @Override
+    public void onUpdate(T oldObj, T newObj) {
+        set(Cache.metaNamespaceKeyFunc(newObj), extractor.applyAsLong(newObj));
+    }
+
+    @Override
+    public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+        final Long previous = revisions.remove(Cache.metaNamespaceKeyFunc(obj));
+        if (previous != null) {
+            decrement(previous);
+        }
+    }
+
+    private void set(String key, long revision) {
+        final Long previous = revisions.put(key, revision);
+        if (previous != null && previous == revision) {
+            return;
+        }
+
+        counts.merge(revision, 1, Integer::sum);
+
+        if (previous != null) {
+            decrement(previous);
+        }
+    }
+
+    private void decrement(long revision) {
+        counts.computeIfPresent(revision, (k, v) -> v > 1 ? v - 1 : null);
+    }
+}
@@ -0,0 +1,100 @@
+package org.bf2.cos.fleetshard.sync.housekeeping;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import io.micrometer.core.instrument.Meter;
+
+/**
+ * The index of the meters of the connectors that have been reported as deleted, ordered by deletion time so that the
+ * expired ones can be found without scanning the meter registry.
+ * </p>
+ * Entries are not removed from the queue when a connector is forgotten, they are skipped once they reach the head of
+ * the queue instead.
+ */
+final class DeletedMetricsIndex {
+    private final Map<String, Entry> entries;
+    private final PriorityQueue<Entry> queue;
+
+    DeletedMetricsIndex() {
+        this.entries = new HashMap<>();
+        this.queue = new PriorityQueue<>(Comparator.comparing((Entry e) -> e.deletedAt));
+    }
+
+    /**
+     * Track the meters of a deleted connector. A connector that is already tracked retains its original deletion time.
+     *
+     * @param id        the connector id
+     * @param deletedAt when the connector has been deleted
+     * @param meters    the meters of the connector
+     */
+    synchronized void add(String id, Instant deletedAt, Collection<Meter> meters) {
+        final Entry current = entries.get(id);
+        if (current != null) {
+            current.meters.addAll(meters);
+            return;
+        }
+
+        final Entry entry = new Entry(id, deletedAt, meters);
+        entries.put(id, entry);
+        queue.add(entry);
+    }
+
+    /**
+     * Stop tracking the meters of a connector.
+     *
+     * @param id the connector id
+     */
+    synchronized void remove(String id) {
+        entries.remove(id);
+    }
+
+    /**
+     * Stop tracking the connectors deleted before the given deadline.
+     *
+     * @param  deadline the deadline
+     * @return          the meters of the connectors deleted before the deadline
+     */
+    synchronized List<Meter> expire(Instant deadline) {
+        final List<Meter> answer = new ArrayList<>();
+
+        while (!queue.isEmpty() && queue.peek().deletedAt.isBefore(deadline)) {
+            final Entry entry = queue.poll();
+
+            if (entries.remove(entry.id, entry)) {
+                answer.addAll(entry.meters);
+            }
+        }
+
+        return answer;
+    }
+
+    /**
+     * Determine the number of tracked connectors.
+     *
+     * @return the number of connectors
+     */
+    synchronized int count() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        final String id;
+        final Instant deletedAt;
+        final Set<Meter> meters;
+
+        Entry(String id, Instant deletedAt, Collection<Meter> meters) {
+            this.id = id;
+            this.deletedAt = deletedAt;
+            this.meters = new LinkedHashSet<>(meters);
+        }
+    }
+}
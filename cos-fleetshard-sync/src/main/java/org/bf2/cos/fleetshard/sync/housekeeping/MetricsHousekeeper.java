@@ -1,14 +1,27 @@
 package org.bf2.cos.fleetshard.sync.housekeeping;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.bf2.cos.fleetshard.support.Service;
 import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
 import org.bf2.cos.fleetshard.sync.FleetShardSyncScheduler;
+import org.bf2.cos.fleetshard.sync.metrics.MetricsID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @ApplicationScoped
 public class MetricsHousekeeper implements Service {
 
@@ -16,14 +29,35 @@ public class MetricsHousekeeper implements Service {
 
     private static final String JOB_ID = "cos.resources.metric.housekeeping";
 
+    public static final String METRICS_EVICTED = "metrics.housekeeper.evicted";
+    public static final String METRICS_SWEEP = "metrics.housekeeper.sweep";
+    public static final String METRICS_PENDING = "metrics.housekeeper.pending";
+
     @Inject
     FleetShardSyncConfig config;
     @Inject
     FleetShardSyncScheduler scheduler;
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @MetricsID(METRICS_EVICTED)
+    Counter evictedCounter;
+    @Inject
+    @MetricsID(METRICS_SWEEP)
+    Timer sweepTimer;
+
+    private final DeletedMetricsIndex index = new DeletedMetricsIndex();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder(config.metrics().baseName() + "." + METRICS_PENDING, index, DeletedMetricsIndex::count)
+            .register(registry);
+    }
 
     @Override
     public void start() throws Exception {
-        if (config.resources().metricsHousekeeperInterval().isZero()) {
+        if (isDisabled()) {
             LOGGER.info("Skipping starting house keeper as interval is zero");
             return;
         }
@@ -39,4 +73,56 @@ public class MetricsHousekeeper implements Service {
         scheduler.shutdownQuietly(JOB_ID);
     }
 
+    /**
+     * Schedule the removal of the meters of a connector that has been reported as deleted, once the configured
+     * retention is elapsed.
+     *
+     * @param id        the connector id
+     * @param deletedAt when the connector has been reported as deleted
+     * @param meters    the meters of the connector
+     */
+    public void deleted(String id, Instant deletedAt, Collection<Meter> meters) {
+        if (isDisabled()) {
+            return;
+        }
+
+        index.add(id, deletedAt, meters);
+    }
+
+    /**
+     * Cancel the removal of the meters of a connector, i.e. because it is not deleted anymore or its meters have
+     * already been removed.
+     *
+     * @param id the connector id
+     */
+    public void forget(String id) {
+        index.remove(id);
+    }
+
+    /**
+     * Remove the meters of the connectors that have been reported as deleted for longer than the configured retention.
+     *
+     * @param  now the current time
+     * @return     the number of meters removed
+     */
+    public int sweep(Instant now) {
+        final long start = System.nanoTime();
+
+        try {
+            final List<Meter> meters = index.expire(now.minus(config.resources().metricsHousekeeperDeleteMetricsAfter()));
+            for (Meter meter : meters) {
+                registry.remove(meter);
+            }
+
+            evictedCounter.increment(meters.size());
+
+            return meters.size();
+        } finally {
+            sweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean isDisabled() {
+        return config.resources().metricsHousekeeperInterval().isZero();
+    }
 }
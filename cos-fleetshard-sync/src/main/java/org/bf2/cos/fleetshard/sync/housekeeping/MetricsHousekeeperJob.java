@@ -1,11 +1,9 @@
 package org.bf2.cos.fleetshard.sync.housekeeping;
 
 import java.time.Instant;
-import java.util.Collection;
 
 import javax.inject.Inject;
 
-import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
 import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
@@ -13,21 +11,13 @@ import org.quartz.JobExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.Gauge;
-import io.micrometer.core.instrument.MeterRegistry;
-
-// This job removes deleted connectors metrics once a day. Note that it only removes the metrics that are 6 hours older
+// This job removes the metrics of the connectors that have been reported as deleted for longer than the configured
+// retention (6 hours by default). The metrics of connectors removed from the cluster are removed right away.
 @DisallowConcurrentExecution
 public class MetricsHousekeeperJob implements Job {
 
-    public static final String CONNECTOR_STATE = "connector.state";
-    public static final String CONNECTOR_STATE_COUNT = "connector.state.count";
-
-    @Inject
-    MeterRegistry registry;
     @Inject
-    FleetShardSyncConfig config;
+    MetricsHousekeeper housekeeper;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MetricsHousekeeperJob.class);
 
@@ -37,43 +27,9 @@ public class MetricsHousekeeperJob implements Job {
         LOGGER.info("Executing Metrics housekeeping");
 
         try {
+            int removed = housekeeper.sweep(Instant.now());
 
-            // Fetching counters with deletion_timestamp
-            Collection<Counter> meters = registry.find(config.metrics().baseName() + "." + CONNECTOR_STATE_COUNT)
-                .tagKeys("deletion_timestamp").counters();
-
-            if (meters != null) {
-                for (Counter meter : meters) {
-
-                    String deletedAt = meter.getId().getTag("deletion_timestamp");
-                    String id = meter.getId().getTag("cos.connector.id");
-
-                    if (deletedAt != null && id != null && Instant.now()
-                        .isAfter(Instant.parse(deletedAt).plus(config.resources().metricsHousekeeperDeleteMetricsAfter()))) {
-
-                        LOGGER.info("Got connector id for deleting the metrics: {}", id);
-
-                        Collection<Counter> counters = registry
-                            .find(config.metrics().baseName() + "." + CONNECTOR_STATE_COUNT)
-                            .tag("cos.connector.id", id).counters();
-                        if (counters != null) {
-                            // Removing the counter type metrics
-                            for (Counter counter : counters) {
-                                registry.remove(counter);
-                            }
-                        }
-
-                        // removing the gauge type metrics
-                        Gauge gauge = registry.find(config.metrics().baseName() + "." + CONNECTOR_STATE)
-                            .tag("cos.connector.id", id).gauge();
-                        if (gauge != null) {
-                            registry.remove(gauge);
-                        }
-
-                        LOGGER.info("Deleted all connector metrics: {}", id);
-                    }
-                }
-            }
+            LOGGER.info("Deleted {} metrics of deleted connectors", removed);
         } catch (Exception ex) {
             LOGGER.warn("Error while deleting old connectors metric", ex);
 
@@ -16,6 +16,7 @@ import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
 
 @Singleton
 public class MetricsProducers {
@@ -108,4 +109,33 @@ public class MetricsProducers {
 
         return builder.register(registry);
     }
+
+    @Produces
+    public Timer timer(InjectionPoint ip) {
+        MetricsID named = ip.getAnnotated().getAnnotation(MetricsID.class);
+        if (named == null) {
+            throw new IllegalArgumentException("Missing MetricsID annotation");
+        }
+        if (named.value() == null || named.value().trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing metrics id");
+        }
+
+        MetricsTags tags = ip.getAnnotated().getAnnotation(MetricsTags.class);
+        if (tags != null && tags.value() == null) {
+            throw new IllegalArgumentException("Missing metrics tags");
+        }
+
+        String id = named.value();
+        if (!id.startsWith(config.metrics().baseName() + ".")) {
+            id = config.metrics().baseName() + "." + id;
+        }
+
+        Timer.Builder builder = Timer.builder(id);
+        if (tags != null) {
+            builder = builder.tags(
+                Stream.of(tags.value()).map(t -> Tag.of(t.key(), t.value())).collect(Collectors.toList()));
+        }
+
+        return builder.register(registry);
+    }
 }
@@ -1,7 +1,15 @@
 package org.bf2.cos.fleetshard.sync.resources;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -20,6 +28,7 @@ import org.bf2.cos.fleetshard.api.OperatorSelector;
 import org.bf2.cos.fleetshard.api.SchemaRegistrySpec;
 import org.bf2.cos.fleetshard.support.OperatorSelectorUtil;
 import org.bf2.cos.fleetshard.support.client.EventClient;
+import org.bf2.cos.fleetshard.support.exceptions.WrappedRuntimeException;
 import org.bf2.cos.fleetshard.support.metrics.MetricsRecorder;
 import org.bf2.cos.fleetshard.support.resources.Connectors;
 import org.bf2.cos.fleetshard.support.resources.Resources;
@@ -36,6 +45,8 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.Secret;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
 
 import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_CLUSTER_ID;
 import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_CONNECTOR_ID;
@@ -52,6 +63,11 @@ public class ConnectorDeploymentProvisioner {
     public static final String TAG_DEPLOYMENT_ID = "id";
     public static final String TAG_DEPLOYMENT_REVISION = "revision";
     public static final String METRICS_SUFFIX = "deployment.provision";
+    public static final String METRICS_LATENCY = "deployment.provision.latency";
+    public static final String METRICS_APPLIED = "deployment.provision.applied";
+    public static final String METRICS_SKIPPED = "deployment.provision.skipped";
+    public static final String METRICS_RETRIED = "deployment.provision.retried";
+    public static final String METRICS_DEAD_LETTER = "deployment.provision.dead_letter";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ConnectorDeploymentProvisioner.class);
 
@@ -63,60 +79,298 @@ public class ConnectorDeploymentProvisioner {
     FleetShardSyncConfig config;
     @Inject
     EventClient eventClient;
+    @Inject
+    ProvisioningExecutor executor;
+    @Inject
+    ResourceCheckpoint checkpoint;
 
     @Inject
     @MetricsID(METRICS_SUFFIX)
     MetricsRecorder recorder;
+    @Inject
+    @MetricsID(METRICS_LATENCY)
+    Timer latency;
+    @Inject
+    @MetricsID(METRICS_APPLIED)
+    Counter applied;
+    @Inject
+    @MetricsID(METRICS_SKIPPED)
+    Counter skipped;
+    @Inject
+    @MetricsID(METRICS_RETRIED)
+    Counter retried;
+    @Inject
+    @MetricsID(METRICS_DEAD_LETTER)
+    Counter deadLettered;
+
+    // deployments that have failed to be provisioned, by deployment id
+    private final Map<String, DeadLetter> deadLetters = new ConcurrentHashMap<>();
+
+    /**
+     * Provision the deployments with a revision greater than the given one.
+     *
+     * @param  revision the revision
+     * @return          the number of deployments whose resources have been applied
+     */
+    public int poll(long revision) {
+        return poll(revision, r -> {
+        });
+    }
+
+    /**
+     * Provision the deployments with a revision greater than the given one, notifying the given cursor with the
+     * highest revision provisioned once each page has been provisioned, so that a failed poll can be resumed from it.
+     *
+     * @param  revision the revision
+     * @param  cursor   the cursor
+     * @return          the number of deployments whose resources have been applied
+     */
+    public int poll(long revision, LongConsumer cursor) {
+        final AtomicInteger count = new AtomicInteger();
 
-    public void poll(long revision) {
         fleetManager.getDeployments(
             revision,
-            this::provisionConnectors);
+            items -> {
+                count.addAndGet(provisionConnectors(items));
+
+                items.stream()
+                    .mapToLong(item -> item.getMetadata().getResourceVersion())
+                    .max()
+                    .ifPresent(cursor);
+            });
+
+        return count.get();
+    }
+
+    /**
+     * Attempt again the dead lettered deployments whose dead letter interval has elapsed. As the revisions of the dead
+     * lettered deployments are excluded from the revision polling resumes from, they are not fetched again from the
+     * Control Plane but retried from here.
+     *
+     * @return the number of deployments whose resources have been applied
+     */
+    public int retryDeadLetters() {
+        // a dead letter is obsolete once a newer revision of its deployment has been provisioned
+        deadLetters.values().removeIf(deadLetter -> isStale(deadLetter.deployment));
+
+        final Instant now = Instant.now();
+
+        return provisionConnectors(
+            deadLetters.values().stream()
+                .filter(deadLetter -> isDue(deadLetter, now))
+                .map(deadLetter -> deadLetter.deployment)
+                .collect(Collectors.toList()));
     }
 
-    private void provisionConnectors(Collection<ConnectorDeployment> deployments) {
-        for (ConnectorDeployment deployment : deployments) {
-            this.recorder.record(
-                () -> provision(deployment),
-                e -> {
-                    LOGGER.error("Failure while trying to provision connector deployment: id={}, revision={}",
+    /**
+     * @return the highest revision of the deployments that have failed to be provisioned, or 0 if none has.
+     */
+    public long getDeadLetteredRevision() {
+        return deadLetters.values().stream()
+            .map(deadLetter -> deadLetter.revision)
+            .filter(Objects::nonNull)
+            .mapToLong(Long::longValue)
+            .max()
+            .orElse(0);
+    }
+
+    int provisionConnectors(Collection<ConnectorDeployment> deployments) {
+        final AtomicInteger count = new AtomicInteger();
+
+        executor.execute(
+            deployments,
+            deployment -> deployment.getSpec().getNamespaceId(),
+            deployment -> {
+                if (provisionConnector(deployment)) {
+                    count.incrementAndGet();
+                }
+            });
+
+        return count.get();
+    }
+
+    /**
+     * @return true if the connector of the given deployment has already been provisioned with a newer revision.
+     */
+    boolean isStale(ConnectorDeployment deployment) {
+        final long revision = deployment.getMetadata().getResourceVersion();
+
+        return fleetShard.getConnector(deployment)
+            .map(connector -> connector.getSpec().getDeployment().getDeploymentResourceVersion())
+            .filter(Objects::nonNull)
+            .filter(current -> current > revision)
+            .isPresent();
+    }
+
+    /**
+     * @return true if the resources of the given deployment have been applied, false if they were already up to date or
+     *         the deployment has failed to be provisioned.
+     */
+    boolean provisionConnector(ConnectorDeployment deployment) {
+        final Long revision = deployment.getMetadata().getResourceVersion();
+        final DeadLetter deadLetter = deadLetters.get(deployment.getId());
+        final boolean known = deadLetter != null && Objects.equals(deadLetter.revision, revision);
+
+        if (known && !isDue(deadLetter, Instant.now())) {
+            LOGGER.debug("Skipping dead lettered connector deployment: id={}, revision={}", deployment.getId(), revision);
+            return false;
+        }
+
+        final Boolean answer = this.recorder.recordCallable(
+            () -> {
+                // a dead lettered deployment is attempted only once per dead letter interval
+                final boolean result = provision(deployment, known ? 0 : config.resources().provisionRetries());
+                deadLetters.remove(deployment.getId());
+                checkpoint.deploymentProvisioned(deployment);
+                measure(deployment);
+
+                return result;
+            },
+            e -> {
+                deadLetters.put(deployment.getId(), new DeadLetter(deployment, Instant.now()));
+
+                if (known) {
+                    // the failure of this revision has already been reported
+                    LOGGER.warn("Failure while trying to provision dead lettered connector deployment: id={}, revision={}",
                         deployment.getId(),
-                        deployment.getMetadata().getResourceVersion(),
+                        revision,
                         e);
 
-                    try {
-                        MetaV1Condition condition = new MetaV1Condition();
-                        condition.setType(Conditions.TYPE_READY);
-                        condition.setStatus(Conditions.STATUS_FALSE);
-                        condition.setReason(Conditions.FAILED_TO_CREATE_OR_UPDATE_RESOURCE_REASON);
-                        condition.setMessage(e.getMessage());
+                    return;
+                }
 
-                        ConnectorDeploymentStatus status = new ConnectorDeploymentStatus();
-                        status.setResourceVersion(deployment.getMetadata().getResourceVersion());
-                        status.addConditionsItem(condition);
+                deadLettered.increment();
 
-                        fleetManager.updateConnectorStatus(
-                            fleetShard.getClusterId(),
+                LOGGER.error("Failure while trying to provision connector deployment: id={}, revision={}",
+                    deployment.getId(),
+                    deployment.getMetadata().getResourceVersion(),
+                    e);
+
+                try {
+                    MetaV1Condition condition = new MetaV1Condition();
+                    condition.setType(Conditions.TYPE_READY);
+                    condition.setStatus(Conditions.STATUS_FALSE);
+                    condition.setReason(Conditions.FAILED_TO_CREATE_OR_UPDATE_RESOURCE_REASON);
+                    condition.setMessage(e.getMessage());
+
+                    ConnectorDeploymentStatus status = new ConnectorDeploymentStatus();
+                    status.setResourceVersion(deployment.getMetadata().getResourceVersion());
+                    status.addConditionsItem(condition);
+
+                    fleetManager.updateConnectorStatus(
+                        fleetShard.getClusterId(),
+                        deployment.getId(),
+                        status);
+                } catch (Exception ex) {
+                    LOGGER.warn("Error wile reporting failure to the control plane", e);
+                }
+
+                fleetShard.getConnectorCluster().ifPresent(cc -> {
+                    eventClient.broadcastWarning(
+                        "FailedToCreateOrUpdateResource",
+                        String.format("Unable to create or update deployment %s, revision: %s, reason: %s",
                             deployment.getId(),
-                            status);
-                    } catch (Exception ex) {
-                        LOGGER.warn("Error wile reporting failure to the control plane", e);
-                    }
-
-                    fleetShard.getConnectorCluster().ifPresent(cc -> {
-                        eventClient.broadcastWarning(
-                            "FailedToCreateOrUpdateResource",
-                            String.format("Unable to create or update deployment %s, revision: %s, reason: %s",
-                                deployment.getId(),
-                                deployment.getMetadata().getResourceVersion(),
-                                e.getMessage()),
-                            cc);
-                    });
+                            deployment.getMetadata().getResourceVersion(),
+                            e.getMessage()),
+                        cc);
                 });
+            });
+
+        return Boolean.TRUE.equals(answer);
+    }
+
+    private boolean isDue(DeadLetter deadLetter, Instant now) {
+        return Duration.between(deadLetter.since, now).compareTo(config.resources().deadLetterInterval()) >= 0;
+    }
+
+    /*
+     * Record the time elapsed since the deployment has been updated on the Control Plane, which is the end-to-end
+     * latency for a change to be reflected to the related ManagedConnector.
+     */
+    private void measure(ConnectorDeployment deployment) {
+        if (deployment.getMetadata() == null || deployment.getMetadata().getUpdatedAt() == null) {
+            return;
+        }
+
+        final Duration elapsed = Duration.between(deployment.getMetadata().getUpdatedAt().toInstant(), Instant.now());
+
+        // ignore negative values caused by clock skew between the Control Plane and the cluster
+        if (!elapsed.isNegative()) {
+            latency.record(elapsed);
+        }
+    }
+
+    private boolean provision(ConnectorDeployment deployment, int retries) {
+        for (int attempt = 0;; attempt++) {
+            try {
+                return provision(deployment);
+            } catch (RuntimeException e) {
+                if (attempt >= retries) {
+                    throw e;
+                }
+
+                retried.increment();
+
+                LOGGER.warn(
+                    "Failure while trying to provision connector deployment: id={}, revision={} (attempt {} of {}), retrying: {}",
+                    deployment.getId(),
+                    deployment.getMetadata().getResourceVersion(),
+                    attempt + 1,
+                    retries + 1,
+                    e.getMessage());
+
+                pause(config.resources().provisionRetryDelay());
+            }
+        }
+    }
+
+    private static void pause(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WrappedRuntimeException("Interrupted while waiting to retry provisioning", e);
         }
     }
 
-    public void provision(ConnectorDeployment deployment) {
+    /**
+     * Provision the resources of the given deployment.
+     *
+     * @param  deployment the deployment
+     * @return            true if the resources have been applied, false if they were already up to date
+     */
+    public boolean provision(ConnectorDeployment deployment) {
+        final Optional<ManagedConnector> currentConnector = fleetShard.getConnector(deployment);
+
+        // while verifying the resources after a restart, a deployment provisioned before the restart only needs its
+        // connector to be in place, which spares reading its secret
+        if (checkpoint.isVerified(deployment) && currentConnector.filter(c -> Resources.hasLabel(c,
+            LABEL_DEPLOYMENT_RESOURCE_VERSION, "" + deployment.getMetadata().getResourceVersion())).isPresent()) {
+            LOGGER.debug(
+                "Skipping verified deployment: cluster_id: {}, namespace_id: {}, deployment_id: {}, resource_version: {}",
+                fleetShard.getClusterId(),
+                deployment.getSpec().getNamespaceId(),
+                deployment.getId(),
+                deployment.getMetadata().getResourceVersion());
+
+            skipped.increment();
+            return false;
+        }
+
+        final Optional<Secret> currentSecret = fleetShard.getSecret(deployment);
+
+        if (isUnchanged(deployment, currentConnector, currentSecret)) {
+            LOGGER.debug(
+                "Skipping unchanged deployment: cluster_id: {}, namespace_id: {}, deployment_id: {}, resource_version: {}",
+                fleetShard.getClusterId(),
+                deployment.getSpec().getNamespaceId(),
+                deployment.getId(),
+                deployment.getMetadata().getResourceVersion());
+
+            skipped.increment();
+            return false;
+        }
+
         final String uow = uid();
 
         LOGGER.info("Got cluster_id: {}, namespace_d: {}, connector_id: {}, deployment_id: {}, resource_version: {}, uow: {}",
@@ -127,8 +381,8 @@ public class ConnectorDeploymentProvisioner {
             deployment.getMetadata().getResourceVersion(),
             uow);
 
-        final ManagedConnector connector = createManagedConnector(uow, deployment, null);
-        final Secret secret = createManagedConnectorSecret(uow, deployment, connector);
+        final ManagedConnector connector = createManagedConnector(uow, deployment, currentConnector, null);
+        final Secret secret = createManagedConnectorSecret(uow, deployment, currentSecret, connector);
 
         LOGGER.info("CreateOrReplace - uow: {}, connector: {}/{}, secret: {}/{}",
             uow,
@@ -136,11 +390,87 @@ public class ConnectorDeploymentProvisioner {
             connector.getMetadata().getName(),
             secret.getMetadata().getNamespace(),
             secret.getMetadata().getName());
+
+        applied.increment();
+
+        return true;
+    }
+
+    /*
+     * A deployment is unchanged when both the connector and the secret have already been provisioned with the same
+     * revision of the deployment, in the same unit of work, and the content of the secret has not been altered. In
+     * such case re-applying the deployment would only generate a new unit of work which triggers a full re-sync of the
+     * connector on the operator side, so periodic re-syncs are reduced to reads.
+     */
+    private boolean isUnchanged(
+        ConnectorDeployment deployment,
+        Optional<ManagedConnector> currentConnector,
+        Optional<Secret> currentSecret) {
+
+        if (!config.resources().skipUnchangedDeployments()) {
+            return false;
+        }
+        if (currentConnector.isEmpty() || currentSecret.isEmpty()) {
+            return false;
+        }
+
+        final ManagedConnector connector = currentConnector.get();
+        final Secret secret = currentSecret.get();
+        final String revision = "" + deployment.getMetadata().getResourceVersion();
+
+        if (connector.getSpec().getDeployment() == null) {
+            return false;
+        }
+        if (!Objects.equals(connector.getSpec().getDeployment().getDeploymentResourceVersion(),
+            deployment.getMetadata().getResourceVersion())) {
+            return false;
+        }
+        if (!Resources.hasLabel(connector, LABEL_DEPLOYMENT_RESOURCE_VERSION, revision)) {
+            return false;
+        }
+        if (!Resources.hasLabel(secret, LABEL_DEPLOYMENT_RESOURCE_VERSION, revision)) {
+            return false;
+        }
+
+        final String uow = connector.getSpec().getDeployment().getUnitOfWork();
+        if (uow == null || !Resources.hasLabel(connector, LABEL_UOW, uow) || !Resources.hasLabel(secret, LABEL_UOW, uow)) {
+            return false;
+        }
+
+        // a connector that could not be assigned to an operator must be re-evaluated
+        if (connector.getSpec().getOperatorSelector() == null || connector.getSpec().getOperatorSelector().getId() == null) {
+            return false;
+        }
+
+        // labels and annotations may have been added to the configuration since the connector has been provisioned
+        for (Map.Entry<String, String> entry : config.connectors().labels().entrySet()) {
+            if (!Resources.hasLabel(connector, entry.getKey(), entry.getValue())) {
+                return false;
+            }
+        }
+        for (Map.Entry<String, String> entry : config.connectors().annotations().entrySet()) {
+            if (!Resources.hasAnnotation(connector, entry.getKey(), entry.getValue())) {
+                return false;
+            }
+        }
+
+        if (secret.getData() == null) {
+            return false;
+        }
+
+        final Secret desired = new Secret();
+        setSecretData(deployment, desired);
+
+        return Objects.equals(Secrets.computeChecksum(desired), Secrets.computeChecksum(secret));
     }
 
-    private ManagedConnector createManagedConnector(String uow, ConnectorDeployment deployment, HasMetadata owner) {
+    private ManagedConnector createManagedConnector(
+        String uow,
+        ConnectorDeployment deployment,
+        Optional<ManagedConnector> current,
+        HasMetadata owner) {
 
-        ManagedConnector connector = fleetShard.getConnector(deployment).orElseGet(() -> {
+        ManagedConnector connector = current.orElseGet(() -> {
             LOGGER.info(
                 "Connector not found (cluster_id: {}, namespace_id: {}, connector_id: {}, deployment_id: {}, resource_version: {}), creating a new one",
                 fleetShard.getClusterId(),
@@ -284,31 +614,35 @@ public class ConnectorDeploymentProvisioner {
         }
     }
 
-    private Secret createManagedConnectorSecret(String uow, ConnectorDeployment deployment, ManagedConnector owner) {
-        Secret secret = fleetShard.getSecret(deployment)
-            .orElseGet(() -> {
-                LOGGER.info(
-                    "Secret not found (cluster_id: {}, namespace_id: {}, connector_id: {}, deployment_id: {}, resource_version: {}), creating a new one",
-                    fleetShard.getClusterId(),
-                    deployment.getSpec().getNamespaceId(),
-                    deployment.getSpec().getConnectorId(),
-                    deployment.getId(),
-                    deployment.getMetadata().getResourceVersion());
+    private Secret createManagedConnectorSecret(
+        String uow,
+        ConnectorDeployment deployment,
+        Optional<Secret> current,
+        ManagedConnector owner) {
 
-                Secret answer = new Secret();
-                answer.setMetadata(new ObjectMeta());
-                answer.getMetadata().setNamespace(fleetShard.generateNamespaceId(deployment.getSpec().getNamespaceId()));
-                answer.getMetadata().setName(Secrets.generateConnectorSecretId(deployment.getId()));
+        Secret secret = current.orElseGet(() -> {
+            LOGGER.info(
+                "Secret not found (cluster_id: {}, namespace_id: {}, connector_id: {}, deployment_id: {}, resource_version: {}), creating a new one",
+                fleetShard.getClusterId(),
+                deployment.getSpec().getNamespaceId(),
+                deployment.getSpec().getConnectorId(),
+                deployment.getId(),
+                deployment.getMetadata().getResourceVersion());
 
-                Resources.setLabels(
-                    answer,
-                    LABEL_CLUSTER_ID, fleetShard.getClusterId(),
-                    LABEL_CONNECTOR_ID, deployment.getSpec().getConnectorId(),
-                    LABEL_DEPLOYMENT_ID, deployment.getId(),
-                    LABEL_DEPLOYMENT_RESOURCE_VERSION, "" + deployment.getMetadata().getResourceVersion());
+            Secret answer = new Secret();
+            answer.setMetadata(new ObjectMeta());
+            answer.getMetadata().setNamespace(fleetShard.generateNamespaceId(deployment.getSpec().getNamespaceId()));
+            answer.getMetadata().setName(Secrets.generateConnectorSecretId(deployment.getId()));
 
-                return answer;
-            });
+            Resources.setLabels(
+                answer,
+                LABEL_CLUSTER_ID, fleetShard.getClusterId(),
+                LABEL_CONNECTOR_ID, deployment.getSpec().getConnectorId(),
+                LABEL_DEPLOYMENT_ID, deployment.getId(),
+                LABEL_DEPLOYMENT_RESOURCE_VERSION, "" + deployment.getMetadata().getResourceVersion());
+
+            return answer;
+        });
 
         Resources.setOwnerReferences(
             secret,
@@ -332,10 +666,7 @@ public class ConnectorDeploymentProvisioner {
             LABEL_OPERATOR_TYPE,
             owner.getMetadata().getLabels().get(LABEL_OPERATOR_TYPE));
 
-        Secrets.set(secret, Secrets.SECRET_ENTRY_CONNECTOR, deployment.getSpec().getConnectorSpec());
-        Secrets.set(secret, Secrets.SECRET_ENTRY_SERVICE_ACCOUNT, deployment.getSpec().getServiceAccount());
-        Secrets.set(secret, Secrets.SECRET_ENTRY_META, deployment.getSpec().getShardMetadata());
-
+        setSecretData(deployment, secret);
         copyMetadata(deployment, secret);
 
         try {
@@ -346,6 +677,12 @@ public class ConnectorDeploymentProvisioner {
         }
     }
 
+    private static void setSecretData(ConnectorDeployment deployment, Secret secret) {
+        Secrets.set(secret, Secrets.SECRET_ENTRY_CONNECTOR, deployment.getSpec().getConnectorSpec());
+        Secrets.set(secret, Secrets.SECRET_ENTRY_SERVICE_ACCOUNT, deployment.getSpec().getServiceAccount());
+        Secrets.set(secret, Secrets.SECRET_ENTRY_META, deployment.getSpec().getShardMetadata());
+    }
+
     private void copyMetadata(ConnectorDeployment deployment, HasMetadata target) {
         if (deployment.getMetadata() != null && deployment.getMetadata().getAnnotations() != null) {
             config.metrics().recorder().tags().labels()
@@ -369,4 +706,16 @@ public class ConnectorDeploymentProvisioner {
                 });
         }
     }
+
+    private static final class DeadLetter {
+        final ConnectorDeployment deployment;
+        final Long revision;
+        final Instant since;
+
+        DeadLetter(ConnectorDeployment deployment, Instant since) {
+            this.deployment = deployment;
+            this.revision = deployment.getMetadata().getResourceVersion();
+            this.since = since;
+        }
+    }
 }
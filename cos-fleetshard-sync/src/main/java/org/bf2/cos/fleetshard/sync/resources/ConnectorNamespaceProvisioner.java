@@ -1,10 +1,19 @@
 package org.bf2.cos.fleetshard.sync.resources;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -26,6 +35,7 @@ import org.bf2.cos.fleetshard.sync.metrics.MetricsID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.LimitRange;
 import io.fabric8.kubernetes.api.model.LimitRangeItem;
 import io.fabric8.kubernetes.api.model.LimitRangeSpec;
@@ -36,6 +46,7 @@ import io.fabric8.kubernetes.api.model.ResourceQuota;
 import io.fabric8.kubernetes.api.model.ResourceQuotaSpec;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.client.utils.KubernetesResourceUtil;
+import io.fabric8.kubernetes.client.utils.Serialization;
 import io.micrometer.core.instrument.Tags;
 
 import static org.bf2.cos.fleetshard.support.resources.Resources.uid;
@@ -66,112 +77,183 @@ public class ConnectorNamespaceProvisioner {
     FleetShardSyncConfig config;
     @Inject
     EventClient eventClient;
+    @Inject
+    ProvisioningExecutor executor;
+    @Inject
+    ResourceCheckpoint checkpoint;
 
     @Inject
     @MetricsID(METRICS_SUFFIX)
     MetricsRecorder recorder;
 
-    public void poll(long revision) {
+    // the checksum of the resources last applied to each namespace, keyed by namespace id
+    private final Map<String, String> applied = new ConcurrentHashMap<>();
+
+    /**
+     * Provision the namespaces with a revision greater than the given one.
+     *
+     * @param  revision the revision, a value of 0 means that all the namespaces are re-synced
+     * @return          the number of namespaces that have been provisioned
+     */
+    public int poll(long revision) {
+        final boolean sync = revision == 0;
+        final Set<String> knownIds = new HashSet<>();
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicReference<Optional<Secret>> pullSecret = new AtomicReference<>();
+
+        if (sync) {
+            // a full re-sync re-applies the resources of every namespace, which repairs the ones that have been
+            // altered or deleted since they were last applied
+            applied.clear();
+        }
+
         fleetManager.getNamespaces(
             revision,
-            items -> provisionNamespaces(items, revision == 0));
-    }
-
-    private void provisionNamespaces(Collection<ConnectorNamespaceDeployment> namespaces, boolean sync) {
-        for (ConnectorNamespaceDeployment namespace : namespaces) {
-            this.recorder.record(
-                () -> provision(namespace),
-                Tags.of(TAG_NAMESPACE_ID, namespace.getId()),
-                e -> {
-                    LOGGER.error("Failure while trying to provision connector namespace: id={}, revision={}",
-                        namespace.getId(),
-                        namespace.getResourceVersion(),
-                        e);
-
-                    try {
-                        MetaV1Condition condition = new MetaV1Condition();
-                        condition.setType(Conditions.TYPE_READY);
-                        condition.setStatus(Conditions.STATUS_FALSE);
-                        condition.setReason(Conditions.FAILED_TO_CREATE_OR_UPDATE_RESOURCE_REASON);
-                        condition.setMessage(e.getMessage());
-
-                        ConnectorNamespaceDeploymentStatus status = new ConnectorNamespaceDeploymentStatus()
-                            .id(namespace.getId())
-                            .version("" + namespace.getResourceVersion())
-                            .phase(ConnectorNamespaceState.DISCONNECTED)
-                            .conditions(List.of(condition));
-
-                        fleetManager.updateNamespaceStatus(
-                            fleetShard.getClusterId(),
-                            namespace.getId(),
-                            status);
-                    } catch (Exception ex) {
-                        LOGGER.warn("Error wile reporting failure to the control plane", e);
+            items -> {
+                if (!items.isEmpty()) {
+                    // the addon pull secret is retrieved once per poll, and only if there is something to provision
+                    if (pullSecret.get() == null) {
+                        pullSecret.set(getAddonPullSecret());
                     }
 
-                    fleetShard.getConnectorCluster().ifPresent(cc -> {
-                        eventClient.broadcastWarning(
-                            "FailedToCreateOrUpdateResource",
-                            String.format("Unable to create or update namespace %s, revision: %s, reason: %s",
-                                namespace.getId(),
-                                namespace.getResourceVersion(),
-                                e.getMessage()),
-                            cc);
-                    });
-                });
-        }
+                    provisionNamespaces(items, pullSecret.get());
+                }
 
-        if (sync) {
-            Set<String> knownIds = namespaces.stream().map(ConnectorNamespaceDeployment::getId).collect(Collectors.toSet());
+                count.addAndGet(items.size());
 
-            for (Namespace namespace : fleetShard.getNamespaces()) {
-                String nsId = Resources.getLabel(namespace, Resources.LABEL_NAMESPACE_ID);
-                if (nsId == null || knownIds.contains(nsId)) {
-                    continue;
+                if (sync) {
+                    items.forEach(item -> knownIds.add(item.getId()));
                 }
+            });
+
+        if (sync && !knownIds.isEmpty()) {
+            markDeletedNamespaces(knownIds);
+        }
+
+        return count.get();
+    }
+
+    void provisionNamespaces(Collection<ConnectorNamespaceDeployment> namespaces) {
+        if (namespaces.isEmpty()) {
+            return;
+        }
+
+        provisionNamespaces(namespaces, getAddonPullSecret());
+    }
+
+    /**
+     * @return true if the given namespace has already been provisioned with a newer revision.
+     */
+    boolean isStale(ConnectorNamespaceDeployment namespace) {
+        final long revision = namespace.getResourceVersion();
+
+        return fleetShard.getCachedNamespace(namespace.getId())
+            .map(ns -> Resources.getAnnotation(ns, Resources.ANNOTATION_NAMESPACE_RESOURCE_VERSION))
+            .filter(Objects::nonNull)
+            .map(Long::parseLong)
+            .filter(current -> current > revision)
+            .isPresent();
+    }
+
+    private void provisionNamespaces(Collection<ConnectorNamespaceDeployment> namespaces, Optional<Secret> pullSecret) {
+        executor.execute(
+            namespaces,
+            ConnectorNamespaceDeployment::getId,
+            namespace -> provisionNamespace(namespace, pullSecret));
+    }
+
+    private void provisionNamespace(ConnectorNamespaceDeployment namespace, Optional<Secret> pullSecret) {
+        this.recorder.record(
+            () -> {
+                provision(namespace, pullSecret);
+                checkpoint.namespaceProvisioned(namespace);
+            },
+            Tags.of(TAG_NAMESPACE_ID, namespace.getId()),
+            e -> {
+                LOGGER.error("Failure while trying to provision connector namespace: id={}, revision={}",
+                    namespace.getId(),
+                    namespace.getResourceVersion(),
+                    e);
 
                 try {
-                    Resources.setLabels(namespace, Resources.LABEL_NAMESPACE_STATE, Namespaces.PHASE_DELETED);
-                    Resources.setLabels(namespace, Resources.LABEL_NAMESPACE_STATE_FORCED, "true");
-
-                    fleetShard.getKubernetesClient()
-                        .resource(namespace)
-                        .replace();
-                } catch (Exception e) {
-                    LOGGER.warn("Error marking na {} for deletion (sync)", namespace.getMetadata().getName(), e);
+                    MetaV1Condition condition = new MetaV1Condition();
+                    condition.setType(Conditions.TYPE_READY);
+                    condition.setStatus(Conditions.STATUS_FALSE);
+                    condition.setReason(Conditions.FAILED_TO_CREATE_OR_UPDATE_RESOURCE_REASON);
+                    condition.setMessage(e.getMessage());
+
+                    ConnectorNamespaceDeploymentStatus status = new ConnectorNamespaceDeploymentStatus()
+                        .id(namespace.getId())
+                        .version("" + namespace.getResourceVersion())
+                        .phase(ConnectorNamespaceState.DISCONNECTED)
+                        .conditions(List.of(condition));
+
+                    fleetManager.updateNamespaceStatus(
+                        fleetShard.getClusterId(),
+                        namespace.getId(),
+                        status);
+                } catch (Exception ex) {
+                    LOGGER.warn("Error wile reporting failure to the control plane", e);
                 }
+
+                fleetShard.getConnectorCluster().ifPresent(cc -> {
+                    eventClient.broadcastWarning(
+                        "FailedToCreateOrUpdateResource",
+                        String.format("Unable to create or update namespace %s, revision: %s, reason: %s",
+                            namespace.getId(),
+                            namespace.getResourceVersion(),
+                            e.getMessage()),
+                        cc);
+                });
+            });
+    }
+
+    private void markDeletedNamespaces(Set<String> knownIds) {
+        for (Namespace namespace : fleetShard.getNamespaces()) {
+            String nsId = Resources.getLabel(namespace, Resources.LABEL_NAMESPACE_ID);
+            if (nsId == null || knownIds.contains(nsId)) {
+                continue;
+            }
+
+            try {
+                Resources.setLabels(namespace, Resources.LABEL_NAMESPACE_STATE, Namespaces.PHASE_DELETED);
+                Resources.setLabels(namespace, Resources.LABEL_NAMESPACE_STATE_FORCED, "true");
+
+                fleetShard.getKubernetesClient()
+                    .resource(namespace)
+                    .replace();
+            } catch (Exception e) {
+                LOGGER.warn("Error marking na {} for deletion (sync)", namespace.getMetadata().getName(), e);
             }
         }
     }
 
-    private void copyAddonPullSecret(String uow, Namespace namespace) {
+    private Optional<Secret> getAddonPullSecret() {
         NamespacedName pullSecretName = new NamespacedName(config.namespace(), config.imagePullSecretsName());
 
-        fleetShard.getSecret(pullSecretName).ifPresentOrElse(
-            addonPullSecret -> {
-                ObjectMeta addonPullSecretMetadata = new ObjectMeta();
-                addonPullSecretMetadata.setNamespace(namespace.getMetadata().getName());
-                addonPullSecretMetadata.setName(addonPullSecret.getMetadata().getName());
+        Optional<Secret> answer = fleetShard.getSecret(pullSecretName);
+        if (answer.isEmpty()) {
+            LOGGER.warn("Pull Secret {} does not exists", pullSecretName);
+        }
 
-                Secret tenantPullSecret = new Secret();
-                tenantPullSecret.setMetadata(addonPullSecretMetadata);
-                tenantPullSecret.setType(addonPullSecret.getType());
-                tenantPullSecret.setData(addonPullSecret.getData());
+        return answer;
+    }
 
-                Resources.setLabels(
-                    tenantPullSecret,
-                    Resources.LABEL_UOW, uow);
+    private Secret createTenantPullSecret(Secret addonPullSecret) {
+        ObjectMeta addonPullSecretMetadata = new ObjectMeta();
+        addonPullSecretMetadata.setName(addonPullSecret.getMetadata().getName());
 
-                fleetShard.createSecret(tenantPullSecret);
-            },
-            () -> {
-                LOGGER.warn("Pull Secret {} does not exists", pullSecretName);
-            });
+        Secret tenantPullSecret = new Secret();
+        tenantPullSecret.setMetadata(addonPullSecretMetadata);
+        tenantPullSecret.setType(addonPullSecret.getType());
+        tenantPullSecret.setData(addonPullSecret.getData());
+
+        return tenantPullSecret;
     }
 
-    private void createResourceQuota(String uow, ConnectorNamespaceDeployment connectorNamespace) {
+    private ResourceQuota createResourceQuota(ConnectorNamespaceDeployment connectorNamespace) {
         if (connectorNamespace.getQuota() == null) {
-            return;
+            return null;
         }
 
         ResourceQuotaSpec spec = new ResourceQuotaSpec();
@@ -197,19 +279,12 @@ public class ConnectorNamespaceProvisioner {
         quota.setMetadata(meta);
         quota.setSpec(spec);
 
-        Resources.setLabels(
-            quota,
-            Resources.LABEL_UOW, uow);
-
-        fleetShard.getKubernetesClient()
-            .resource(quota)
-            .inNamespace(fleetShard.generateNamespaceId(connectorNamespace.getId()))
-            .createOrReplace();
+        return quota;
     }
 
-    private void createResourceLimit(String uow, ConnectorNamespaceDeployment connectorNamespace) {
+    private LimitRange createResourceLimit(ConnectorNamespaceDeployment connectorNamespace) {
         if (connectorNamespace.getQuota() == null) {
-            return;
+            return null;
         }
 
         LimitRangeItem limit = new LimitRangeItem();
@@ -255,7 +330,7 @@ public class ConnectorNamespaceProvisioner {
         }
 
         if (limit.getDefault().isEmpty() && limit.getDefaultRequest().isEmpty()) {
-            return;
+            return null;
         }
 
         ObjectMeta meta = new ObjectMeta();
@@ -268,31 +343,27 @@ public class ConnectorNamespaceProvisioner {
         limits.setMetadata(meta);
         limits.setSpec(spec);
 
-        Resources.setLabels(
-            limits,
-            Resources.LABEL_UOW, uow);
-
-        fleetShard.getKubernetesClient()
-            .resource(limits)
-            .inNamespace(fleetShard.generateNamespaceId(connectorNamespace.getId()))
-            .createOrReplace();
+        return limits;
     }
 
     public void provision(ConnectorNamespaceDeployment connectorNamespace) {
+        provision(connectorNamespace, getAddonPullSecret());
+    }
+
+    private void provision(ConnectorNamespaceDeployment connectorNamespace, Optional<Secret> pullSecret) {
         LOGGER.info("Got cluster_id: {}, namespace_d: {}, state: {}, connectors_deployed: {}",
             fleetShard.getClusterId(),
             connectorNamespace.getId(),
             connectorNamespace.getStatus().getState(),
             connectorNamespace.getStatus().getConnectorsDeployed());
 
-        String uow = uid();
         String state = Namespaces.PHASE_READY;
 
         switch (connectorNamespace.getStatus().getState()) {
             case DELETED:
             case DELETING:
                 if (connectorNamespace.getStatus().getConnectorsDeployed() == 0) {
-                    if (fleetShard.getNamespace(connectorNamespace.getId()).isEmpty()) {
+                    if (fleetShard.getCachedNamespace(connectorNamespace.getId()).isEmpty()) {
                         LOGGER.info(
                             "Namespace {} is being deleted and does not exists, skip provisioning",
                             connectorNamespace.getId());
@@ -316,7 +387,6 @@ public class ConnectorNamespaceProvisioner {
 
         Resources.setLabels(
             ns,
-            Resources.LABEL_UOW, uow,
             Resources.LABEL_CLUSTER_ID, fleetShard.getClusterId(),
             Resources.LABEL_NAMESPACE_ID, connectorNamespace.getId(),
             Resources.LABEL_NAMESPACE_STATE, state,
@@ -335,17 +405,111 @@ public class ConnectorNamespaceProvisioner {
             Resources.ANNOTATION_NAMESPACE_EXPIRATION, connectorNamespace.getExpiration(),
             Resources.ANNOTATION_NAMESPACE_QUOTA, Boolean.toString(quota));
 
-        fleetShard.createNamespace(ns);
+        final Optional<Namespace> current = fleetShard.getCachedNamespace(connectorNamespace.getId());
+        final LimitRange limits = quota ? createResourceLimit(connectorNamespace) : null;
+        final ResourceQuota resourceQuota = quota ? createResourceQuota(connectorNamespace) : null;
+        final Secret tenantPullSecret = pullSecret.map(this::createTenantPullSecret).orElse(null);
+
+        String uow;
+
+        if (current.isPresent() && isUpToDate(current.get(), ns)) {
+            LOGGER.debug("Namespace {} is up to date", ns.getMetadata().getName());
+
+            uow = Resources.getLabel(current.get(), Resources.LABEL_UOW, Resources::uid);
+            ns = current.get();
+        } else {
+            uow = uid();
+
+            Resources.setLabels(ns, Resources.LABEL_UOW, uow);
+
+            Namespace created = fleetShard.createNamespace(ns);
+            if (created != null) {
+                ns = created;
+            }
+        }
+
+        // the namespace uid is part of the checksum so the resources are re-created along with the namespace
+        final String checksum = checksum(ns.getMetadata().getUid(), limits, resourceQuota, tenantPullSecret);
+
+        if (checksum.equals(applied.get(connectorNamespace.getId()))) {
+            LOGGER.debug("Resources of namespace {} are up to date", ns.getMetadata().getName());
+            return;
+        }
+
+        final String namespaceName = ns.getMetadata().getName();
+
+        if (limits != null) {
+            LOGGER.debug("Creating LimitRange for namespace: {}", namespaceName);
+            Resources.setLabels(limits, Resources.LABEL_UOW, uow);
+
+            fleetShard.getKubernetesClient()
+                .resource(limits)
+                .inNamespace(namespaceName)
+                .createOrReplace();
+        }
+
+        if (resourceQuota != null) {
+            LOGGER.debug("Creating ResourceQuota for namespace: {}", namespaceName);
+            Resources.setLabels(resourceQuota, Resources.LABEL_UOW, uow);
+
+            fleetShard.getKubernetesClient()
+                .resource(resourceQuota)
+                .inNamespace(namespaceName)
+                .createOrReplace();
+        }
+
+        if (tenantPullSecret != null) {
+            tenantPullSecret.getMetadata().setNamespace(namespaceName);
+            Resources.setLabels(tenantPullSecret, Resources.LABEL_UOW, uow);
+
+            fleetShard.createSecret(tenantPullSecret);
+        }
+
+        applied.put(connectorNamespace.getId(), checksum);
+    }
+
+    /*
+     * A namespace is up to date when it already has all the desired labels and annotations, Kubernetes and OpenShift
+     * add their own labels and annotations to namespaces so only the desired ones are compared.
+     */
+    private static boolean isUpToDate(Namespace current, Namespace desired) {
+        if (current.getMetadata().getDeletionTimestamp() != null) {
+            return false;
+        }
+
+        return contains(current.getMetadata().getLabels(), desired.getMetadata().getLabels())
+            && contains(current.getMetadata().getAnnotations(), desired.getMetadata().getAnnotations());
+    }
+
+    private static boolean contains(Map<String, String> current, Map<String, String> desired) {
+        if (desired == null || desired.isEmpty()) {
+            return true;
+        }
+        if (current == null) {
+            return false;
+        }
+
+        for (Map.Entry<String, String> entry : desired.entrySet()) {
+            if (!Objects.equals(entry.getValue(), current.get(entry.getKey()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String checksum(String uid, HasMetadata... resources) {
+        Checksum crc32 = new CRC32();
 
-        if (quota) {
-            LOGGER.debug("Creating LimitRange for namespace: {}", ns.getMetadata().getName());
-            createResourceLimit(uow, connectorNamespace);
+        final byte[] id = String.valueOf(uid).getBytes(StandardCharsets.UTF_8);
+        crc32.update(id, 0, id.length);
 
-            LOGGER.debug("Creating ResourceQuota for namespace: {}", ns.getMetadata().getName());
-            createResourceQuota(uow, connectorNamespace);
+        for (HasMetadata resource : resources) {
+            final byte[] data = Serialization.asJson(resource).getBytes(StandardCharsets.UTF_8);
+            crc32.update(data, 0, data.length);
         }
 
-        copyAddonPullSecret(uow, ns);
+        return Long.toHexString(crc32.getValue());
     }
 
     private boolean hasQuota(ConnectorNamespaceDeployment connectorNamespace) {
@@ -0,0 +1,180 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bf2.cos.fleet.manager.model.ConnectorState;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The store of the per connector state metrics.
+ * </p>
+ * Each connector gets a single gauge, registered once and backed by a mutable state, and a counter per connector state,
+ * so the number of time series only depends on the number of connectors and not on how many times their status or
+ * resource version changed. The meters of a connector are removed as soon as the connector is deleted from the
+ * cluster; a connector reported as deleted keeps its meters, so the deletion can be scraped, until they are removed
+ * from the registry by the metrics housekeeper.
+ */
+public class ConnectorStateMetrics {
+    public static final String TAG_STATE = "cos.connector.state";
+    public static final String TAG_DEPLOYMENT_ID = "cos.deployment.id";
+    public static final String STATE_FAILED_BUT_READY = "failed_but_ready";
+
+    static final int CONNECTOR_STATE_READY = 1;
+    static final int CONNECTOR_STATE_FAILED = 2;
+    static final int CONNECTOR_STATE_DELETED = 3;
+    static final int CONNECTOR_STATE_STOPPED = 4;
+    static final int CONNECTOR_STATE_IN_PROCESS = 5;
+
+    private final MeterRegistry registry;
+    private final String gaugeName;
+    private final String counterName;
+    private final Map<String, Entry> entries;
+
+    public ConnectorStateMetrics(MeterRegistry registry, String gaugeName, String counterName) {
+        this.registry = registry;
+        this.gaugeName = gaugeName;
+        this.counterName = counterName;
+        this.entries = new ConcurrentHashMap<>();
+
+        // drop the connectors whose meters have been removed from the registry by someone else, i.e. the housekeeper
+        this.registry.config().onMeterRemoved(meter -> {
+            final String deploymentId = meter.getId().getTag(TAG_DEPLOYMENT_ID);
+            if (deploymentId != null && gaugeName.equals(meter.getId().getName())) {
+                entries.computeIfPresent(deploymentId, (k, v) -> v.gauge == meter ? null : v);
+            }
+        });
+    }
+
+    /**
+     * Record the state of a connector.
+     *
+     * @param deploymentId the deployment id of the connector
+     * @param tags         the tags identifying the connector
+     * @param state        the state of the connector
+     */
+    public void record(String deploymentId, Tags tags, ConnectorState state) {
+        final Entry[] replaced = new Entry[1];
+        final Entry entry = entries.compute(deploymentId, (k, v) -> {
+            if (v != null && v.tags.equals(tags)) {
+                return v;
+            }
+
+            // the labels or annotations the tags are computed from have changed
+            replaced[0] = v;
+
+            return new Entry(tags);
+        });
+
+        if (replaced[0] != null) {
+            // unregistered outside of the compute block as removing a gauge notifies the removal listener
+            replaced[0].unregister(registry);
+        }
+
+        final int code = code(state);
+
+        entry.state.set(code);
+        entry.increment(state.getValue());
+
+        if (code == CONNECTOR_STATE_READY) {
+            entry.ready = true;
+        } else if (code == CONNECTOR_STATE_FAILED && entry.ready) {
+            // exposing a dedicated state when a connector has already started but is now failing
+            entry.increment(STATE_FAILED_BUT_READY);
+        }
+    }
+
+    /**
+     * Remove all the meters of a connector.
+     *
+     * @param deploymentId the deployment id of the connector
+     */
+    public void remove(String deploymentId) {
+        final Entry entry = entries.remove(deploymentId);
+        if (entry != null) {
+            entry.unregister(registry);
+        }
+    }
+
+    /**
+     * Get the meters of a connector.
+     *
+     * @param  deploymentId the deployment id of the connector
+     * @return              the meters, empty if the connector is not tracked
+     */
+    public List<Meter> meters(String deploymentId) {
+        final Entry entry = entries.get(deploymentId);
+        return entry != null ? entry.meters() : List.of();
+    }
+
+    /**
+     * Determine the number of connectors being tracked.
+     *
+     * @return the number of connectors
+     */
+    public int count() {
+        return entries.size();
+    }
+
+    static int code(ConnectorState state) {
+        switch (state) {
+            case READY:
+                return CONNECTOR_STATE_READY;
+            case FAILED:
+                return CONNECTOR_STATE_FAILED;
+            case DELETED:
+                return CONNECTOR_STATE_DELETED;
+            case STOPPED:
+                return CONNECTOR_STATE_STOPPED;
+            default:
+                return CONNECTOR_STATE_IN_PROCESS;
+        }
+    }
+
+    private final class Entry {
+        final Tags tags;
+        final AtomicInteger state;
+        final Gauge gauge;
+        final Map<String, Counter> counters;
+
+        volatile boolean ready;
+
+        Entry(Tags tags) {
+            this.tags = tags;
+            this.state = new AtomicInteger();
+            this.counters = new ConcurrentHashMap<>();
+            this.gauge = Gauge.builder(gaugeName, state, AtomicInteger::get)
+                .tags(tags)
+                .strongReference(true)
+                .register(registry);
+        }
+
+        void increment(String stateName) {
+            counters.computeIfAbsent(
+                stateName,
+                k -> Counter.builder(counterName).tags(tags).tag(TAG_STATE, k).register(registry))
+                .increment();
+        }
+
+        List<Meter> meters() {
+            final List<Meter> answer = new ArrayList<>(counters.values());
+            answer.add(gauge);
+
+            return answer;
+        }
+
+        void unregister(MeterRegistry meterRegistry) {
+            for (Meter meter : meters()) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+}
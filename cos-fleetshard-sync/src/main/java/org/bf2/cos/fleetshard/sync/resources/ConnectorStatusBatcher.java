@@ -0,0 +1,125 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Groups connector status updates so they can be sent to the Control Plane in bulk.
+ * </p>
+ * A batch is handed to the flusher as soon as it reaches the maximum size or once the batch window, measured from the
+ * first update of the batch, is elapsed. Updates for the same key that are still pending are coalesced so only the
+ * latest one is sent.
+ *
+ * @param <T> the update type
+ */
+public class ConnectorStatusBatcher<T> implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectorStatusBatcher.class);
+
+    private final int maxSize;
+    private final Duration window;
+    private final Function<T, String> key;
+    private final Consumer<List<T>> flusher;
+    private final ScheduledExecutorService scheduler;
+
+    private Map<String, T> pending;
+    private ScheduledFuture<?> scheduled;
+
+    public ConnectorStatusBatcher(int maxSize, Duration window, Function<T, String> key, Consumer<List<T>> flusher) {
+        this.maxSize = maxSize;
+        this.window = window;
+        this.key = key;
+        this.flusher = flusher;
+        this.pending = new LinkedHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cos-status-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Add an update to the current batch, flushing it in the calling thread if it is full.
+     *
+     * @param item the update
+     */
+    public void submit(T item) {
+        final List<T> batch;
+
+        synchronized (this) {
+            pending.put(key.apply(item), item);
+
+            if (pending.size() < maxSize) {
+                if (scheduled == null) {
+                    scheduled = scheduler.schedule(this::flushQuietly, window.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+
+            batch = drain();
+        }
+
+        flusher.accept(batch);
+    }
+
+    /**
+     * Flush the current batch, if any, in the calling thread.
+     */
+    public void flush() {
+        final List<T> batch;
+
+        synchronized (this) {
+            batch = drain();
+        }
+
+        if (!batch.isEmpty()) {
+            flusher.accept(batch);
+        }
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            LOGGER.warn("Error flushing connector status batch", e);
+        }
+    }
+
+    private List<T> drain() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+
+        if (pending.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<T> answer = new ArrayList<>(pending.values());
+        pending = new LinkedHashMap<>();
+
+        return answer;
+    }
+}
@@ -0,0 +1,127 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.bf2.cos.fleet.manager.model.ConnectorDeploymentStatus;
+import org.bf2.cos.fleet.manager.model.ConnectorOperator;
+import org.bf2.cos.fleet.manager.model.MetaV1Condition;
+
+/**
+ * A bounded, least recently used, cache of the connector statuses acknowledged by the Control Plane.
+ * </p>
+ * Only a compact hash of each status is retained, computed ignoring the condition transition times as those may be
+ * re-generated on every status extraction. An entry is considered stale once the refresh interval is elapsed since
+ * the status has been reported, so that the Control Plane periodically receives the status of every connector even if
+ * it has not changed.
+ */
+public class ConnectorStatusCache {
+    private final Duration refreshInterval;
+    private final Map<String, Entry> entries;
+
+    public ConnectorStatusCache(int maxSize, Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+        this.entries = Collections.synchronizedMap(new LruMap(maxSize));
+    }
+
+    /**
+     * Determine if the given status has already been reported and does not need to be refreshed yet.
+     *
+     * @param  deploymentId the deployment id
+     * @param  hash         the hash of the status, as computed by {@link #hash(ConnectorDeploymentStatus)}
+     * @param  now          the current time
+     * @return              true if the status does not need to be reported
+     */
+    public boolean isReported(String deploymentId, long hash, Instant now) {
+        if (refreshInterval.isZero()) {
+            return false;
+        }
+
+        final Entry entry = entries.get(deploymentId);
+        if (entry == null || entry.hash != hash) {
+            return false;
+        }
+
+        return Duration.between(entry.timestamp, now).compareTo(refreshInterval) < 0;
+    }
+
+    public void put(String deploymentId, long hash, Instant now) {
+        entries.put(deploymentId, new Entry(hash, now));
+    }
+
+    public void remove(String deploymentId) {
+        entries.remove(deploymentId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public static long hash(ConnectorDeploymentStatus status) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(status.getPhase()).append('|');
+        sb.append(status.getResourceVersion()).append('|');
+
+        if (status.getOperators() != null) {
+            append(sb, status.getOperators().getAssigned());
+            append(sb, status.getOperators().getAvailable());
+        }
+
+        if (status.getConditions() != null) {
+            for (MetaV1Condition condition : status.getConditions()) {
+                sb.append(condition.getType()).append(':');
+                sb.append(condition.getStatus()).append(':');
+                sb.append(condition.getReason()).append(':');
+                sb.append(condition.getMessage()).append('|');
+            }
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        return crc.getValue();
+    }
+
+    private static void append(StringBuilder sb, ConnectorOperator operator) {
+        if (operator != null) {
+            sb.append(operator.getId()).append(':');
+            sb.append(operator.getType()).append(':');
+            sb.append(operator.getVersion());
+        }
+
+        sb.append('|');
+    }
+
+    private static final class LruMap extends LinkedHashMap<String, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private static final class Entry {
+        final long hash;
+        final Instant timestamp;
+
+        Entry(long hash, Instant timestamp) {
+            this.hash = hash;
+            this.timestamp = timestamp;
+        }
+    }
+}
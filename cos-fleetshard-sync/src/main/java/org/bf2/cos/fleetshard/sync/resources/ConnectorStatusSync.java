@@ -3,19 +3,32 @@ package org.bf2.cos.fleetshard.sync.resources;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.Temporal;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.support.RateLimiter;
 import org.bf2.cos.fleetshard.support.Service;
+import org.bf2.cos.fleetshard.support.exceptions.WrappedRuntimeException;
 import org.bf2.cos.fleetshard.support.metrics.StaticMetricsRecorder;
 import org.bf2.cos.fleetshard.support.resources.NamespacedName;
 import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
 import org.bf2.cos.fleetshard.sync.FleetShardSyncScheduler;
+import org.bf2.cos.fleetshard.sync.SlicedResync;
 import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
 import org.bf2.cos.fleetshard.sync.metrics.MetricsID;
 import org.slf4j.Logger;
@@ -23,6 +36,8 @@ import org.slf4j.LoggerFactory;
 
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @ApplicationScoped
 public class ConnectorStatusSync implements Service {
@@ -31,6 +46,7 @@ public class ConnectorStatusSync implements Service {
     public static final String JOB_ID = "cos.connectors.status.sync";
     public static final String METRICS_SYNC = "connectors.status.sync";
     public static final String METRICS_UPDATE = "connectors.status.update";
+    public static final String METRICS_PENDING = "connectors.status.pending";
 
     @Inject
     ConnectorStatusUpdater updater;
@@ -40,6 +56,8 @@ public class ConnectorStatusSync implements Service {
     FleetShardSyncConfig config;
     @Inject
     FleetShardSyncScheduler scheduler;
+    @Inject
+    MeterRegistry registry;
 
     @Inject
     @MetricsID(METRICS_SYNC)
@@ -56,28 +74,67 @@ public class ConnectorStatusSync implements Service {
     Counter updateTotalRecorder;
 
     private volatile Instant lastResync;
-    private volatile Instant lastUpdate;
+    private volatile ExecutorService workers;
+    private volatile RateLimiter limiter;
+    private volatile SlicedResync<NamespacedName> slices;
 
-    private final ConcurrentMap<NamespacedName, Instant> connectors = new ConcurrentHashMap<>();
+    // connectors whose status has to be reported, updates to the same connector are coalesced
+    private final Set<NamespacedName> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger threads = new AtomicInteger();
 
     @Override
     public void start() throws Exception {
         LOGGER.info("Starting connector status sync");
 
+        final int concurrency = config.resources().updateConcurrency();
+        if (concurrency > 1) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                concurrency,
+                concurrency,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "cos-status-sync-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+            pool.allowCoreThreadTimeOut(true);
+
+            workers = pool;
+        }
+
+        limiter = RateLimiter.create(config.resources().updateRateLimit());
+
+        if (config.resources().resyncBuckets() > 1) {
+            slices = new SlicedResync<>(
+                registry,
+                config.metrics().baseName() + "." + METRICS_SYNC,
+                config.resources().resyncBuckets(),
+                config.resources().resyncInterval(),
+                config.resources().resyncJitter(),
+                key -> key.getNamespace() + "/" + key.getName());
+        }
+
+        Gauge.builder(config.metrics().baseName() + "." + METRICS_PENDING, pending, Set::size)
+            .register(registry);
+
         connectorClient.watchConnectors(new ResourceEventHandler<>() {
             @Override
             public void onAdd(ManagedConnector connector) {
-                connectors.put(NamespacedName.of(connector), Instant.now());
+                pending.add(NamespacedName.of(connector));
             }
 
             @Override
             public void onUpdate(ManagedConnector ignored, ManagedConnector connector) {
-                connectors.put(NamespacedName.of(connector), Instant.now());
+                pending.add(NamespacedName.of(connector));
             }
 
             @Override
             public void onDelete(ManagedConnector connector, boolean deletedFinalStateUnknown) {
-                connectors.remove(NamespacedName.of(connector));
+                pending.remove(NamespacedName.of(connector));
+                updater.forget(connector);
             }
         });
 
@@ -90,11 +147,26 @@ public class ConnectorStatusSync implements Service {
     @Override
     public void stop() {
         scheduler.shutdownQuietly(JOB_ID);
+
+        final ExecutorService current = workers;
+        if (current != null) {
+            workers = null;
+            current.shutdownNow();
+        }
     }
 
     public void run() {
         final Duration resyncInterval = config.resources().resyncInterval();
         final Instant now = Instant.now();
+
+        final SlicedResync<NamespacedName> current = slices;
+        if (current != null) {
+            // a bucket of the connectors is re-synced when due, any other pending update is handled right away
+            current.run(now, this::snapshot, this::sync);
+            updateRecorder.record(this::update);
+            return;
+        }
+
         final boolean resync = lastResync == null || greater(lastResync, now, resyncInterval);
 
         if (resync) {
@@ -103,42 +175,114 @@ public class ConnectorStatusSync implements Service {
         } else {
             updateRecorder.record(this::update);
         }
-
-        lastUpdate = now;
     }
 
     private void sync() {
-        int count = 0;
+        final List<ManagedConnector> connectors = connectorClient.getAllConnectors();
 
-        try {
-            for (ManagedConnector connector : connectorClient.getAllConnectors()) {
-                updater.update(connector);
+        // a full sync goes through every connector, so any pending update is about to be handled
+        connectors.forEach(connector -> pending.remove(NamespacedName.of(connector)));
 
-                count++;
-            }
-        } finally {
-            if (count > 0) {
-                syncTotalRecorder.increment(count);
-            }
+        int count = process(connectors, true);
+        if (count > 0) {
+            syncTotalRecorder.increment(count);
+        }
+    }
+
+    private List<NamespacedName> snapshot() {
+        return connectorClient.getAllConnectors().stream()
+            .map(NamespacedName::of)
+            .collect(Collectors.toList());
+    }
+
+    private void sync(List<NamespacedName> keys) {
+        final List<ManagedConnector> connectors = new ArrayList<>(keys.size());
+
+        for (NamespacedName key : keys) {
+            // the connectors are looked up again as they may have changed or been deleted since the snapshot
+            pending.remove(key);
+            connectorClient.getConnector(key).ifPresent(connectors::add);
+        }
+
+        int count = process(connectors, true);
+        if (count > 0) {
+            syncTotalRecorder.increment(count);
         }
     }
 
     private void update() {
-        int count = 0;
+        final List<ManagedConnector> connectors = new ArrayList<>();
 
-        try {
-            for (Map.Entry<NamespacedName, Instant> entry : connectors.entrySet()) {
-                if (entry.getValue().isAfter(lastUpdate)) {
-                    connectorClient.getConnector(entry.getKey()).ifPresent(updater::update);
+        for (NamespacedName key : pending) {
+            // the entry is removed before looking up the connector so that, if the connector gets updated in the
+            // meantime, it is marked as pending again and reported on the next run.
+            if (pending.remove(key)) {
+                connectorClient.getConnector(key).ifPresent(connectors::add);
+            }
+        }
+
+        int count = process(connectors, false);
+        if (count > 0) {
+            updateTotalRecorder.increment(count);
+        }
+    }
 
-                    count++;
-                }
+    /*
+     * The statuses of a re-sync are always reported, an unchanged status is only suppressed when reported because the
+     * connector has changed.
+     */
+    private int process(Collection<ManagedConnector> connectors, boolean resync) {
+        if (connectors.isEmpty()) {
+            return 0;
+        }
+
+        final ExecutorService current = workers;
+        if (current == null) {
+            for (ManagedConnector connector : connectors) {
+                report(connector, resync);
             }
-        } finally {
-            if (count > 0) {
-                updateTotalRecorder.increment(count);
+
+            // send any partial batch right away rather than waiting for the batch window to expire
+            updater.flush();
+
+            return connectors.size();
+        }
+
+        final List<Future<?>> futures = new ArrayList<>(connectors.size());
+        for (ManagedConnector connector : connectors) {
+            futures.add(current.submit(() -> report(connector, resync)));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new WrappedRuntimeException("Interrupted while waiting for status updates to complete", e);
+            } catch (ExecutionException e) {
+                LOGGER.warn("Error updating connector status", e.getCause());
             }
         }
+
+        updater.flush();
+
+        return connectors.size();
+    }
+
+    private void report(ManagedConnector connector, boolean resync) {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WrappedRuntimeException("Interrupted while waiting for status update permit", e);
+        }
+
+        if (resync) {
+            updater.refresh(connector);
+        } else {
+            updater.update(connector);
+        }
     }
 
     private static boolean greater(Temporal startInclusive, Temporal endExclusive, Duration interval) {
@@ -1,26 +1,36 @@
 package org.bf2.cos.fleetshard.sync.resources;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.Set;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.bf2.cos.fleet.manager.model.ConnectorDeploymentStatus;
+import org.bf2.cos.fleet.manager.model.ConnectorState;
 import org.bf2.cos.fleetshard.api.ManagedConnector;
 import org.bf2.cos.fleetshard.support.metrics.MetricsSupport;
 import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.bf2.cos.fleetshard.sync.client.ConnectorDeploymentStatusBatch;
+import org.bf2.cos.fleetshard.sync.client.ConnectorDeploymentStatusBatchResult;
 import org.bf2.cos.fleetshard.sync.client.FleetManagerClient;
 import org.bf2.cos.fleetshard.sync.client.FleetManagerClientException;
 import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
+import org.bf2.cos.fleetshard.sync.housekeeping.MetricsHousekeeper;
+import org.bf2.cos.fleetshard.sync.metrics.MetricsID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
 
 @ApplicationScoped
 public class ConnectorStatusUpdater {
@@ -28,12 +38,13 @@ public class ConnectorStatusUpdater {
 
     public static final String CONNECTOR_STATE = "connector.state";
     public static final String CONNECTOR_STATE_COUNT = "connector.state.count";
+    public static final String METRICS_SENT = "connectors.status.sent";
+    public static final String METRICS_SUPPRESSED = "connectors.status.suppressed";
 
-    static final int CONNECTOR_STATE_READY = 1;
-    static final int CONNECTOR_STATE_FAILED = 2;
-    static final int CONNECTOR_STATE_DELETED = 3;
-    static final int CONNECTOR_STATE_STOPPED = 4;
-    static final int CONNECTOR_STATE_IN_PROCESS = 5;
+    /*
+     * Status codes returned by a Control Plane that does not expose the bulk status endpoint.
+     */
+    static final Set<Integer> BULK_UNSUPPORTED = Set.of(404, 405, 501);
 
     @Inject
     FleetManagerClient fleetManagerClient;
@@ -43,8 +54,72 @@ public class ConnectorStatusUpdater {
     MeterRegistry registry;
     @Inject
     FleetShardSyncConfig config;
+    @Inject
+    MetricsHousekeeper housekeeper;
+
+    @Inject
+    @MetricsID(METRICS_SENT)
+    Counter sentCounter;
+    @Inject
+    @MetricsID(METRICS_SUPPRESSED)
+    Counter suppressedCounter;
+
+    private ConnectorStatusCache reported;
+    private ConnectorStateMetrics states;
+    private ConnectorStatusBatcher<PendingStatus> batcher;
+    private volatile boolean bulk;
+
+    @PostConstruct
+    void init() {
+        reported = new ConnectorStatusCache(
+            config.resources().statusCacheSize(),
+            config.resources().statusRefreshInterval());
+        states = new ConnectorStateMetrics(
+            registry,
+            config.metrics().baseName() + "." + CONNECTOR_STATE,
+            config.metrics().baseName() + "." + CONNECTOR_STATE_COUNT);
+
+        if (config.resources().statusBatchSize() > 1) {
+            bulk = true;
+            batcher = new ConnectorStatusBatcher<>(
+                config.resources().statusBatchSize(),
+                config.resources().statusBatchWindow(),
+                s -> s.connector.getSpec().getDeploymentId(),
+                this::send);
+        }
+    }
 
+    @PreDestroy
+    void destroy() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    /**
+     * Report the status of the given connector to the Control Plane, unless the very same status has already been
+     * reported within the configured refresh interval. If batching is enabled, the status is queued and sent along
+     * with other connector statuses.
+     *
+     * @param connector the connector
+     */
     public void update(ManagedConnector connector) {
+        update(connector, true);
+    }
+
+    /**
+     * Report the status of the given connector to the Control Plane even if the very same status has already been
+     * reported, as the periodic re-sync does: an update rejected because the deployment has been deleted on the Control
+     * Plane is how the connector gets deleted. If batching is enabled, the status is queued and sent along with other
+     * connector statuses.
+     *
+     * @param connector the connector
+     */
+    public void refresh(ManagedConnector connector) {
+        update(connector, false);
+    }
+
+    private void update(ManagedConnector connector, boolean suppress) {
         LOGGER.debug("Update connector status (name: {}, phase: {})",
             connector.getMetadata().getName(),
             connector.getStatus().getPhase());
@@ -52,43 +127,155 @@ public class ConnectorStatusUpdater {
         try {
             ConnectorDeploymentStatus connectorDeploymentStatus = ConnectorStatusExtractor.extract(connector);
 
-            fleetManagerClient.updateConnectorStatus(connector, connectorDeploymentStatus);
-
-            LOGGER.debug("Updating Connector status metrics (Connector_id: {}, state: {})",
-                connector.getSpec().getConnectorId(), connectorDeploymentStatus.getPhase());
-
-            switch (connectorDeploymentStatus.getPhase()) {
-                case READY:
-                    measure(connector, connectorDeploymentStatus, CONNECTOR_STATE_READY);
-                    break;
-                case FAILED:
-                    measure(connector, connectorDeploymentStatus, CONNECTOR_STATE_FAILED);
-                    break;
-                case DELETED:
-                    measure(connector, connectorDeploymentStatus, CONNECTOR_STATE_DELETED);
-                    break;
-                case STOPPED:
-                    measure(connector, connectorDeploymentStatus, CONNECTOR_STATE_STOPPED);
-                    break;
-                default:
-                    measure(connector, connectorDeploymentStatus, CONNECTOR_STATE_IN_PROCESS);
-                    break;
+            final String deploymentId = connector.getSpec().getDeploymentId();
+            final long hash = ConnectorStatusCache.hash(connectorDeploymentStatus);
+
+            if (suppress && reported.isReported(deploymentId, hash, Instant.now())) {
+                LOGGER.debug("Skipping connector status update as it has not changed (name: {}, deployment_id: {})",
+                    connector.getMetadata().getName(),
+                    deploymentId);
+
+                suppressedCounter.increment();
+                return;
             }
 
+            if (batcher != null) {
+                batcher.submit(new PendingStatus(connector, connectorDeploymentStatus, hash));
+            } else {
+                send(new PendingStatus(connector, connectorDeploymentStatus, hash));
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Error updating status of connector " + connector.getMetadata().getName(), e);
+        }
+    }
+
+    /**
+     * Flush any connector status that is waiting to be sent as part of a batch.
+     */
+    public void flush() {
+        if (batcher != null) {
+            batcher.flush();
+        }
+    }
+
+    private void send(List<PendingStatus> batch) {
+        List<PendingStatus> single = batch;
+
+        if (bulk) {
+            final ConnectorDeploymentStatusBatch payload = new ConnectorDeploymentStatusBatch();
+            for (PendingStatus status : batch) {
+                payload.addItem(status.connector.getSpec().getDeploymentId(), status.status);
+            }
+
+            try {
+                single = reported(batch, fleetManagerClient.updateConnectorStatuses(config.cluster().id(), payload));
+            } catch (FleetManagerClientException e) {
+                if (BULK_UNSUPPORTED.contains(e.getStatusCode())) {
+                    LOGGER.info(
+                        "Bulk connector status updates not supported (status: {}), falling back to per connector updates",
+                        e.getStatusCode());
+
+                    bulk = false;
+                } else {
+                    LOGGER.warn("Error updating connector statuses in bulk, falling back to per connector updates", e);
+                }
+            }
+        }
+
+        for (PendingStatus status : single) {
+            try {
+                send(status);
+            } catch (Exception e) {
+                LOGGER.warn("Error updating status of connector " + status.connector.getMetadata().getName(), e);
+            }
+        }
+    }
+
+    private void send(PendingStatus status) {
+        final ManagedConnector connector = status.connector;
+
+        try {
+            fleetManagerClient.updateConnectorStatus(connector, status.status);
+            reported(status);
         } catch (FleetManagerClientException e) {
             if (e.getStatusCode() == 410) {
-                LOGGER.info("Connector " + connector.getMetadata().getName() + " does not exists anymore, deleting it");
-                if (connectorClient.deleteConnector(connector)) {
-                    LOGGER.info("Connector " + connector.getMetadata().getName() + " deleted");
-                }
+                gone(connector);
             } else {
                 LOGGER.warn("Error updating status of connector " + connector.getMetadata().getName(), e);
             }
-        } catch (Exception e) {
-            LOGGER.warn("Error updating status of connector " + connector.getMetadata().getName(), e);
         }
     }
 
+    /*
+     * Apply the outcome of each status of a batch, returning the statuses the Control Plane has rejected, which are
+     * then sent one by one.
+     */
+    private List<PendingStatus> reported(List<PendingStatus> batch, ConnectorDeploymentStatusBatchResult result) {
+        final Map<String, ConnectorDeploymentStatusBatchResult.Item> outcomes = new HashMap<>();
+        for (ConnectorDeploymentStatusBatchResult.Item item : result.getItems()) {
+            outcomes.put(item.getId(), item);
+        }
+
+        final List<PendingStatus> answer = new ArrayList<>();
+
+        for (PendingStatus status : batch) {
+            final ConnectorDeploymentStatusBatchResult.Item outcome = outcomes.get(
+                status.connector.getSpec().getDeploymentId());
+
+            if (outcome == null || (outcome.getCode() >= 200 && outcome.getCode() < 300)) {
+                reported(status);
+            } else if (outcome.getCode() == 410) {
+                gone(status.connector);
+            } else {
+                LOGGER.debug("Status of connector {} rejected in bulk (code: {}, reason: {})",
+                    status.connector.getMetadata().getName(),
+                    outcome.getCode(),
+                    outcome.getReason());
+
+                answer.add(status);
+            }
+        }
+
+        return answer;
+    }
+
+    /*
+     * The deployment of the given connector does not exist anymore on the Control Plane.
+     */
+    private void gone(ManagedConnector connector) {
+        forget(connector);
+
+        LOGGER.info("Connector " + connector.getMetadata().getName() + " does not exists anymore, deleting it");
+        if (connectorClient.deleteConnector(connector)) {
+            LOGGER.info("Connector " + connector.getMetadata().getName() + " deleted");
+        }
+    }
+
+    private void reported(PendingStatus status) {
+        final ManagedConnector connector = status.connector;
+        final ConnectorDeploymentStatus connectorDeploymentStatus = status.status;
+
+        reported.put(connector.getSpec().getDeploymentId(), status.hash, Instant.now());
+        sentCounter.increment();
+
+        LOGGER.debug("Updating Connector status metrics (Connector_id: {}, state: {})",
+            connector.getSpec().getConnectorId(), connectorDeploymentStatus.getPhase());
+
+        measure(connector, connectorDeploymentStatus);
+    }
+
+    /**
+     * Forget about the given connector, i.e. because it has been deleted from the cluster, dropping its cached status
+     * and its state metrics.
+     *
+     * @param connector the connector
+     */
+    public void forget(ManagedConnector connector) {
+        reported.remove(connector.getSpec().getDeploymentId());
+        states.remove(connector.getSpec().getDeploymentId());
+        housekeeper.forget(connector.getSpec().getDeploymentId());
+    }
+
     /*
      * Expose a Gauge metric "cos_fleetshard_sync_connector_state" which reveals the current connector state.
      * Metric value of 1 implies that the connector is in Ready state. Similarly, 2 -> Failed, 3 -> Deleted,
@@ -96,55 +283,34 @@ public class ConnectorStatusUpdater {
      * Also exposing a Counter metrics "cos_fleetshard_sync_connector_state_count_total" which reveals each
      * state count for the connector
      */
-    private void measure(ManagedConnector connector, ConnectorDeploymentStatus connectorDeploymentStatus, int connectorState) {
-
+    private void measure(ManagedConnector connector, ConnectorDeploymentStatus connectorDeploymentStatus) {
         List<Tag> tags = MetricsSupport.tags(config.metrics().recorder(), connector);
         tags.add(Tag.of("cos.connector.id", connector.getSpec().getConnectorId()));
         tags.add(Tag.of("cos.connector.type.id", connector.getSpec().getDeployment().getConnectorTypeId()));
-        tags.add(Tag.of("cos.deployment.id", connector.getSpec().getDeploymentId()));
+        tags.add(Tag.of(ConnectorStateMetrics.TAG_DEPLOYMENT_ID, connector.getSpec().getDeploymentId()));
         tags.add(Tag.of("cos.namespace", connector.getMetadata().getNamespace()));
 
-        String connectorResourceVersion = String.valueOf(connector.getSpec().getDeployment().getConnectorResourceVersion());
+        final String deploymentId = connector.getSpec().getDeploymentId();
 
-        Gauge gauge = registry.find(config.metrics().baseName() + "." + CONNECTOR_STATE).tags(tags).gauge();
+        states.record(deploymentId, Tags.of(tags), connectorDeploymentStatus.getPhase());
 
-        if (gauge != null) {
-            registry.remove(gauge);
+        // the meters of a deleted connector are retained for a while so the deletion can be scraped
+        if (connectorDeploymentStatus.getPhase() == ConnectorState.DELETED) {
+            housekeeper.deleted(deploymentId, Instant.now(), states.meters(deploymentId));
+        } else {
+            housekeeper.forget(deploymentId);
         }
+    }
 
-        Gauge.builder(config.metrics().baseName() + "." + CONNECTOR_STATE, () -> new AtomicInteger(connectorState))
-            .tags(tags)
-            .register(registry);
+    private static final class PendingStatus {
+        final ManagedConnector connector;
+        final ConnectorDeploymentStatus status;
+        final long hash;
 
-        // Adding deletion timestamp for metric housekeeping
-        if (CONNECTOR_STATE_DELETED == connectorState) {
-            LOGGER.info("Adding current timestamp to the deleted connector");
-            tags.add(Tag.of("deletion_timestamp", Instant.now().toString()));
+        PendingStatus(ManagedConnector connector, ConnectorDeploymentStatus status, long hash) {
+            this.connector = connector;
+            this.status = status;
+            this.hash = hash;
         }
-
-        Counter.builder(config.metrics().baseName() + "." + CONNECTOR_STATE_COUNT)
-            .tags(tags)
-            .tag("cos.connector.state", connectorDeploymentStatus.getPhase().getValue())
-            .tag("cos.connector.resourceversion", connectorResourceVersion)
-            .register(registry)
-            .increment();
-
-        if (CONNECTOR_STATE_FAILED == connectorState) {
-            Counter counter = registry.find(config.metrics().baseName() + "." + CONNECTOR_STATE_COUNT)
-                .tags(tags).tag("cos.connector.state", "ready")
-                .tagKeys("cos.connector.resourceversion").counter();
-
-            if (counter != null && counter.count() != 0) {
-
-                // Exposing a new state "failed_but_ready" when a connector has already started but now failing
-                Counter.builder(config.metrics().baseName() + "." + CONNECTOR_STATE_COUNT)
-                    .tags(tags)
-                    .tag("cos.connector.state", "failed_but_ready")
-                    .tag("cos.connector.resourceversion", connectorResourceVersion)
-                    .register(registry)
-                    .increment();
-            }
-        }
-
     }
 }
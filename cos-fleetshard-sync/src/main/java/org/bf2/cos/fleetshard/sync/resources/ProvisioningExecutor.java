@@ -0,0 +1,198 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.bf2.cos.fleetshard.support.Service;
+import org.bf2.cos.fleetshard.support.exceptions.WrappedRuntimeException;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fans out provisioning work across a bounded pool of workers.
+ * </p>
+ * Items sharing the same key (i.e. the same namespace) are processed sequentially in the order they are submitted, so
+ * that resource version ordering is preserved where it matters, whereas items with different keys are processed
+ * concurrently. When the configured concurrency is 1, items are processed inline on the calling thread.
+ * </p>
+ * Provisioning is triggered both by the periodic poll and by the watch threads; {@link #exclusively(Runnable)}
+ * serializes them so that a re-sync and a watch delivery never provision the same resources at the same time.
+ */
+@ApplicationScoped
+public class ProvisioningExecutor implements Service {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProvisioningExecutor.class);
+
+    public static final String METRICS_QUEUE_SIZE = "provisioning.queue.size";
+    public static final String METRICS_IN_FLIGHT = "provisioning.inflight";
+
+    @Inject
+    FleetShardSyncConfig config;
+    @Inject
+    MeterRegistry registry;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger threads = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile ExecutorService executor;
+
+    @Override
+    public void start() throws Exception {
+        Gauge.builder(config.metrics().baseName() + "." + METRICS_QUEUE_SIZE, queued, AtomicInteger::get)
+            .register(registry);
+        Gauge.builder(config.metrics().baseName() + "." + METRICS_IN_FLIGHT, inFlight, AtomicInteger::get)
+            .register(registry);
+
+        final int concurrency = config.resources().provisionConcurrency();
+        if (concurrency <= 1) {
+            LOGGER.info("Provisioning resources sequentially");
+            return;
+        }
+
+        LOGGER.info("Provisioning resources with concurrency {}", concurrency);
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            concurrency,
+            concurrency,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+                Thread thread = new Thread(r, "cos-provisioner-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        pool.allowCoreThreadTimeOut(true);
+
+        this.executor = pool;
+    }
+
+    @Override
+    public void stop() throws Exception {
+        final ExecutorService current = this.executor;
+        if (current == null) {
+            return;
+        }
+
+        this.executor = null;
+
+        current.shutdown();
+
+        if (!current.awaitTermination(30, TimeUnit.SECONDS)) {
+            LOGGER.warn("Provisioning workers did not terminate in time, forcing shutdown");
+            current.shutdownNow();
+        }
+    }
+
+    /**
+     * Run the given action while holding the provisioning lock, waiting for any other provisioning round to complete.
+     *
+     * @param action the action to run
+     */
+    public void exclusively(Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Process the given items and wait for all of them to be completed.
+     *
+     * @param items  the items to process
+     * @param key    a function computing the key items are partitioned by; items with the same key are processed
+     *               sequentially, in iteration order.
+     * @param action the action to perform on each item
+     */
+    public <T> void execute(Collection<T> items, Function<T, String> key, Consumer<T> action) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService current = this.executor;
+        if (current == null) {
+            queued.addAndGet(items.size());
+            process(items, action);
+            return;
+        }
+
+        final Map<String, List<T>> partitions = new LinkedHashMap<>();
+        for (T item : items) {
+            partitions.computeIfAbsent(key.apply(item), k -> new ArrayList<>()).add(item);
+        }
+
+        queued.addAndGet(items.size());
+
+        final List<Future<?>> futures = new ArrayList<>(partitions.size());
+        for (List<T> partition : partitions.values()) {
+            futures.add(current.submit(() -> process(partition, action)));
+        }
+
+        RuntimeException failure = null;
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new WrappedRuntimeException("Interrupted while waiting for provisioning to complete", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new WrappedRuntimeException("Failure while provisioning resources", e.getCause());
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private <T> void process(Collection<T> items, Consumer<T> action) {
+        int remaining = items.size();
+
+        try {
+            for (T item : items) {
+                queued.decrementAndGet();
+                remaining--;
+                inFlight.incrementAndGet();
+
+                try {
+                    action.accept(item);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        } finally {
+            // in case of failures, make sure skipped items are not accounted as queued anymore
+            queued.addAndGet(-remaining);
+        }
+    }
+}
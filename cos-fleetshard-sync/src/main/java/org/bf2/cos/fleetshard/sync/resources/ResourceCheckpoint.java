@@ -0,0 +1,364 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.bf2.cos.fleet.manager.model.ConnectorDeployment;
+import org.bf2.cos.fleet.manager.model.ConnectorNamespaceDeployment;
+import org.bf2.cos.fleetshard.support.resources.Resources;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+/**
+ * Keeps track of the revisions of the namespaces and deployments that have been provisioned, along with a digest of
+ * each deployment, and persists them to a ConfigMap.
+ * </p>
+ * After a restart, the synchronizer resumes polling the Control Plane from the persisted revisions instead of performing
+ * a full re-sync, and the first re-sync that follows is a verification re-sync which skips the deployments whose digest
+ * has not changed since they have been provisioned and whose connector is still in place.
+ * </p>
+ * The digests are split across as many ConfigMaps as needed to keep each of them well below the size limit of a
+ * Kubernetes object, the first part being stored along with the revisions.
+ */
+@ApplicationScoped
+public class ResourceCheckpoint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceCheckpoint.class);
+
+    public static final String KEY_NAMESPACES_REVISION = "namespaces.revision";
+    public static final String KEY_DEPLOYMENTS_REVISION = "deployments.revision";
+    public static final String KEY_DEPLOYMENTS_DIGESTS = "deployments.digests";
+    public static final String KEY_DEPLOYMENTS_DIGESTS_PARTS = "deployments.digests.parts";
+
+    /**
+     * The maximum size of the digests stored in a single ConfigMap, half of the 1 MiB limit of a Kubernetes object.
+     */
+    static final int MAX_DIGESTS_SIZE = 512 * 1024;
+
+    @Inject
+    FleetShardSyncConfig config;
+    @Inject
+    FleetShardClient fleetShard;
+
+    private final AtomicLong namespacesRevision = new AtomicLong();
+    private final AtomicLong deploymentsRevision = new AtomicLong();
+    private final Map<String, String> digests = new ConcurrentHashMap<>();
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean dirty;
+    private volatile boolean resyncing;
+    private volatile boolean verifying;
+    private volatile Instant lastSave;
+    private volatile int savedParts;
+
+    public boolean isEnabled() {
+        return config.resources().checkpoint().enabled();
+    }
+
+    /**
+     * Restore the checkpoint from the ConfigMap.
+     *
+     * @return true if a checkpoint has been restored
+     */
+    public boolean restore() {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        try {
+            ConfigMap configMap = getConfigMap(config.resources().checkpoint().name());
+
+            if (configMap == null) {
+                LOGGER.info("No checkpoint found");
+                return false;
+            }
+            if (!Resources.hasLabel(configMap, Resources.LABEL_CLUSTER_ID, fleetShard.getClusterId())) {
+                LOGGER.info("Ignoring checkpoint {} as it belongs to a different cluster", configMap.getMetadata().getName());
+                return false;
+            }
+
+            final List<ConfigMap> configMaps = new ArrayList<>();
+            configMaps.add(configMap);
+
+            for (int i = 1; i < getParts(configMap); i++) {
+                ConfigMap part = getConfigMap(partName(i));
+                if (part != null) {
+                    configMaps.add(part);
+                } else {
+                    // the deployments of a missing part are not verified, but fully re-synced
+                    LOGGER.warn("Checkpoint part {} not found", partName(i));
+                }
+            }
+
+            fromConfigMaps(configMaps);
+            savedParts = getParts(configMap);
+
+            LOGGER.info("Restored checkpoint (namespaces: {}, deployments: {}, digests: {})",
+                namespacesRevision.get(),
+                deploymentsRevision.get(),
+                digests.size());
+
+            return namespacesRevision.get() > 0 || deploymentsRevision.get() > 0;
+        } catch (Exception e) {
+            LOGGER.warn("Failed to restore checkpoint, resources will be fully re-synced", e);
+
+            namespacesRevision.set(0);
+            deploymentsRevision.set(0);
+            digests.clear();
+
+            return false;
+        }
+    }
+
+    /**
+     * Persist the checkpoint to the ConfigMap, if it has changed and the checkpoint interval has elapsed since the last
+     * time it has been persisted.
+     *
+     * @param now the current time
+     */
+    public void save(Instant now) {
+        if (!isEnabled() || !dirty) {
+            return;
+        }
+
+        final Duration interval = config.resources().checkpoint().interval();
+        if (lastSave != null && Duration.between(lastSave, now).compareTo(interval) < 0) {
+            return;
+        }
+
+        // cleared before taking the snapshot so concurrent changes are not lost
+        dirty = false;
+
+        try {
+            final List<ConfigMap> configMaps = toConfigMaps();
+
+            // the parts are written before the ConfigMap referencing them, which comes last
+            for (ConfigMap configMap : configMaps) {
+                fleetShard.getKubernetesClient()
+                    .resource(configMap)
+                    .inNamespace(config.namespace())
+                    .createOrReplace();
+            }
+
+            // the parts left over by a previous, larger, checkpoint
+            for (int i = configMaps.size(); i < savedParts; i++) {
+                fleetShard.getKubernetesClient()
+                    .configMaps()
+                    .inNamespace(config.namespace())
+                    .withName(partName(i))
+                    .delete();
+            }
+
+            savedParts = configMaps.size();
+            lastSave = now;
+        } catch (Exception e) {
+            dirty = true;
+            LOGGER.warn("Failed to save checkpoint {}", config.resources().checkpoint().name(), e);
+        }
+    }
+
+    /**
+     * @return the highest revision of the namespaces that have been provisioned.
+     */
+    public long getNamespacesRevision() {
+        return namespacesRevision.get();
+    }
+
+    /**
+     * @return the highest revision of the deployments that have been provisioned.
+     */
+    public long getDeploymentsRevision() {
+        return deploymentsRevision.get();
+    }
+
+    public void namespaceProvisioned(ConnectorNamespaceDeployment namespace) {
+        if (!isEnabled() || namespace.getResourceVersion() == null) {
+            return;
+        }
+
+        if (namespace.getResourceVersion() > namespacesRevision.getAndAccumulate(namespace.getResourceVersion(), Math::max)) {
+            dirty = true;
+        }
+    }
+
+    public void deploymentProvisioned(ConnectorDeployment deployment) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final Long revision = deployment.getMetadata().getResourceVersion();
+        if (revision != null && revision > deploymentsRevision.getAndAccumulate(revision, Math::max)) {
+            dirty = true;
+        }
+
+        final String digest = digest(deployment);
+        if (!digest.equals(digests.put(deployment.getId(), digest))) {
+            dirty = true;
+        }
+
+        if (resyncing) {
+            seen.add(deployment.getId());
+        }
+    }
+
+    /**
+     * Determine if the given deployment is known to have already been provisioned, which is only trusted while
+     * verifying the resources after a restart.
+     *
+     * @param  deployment the deployment
+     * @return            true if the deployment has already been provisioned
+     */
+    public boolean isVerified(ConnectorDeployment deployment) {
+        if (!isEnabled() || !verifying) {
+            return false;
+        }
+
+        return Objects.equals(digests.get(deployment.getId()), digest(deployment));
+    }
+
+    /**
+     * Mark the beginning of a re-sync.
+     *
+     * @param verification true if the re-sync is a verification re-sync
+     */
+    public void beginResync(boolean verification) {
+        seen.clear();
+        resyncing = true;
+        verifying = verification;
+    }
+
+    /**
+     * Mark the end of a re-sync, forgetting the deployments that have not been seen if it has completed.
+     *
+     * @param completed true if the re-sync has completed successfully
+     */
+    public void endResync(boolean completed) {
+        if (completed && digests.keySet().retainAll(seen)) {
+            dirty = true;
+        }
+
+        seen.clear();
+        resyncing = false;
+        verifying = false;
+    }
+
+    /**
+     * @return the ConfigMaps holding the checkpoint, the parts holding the digests that do not fit along with the
+     *         revisions come first and the ConfigMap holding the revisions last
+     */
+    List<ConfigMap> toConfigMaps() {
+        final List<String> parts = new ArrayList<>();
+
+        StringBuilder entries = new StringBuilder();
+        for (Map.Entry<String, String> entry : new TreeMap<>(digests).entrySet()) {
+            final String line = entry.getKey() + '=' + entry.getValue() + '\n';
+
+            if (entries.length() > 0 && entries.length() + line.length() > MAX_DIGESTS_SIZE) {
+                parts.add(entries.toString());
+                entries = new StringBuilder();
+            }
+
+            entries.append(line);
+        }
+
+        parts.add(entries.toString());
+
+        final List<ConfigMap> answer = new ArrayList<>(parts.size());
+
+        for (int i = 1; i < parts.size(); i++) {
+            answer.add(new ConfigMapBuilder()
+                .withNewMetadata()
+                .withName(partName(i))
+                .withNamespace(config.namespace())
+                .addToLabels(Resources.LABEL_CLUSTER_ID, fleetShard.getClusterId())
+                .endMetadata()
+                .addToData(KEY_DEPLOYMENTS_DIGESTS, parts.get(i))
+                .build());
+        }
+
+        answer.add(new ConfigMapBuilder()
+            .withNewMetadata()
+            .withName(config.resources().checkpoint().name())
+            .withNamespace(config.namespace())
+            .addToLabels(Resources.LABEL_CLUSTER_ID, fleetShard.getClusterId())
+            .endMetadata()
+            .addToData(KEY_NAMESPACES_REVISION, Long.toString(namespacesRevision.get()))
+            .addToData(KEY_DEPLOYMENTS_REVISION, Long.toString(deploymentsRevision.get()))
+            .addToData(KEY_DEPLOYMENTS_DIGESTS, parts.get(0))
+            .addToData(KEY_DEPLOYMENTS_DIGESTS_PARTS, Integer.toString(parts.size()))
+            .build());
+
+        return answer;
+    }
+
+    void fromConfigMaps(List<ConfigMap> configMaps) {
+        final String name = config.resources().checkpoint().name();
+
+        digests.clear();
+
+        for (ConfigMap configMap : configMaps) {
+            final Map<String, String> data = configMap.getData() != null ? configMap.getData() : Map.of();
+
+            if (name.equals(configMap.getMetadata().getName())) {
+                namespacesRevision.set(Long.parseLong(data.getOrDefault(KEY_NAMESPACES_REVISION, "0")));
+                deploymentsRevision.set(Long.parseLong(data.getOrDefault(KEY_DEPLOYMENTS_REVISION, "0")));
+            }
+
+            for (String line : data.getOrDefault(KEY_DEPLOYMENTS_DIGESTS, "").split("\n")) {
+                int idx = line.indexOf('=');
+                if (idx > 0) {
+                    digests.put(line.substring(0, idx), line.substring(idx + 1));
+                }
+            }
+        }
+    }
+
+    private ConfigMap getConfigMap(String name) {
+        return fleetShard.getKubernetesClient()
+            .configMaps()
+            .inNamespace(config.namespace())
+            .withName(name)
+            .get();
+    }
+
+    private String partName(int part) {
+        return config.resources().checkpoint().name() + "-" + part;
+    }
+
+    private static int getParts(ConfigMap configMap) {
+        final Map<String, String> data = configMap.getData() != null ? configMap.getData() : Map.of();
+        return Integer.parseInt(data.getOrDefault(KEY_DEPLOYMENTS_DIGESTS_PARTS, "1"));
+    }
+
+    static String digest(ConnectorDeployment deployment) {
+        Checksum crc32 = new CRC32();
+
+        // the metadata holds the resource version and the annotations copied to the connector
+        final byte[] metadata = Serialization.asJson(deployment.getMetadata()).getBytes(StandardCharsets.UTF_8);
+        final byte[] spec = Serialization.asJson(deployment.getSpec()).getBytes(StandardCharsets.UTF_8);
+
+        crc32.update(metadata, 0, metadata.length);
+        crc32.update(spec, 0, spec.length);
+
+        return Long.toHexString(crc32.getValue());
+    }
+}
@@ -2,25 +2,44 @@ package org.bf2.cos.fleetshard.sync.resources;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import org.bf2.cos.fleet.manager.model.ConnectorDeployment;
 import org.bf2.cos.fleetshard.support.Service;
 import org.bf2.cos.fleetshard.support.metrics.StaticMetricsRecorder;
+import org.bf2.cos.fleetshard.sync.AdaptiveInterval;
 import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
 import org.bf2.cos.fleetshard.sync.FleetShardSyncScheduler;
+import org.bf2.cos.fleetshard.sync.SlicedResync;
+import org.bf2.cos.fleetshard.sync.client.FleetManagerClient;
+import org.bf2.cos.fleetshard.sync.client.FleetManagerClientException;
 import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
 import org.bf2.cos.fleetshard.sync.metrics.MetricsID;
-import org.eclipse.microprofile.faulttolerance.Retry;
+import org.quartz.SchedulerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
 
 @ApplicationScoped
 public class ResourcePoll implements Service {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourcePoll.class);
+
     private static final String JOB_ID = "cos.resources.poll";
     private static final long BEGINNING = 0;
     public static final String METRICS_SYNC = "connectors.sync";
     public static final String METRICS_POLL = "connectors.poll";
+    public static final String METRICS_POLL_INTERVAL = "connectors.poll.interval";
 
     @Inject
     FleetShardSyncConfig config;
@@ -29,9 +48,19 @@ public class ResourcePoll implements Service {
     @Inject
     FleetShardClient connectorClient;
     @Inject
+    FleetManagerClient fleetManager;
+    @Inject
     ConnectorDeploymentProvisioner connectorsProvisioner;
     @Inject
     ConnectorNamespaceProvisioner namespaceProvisioner;
+    @Inject
+    ProvisioningExecutor executor;
+    @Inject
+    ResourceWatch watch;
+    @Inject
+    ResourceCheckpoint checkpoint;
+    @Inject
+    MeterRegistry registry;
 
     @Inject
     @MetricsID(METRICS_SYNC)
@@ -41,14 +70,75 @@ public class ResourcePoll implements Service {
     StaticMetricsRecorder pollRecorder;
 
     private volatile Instant lastResync;
+    private volatile boolean verify;
+    private volatile long resyncCursor = BEGINNING;
+    private volatile AdaptiveInterval interval;
+    private volatile Duration currentInterval;
+    private volatile SlicedResync<ConnectorDeployment> slices;
+
+    // the deployments whose connector was in place when the snapshot of the current re-sync window was taken
+    private final Set<String> snapshotConnectors = ConcurrentHashMap.newKeySet();
 
     @Override
     public void start() throws Exception {
+        final Duration pollInterval = config.resources().pollInterval();
+        final FleetShardSyncConfig.AdaptivePoll adaptive = config.resources().adaptivePoll();
+
+        if (adaptive.enabled() && !pollInterval.isZero()) {
+            interval = new AdaptiveInterval(
+                pollInterval,
+                adaptive.minInterval(),
+                adaptive.maxInterval(),
+                adaptive.multiplier(),
+                adaptive.jitter());
+        }
+
+        currentInterval = pollInterval;
+
+        if (config.resources().resyncBuckets() > 1) {
+            slices = new SlicedResync<>(
+                registry,
+                config.metrics().baseName() + "." + METRICS_SYNC,
+                config.resources().resyncBuckets(),
+                config.resources().resyncInterval(),
+                config.resources().resyncJitter(),
+                ConnectorDeployment::getId);
+        }
+
+        if (config.leaderElection().enabled()
+            && (connectorClient.getMaxNamespaceResourceRevision() > BEGINNING
+                || connectorClient.getMaxDeploymentResourceRevision() > BEGINNING)) {
+            // a standby replica that has just been elected already knows, from its caches, the revisions provisioned
+            // so far, so it resumes polling from them and defers the full resync to the next resync interval
+            LOGGER.info("Resuming from revisions (namespaces: {}, deployments: {})",
+                connectorClient.getMaxNamespaceResourceRevision(),
+                connectorClient.getMaxDeploymentResourceRevision());
+
+            lastResync = Instant.now();
+            defer(lastResync);
+        } else if (checkpoint.restore()) {
+            // resume polling from the checkpoint, the next re-sync verifies that the resources provisioned before the
+            // restart are still in place
+            LOGGER.info("Resuming from checkpoint (namespaces: {}, deployments: {})",
+                checkpoint.getNamespacesRevision(),
+                checkpoint.getDeploymentsRevision());
+
+            lastResync = Instant.now();
+            verify = true;
+            defer(lastResync);
+        }
+
+        TimeGauge.builder(
+            config.metrics().baseName() + "." + METRICS_POLL_INTERVAL,
+            this,
+            TimeUnit.MILLISECONDS,
+            p -> p.currentInterval.toMillis())
+            .register(registry);
 
         scheduler.schedule(
             JOB_ID,
             ResourcePollJob.class,
-            config.resources().pollInterval());
+            pollInterval);
     }
 
     @Override
@@ -56,32 +146,152 @@ public class ResourcePoll implements Service {
         scheduler.shutdownQuietly(JOB_ID);
     }
 
-    @Retry(maxRetries = 10, delay = 1, delayUnit = ChronoUnit.SECONDS)
     public void run() {
+        // provisioning driven by the watch is held off while polling, and the other way around
+        executor.exclusively(this::doRun);
+    }
+
+    private void doRun() {
         Instant now = Instant.now();
-        boolean resync = lastResync == null;
+        final SlicedResync<ConnectorDeployment> current = slices;
+        boolean resync = current == null && lastResync == null;
 
-        if (lastResync != null) {
+        if (current == null && lastResync != null) {
             resync = Duration.between(lastResync, now).compareTo(config.resources().resyncInterval()) > 0;
         }
 
-        if (resync) {
-            syncRecorder.record(this::sync);
-            lastResync = now;
-        } else {
-            pollRecorder.record(this::poll);
+        try {
+            if (current != null) {
+                // a bucket of the deployments is re-synced when due, the resources are then polled as usual to pick
+                // up the changes to the deployments belonging to the other buckets
+                resync(current, now);
+            }
+
+            if (resync) {
+                syncRecorder.record(this::sync);
+                lastResync = now;
+            } else if (!watch.isWatching()) {
+                final Integer changes = pollRecorder.recordCallable(this::poll);
+                if (interval != null) {
+                    adapt(changes != null && changes > 0 ? interval.changed() : interval.idle());
+                }
+            } else {
+                connectorsProvisioner.retryDeadLetters();
+
+                if (interval != null) {
+                    adapt(interval.idle());
+                }
+            }
+
+            checkpoint.save(now);
+        } catch (RuntimeException e) {
+            if (interval != null) {
+                adapt(interval.failed(isThrottled(e)));
+            }
+
+            throw e;
         }
     }
 
     private void sync() {
+        if (resyncCursor == BEGINNING) {
+            checkpoint.beginResync(verify);
+        } else {
+            // the previous re-sync has failed part way, the deployments up to the cursor have already been provisioned
+            LOGGER.info("Resuming re-sync from revision {}", resyncCursor);
+        }
+
         namespaceProvisioner.poll(BEGINNING);
-        connectorsProvisioner.poll(BEGINNING);
+        connectorsProvisioner.poll(resyncCursor, revision -> resyncCursor = revision);
+
+        checkpoint.endResync(true);
+        verify = false;
+        resyncCursor = BEGINNING;
+    }
+
+    private void resync(SlicedResync<ConnectorDeployment> current, Instant now) {
+        if (current.run(now, this::snapshot, this::provision)) {
+            checkpoint.endResync(true);
+            verify = false;
+        }
+    }
+
+    private Collection<ConnectorDeployment> snapshot() {
+        checkpoint.beginResync(verify);
+
+        // namespaces are few and cheap to provision, so they are fully re-synced at the beginning of each window
+        namespaceProvisioner.poll(BEGINNING);
+
+        final List<ConnectorDeployment> answer = new ArrayList<>();
+        fleetManager.getDeployments(BEGINNING, answer::addAll);
+
+        snapshotConnectors.clear();
+        answer.stream()
+            .filter(deployment -> connectorClient.getConnector(deployment).isPresent())
+            .map(ConnectorDeployment::getId)
+            .forEach(snapshotConnectors::add);
+
+        return answer;
     }
 
-    private void poll() {
-        namespaceProvisioner.poll(
-            connectorClient.getMaxNamespaceResourceRevision());
-        connectorsProvisioner.poll(
-            connectorClient.getMaxDeploymentResourceRevision());
+    private void provision(List<ConnectorDeployment> deployments) {
+        // the deployments updated or deleted since the snapshot have already been provisioned by a poll
+        connectorsProvisioner.provisionConnectors(
+            deployments.stream()
+                .filter(deployment -> !connectorsProvisioner.isStale(deployment))
+                .filter(deployment -> !isDeleted(deployment))
+                .collect(Collectors.toList()));
+    }
+
+    /*
+     * A deployment whose connector was in place when the snapshot has been taken but is not anymore has been deleted
+     * on the Control Plane in the meantime, re-provisioning it from the snapshot would bring the connector back until
+     * the next re-sync window.
+     */
+    private boolean isDeleted(ConnectorDeployment deployment) {
+        return snapshotConnectors.contains(deployment.getId()) && connectorClient.getConnector(deployment).isEmpty();
+    }
+
+    private void defer(Instant now) {
+        final SlicedResync<ConnectorDeployment> current = slices;
+        if (current != null) {
+            current.defer(now);
+        }
+    }
+
+    /*
+     * Only the resources that have actually been applied count as changes, so that a dead lettered deployment does not
+     * keep the poll interval at its minimum. For the same reason, polling resumes past the revisions of the dead
+     * lettered deployments, which are retried by the provisioner once their dead letter interval has elapsed.
+     */
+    private int poll() {
+        final long deploymentsRevision = Math.max(
+            Math.max(connectorClient.getMaxDeploymentResourceRevision(), checkpoint.getDeploymentsRevision()),
+            connectorsProvisioner.getDeadLetteredRevision());
+
+        return namespaceProvisioner.poll(
+            Math.max(connectorClient.getMaxNamespaceResourceRevision(), checkpoint.getNamespacesRevision()))
+            + connectorsProvisioner.poll(deploymentsRevision)
+            + connectorsProvisioner.retryDeadLetters();
+    }
+
+    private void adapt(Duration next) {
+        currentInterval = next;
+
+        try {
+            scheduler.reschedule(JOB_ID, next);
+        } catch (SchedulerException e) {
+            LOGGER.warn("Unable to change the poll interval to {}", next, e);
+        }
+    }
+
+    private static boolean isThrottled(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FleetManagerClientException) {
+                return ((FleetManagerClientException) cause).getStatusCode() == 429;
+            }
+        }
+
+        return false;
     }
 }
@@ -0,0 +1,251 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.bf2.cos.fleetshard.support.Service;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.bf2.cos.fleetshard.sync.client.FleetManagerClient;
+import org.bf2.cos.fleetshard.sync.client.FleetManagerClientException;
+import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Watches the Control Plane for namespace and deployment changes using long polling requests, resuming from the
+ * highest known resource revision.
+ * </p>
+ * Each resource type is watched on a dedicated thread. While all the watches are healthy, {@link ResourcePoll} skips
+ * its periodic poll. If a watch fails, the poller takes over until the watch is re-established. If the Control Plane
+ * does not support watching, the watch is abandoned and the synchronizer keeps relying on the poller only.
+ * </p>
+ * The changes delivered by a watch are provisioned while holding the {@link ProvisioningExecutor} lock, so they never
+ * overlap with a poll or a re-sync.
+ */
+@ApplicationScoped
+public class ResourceWatch implements Service {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceWatch.class);
+
+    public static final String METRICS_WATCH_CONNECTED = "resources.watch.connected";
+
+    /*
+     * Status codes returned by a Control Plane that does not support watching resources.
+     */
+    static final Set<Integer> WATCH_UNSUPPORTED = Set.of(400, 404, 405, 501);
+
+    @Inject
+    FleetShardSyncConfig config;
+    @Inject
+    FleetManagerClient fleetManager;
+    @Inject
+    FleetShardClient connectorClient;
+    @Inject
+    ConnectorDeploymentProvisioner connectorsProvisioner;
+    @Inject
+    ConnectorNamespaceProvisioner namespaceProvisioner;
+    @Inject
+    ProvisioningExecutor provisioning;
+    @Inject
+    MeterRegistry registry;
+
+    private volatile List<Watcher> watchers = List.of();
+    private volatile ExecutorService executor;
+
+    @Override
+    public void start() throws Exception {
+        if (!config.resources().watch().enabled()) {
+            return;
+        }
+
+        LOGGER.info("Starting resources watch");
+
+        final Watcher namespaces = new Watcher(
+            FleetManagerClient.TYPE_NAMESPACES,
+            connectorClient::getMaxNamespaceResourceRevision,
+            rv -> {
+                final AtomicBoolean changed = new AtomicBoolean();
+
+                fleetManager.watchNamespaces(rv, items -> {
+                    changed.set(true);
+
+                    provisioning.exclusively(() -> {
+                        // a re-sync may have provisioned a newer revision while waiting for the lock
+                        namespaceProvisioner.provisionNamespaces(
+                            items.stream()
+                                .filter(item -> !namespaceProvisioner.isStale(item))
+                                .collect(Collectors.toList()));
+                    });
+                });
+
+                return changed.get();
+            });
+
+        final Watcher deployments = new Watcher(
+            FleetManagerClient.TYPE_DEPLOYMENTS,
+            // the watch resumes past the dead lettered deployments, which are retried by the poll
+            () -> Math.max(
+                connectorClient.getMaxDeploymentResourceRevision(),
+                connectorsProvisioner.getDeadLetteredRevision()),
+            rv -> {
+                final AtomicBoolean changed = new AtomicBoolean();
+
+                fleetManager.watchDeployments(rv, items -> {
+                    changed.set(true);
+
+                    provisioning.exclusively(() -> {
+                        // catch up with namespaces first, as deployments may target a namespace the namespaces
+                        // watch has not yet delivered
+                        namespaceProvisioner.poll(connectorClient.getMaxNamespaceResourceRevision());
+
+                        // a re-sync may have provisioned a newer revision while waiting for the lock
+                        connectorsProvisioner.provisionConnectors(
+                            items.stream()
+                                .filter(item -> !connectorsProvisioner.isStale(item))
+                                .collect(Collectors.toList()));
+                    });
+                });
+
+                return changed.get();
+            });
+
+        final AtomicInteger threads = new AtomicInteger();
+
+        watchers = List.of(namespaces, deployments);
+        executor = Executors.newFixedThreadPool(watchers.size(), r -> {
+            Thread thread = new Thread(r, "cos-resources-watch-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (Watcher watcher : watchers) {
+            final String type = watcher.type;
+
+            // the gauge looks up the current watcher so it keeps working if the service is restarted
+            Gauge.builder(config.metrics().baseName() + "." + METRICS_WATCH_CONNECTED, this, w -> w.isWatching(type) ? 1 : 0)
+                .tag("type", type)
+                .register(registry);
+
+            executor.submit(watcher);
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        watchers.forEach(w -> w.running = false);
+
+        final ExecutorService current = executor;
+        if (current != null) {
+            executor = null;
+            current.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true if all the resources are being watched, so polling is not required.
+     */
+    public boolean isWatching() {
+        final List<Watcher> current = watchers;
+        if (current.isEmpty()) {
+            return false;
+        }
+
+        for (Watcher watcher : current) {
+            if (!watcher.connected) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isWatching(String type) {
+        for (Watcher watcher : watchers) {
+            if (watcher.type.equals(type)) {
+                return watcher.connected;
+            }
+        }
+
+        return false;
+    }
+
+    private class Watcher implements Runnable {
+        final String type;
+        final LongSupplier revision;
+        final LongPredicate watch;
+
+        volatile boolean running;
+        volatile boolean connected;
+
+        Watcher(String type, LongSupplier revision, LongPredicate watch) {
+            this.type = type;
+            this.revision = revision;
+            this.watch = watch;
+            this.running = true;
+        }
+
+        @Override
+        public void run() {
+            while (running && !Thread.currentThread().isInterrupted()) {
+                try {
+                    final long start = System.nanoTime();
+                    final boolean changed = watch.test(revision.getAsLong());
+                    final long elapsed = System.nanoTime() - start;
+
+                    if (!connected) {
+                        LOGGER.info("Watching {}", type);
+                        connected = true;
+                    }
+
+                    // a Control Plane that ignores the watch parameter replies immediately, so throttle requests
+                    // to avoid a busy loop
+                    if (!changed && elapsed < config.resources().watch().timeout().toNanos() / 2) {
+                        backoff();
+                    }
+                } catch (FleetManagerClientException e) {
+                    connected = false;
+
+                    if (WATCH_UNSUPPORTED.contains(e.getStatusCode())) {
+                        LOGGER.warn("Watching {} is not supported by the Control Plane (status: {}), falling back to polling",
+                            type,
+                            e.getStatusCode());
+
+                        running = false;
+                        return;
+                    }
+
+                    LOGGER.warn("Error watching {}, falling back to polling", type, e);
+                    backoff();
+                } catch (Exception e) {
+                    connected = false;
+
+                    LOGGER.warn("Error watching {}, falling back to polling", type, e);
+                    backoff();
+                }
+            }
+
+            connected = false;
+        }
+
+        private void backoff() {
+            try {
+                TimeUnit.MILLISECONDS.sleep(config.resources().watch().retryInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
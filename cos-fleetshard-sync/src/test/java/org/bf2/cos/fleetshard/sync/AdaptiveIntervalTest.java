@@ -0,0 +1,70 @@
+package org.bf2.cos.fleetshard.sync;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AdaptiveIntervalTest {
+
+    @Test
+    void intervalIsAdapted() {
+        final AdaptiveInterval interval = new AdaptiveInterval(
+            Duration.ofSeconds(15),
+            Duration.ofSeconds(1),
+            Duration.ofSeconds(60),
+            2,
+            0);
+
+        assertThat(interval.current()).isEqualTo(Duration.ofSeconds(15));
+
+        assertThat(interval.idle()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(interval.idle()).isEqualTo(Duration.ofSeconds(60));
+        assertThat(interval.idle()).isEqualTo(Duration.ofSeconds(60));
+
+        assertThat(interval.changed()).isEqualTo(Duration.ofSeconds(1));
+        assertThat(interval.failed(false)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(interval.failed(true)).isEqualTo(Duration.ofSeconds(60));
+
+        assertThat(interval.current()).isEqualTo(Duration.ofSeconds(60));
+    }
+
+    @Test
+    void initialIntervalIsClamped() {
+        assertThat(new AdaptiveInterval(Duration.ofSeconds(15), Duration.ofSeconds(1), Duration.ofSeconds(10), 2, 0).current())
+            .isEqualTo(Duration.ofSeconds(10));
+        assertThat(new AdaptiveInterval(Duration.ofMillis(10), Duration.ofSeconds(1), Duration.ofSeconds(10), 2, 0).current())
+            .isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void jitterIsBounded() {
+        final AdaptiveInterval interval = new AdaptiveInterval(
+            Duration.ofSeconds(10),
+            Duration.ofSeconds(10),
+            Duration.ofSeconds(10),
+            2,
+            0.1);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(interval.idle()).isBetween(Duration.ofSeconds(9), Duration.ofSeconds(11));
+        }
+
+        assertThat(interval.current()).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThatThrownBy(
+            () -> new AdaptiveInterval(Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(1), 2, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(
+            () -> new AdaptiveInterval(Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(2), 0.5, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(
+            () -> new AdaptiveInterval(Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(2), 2, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,142 @@
+package org.bf2.cos.fleetshard.sync;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
+import org.bf2.cos.fleetshard.sync.client.FleetShardObservabilityClient;
+import org.bf2.cos.fleetshard.sync.housekeeping.Housekeeper;
+import org.bf2.cos.fleetshard.sync.housekeeping.MetricsHousekeeper;
+import org.bf2.cos.fleetshard.sync.resources.ConnectorClusterStatusSync;
+import org.bf2.cos.fleetshard.sync.resources.ConnectorStatusSync;
+import org.bf2.cos.fleetshard.sync.resources.ProvisioningExecutor;
+import org.bf2.cos.fleetshard.sync.resources.ResourcePoll;
+import org.bf2.cos.fleetshard.sync.resources.ResourceWatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfig;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElector;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectorBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FleetShardSyncTest {
+    private FleetShardSync sync;
+    private LeaderElectorBuilder electorBuilder;
+
+    @BeforeEach
+    void setUp() {
+        FleetShardSyncConfig config = Mockito.mock(FleetShardSyncConfig.class);
+        FleetShardSyncConfig.LeaderElection election = Mockito.mock(FleetShardSyncConfig.LeaderElection.class);
+        when(election.enabled()).thenReturn(true);
+        when(election.identity()).thenReturn(Optional.of("replica-1"));
+        when(election.leaseName()).thenReturn("cos-fleetshard-sync");
+        when(election.leaseDuration()).thenReturn(Duration.ofSeconds(15));
+        when(election.renewDeadline()).thenReturn(Duration.ofSeconds(10));
+        when(election.retryPeriod()).thenReturn(Duration.ofSeconds(2));
+        when(config.leaderElection()).thenReturn(election);
+        when(config.namespace()).thenReturn("cos");
+        FleetShardSyncConfig.Metrics metrics = Mockito.mock(FleetShardSyncConfig.Metrics.class);
+        when(metrics.baseName()).thenReturn("base");
+        when(config.metrics()).thenReturn(metrics);
+
+        LeaderElector elector = Mockito.mock(LeaderElector.class);
+        when(elector.start()).thenReturn(new CompletableFuture<>());
+
+        electorBuilder = Mockito.mock(LeaderElectorBuilder.class);
+        when(electorBuilder.withConfig(any(LeaderElectionConfig.class))).thenReturn(electorBuilder);
+        when(electorBuilder.build()).thenReturn(elector);
+
+        KubernetesClient kubernetesClient = Mockito.mock(KubernetesClient.class);
+        when(kubernetesClient.leaderElector()).thenReturn(electorBuilder);
+
+        sync = new FleetShardSync();
+        sync.config = config;
+        sync.kubernetesClient = kubernetesClient;
+        sync.registry = new SimpleMeterRegistry();
+        sync.fleetShardClient = Mockito.mock(FleetShardClient.class);
+        sync.fleetShardObservabilityClient = Mockito.mock(FleetShardObservabilityClient.class);
+        sync.provisioningExecutor = Mockito.mock(ProvisioningExecutor.class);
+        sync.resourceSync = Mockito.mock(ResourcePoll.class);
+        sync.resourceWatch = Mockito.mock(ResourceWatch.class);
+        sync.connectorStatusSync = Mockito.mock(ConnectorStatusSync.class);
+        sync.clusterStatusSync = Mockito.mock(ConnectorClusterStatusSync.class);
+        sync.housekeeping = Mockito.mock(Housekeeper.class);
+        sync.metricsHousekeeping = Mockito.mock(MetricsHousekeeper.class);
+    }
+
+    @Test
+    void standbyReplicaOnlyWarmsCaches() throws Exception {
+        sync.start();
+
+        assertThat(sync.isLeading()).isFalse();
+
+        // the caches are populated so the replica is ready to take over
+        verify(sync.fleetShardClient).start();
+
+        verify(sync.fleetShardClient, never()).getOrCreateManagedConnectorCluster();
+        verify(sync.fleetShardObservabilityClient, never()).setupObservability();
+        verify(sync.provisioningExecutor, never()).start();
+        verify(sync.resourceSync, never()).start();
+        verify(sync.resourceWatch, never()).start();
+        verify(sync.connectorStatusSync, never()).start();
+        verify(sync.clusterStatusSync, never()).start();
+        verify(sync.housekeeping, never()).start();
+        verify(sync.metricsHousekeeping, never()).start();
+    }
+
+    @Test
+    void electedReplicaStartsSyncing() throws Exception {
+        sync.start();
+
+        electionConfig().getLeaderCallbacks().onStartLeading();
+
+        assertThat(sync.isLeading()).isTrue();
+
+        verify(sync.fleetShardClient).getOrCreateManagedConnectorCluster();
+        verify(sync.fleetShardObservabilityClient).setupObservability();
+        verify(sync.provisioningExecutor).start();
+        verify(sync.resourceSync).start();
+        verify(sync.resourceWatch).start();
+        verify(sync.connectorStatusSync).start();
+        verify(sync.clusterStatusSync).start();
+        verify(sync.housekeeping).start();
+        verify(sync.metricsHousekeeping).start();
+    }
+
+    @Test
+    void leadershipReleasedOnStopDoesNotExit() throws Exception {
+        sync.start();
+
+        LeaderElectionConfig config = electionConfig();
+        assertThat(config.getLock()).isNotNull();
+        assertThat(config.isReleaseOnCancel()).isTrue();
+
+        config.getLeaderCallbacks().onStartLeading();
+
+        sync.stop();
+
+        // the lease is released on stop, which must not terminate the replica as a lost leadership would
+        config.getLeaderCallbacks().onStopLeading();
+
+        assertThat(sync.isLeading()).isFalse();
+        verify(sync.resourceSync).close();
+    }
+
+    private LeaderElectionConfig electionConfig() {
+        ArgumentCaptor<LeaderElectionConfig> captor = ArgumentCaptor.forClass(LeaderElectionConfig.class);
+        verify(electorBuilder).withConfig(captor.capture());
+
+        return captor.getValue();
+    }
+}
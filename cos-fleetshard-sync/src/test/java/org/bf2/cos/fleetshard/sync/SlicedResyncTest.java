@@ -0,0 +1,132 @@
+package org.bf2.cos.fleetshard.sync;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SlicedResyncTest {
+    private static final List<String> ITEMS = IntStream.range(0, 100)
+        .mapToObj(i -> "item-" + i)
+        .collect(Collectors.toList());
+
+    @Test
+    void everyItemIsResyncedOncePerWindow() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final SlicedResync<String> resync = new SlicedResync<>(
+            registry, "test", 4, Duration.ofSeconds(60), 0, Function.identity());
+
+        final AtomicInteger snapshots = new AtomicInteger();
+        final List<String> processed = new ArrayList<>();
+        final Instant start = Instant.now();
+
+        // the first bucket is due right away
+        assertThat(resync.run(start, () -> snapshot(snapshots), processed::addAll)).isFalse();
+        assertThat(snapshots).hasValue(1);
+        assertThat(processed).isNotEmpty().allSatisfy(item -> assertThat(resync.bucket(item)).isZero());
+        assertThat(registry.get("test.backlog").gauge().value()).isEqualTo(ITEMS.size() - processed.size());
+
+        // the next bucket is not due before window / buckets
+        assertThat(resync.run(start.plusSeconds(10), () -> snapshot(snapshots), processed::addAll)).isFalse();
+        assertThat(processed).allSatisfy(item -> assertThat(resync.bucket(item)).isZero());
+
+        assertThat(resync.run(start.plusSeconds(15), () -> snapshot(snapshots), processed::addAll)).isFalse();
+        assertThat(resync.run(start.plusSeconds(30), () -> snapshot(snapshots), processed::addAll)).isFalse();
+        assertThat(resync.run(start.plusSeconds(45), () -> snapshot(snapshots), processed::addAll)).isTrue();
+
+        assertThat(snapshots).hasValue(1);
+        assertThat(processed).containsExactlyInAnyOrderElementsOf(ITEMS);
+        assertThat(registry.get("test.backlog").gauge().value()).isZero();
+        assertThat(registry.get("test.bucket").timers()).hasSize(4).allSatisfy(t -> assertThat(t.count()).isEqualTo(1));
+
+        // a new window starts with a new snapshot
+        assertThat(resync.run(start.plusSeconds(60), () -> snapshot(snapshots), processed::addAll)).isFalse();
+        assertThat(snapshots).hasValue(2);
+    }
+
+    @Test
+    void overdueBucketsAreResyncedInOneRun() {
+        final SlicedResync<String> resync = new SlicedResync<>(
+            new SimpleMeterRegistry(), "test", 4, Duration.ofSeconds(60), 0, Function.identity());
+
+        final List<String> processed = new ArrayList<>();
+        final Instant start = Instant.now();
+
+        resync.run(start, () -> ITEMS, processed::addAll);
+
+        // the runs are less frequent than the buckets, i.e. the poll interval is longer than window / buckets
+        assertThat(resync.run(start.plusSeconds(40), () -> ITEMS, processed::addAll)).isFalse();
+        assertThat(processed)
+            .allSatisfy(item -> assertThat(resync.bucket(item)).isLessThan(3))
+            .anySatisfy(item -> assertThat(resync.bucket(item)).isEqualTo(2));
+
+        assertThat(resync.run(start.plusSeconds(80), () -> ITEMS, processed::addAll)).isTrue();
+        assertThat(processed).containsExactlyInAnyOrderElementsOf(ITEMS);
+
+        // the next window does not start before window / buckets
+        assertThat(resync.run(start.plusSeconds(90), () -> ITEMS, processed::addAll)).isFalse();
+        assertThat(processed).hasSize(ITEMS.size());
+    }
+
+    @Test
+    void failedBucketIsRetried() {
+        final SlicedResync<String> resync = new SlicedResync<>(
+            new SimpleMeterRegistry(), "test", 2, Duration.ofSeconds(60), 0, Function.identity());
+
+        final List<String> processed = new ArrayList<>();
+        final Instant start = Instant.now();
+
+        resync.run(start, () -> ITEMS, processed::addAll);
+
+        assertThatThrownBy(() -> resync.run(start.plusSeconds(30), () -> ITEMS, items -> {
+            throw new IllegalStateException("failure");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(resync.run(start.plusSeconds(31), () -> ITEMS, processed::addAll)).isTrue();
+        assertThat(processed).containsExactlyInAnyOrderElementsOf(ITEMS);
+    }
+
+    @Test
+    void resyncCanBeDeferred() {
+        final SlicedResync<String> resync = new SlicedResync<>(
+            new SimpleMeterRegistry(), "test", 2, Duration.ofSeconds(60), 0, Function.identity());
+
+        final List<String> processed = new ArrayList<>();
+        final Instant start = Instant.now();
+
+        resync.defer(start);
+
+        resync.run(start.plusSeconds(10), () -> ITEMS, processed::addAll);
+        assertThat(processed).isEmpty();
+
+        resync.run(start.plusSeconds(30), () -> ITEMS, processed::addAll);
+        assertThat(processed).isNotEmpty();
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThatThrownBy(() -> new SlicedResync<String>(
+            new SimpleMeterRegistry(), "test", 0, Duration.ofSeconds(60), 0, Function.identity()))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SlicedResync<String>(
+            new SimpleMeterRegistry(), "test", 2, Duration.ofSeconds(60), 1, Function.identity()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<String> snapshot(AtomicInteger snapshots) {
+        snapshots.incrementAndGet();
+        return ITEMS;
+    }
+}
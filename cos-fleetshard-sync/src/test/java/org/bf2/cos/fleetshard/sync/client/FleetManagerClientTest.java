@@ -0,0 +1,189 @@
+package org.bf2.cos.fleetshard.sync.client;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+public class FleetManagerClientTest {
+    private static final Map<String, List<String>> PAGES = Map.of(
+        "1", List.of("a", "b"),
+        "2", List.of("c", "d"),
+        "3", List.of("e"));
+
+    private FleetManagerClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.destroy();
+        }
+    }
+
+    @Test
+    void pagesAreConsumedInOrderOnce() throws Exception {
+        client = client(true);
+
+        final List<String> fetched = new CopyOnWriteArrayList<>();
+        final List<List<String>> consumed = new CopyOnWriteArrayList<>();
+
+        client.page(
+            FleetManagerClient.TYPE_DEPLOYMENTS,
+            client.deploymentsPageTimer,
+            client.deploymentsPageRetries,
+            page -> {
+                fetched.add(page);
+                return PAGES.get(page);
+            },
+            items -> items,
+            items -> 5,
+            consumed::add);
+
+        assertThat(fetched).containsExactly("1", "2", "3");
+        assertThat(consumed).containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e"));
+    }
+
+    @Test
+    void nextPageIsPrefetchedWhileConsuming() throws Exception {
+        client = client(true);
+
+        final CountDownLatch prefetched = new CountDownLatch(1);
+        final List<Boolean> overlapped = new CopyOnWriteArrayList<>();
+
+        client.page(
+            FleetManagerClient.TYPE_DEPLOYMENTS,
+            client.deploymentsPageTimer,
+            client.deploymentsPageRetries,
+            page -> {
+                if ("2".equals(page)) {
+                    prefetched.countDown();
+                }
+                return PAGES.get(page);
+            },
+            items -> items,
+            items -> 5,
+            items -> {
+                if (items.contains("a")) {
+                    // the second page must be requested before the first one has been consumed
+                    overlapped.add(await(prefetched));
+                }
+            });
+
+        assertThat(overlapped).containsExactly(true);
+    }
+
+    @Test
+    void prefetchIsCancelledWhenConsumerFails() throws Exception {
+        client = client(true);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final List<String> fetched = new CopyOnWriteArrayList<>();
+
+        assertThatThrownBy(() -> client.page(
+            FleetManagerClient.TYPE_DEPLOYMENTS,
+            client.deploymentsPageTimer,
+            client.deploymentsPageRetries,
+            page -> {
+                fetched.add(page);
+
+                if ("2".equals(page)) {
+                    started.countDown();
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                }
+
+                return PAGES.get(page);
+            },
+            items -> items,
+            items -> 5,
+            items -> {
+                await(started);
+                throw new IllegalStateException("boom");
+            }))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("boom");
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fetched).containsExactly("1", "2");
+    }
+
+    @Test
+    void pagesAreFetchedSequentiallyWithoutPrefetch() throws Exception {
+        client = client(false);
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+
+        client.page(
+            FleetManagerClient.TYPE_NAMESPACES,
+            client.namespacesPageTimer,
+            client.namespacesPageRetries,
+            page -> {
+                events.add("fetch-" + page);
+                return PAGES.get(page);
+            },
+            items -> items,
+            items -> 5,
+            items -> events.add("consume-" + items.get(0)));
+
+        assertThat(events).containsExactly("fetch-1", "consume-a", "fetch-2", "consume-c", "fetch-3", "consume-e");
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static FleetManagerClient client(boolean prefetch) {
+        FleetShardSyncConfig config = Mockito.mock(FleetShardSyncConfig.class);
+
+        FleetShardSyncConfig.Cluster cluster = Mockito.mock(FleetShardSyncConfig.Cluster.class);
+        when(cluster.id()).thenReturn("cid");
+        when(config.cluster()).thenReturn(cluster);
+
+        FleetShardSyncConfig.Metrics metrics = Mockito.mock(FleetShardSyncConfig.Metrics.class);
+        when(metrics.baseName()).thenReturn("base");
+        when(config.metrics()).thenReturn(metrics);
+
+        FleetShardSyncConfig.Manager manager = Mockito.mock(FleetShardSyncConfig.Manager.class);
+        when(manager.uri()).thenReturn(URI.create("http://localhost:8080"));
+        when(manager.connectTimeout()).thenReturn(Duration.ofSeconds(1));
+        when(manager.readTimeout()).thenReturn(Duration.ofSeconds(1));
+        when(manager.pageSize()).thenReturn(Optional.of(2));
+        when(manager.pagePrefetch()).thenReturn(prefetch);
+        when(manager.pageRetries()).thenReturn(0);
+        when(manager.pageRetryDelay()).thenReturn(Duration.ZERO);
+        when(config.manager()).thenReturn(manager);
+
+        FleetShardSyncConfig.Watch watch = Mockito.mock(FleetShardSyncConfig.Watch.class);
+        when(watch.enabled()).thenReturn(false);
+        FleetShardSyncConfig.Resources resources = Mockito.mock(FleetShardSyncConfig.Resources.class);
+        when(resources.watch()).thenReturn(watch);
+        when(config.resources()).thenReturn(resources);
+
+        return new FleetManagerClient(config, new AuthRequestFilter(), new SimpleMeterRegistry());
+    }
+}
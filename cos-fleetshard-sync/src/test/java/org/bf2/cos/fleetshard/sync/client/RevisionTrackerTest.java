@@ -0,0 +1,79 @@
+package org.bf2.cos.fleetshard.sync.client;
+
+import org.bf2.cos.fleetshard.support.resources.Resources;
+import org.junit.jupiter.api.Test;
+
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.api.model.NamespaceBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RevisionTrackerTest {
+
+    @Test
+    void maxIsTrackedIncrementally() {
+        final RevisionTracker<Namespace> tracker = tracker();
+
+        assertThat(tracker.max()).isZero();
+
+        tracker.onAdd(namespace("ns1", 1));
+        tracker.onAdd(namespace("ns2", 5));
+        tracker.onAdd(namespace("ns3", 3));
+
+        assertThat(tracker.max()).isEqualTo(5);
+        assertThat(tracker.size()).isEqualTo(3);
+
+        tracker.onUpdate(namespace("ns1", 1), namespace("ns1", 7));
+        assertThat(tracker.max()).isEqualTo(7);
+
+        tracker.onDelete(namespace("ns1", 7), false);
+        assertThat(tracker.max()).isEqualTo(5);
+
+        tracker.onDelete(namespace("ns2", 5), true);
+        assertThat(tracker.max()).isEqualTo(3);
+        assertThat(tracker.size()).isEqualTo(1);
+
+        tracker.onDelete(namespace("ns3", 3), false);
+        assertThat(tracker.max()).isZero();
+        assertThat(tracker.size()).isZero();
+    }
+
+    @Test
+    void duplicatedRevisionsAreCounted() {
+        final RevisionTracker<Namespace> tracker = tracker();
+
+        tracker.onAdd(namespace("ns1", 5));
+        tracker.onAdd(namespace("ns2", 5));
+        tracker.onUpdate(namespace("ns2", 5), namespace("ns2", 5));
+
+        tracker.onDelete(namespace("ns1", 5), false);
+        assertThat(tracker.max()).isEqualTo(5);
+
+        tracker.onUpdate(namespace("ns2", 5), namespace("ns2", 2));
+        assertThat(tracker.max()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownDeletesAreIgnored() {
+        final RevisionTracker<Namespace> tracker = tracker();
+
+        tracker.onAdd(namespace("ns1", 5));
+        tracker.onDelete(namespace("ns2", 9), true);
+
+        assertThat(tracker.max()).isEqualTo(5);
+    }
+
+    private static RevisionTracker<Namespace> tracker() {
+        return new RevisionTracker<>(
+            n -> Long.parseLong(Resources.getAnnotation(n, Resources.ANNOTATION_NAMESPACE_RESOURCE_VERSION)));
+    }
+
+    private static Namespace namespace(String name, long revision) {
+        return new NamespaceBuilder()
+            .withNewMetadata()
+            .withName(name)
+            .addToAnnotations(Resources.ANNOTATION_NAMESPACE_RESOURCE_VERSION, Long.toString(revision))
+            .endMetadata()
+            .build();
+    }
+}
@@ -1,5 +1,6 @@
 package org.bf2.cos.fleetshard.sync.connector;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -207,6 +208,10 @@ public final class ConnectorTestSupport {
     }
 
     public static FleetShardSyncConfig config() {
+        return config(false);
+    }
+
+    public static FleetShardSyncConfig config(boolean skipUnchangedDeployments) {
         FleetShardSyncConfig answer = Mockito.mock(FleetShardSyncConfig.class);
         when(answer.connectors()).thenAnswer(invocation -> {
             var connectors = Mockito.mock(FleetShardSyncConfig.Connectors.class);
@@ -214,6 +219,21 @@ public final class ConnectorTestSupport {
             when(connectors.labels()).thenReturn(Collections.emptyMap());
             return connectors;
         });
+        when(answer.resources()).thenAnswer(invocation -> {
+            var resources = Mockito.mock(FleetShardSyncConfig.Resources.class);
+            when(resources.skipUnchangedDeployments()).thenReturn(skipUnchangedDeployments);
+            when(resources.provisionRetries()).thenReturn(1);
+            when(resources.provisionRetryDelay()).thenReturn(Duration.ZERO);
+            when(resources.deadLetterInterval()).thenReturn(Duration.ofMinutes(10));
+            when(resources.checkpoint()).thenAnswer(i -> {
+                var checkpoint = Mockito.mock(FleetShardSyncConfig.Checkpoint.class);
+                when(checkpoint.enabled()).thenReturn(true);
+                when(checkpoint.name()).thenReturn("cos-fleetshard-sync-checkpoint");
+                when(checkpoint.interval()).thenReturn(Duration.ofSeconds(30));
+                return checkpoint;
+            });
+            return resources;
+        });
         when(answer.imagePullSecretsName()).thenAnswer(invocation -> {
             return "foo";
         });
@@ -0,0 +1,70 @@
+package org.bf2.cos.fleetshard.sync.housekeeping;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeletedMetricsIndexTest {
+
+    @Test
+    void connectorsAreExpiredInDeletionOrder() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final DeletedMetricsIndex index = new DeletedMetricsIndex();
+        final Instant now = Instant.now();
+        final Counter c1 = registry.counter("c1");
+        final Counter c2 = registry.counter("c2");
+        final Counter c3 = registry.counter("c3");
+
+        index.add("d2", now.plusSeconds(60), List.of(c2));
+        index.add("d1", now, List.of(c1));
+        index.add("d3", now.plusSeconds(120), List.of(c3));
+
+        assertThat(index.count()).isEqualTo(3);
+        assertThat(index.expire(now)).isEmpty();
+        assertThat(index.expire(now.plusSeconds(90))).containsExactly(c1, c2);
+        assertThat(index.expire(now.plusSeconds(90))).isEmpty();
+        assertThat(index.count()).isEqualTo(1);
+    }
+
+    @Test
+    void deletionTimeIsRetained() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final DeletedMetricsIndex index = new DeletedMetricsIndex();
+        final Instant now = Instant.now();
+        final Counter c1 = registry.counter("c1");
+        final Counter c2 = registry.counter("c2");
+
+        index.add("d1", now, List.of(c1));
+        index.add("d1", now.plus(Duration.ofHours(1)), List.of(c1, c2));
+
+        assertThat(index.count()).isEqualTo(1);
+        assertThat(index.expire(now.plusSeconds(1))).containsExactly(c1, c2);
+    }
+
+    @Test
+    void forgottenConnectorsAreSkipped() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final DeletedMetricsIndex index = new DeletedMetricsIndex();
+        final Instant now = Instant.now();
+        final Counter c1 = registry.counter("c1");
+
+        index.add("d1", now, List.of(c1));
+        index.remove("d1");
+
+        assertThat(index.count()).isZero();
+        assertThat(index.expire(now.plusSeconds(1))).isEmpty();
+
+        index.add("d1", now.plusSeconds(10), List.of(c1));
+
+        assertThat(index.expire(now.plusSeconds(1))).isEmpty();
+        assertThat(index.expire(now.plusSeconds(11))).containsExactly(c1);
+    }
+}
@@ -1,17 +1,22 @@
 package org.bf2.cos.fleetshard.sync.resources;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 
 import org.bf2.cos.fleet.manager.model.ConnectorDeployment;
+import org.bf2.cos.fleet.manager.model.ConnectorDeploymentStatus;
 import org.bf2.cos.fleet.manager.model.ServiceAccount;
 import org.bf2.cos.fleetshard.api.ManagedConnector;
 import org.bf2.cos.fleetshard.api.ManagedConnectorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorBuilder;
+import org.bf2.cos.fleetshard.api.ManagedConnectorOperatorSpecBuilder;
 import org.bf2.cos.fleetshard.api.ManagedConnectorSpec;
 import org.bf2.cos.fleetshard.support.client.EventClient;
 import org.bf2.cos.fleetshard.support.metrics.MetricsRecorder;
 import org.bf2.cos.fleetshard.support.resources.Connectors;
 import org.bf2.cos.fleetshard.support.resources.Secrets;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
 import org.bf2.cos.fleetshard.sync.connector.ConnectorTestSupport;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -22,6 +27,10 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,7 +40,11 @@ import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_DEPLOYMEN
 import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_DEPLOYMENT_RESOURCE_VERSION;
 import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_UOW;
 import static org.bf2.cos.fleetshard.sync.connector.ConnectorTestSupport.createDeployment;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class ConnectorProvisionerTest {
     private static final String CLUSTER_ID = UUID.randomUUID().toString();
@@ -51,11 +64,15 @@ public class ConnectorProvisionerTest {
 
         final ConnectorDeploymentProvisioner provisioner = new ConnectorDeploymentProvisioner();
         provisioner.config = ConnectorTestSupport.config();
-        ;
         provisioner.fleetShard = ConnectorTestSupport.fleetShard(CLUSTER_ID, connectors, secrets);
         provisioner.fleetManager = ConnectorTestSupport.fleetManagerClient();
         provisioner.eventClient = Mockito.mock(EventClient.class);
         provisioner.recorder = Mockito.mock(MetricsRecorder.class);
+        provisioner.applied = Mockito.mock(Counter.class);
+        provisioner.skipped = Mockito.mock(Counter.class);
+        provisioner.retried = Mockito.mock(Counter.class);
+        provisioner.deadLettered = Mockito.mock(Counter.class);
+        provisioner.checkpoint = Mockito.mock(ResourceCheckpoint.class);
 
         //
         // When deployment is applied
@@ -161,6 +178,11 @@ public class ConnectorProvisionerTest {
         provisioner.fleetManager = ConnectorTestSupport.fleetManagerClient();
         provisioner.eventClient = Mockito.mock(EventClient.class);
         provisioner.recorder = Mockito.mock(MetricsRecorder.class);
+        provisioner.applied = Mockito.mock(Counter.class);
+        provisioner.skipped = Mockito.mock(Counter.class);
+        provisioner.retried = Mockito.mock(Counter.class);
+        provisioner.deadLettered = Mockito.mock(Counter.class);
+        provisioner.checkpoint = Mockito.mock(ResourceCheckpoint.class);
 
         final ArgumentCaptor<Secret> sc = ArgumentCaptor.forClass(Secret.class);
         final ArgumentCaptor<ManagedConnector> mcc = ArgumentCaptor.forClass(ManagedConnector.class);
@@ -280,6 +302,11 @@ public class ConnectorProvisionerTest {
         provisioner.fleetManager = ConnectorTestSupport.fleetManagerClient();
         provisioner.eventClient = Mockito.mock(EventClient.class);
         provisioner.recorder = Mockito.mock(MetricsRecorder.class);
+        provisioner.applied = Mockito.mock(Counter.class);
+        provisioner.skipped = Mockito.mock(Counter.class);
+        provisioner.retried = Mockito.mock(Counter.class);
+        provisioner.deadLettered = Mockito.mock(Counter.class);
+        provisioner.checkpoint = Mockito.mock(ResourceCheckpoint.class);
 
         final ArgumentCaptor<Secret> sc = ArgumentCaptor.forClass(Secret.class);
         final ArgumentCaptor<ManagedConnector> mcc = ArgumentCaptor.forClass(ManagedConnector.class);
@@ -362,4 +389,244 @@ public class ConnectorProvisionerTest {
             });
         });
     }
+
+    @Test
+    void reapplyUnchangedResourcesByDefault() {
+        //
+        // Given that the resources associated to the provided deployment have been provisioned
+        //
+        final ConnectorDeployment deployment = createDeployment(1);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorDeploymentProvisioner provisioner = provisioner(registry);
+
+        provisioner.provision(deployment);
+
+        final String uow = provisioner.fleetShard.getConnector(deployment).orElseThrow()
+            .getSpec().getDeployment().getUnitOfWork();
+
+        //
+        // When the same deployment is re-synced
+        //
+        provisioner.provision(createDeployment(1, d -> {
+            d.getSpec().setServiceAccount(deployment.getSpec().getServiceAccount());
+        }));
+
+        //
+        // Then the resources must be re-applied with a new unit of work, so the operator repairs any drift of the
+        // operands
+        //
+        verify(provisioner.fleetShard, times(2)).createSecret(any(Secret.class));
+        verify(provisioner.fleetShard, times(2)).createConnector(any(ManagedConnector.class));
+
+        assertThat(provisioner.fleetShard.getConnector(deployment).orElseThrow().getSpec().getDeployment().getUnitOfWork())
+            .isNotEqualTo(uow);
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_APPLIED).count()).isEqualTo(2);
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_SKIPPED).count()).isZero();
+    }
+
+    @Test
+    void skipUnchangedResources() {
+        //
+        // Given that the resources associated to the provided deployment have been provisioned
+        //
+        final ConnectorDeployment deployment = createDeployment(1);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorDeploymentProvisioner provisioner = provisioner(registry, true);
+
+        provisioner.provision(deployment);
+
+        final String uow = provisioner.fleetShard.getConnector(deployment).orElseThrow()
+            .getSpec().getDeployment().getUnitOfWork();
+
+        //
+        // When the same deployment is re-synced
+        //
+        provisioner.provision(createDeployment(1, d -> {
+            d.getSpec().setServiceAccount(deployment.getSpec().getServiceAccount());
+        }));
+
+        //
+        // Then no resource must be written
+        //
+        verify(provisioner.fleetShard, times(1)).createSecret(any(Secret.class));
+        verify(provisioner.fleetShard, times(1)).createConnector(any(ManagedConnector.class));
+
+        assertThat(provisioner.fleetShard.getConnector(deployment).orElseThrow().getSpec().getDeployment().getUnitOfWork())
+            .isEqualTo(uow);
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_APPLIED).count()).isEqualTo(1);
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_SKIPPED).count()).isEqualTo(1);
+    }
+
+    @Test
+    void applyChangedResources() {
+        //
+        // Given that the resources associated to the provided deployment have been provisioned
+        //
+        final ConnectorDeployment deployment = createDeployment(1);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorDeploymentProvisioner provisioner = provisioner(registry, true);
+
+        provisioner.provision(deployment);
+
+        final String uow = provisioner.fleetShard.getConnector(deployment).orElseThrow()
+            .getSpec().getDeployment().getUnitOfWork();
+
+        //
+        // When the secret is amended outside the control of the fleet manager and the deployment is re-synced
+        //
+        Secrets.set(provisioner.fleetShard.getSecret(deployment).orElseThrow(), Secrets.SECRET_ENTRY_CONNECTOR, "{}");
+
+        provisioner.provision(deployment);
+
+        //
+        // Then the resources must be re-applied with a new unit of work
+        //
+        verify(provisioner.fleetShard, times(2)).createSecret(any(Secret.class));
+        verify(provisioner.fleetShard, times(2)).createConnector(any(ManagedConnector.class));
+
+        assertThat(provisioner.fleetShard.getConnector(deployment).orElseThrow().getSpec().getDeployment().getUnitOfWork())
+            .isNotEqualTo(uow);
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_APPLIED).count()).isEqualTo(2);
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_SKIPPED).count()).isZero();
+
+        //
+        // When the deployment gets a new resource version
+        //
+        provisioner.provision(createDeployment(2, d -> {
+            d.getSpec().setServiceAccount(deployment.getSpec().getServiceAccount());
+        }));
+
+        //
+        // Then the resources must be re-applied
+        //
+        verify(provisioner.fleetShard, times(3)).createSecret(any(Secret.class));
+        verify(provisioner.fleetShard, times(3)).createConnector(any(ManagedConnector.class));
+
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_APPLIED).count()).isEqualTo(3);
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_SKIPPED).count()).isZero();
+    }
+
+    @Test
+    void failingDeploymentIsDeadLettered() {
+        //
+        // Given a deployment whose connector cannot be created
+        //
+        final ConnectorDeployment deployment = createDeployment(1);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorDeploymentProvisioner provisioner = provisioner(registry);
+
+        provisioner.recorder = MetricsRecorder.of(registry, ConnectorDeploymentProvisioner.METRICS_SUFFIX);
+
+        when(provisioner.fleetShard.createConnector(any(ManagedConnector.class)))
+            .thenThrow(new KubernetesClientException("failure"));
+
+        //
+        // When the deployment is provisioned twice
+        //
+        provisioner.provisionConnector(deployment);
+        provisioner.provisionConnector(deployment);
+
+        //
+        // Then it must be retried and reported only once
+        //
+        verify(provisioner.fleetShard, times(2)).createConnector(any(ManagedConnector.class));
+        verify(provisioner.fleetManager, times(1))
+            .updateConnectorStatus(eq(CLUSTER_ID), eq(deployment.getId()), any(ConnectorDeploymentStatus.class));
+
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_RETRIED).count()).isEqualTo(1);
+        assertThat(registry.counter(ConnectorDeploymentProvisioner.METRICS_DEAD_LETTER).count()).isEqualTo(1);
+
+        //
+        // When the deployment gets a new resource version
+        //
+        provisioner.provisionConnector(createDeployment(2, d -> {
+            d.getSpec().setServiceAccount(deployment.getSpec().getServiceAccount());
+        }));
+
+        //
+        // Then it must be attempted and reported again
+        //
+        verify(provisioner.fleetShard, times(4)).createConnector(any(ManagedConnector.class));
+        verify(provisioner.fleetManager, times(2))
+            .updateConnectorStatus(eq(CLUSTER_ID), eq(deployment.getId()), any(ConnectorDeploymentStatus.class));
+    }
+
+    @Test
+    void deadLetteredDeploymentIsRetriedOnceDue() {
+        //
+        // Given a deployment whose connector fails to be created until the retries are exhausted
+        //
+        final ConnectorDeployment deployment = createDeployment(1);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorDeploymentProvisioner provisioner = provisioner(registry);
+
+        provisioner.recorder = MetricsRecorder.of(registry, ConnectorDeploymentProvisioner.METRICS_SUFFIX);
+        provisioner.executor = new ProvisioningExecutor();
+
+        when(provisioner.fleetShard.createConnector(any(ManagedConnector.class)))
+            .thenThrow(new KubernetesClientException("failure"))
+            .thenThrow(new KubernetesClientException("failure"))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        //
+        // When the deployment is provisioned
+        //
+        // Then it must not be accounted as applied, and its revision must be excluded from the revision polling resumes
+        // from
+        //
+        assertThat(provisioner.provisionConnectors(List.of(deployment))).isZero();
+        assertThat(provisioner.getDeadLetteredRevision()).isEqualTo(1L);
+
+        //
+        // When the dead letter interval has not elapsed
+        //
+        // Then it must not be retried
+        //
+        assertThat(provisioner.retryDeadLetters()).isZero();
+        verify(provisioner.fleetShard, times(2)).createConnector(any(ManagedConnector.class));
+
+        //
+        // When the dead letter interval has elapsed
+        //
+        // Then it must be retried and not be dead lettered anymore
+        //
+        final FleetShardSyncConfig.Resources resources = provisioner.config.resources();
+        when(resources.deadLetterInterval()).thenReturn(Duration.ZERO);
+        when(provisioner.config.resources()).thenReturn(resources);
+
+        assertThat(provisioner.retryDeadLetters()).isEqualTo(1);
+        assertThat(provisioner.getDeadLetteredRevision()).isZero();
+        verify(provisioner.fleetShard, times(3)).createConnector(any(ManagedConnector.class));
+    }
+
+    private static ConnectorDeploymentProvisioner provisioner(MeterRegistry registry) {
+        return provisioner(registry, false);
+    }
+
+    private static ConnectorDeploymentProvisioner provisioner(MeterRegistry registry, boolean skipUnchangedDeployments) {
+        final ConnectorDeploymentProvisioner provisioner = new ConnectorDeploymentProvisioner();
+        provisioner.config = ConnectorTestSupport.config(skipUnchangedDeployments);
+        provisioner.fleetShard = ConnectorTestSupport.fleetShard(CLUSTER_ID, List.of(), List.of());
+        provisioner.fleetManager = ConnectorTestSupport.fleetManagerClient();
+        provisioner.eventClient = Mockito.mock(EventClient.class);
+        provisioner.recorder = Mockito.mock(MetricsRecorder.class);
+        provisioner.applied = registry.counter(ConnectorDeploymentProvisioner.METRICS_APPLIED);
+        provisioner.skipped = registry.counter(ConnectorDeploymentProvisioner.METRICS_SKIPPED);
+        provisioner.retried = registry.counter(ConnectorDeploymentProvisioner.METRICS_RETRIED);
+        provisioner.deadLettered = registry.counter(ConnectorDeploymentProvisioner.METRICS_DEAD_LETTER);
+        provisioner.checkpoint = Mockito.mock(ResourceCheckpoint.class);
+
+        when(provisioner.fleetShard.getOperators()).thenReturn(List.of(
+            new ManagedConnectorOperatorBuilder()
+                .withMetadata(new ObjectMetaBuilder()
+                    .withName("cos-camel-operator")
+                    .build())
+                .withSpec(new ManagedConnectorOperatorSpecBuilder()
+                    .withType("camel-connector-operator")
+                    .withVersion("1.1.0")
+                    .build())
+                .build()));
+
+        return provisioner;
+    }
 }
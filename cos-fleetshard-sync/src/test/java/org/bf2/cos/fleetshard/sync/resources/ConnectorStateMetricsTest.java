@@ -0,0 +1,108 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import org.bf2.cos.fleet.manager.model.ConnectorState;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectorStateMetricsTest {
+    private static final String GAUGE = "connector.state";
+    private static final String COUNTER = "connector.state.count";
+
+    @Test
+    void gaugeIsRegisteredOnce() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorStateMetrics metrics = new ConnectorStateMetrics(registry, GAUGE, COUNTER);
+        final Tags tags = Tags.of("cos.deployment.id", "d1");
+
+        metrics.record("d1", tags, ConnectorState.PROVISIONING);
+        final Gauge gauge = registry.find(GAUGE).gauge();
+
+        for (int i = 0; i < 10; i++) {
+            metrics.record("d1", tags, ConnectorState.READY);
+            metrics.record("d1", tags, ConnectorState.FAILED);
+        }
+
+        assertThat(registry.find(GAUGE).gauges()).containsExactly(gauge);
+        assertThat(gauge.value()).isEqualTo(ConnectorStateMetrics.CONNECTOR_STATE_FAILED);
+
+        assertThat(registry.find(COUNTER).counters())
+            .hasSize(4)
+            .allSatisfy(c -> assertThat(c.getId().getTag("cos.deployment.id")).isEqualTo("d1"));
+
+        assertThat(counter(registry, "ready").count()).isEqualTo(10);
+        assertThat(counter(registry, "failed").count()).isEqualTo(10);
+        assertThat(counter(registry, ConnectorStateMetrics.STATE_FAILED_BUT_READY).count()).isEqualTo(10);
+    }
+
+    @Test
+    void failedButReadyRequiresReady() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorStateMetrics metrics = new ConnectorStateMetrics(registry, GAUGE, COUNTER);
+
+        metrics.record("d1", Tags.of("cos.deployment.id", "d1"), ConnectorState.FAILED);
+
+        assertThat(counter(registry, "failed").count()).isEqualTo(1);
+        assertThat(registry.find(COUNTER).tag(ConnectorStateMetrics.TAG_STATE, ConnectorStateMetrics.STATE_FAILED_BUT_READY)
+            .counter()).isNull();
+    }
+
+    @Test
+    void metersAreReplacedWhenTagsChange() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorStateMetrics metrics = new ConnectorStateMetrics(registry, GAUGE, COUNTER);
+
+        metrics.record("d1", Tags.of("cos.deployment.id", "d1", "group", "foo"), ConnectorState.READY);
+        metrics.record("d1", Tags.of("cos.deployment.id", "d1", "group", "bar"), ConnectorState.READY);
+
+        assertThat(registry.getMeters())
+            .hasSize(2)
+            .allSatisfy(m -> assertThat(m.getId().getTag("group")).isEqualTo("bar"));
+    }
+
+    @Test
+    void metersAreRemoved() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorStateMetrics metrics = new ConnectorStateMetrics(registry, GAUGE, COUNTER);
+
+        metrics.record("d1", Tags.of("cos.deployment.id", "d1"), ConnectorState.READY);
+        metrics.record("d2", Tags.of("cos.deployment.id", "d2"), ConnectorState.READY);
+        metrics.remove("d1");
+
+        assertThat(metrics.count()).isEqualTo(1);
+        assertThat(registry.getMeters())
+            .hasSize(2)
+            .allSatisfy(m -> assertThat(m.getId().getTag("cos.deployment.id")).isEqualTo("d2"));
+    }
+
+    @Test
+    void connectorsAreForgottenWhenTheirMetersAreRemoved() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final ConnectorStateMetrics metrics = new ConnectorStateMetrics(registry, GAUGE, COUNTER);
+
+        metrics.record("d1", Tags.of("cos.deployment.id", "d1"), ConnectorState.DELETED);
+        metrics.record("d2", Tags.of("cos.deployment.id", "d2"), ConnectorState.READY);
+
+        assertThat(metrics.meters("d1")).hasSize(2);
+
+        metrics.meters("d1").forEach(registry::remove);
+
+        assertThat(metrics.count()).isEqualTo(1);
+        assertThat(metrics.meters("d1")).isEmpty();
+
+        metrics.record("d1", Tags.of("cos.deployment.id", "d1"), ConnectorState.DELETED);
+
+        assertThat(registry.find(GAUGE).tag("cos.deployment.id", "d1").gauge()).isNotNull();
+        assertThat(counter(registry, "deleted").count()).isEqualTo(1);
+    }
+
+    private static Counter counter(MeterRegistry registry, String state) {
+        return registry.find(COUNTER).tag(ConnectorStateMetrics.TAG_STATE, state).counter();
+    }
+}
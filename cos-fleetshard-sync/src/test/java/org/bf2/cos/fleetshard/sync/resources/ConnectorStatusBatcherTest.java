@@ -0,0 +1,82 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectorStatusBatcherTest {
+
+    @Test
+    void batchIsFlushedWhenFull() {
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+        try (ConnectorStatusBatcher<String> batcher = new ConnectorStatusBatcher<>(
+            3, Duration.ofMinutes(1), Function.identity(), batches::add)) {
+
+            batcher.submit("a");
+            batcher.submit("b");
+
+            assertThat(batches).isEmpty();
+            assertThat(batcher.size()).isEqualTo(2);
+
+            batcher.submit("c");
+
+            assertThat(batches).containsExactly(List.of("a", "b", "c"));
+            assertThat(batcher.size()).isZero();
+        }
+    }
+
+    @Test
+    void pendingUpdatesAreCoalesced() {
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+        try (ConnectorStatusBatcher<String> batcher = new ConnectorStatusBatcher<>(
+            10, Duration.ofMinutes(1), s -> s.substring(0, 1), batches::add)) {
+
+            batcher.submit("a1");
+            batcher.submit("b1");
+            batcher.submit("a2");
+            batcher.flush();
+
+            assertThat(batches).containsExactly(List.of("a2", "b1"));
+        }
+    }
+
+    @Test
+    void batchIsFlushedWhenWindowExpires() throws Exception {
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        try (ConnectorStatusBatcher<String> batcher = new ConnectorStatusBatcher<>(
+            10, Duration.ofMillis(50), Function.identity(), b -> {
+                batches.add(b);
+                latch.countDown();
+            })) {
+
+            batcher.submit("a");
+
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(batches).containsExactly(List.of("a"));
+        }
+    }
+
+    @Test
+    void pendingUpdatesAreFlushedOnClose() {
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+        ConnectorStatusBatcher<String> batcher = new ConnectorStatusBatcher<>(
+            10, Duration.ofMinutes(1), Function.identity(), batches::add);
+
+        batcher.submit("a");
+        batcher.close();
+
+        assertThat(batches).containsExactly(List.of("a"));
+    }
+}
@@ -0,0 +1,86 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.bf2.cos.fleet.manager.model.ConnectorDeploymentStatus;
+import org.bf2.cos.fleet.manager.model.ConnectorState;
+import org.bf2.cos.fleet.manager.model.MetaV1Condition;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectorStatusCacheTest {
+
+    @Test
+    void hashIgnoresTransitionTime() {
+        assertThat(ConnectorStatusCache.hash(status(ConnectorState.READY, "2023-01-01T00:00:00Z")))
+            .isEqualTo(ConnectorStatusCache.hash(status(ConnectorState.READY, "2023-01-02T00:00:00Z")));
+        assertThat(ConnectorStatusCache.hash(status(ConnectorState.READY, "2023-01-01T00:00:00Z")))
+            .isNotEqualTo(ConnectorStatusCache.hash(status(ConnectorState.FAILED, "2023-01-01T00:00:00Z")));
+    }
+
+    @Test
+    void unchangedStatusesAreRefreshed() {
+        final ConnectorStatusCache cache = new ConnectorStatusCache(10, Duration.ofMinutes(10));
+        final Instant now = Instant.now();
+        final long ready = ConnectorStatusCache.hash(status(ConnectorState.READY, null));
+        final long failed = ConnectorStatusCache.hash(status(ConnectorState.FAILED, null));
+
+        assertThat(cache.isReported("d1", ready, now)).isFalse();
+
+        cache.put("d1", ready, now);
+
+        assertThat(cache.isReported("d1", ready, now.plusSeconds(60))).isTrue();
+        assertThat(cache.isReported("d1", failed, now.plusSeconds(60))).isFalse();
+        assertThat(cache.isReported("d1", ready, now.plus(Duration.ofMinutes(10)))).isFalse();
+
+        cache.remove("d1");
+
+        assertThat(cache.isReported("d1", ready, now)).isFalse();
+    }
+
+    @Test
+    void cacheIsBounded() {
+        final ConnectorStatusCache cache = new ConnectorStatusCache(2, Duration.ofMinutes(10));
+        final Instant now = Instant.now();
+
+        cache.put("d1", 1, now);
+        cache.put("d2", 2, now);
+
+        // access d1 so d2 becomes the eldest entry
+        assertThat(cache.isReported("d1", 1, now)).isTrue();
+
+        cache.put("d3", 3, now);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.isReported("d1", 1, now)).isTrue();
+        assertThat(cache.isReported("d2", 2, now)).isFalse();
+        assertThat(cache.isReported("d3", 3, now)).isTrue();
+    }
+
+    @Test
+    void zeroRefreshIntervalDisablesSuppression() {
+        final ConnectorStatusCache cache = new ConnectorStatusCache(10, Duration.ZERO);
+        final Instant now = Instant.now();
+
+        cache.put("d1", 1, now);
+
+        assertThat(cache.isReported("d1", 1, now)).isFalse();
+    }
+
+    private static ConnectorDeploymentStatus status(ConnectorState state, String transitionTime) {
+        MetaV1Condition condition = new MetaV1Condition();
+        condition.setType("Ready");
+        condition.setStatus("True");
+        condition.setReason("Ready");
+        condition.setLastTransitionTime(transitionTime);
+
+        ConnectorDeploymentStatus status = new ConnectorDeploymentStatus();
+        status.setPhase(state);
+        status.setResourceVersion(1L);
+        status.addConditionsItem(condition);
+
+        return status;
+    }
+}
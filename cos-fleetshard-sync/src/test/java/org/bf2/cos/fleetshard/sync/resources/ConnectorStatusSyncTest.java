@@ -0,0 +1,160 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.ManagedConnectorBuilder;
+import org.bf2.cos.fleetshard.support.metrics.StaticMetricsRecorder;
+import org.bf2.cos.fleetshard.support.resources.NamespacedName;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncScheduler;
+import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectorStatusSyncTest {
+    private final Map<NamespacedName, ManagedConnector> connectors = new ConcurrentHashMap<>();
+    private final List<String> reported = new CopyOnWriteArrayList<>();
+
+    private ConnectorStatusSync sync;
+    private ResourceEventHandler<ManagedConnector> handler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        FleetShardSyncConfig config = Mockito.mock(FleetShardSyncConfig.class);
+        FleetShardSyncConfig.Resources resources = Mockito.mock(FleetShardSyncConfig.Resources.class);
+        when(resources.updateConcurrency()).thenReturn(1);
+        when(resources.updateRateLimit()).thenReturn(0d);
+        when(resources.resyncBuckets()).thenReturn(1);
+        when(resources.resyncInterval()).thenReturn(Duration.ofHours(1));
+        when(resources.updateInterval()).thenReturn(Duration.ofSeconds(15));
+        when(config.resources()).thenReturn(resources);
+        FleetShardSyncConfig.Metrics metrics = Mockito.mock(FleetShardSyncConfig.Metrics.class);
+        when(metrics.baseName()).thenReturn("base");
+        when(config.metrics()).thenReturn(metrics);
+
+        FleetShardClient client = Mockito.mock(FleetShardClient.class);
+        when(client.getAllConnectors()).thenAnswer(i -> List.copyOf(connectors.values()));
+        when(client.getConnector(any(NamespacedName.class)))
+            .thenAnswer(i -> Optional.ofNullable(connectors.get(i.getArgument(0, NamespacedName.class))));
+
+        ConnectorStatusUpdater updater = Mockito.mock(ConnectorStatusUpdater.class);
+        doAnswer(i -> reported.add(i.getArgument(0, ManagedConnector.class).getMetadata().getName()))
+            .when(updater).update(any(ManagedConnector.class));
+
+        sync = new ConnectorStatusSync();
+        sync.config = config;
+        sync.connectorClient = client;
+        sync.updater = updater;
+        sync.registry = registry;
+        sync.scheduler = Mockito.mock(FleetShardSyncScheduler.class);
+        sync.syncRecorder = StaticMetricsRecorder.of(registry, "base.sync");
+        sync.syncTotalRecorder = registry.counter("base.sync.total");
+        sync.updateRecorder = StaticMetricsRecorder.of(registry, "base.update");
+        sync.updateTotalRecorder = registry.counter("base.update.total");
+
+        sync.start();
+
+        ArgumentCaptor<ResourceEventHandler<ManagedConnector>> captor = ArgumentCaptor.forClass(ResourceEventHandler.class);
+        verify(client).watchConnectors(captor.capture());
+        handler = captor.getValue();
+
+        // the first run is a full re-sync, which leaves nothing pending
+        sync.run();
+        reported.clear();
+    }
+
+    @Test
+    void updatesToTheSameConnectorAreCoalesced() {
+        ManagedConnector connector = connector("c1");
+
+        handler.onAdd(connector);
+        handler.onUpdate(connector, connector);
+        handler.onUpdate(connector, connector);
+        handler.onAdd(connector("c2"));
+
+        sync.run();
+
+        assertThat(reported).containsExactlyInAnyOrder("c1", "c2");
+
+        sync.run();
+
+        assertThat(reported).hasSize(2);
+    }
+
+    @Test
+    void updateArrivingDuringUpdateIsReportedOnNextRun() {
+        ManagedConnector connector = connector("c1");
+        AtomicBoolean updated = new AtomicBoolean();
+
+        doAnswer(i -> {
+            reported.add(i.getArgument(0, ManagedConnector.class).getMetadata().getName());
+
+            // the connector changes while its status is being reported
+            if (updated.compareAndSet(false, true)) {
+                handler.onUpdate(connector, connector);
+            }
+            return null;
+        }).when(sync.updater).update(any(ManagedConnector.class));
+
+        handler.onUpdate(connector, connector);
+
+        sync.run();
+        assertThat(reported).containsExactly("c1");
+
+        sync.run();
+        assertThat(reported).containsExactly("c1", "c1");
+
+        sync.run();
+        assertThat(reported).containsExactly("c1", "c1");
+    }
+
+    @Test
+    void deletedConnectorIsNotReported() {
+        ManagedConnector connector = connector("c1");
+
+        handler.onUpdate(connector, connector);
+        connectors.remove(NamespacedName.of(connector));
+        handler.onDelete(connector, false);
+
+        sync.run();
+
+        assertThat(reported).isEmpty();
+        verify(sync.updater).forget(connector);
+    }
+
+    private ManagedConnector connector(String name) {
+        ManagedConnector connector = new ManagedConnectorBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withNamespace("ns")
+                .withName(name)
+                .build())
+            .build();
+
+        connectors.put(NamespacedName.of(connector), connector);
+
+        return connector;
+    }
+}
@@ -0,0 +1,164 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.bf2.cos.fleet.manager.model.ConnectorDeploymentStatus;
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.api.ManagedConnectorBuilder;
+import org.bf2.cos.fleetshard.support.metrics.MetricsRecorderConfig;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.bf2.cos.fleetshard.sync.client.ConnectorDeploymentStatusBatch;
+import org.bf2.cos.fleetshard.sync.client.ConnectorDeploymentStatusBatchResult;
+import org.bf2.cos.fleetshard.sync.client.FleetManagerClient;
+import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
+import org.bf2.cos.fleetshard.sync.housekeeping.MetricsHousekeeper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectorStatusUpdaterTest {
+    private ConnectorStatusUpdater updater;
+
+    @BeforeEach
+    void setUp() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        FleetShardSyncConfig config = Mockito.mock(FleetShardSyncConfig.class);
+        FleetShardSyncConfig.Resources resources = Mockito.mock(FleetShardSyncConfig.Resources.class);
+        when(resources.statusCacheSize()).thenReturn(100);
+        when(resources.statusRefreshInterval()).thenReturn(Duration.ofMinutes(10));
+        when(resources.statusBatchSize()).thenReturn(3);
+        when(resources.statusBatchWindow()).thenReturn(Duration.ofMinutes(1));
+        when(config.resources()).thenReturn(resources);
+        FleetShardSyncConfig.Cluster cluster = Mockito.mock(FleetShardSyncConfig.Cluster.class);
+        when(cluster.id()).thenReturn("cid");
+        when(config.cluster()).thenReturn(cluster);
+        MetricsRecorderConfig.Tags tags = Mockito.mock(MetricsRecorderConfig.Tags.class);
+        when(tags.labels()).thenReturn(Optional.empty());
+        when(tags.annotations()).thenReturn(Optional.empty());
+        MetricsRecorderConfig recorder = Mockito.mock(MetricsRecorderConfig.class);
+        when(recorder.tags()).thenReturn(tags);
+        FleetShardSyncConfig.Metrics metrics = Mockito.mock(FleetShardSyncConfig.Metrics.class);
+        when(metrics.baseName()).thenReturn("base");
+        when(metrics.recorder()).thenReturn(recorder);
+        when(config.metrics()).thenReturn(metrics);
+
+        updater = new ConnectorStatusUpdater();
+        updater.config = config;
+        updater.registry = registry;
+        updater.fleetManagerClient = Mockito.mock(FleetManagerClient.class);
+        updater.connectorClient = Mockito.mock(FleetShardClient.class);
+        updater.housekeeper = Mockito.mock(MetricsHousekeeper.class);
+        updater.sentCounter = registry.counter("base.sent");
+        updater.suppressedCounter = registry.counter("base.suppressed");
+        updater.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        updater.destroy();
+    }
+
+    @Test
+    void outcomesOfBulkUpdatesAreAppliedPerConnector() {
+        //
+        // Given a batch whose second deployment is gone and whose third one is rejected
+        //
+        ManagedConnector c1 = connector("c1", "d1");
+        ManagedConnector c2 = connector("c2", "d2");
+        ManagedConnector c3 = connector("c3", "d3");
+
+        when(updater.fleetManagerClient.updateConnectorStatuses(eq("cid"), any(ConnectorDeploymentStatusBatch.class)))
+            .thenReturn(new ConnectorDeploymentStatusBatchResult()
+                .addItem("d2", 410)
+                .addItem("d3", 500));
+
+        //
+        // When the batch is sent
+        //
+        updater.update(c1);
+        updater.update(c2);
+        updater.update(c3);
+
+        //
+        // Then the gone connector is deleted and the rejected status is sent on its own
+        //
+        verify(updater.connectorClient).deleteConnector(c2);
+        verify(updater.connectorClient, never()).deleteConnector(c1);
+        verify(updater.connectorClient, never()).deleteConnector(c3);
+        verify(updater.fleetManagerClient, never()).updateConnectorStatus(eq(c1), any(ConnectorDeploymentStatus.class));
+        verify(updater.fleetManagerClient, never()).updateConnectorStatus(eq(c2), any(ConnectorDeploymentStatus.class));
+        verify(updater.fleetManagerClient).updateConnectorStatus(eq(c3), any(ConnectorDeploymentStatus.class));
+
+        assertThat(updater.sentCounter.count()).isEqualTo(2);
+
+        //
+        // And only the statuses that have been reported are suppressed
+        //
+        updater.update(c1);
+        updater.update(c2);
+        updater.update(c3);
+        updater.flush();
+
+        assertThat(updater.suppressedCounter.count()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshedStatusesAreNotSuppressed() {
+        ManagedConnector c1 = connector("c1", "d1");
+
+        when(updater.fleetManagerClient.updateConnectorStatuses(eq("cid"), any(ConnectorDeploymentStatusBatch.class)))
+            .thenReturn(new ConnectorDeploymentStatusBatchResult());
+
+        updater.update(c1);
+        updater.flush();
+        updater.update(c1);
+        updater.flush();
+
+        assertThat(updater.sentCounter.count()).isEqualTo(1);
+        assertThat(updater.suppressedCounter.count()).isEqualTo(1);
+
+        // the re-sync reports the status again, the deployment may have been deleted on the Control Plane
+        updater.refresh(c1);
+        updater.flush();
+
+        assertThat(updater.sentCounter.count()).isEqualTo(2);
+        assertThat(updater.suppressedCounter.count()).isEqualTo(1);
+    }
+
+    private static ManagedConnector connector(String name, String deploymentId) {
+        return new ManagedConnectorBuilder()
+            .withMetadata(new ObjectMetaBuilder()
+                .withNamespace("ns")
+                .withName(name)
+                .build())
+            .withNewSpec()
+            .withClusterId("cid")
+            .withConnectorId(name)
+            .withDeploymentId(deploymentId)
+            .withNewDeployment()
+            .withConnectorTypeId("type")
+            .withDeploymentResourceVersion(1L)
+            .endDeployment()
+            .withNewOperatorSelector()
+            .withId("op")
+            .endOperatorSelector()
+            .endSpec()
+            .withNewStatus()
+            .endStatus()
+            .build();
+    }
+}
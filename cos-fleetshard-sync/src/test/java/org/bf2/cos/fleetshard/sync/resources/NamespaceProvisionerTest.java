@@ -1,8 +1,14 @@
 package org.bf2.cos.fleetshard.sync.resources;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.bf2.cos.fleet.manager.model.ConnectorNamespaceDeployment;
 import org.bf2.cos.fleet.manager.model.ConnectorNamespaceState;
@@ -12,6 +18,7 @@ import org.bf2.cos.fleet.manager.model.ConnectorNamespaceTenantKind;
 import org.bf2.cos.fleetshard.api.ManagedConnector;
 import org.bf2.cos.fleetshard.support.client.EventClient;
 import org.bf2.cos.fleetshard.support.metrics.MetricsRecorder;
+import org.bf2.cos.fleetshard.support.resources.NamespacedName;
 import org.bf2.cos.fleetshard.sync.connector.ConnectorTestSupport;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -19,11 +26,19 @@ import org.mockito.Mockito;
 
 import io.fabric8.kubernetes.api.model.Namespace;
 import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.bf2.cos.fleetshard.support.resources.Resources.LABEL_KUBERNETES_NAME;
 import static org.bf2.cos.fleetshard.support.resources.Resources.uid;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class NamespaceProvisionerTest {
     private static final String CLUSTER_ID = UUID.randomUUID().toString();
@@ -51,7 +66,6 @@ public class NamespaceProvisionerTest {
 
         final ConnectorNamespaceProvisioner provisioner = new ConnectorNamespaceProvisioner();
         provisioner.config = ConnectorTestSupport.config();
-        ;
         provisioner.fleetShard = ConnectorTestSupport.fleetShard(CLUSTER_ID, connectors, secrets);
         provisioner.fleetManager = ConnectorTestSupport.fleetManagerClient();
         provisioner.eventClient = Mockito.mock(EventClient.class);
@@ -75,4 +89,135 @@ public class NamespaceProvisionerTest {
 
         });
     }
+
+    @Test
+    void unchangedNamespaceIsNotReplaced() {
+        //
+        // Given a namespace
+        //
+        final ConnectorNamespaceDeployment namespace = namespace();
+        final ConnectorNamespaceProvisioner provisioner = provisioner(namespace);
+
+        //
+        // When the namespace is provisioned and re-synced
+        //
+        provisioner.provision(namespace);
+        provisioner.provision(namespace);
+
+        //
+        // Then resources must be written only once
+        //
+        verify(provisioner.fleetShard, times(1)).createNamespace(any(Namespace.class));
+        verify(provisioner.fleetShard, times(1)).createSecret(any(Secret.class));
+
+        //
+        // When the namespace changes
+        //
+        namespace.resourceVersion(2L);
+
+        provisioner.provision(namespace);
+
+        //
+        // Then only the namespace must be written
+        //
+        verify(provisioner.fleetShard, times(2)).createNamespace(any(Namespace.class));
+        verify(provisioner.fleetShard, times(1)).createSecret(any(Secret.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fullResyncReappliesResources() {
+        //
+        // Given a namespace
+        //
+        final ConnectorNamespaceDeployment namespace = namespace();
+        final ConnectorNamespaceProvisioner provisioner = provisioner(namespace);
+
+        provisioner.executor = Mockito.mock(ProvisioningExecutor.class);
+        provisioner.checkpoint = Mockito.mock(ResourceCheckpoint.class);
+        provisioner.recorder = MetricsRecorder.of(new SimpleMeterRegistry(), "base.namespaces");
+
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Collection.class).forEach(invocation.getArgument(2, Consumer.class));
+            return null;
+        }).when(provisioner.executor).execute(anyCollection(), any(Function.class), any(Consumer.class));
+        doAnswer(invocation -> {
+            invocation.getArgument(1, Consumer.class).accept(List.of(namespace));
+            return null;
+        }).when(provisioner.fleetManager).getNamespaces(anyLong(), any(Consumer.class));
+
+        //
+        // When the namespace is provisioned and polled again
+        //
+        provisioner.poll(1);
+        provisioner.poll(1);
+
+        //
+        // Then resources must be written only once
+        //
+        verify(provisioner.fleetShard, times(1)).createSecret(any(Secret.class));
+
+        //
+        // When the namespaces are fully re-synced
+        //
+        provisioner.poll(0);
+
+        //
+        // Then the resources must be re-applied, in case they have been altered since
+        //
+        verify(provisioner.fleetShard, times(2)).createSecret(any(Secret.class));
+
+        provisioner.poll(1);
+
+        verify(provisioner.fleetShard, times(2)).createSecret(any(Secret.class));
+    }
+
+    private static ConnectorNamespaceDeployment namespace() {
+        final ConnectorNamespaceDeployment namespace = new ConnectorNamespaceDeployment();
+
+        namespace.id(uid());
+        namespace.name("eval");
+        namespace.resourceVersion(1L);
+        namespace.setStatus(new ConnectorNamespaceStatus().state(ConnectorNamespaceState.READY).connectorsDeployed(0));
+        namespace.setTenant(new ConnectorNamespaceTenant().id(uid()).kind(ConnectorNamespaceTenantKind.ORGANISATION));
+        namespace.setExpiration(new Date().toString());
+
+        return namespace;
+    }
+
+    private static ConnectorNamespaceProvisioner provisioner(ConnectorNamespaceDeployment namespace) {
+        final Map<String, Namespace> namespaces = new HashMap<>();
+
+        final ConnectorNamespaceProvisioner provisioner = new ConnectorNamespaceProvisioner();
+        provisioner.config = ConnectorTestSupport.config();
+        provisioner.fleetShard = ConnectorTestSupport.fleetShard(CLUSTER_ID, List.of(), List.of());
+        provisioner.fleetManager = ConnectorTestSupport.fleetManagerClient();
+        provisioner.eventClient = Mockito.mock(EventClient.class);
+        provisioner.recorder = Mockito.mock(MetricsRecorder.class);
+
+        when(provisioner.fleetShard.getSecret(any(NamespacedName.class))).thenReturn(Optional.of(
+            new SecretBuilder()
+                .withNewMetadata().withName("foo").withNamespace("bar").endMetadata()
+                .addToData("foo", "bar")
+                .build()));
+        when(provisioner.fleetShard.generateNamespaceId(any(String.class)))
+            .thenAnswer(invocation -> "mctr-" + invocation.getArgument(0));
+        when(provisioner.fleetShard.getCachedNamespace(any(String.class)))
+            .thenAnswer(invocation -> Optional.ofNullable(namespaces.get(invocation.getArgument(0, String.class))));
+        when(provisioner.fleetShard.createNamespace(any(Namespace.class)))
+            .thenAnswer(invocation -> {
+                Namespace answer = invocation.getArgument(0, Namespace.class);
+                Namespace current = namespaces.get(namespace.getId());
+
+                // a replaced namespace keeps its uid
+                answer.getMetadata().setUid(current != null ? current.getMetadata().getUid() : uid());
+                answer.getMetadata().getLabels().put("kubernetes.io/metadata.name", answer.getMetadata().getName());
+
+                namespaces.put(namespace.getId(), answer);
+
+                return answer;
+            });
+
+        return provisioner;
+    }
 }
@@ -0,0 +1,104 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.bf2.cos.fleetshard.sync.connector.ConnectorTestSupport;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+public class ProvisioningExecutorTest {
+
+    @Test
+    void itemsWithSameKeyAreProcessedInOrder() throws Exception {
+        final ProvisioningExecutor executor = executor(4);
+        final Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+
+        final List<Integer> items = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+
+        try {
+            executor.start();
+            executor.execute(
+                items,
+                item -> "ns-" + (item % 7),
+                item -> processed.computeIfAbsent("ns-" + (item % 7), k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(item));
+        } finally {
+            executor.stop();
+        }
+
+        assertThat(processed).hasSize(7);
+        assertThat(processed.values()).allSatisfy(values -> assertThat(values).isSorted());
+        assertThat(processed.values().stream().mapToInt(List::size).sum()).isEqualTo(items.size());
+
+        assertThat(executor.registry.get("base." + ProvisioningExecutor.METRICS_QUEUE_SIZE).gauge().value()).isZero();
+        assertThat(executor.registry.get("base." + ProvisioningExecutor.METRICS_IN_FLIGHT).gauge().value()).isZero();
+    }
+
+    @Test
+    void itemsAreProcessedInlineWithoutConcurrency() throws Exception {
+        final ProvisioningExecutor executor = executor(1);
+        final List<String> threads = new ArrayList<>();
+
+        try {
+            executor.start();
+            executor.execute(
+                List.of(1, 2, 3),
+                item -> "ns-" + item,
+                item -> threads.add(Thread.currentThread().getName()));
+        } finally {
+            executor.stop();
+        }
+
+        assertThat(threads).containsOnly(Thread.currentThread().getName());
+    }
+
+    @Test
+    void failuresArePropagated() throws Exception {
+        final ProvisioningExecutor executor = executor(4);
+
+        try {
+            executor.start();
+
+            assertThatThrownBy(() -> executor.execute(
+                List.of(1, 2, 3),
+                item -> "ns-" + item,
+                item -> {
+                    if (item == 2) {
+                        throw new IllegalStateException("boom");
+                    }
+                }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+        } finally {
+            executor.stop();
+        }
+
+        assertThat(executor.registry.get("base." + ProvisioningExecutor.METRICS_QUEUE_SIZE).gauge().value()).isZero();
+    }
+
+    private static ProvisioningExecutor executor(int concurrency) {
+        FleetShardSyncConfig config = ConnectorTestSupport.config();
+        FleetShardSyncConfig.Resources resources = Mockito.mock(FleetShardSyncConfig.Resources.class);
+        when(resources.provisionConcurrency()).thenReturn(concurrency);
+        when(config.resources()).thenReturn(resources);
+
+        ProvisioningExecutor executor = new ProvisioningExecutor();
+        executor.config = config;
+        executor.registry = new SimpleMeterRegistry();
+
+        return executor;
+    }
+}
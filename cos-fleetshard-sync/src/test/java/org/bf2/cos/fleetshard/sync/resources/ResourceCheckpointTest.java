@@ -0,0 +1,159 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.bf2.cos.fleet.manager.model.ConnectorDeployment;
+import org.bf2.cos.fleet.manager.model.ConnectorNamespaceDeployment;
+import org.bf2.cos.fleetshard.support.resources.Resources;
+import org.bf2.cos.fleetshard.sync.connector.ConnectorTestSupport;
+import org.junit.jupiter.api.Test;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.bf2.cos.fleetshard.sync.connector.ConnectorTestSupport.createDeployment;
+
+public class ResourceCheckpointTest {
+    private static final String CLUSTER_ID = UUID.randomUUID().toString();
+
+    @Test
+    void tracksRevisions() {
+        final ResourceCheckpoint checkpoint = checkpoint();
+
+        checkpoint.deploymentProvisioned(deployment("d1", 5));
+        checkpoint.deploymentProvisioned(deployment("d2", 3));
+        checkpoint.namespaceProvisioned(new ConnectorNamespaceDeployment().id("n1").resourceVersion(7L));
+
+        assertThat(checkpoint.getDeploymentsRevision()).isEqualTo(5);
+        assertThat(checkpoint.getNamespacesRevision()).isEqualTo(7);
+    }
+
+    @Test
+    void restoresFromConfigMap() {
+        final ResourceCheckpoint checkpoint = checkpoint();
+
+        checkpoint.deploymentProvisioned(deployment("d1", 5));
+        checkpoint.deploymentProvisioned(deployment("d2", 3));
+        checkpoint.namespaceProvisioned(new ConnectorNamespaceDeployment().id("n1").resourceVersion(7L));
+
+        final List<ConfigMap> configMaps = checkpoint.toConfigMaps();
+
+        assertThat(configMaps).singleElement().satisfies(configMap -> {
+            assertThat(configMap.getMetadata().getLabels()).containsEntry(Resources.LABEL_CLUSTER_ID, CLUSTER_ID);
+            assertThat(configMap.getData()).containsEntry(ResourceCheckpoint.KEY_DEPLOYMENTS_DIGESTS_PARTS, "1");
+        });
+
+        final ResourceCheckpoint restored = checkpoint();
+        restored.fromConfigMaps(configMaps);
+
+        assertThat(restored.getDeploymentsRevision()).isEqualTo(5);
+        assertThat(restored.getNamespacesRevision()).isEqualTo(7);
+        assertThat(restored.toConfigMaps()).isEqualTo(configMaps);
+    }
+
+    @Test
+    void digestsAreSplitAcrossConfigMaps() {
+        final ResourceCheckpoint checkpoint = checkpoint();
+        final int count = 35_000;
+
+        for (int i = 0; i < count; i++) {
+            checkpoint.deploymentProvisioned(deployment(UUID.randomUUID().toString(), i + 1));
+        }
+
+        final List<ConfigMap> configMaps = checkpoint.toConfigMaps();
+
+        // a single ConfigMap would exceed the 1 MiB limit of a Kubernetes object
+        assertThat(configMaps).hasSizeGreaterThan(1).allSatisfy(configMap -> {
+            assertThat(configMap.getMetadata().getLabels()).containsEntry(Resources.LABEL_CLUSTER_ID, CLUSTER_ID);
+            assertThat(size(configMap)).isLessThan(1024 * 1024);
+        });
+
+        final ConfigMap main = configMaps.get(configMaps.size() - 1);
+
+        assertThat(main.getMetadata().getName()).isEqualTo("cos-fleetshard-sync-checkpoint");
+        assertThat(main.getData())
+            .containsEntry(ResourceCheckpoint.KEY_DEPLOYMENTS_REVISION, Integer.toString(count))
+            .containsEntry(ResourceCheckpoint.KEY_DEPLOYMENTS_DIGESTS_PARTS, Integer.toString(configMaps.size()));
+        assertThat(configMaps.subList(0, configMaps.size() - 1))
+            .extracting(configMap -> configMap.getMetadata().getName())
+            .allMatch(name -> name.startsWith("cos-fleetshard-sync-checkpoint-"))
+            .doesNotHaveDuplicates();
+        assertThat(digests(checkpoint)).hasSize(count);
+
+        final ResourceCheckpoint restored = checkpoint();
+        restored.fromConfigMaps(configMaps);
+
+        assertThat(restored.getDeploymentsRevision()).isEqualTo(count);
+        assertThat(restored.toConfigMaps()).isEqualTo(configMaps);
+    }
+
+    @Test
+    void deploymentsAreVerifiedOnlyWhileVerifying() {
+        final ResourceCheckpoint checkpoint = checkpoint();
+
+        checkpoint.deploymentProvisioned(deployment("d1", 5));
+
+        assertThat(checkpoint.isVerified(deployment("d1", 5))).isFalse();
+
+        checkpoint.beginResync(true);
+
+        assertThat(checkpoint.isVerified(deployment("d1", 5))).isTrue();
+        assertThat(checkpoint.isVerified(deployment("d1", 6))).isFalse();
+        assertThat(checkpoint.isVerified(deployment("d2", 5))).isFalse();
+
+        checkpoint.endResync(true);
+
+        assertThat(checkpoint.isVerified(deployment("d1", 5))).isFalse();
+    }
+
+    @Test
+    void unseenDeploymentsAreForgotten() {
+        final ResourceCheckpoint checkpoint = checkpoint();
+
+        checkpoint.deploymentProvisioned(deployment("d1", 1));
+        checkpoint.deploymentProvisioned(deployment("d2", 2));
+
+        // an incomplete re-sync keeps all the deployments
+        checkpoint.beginResync(false);
+        checkpoint.deploymentProvisioned(deployment("d1", 1));
+        checkpoint.endResync(false);
+
+        assertThat(digests(checkpoint)).hasSize(2);
+
+        checkpoint.beginResync(false);
+        checkpoint.deploymentProvisioned(deployment("d1", 1));
+        checkpoint.endResync(true);
+
+        assertThat(digests(checkpoint)).hasSize(1).allSatisfy(entry -> assertThat(entry).startsWith("d1="));
+    }
+
+    private static List<String> digests(ResourceCheckpoint checkpoint) {
+        return checkpoint.toConfigMaps().stream()
+            .flatMap(configMap -> configMap.getData().get(ResourceCheckpoint.KEY_DEPLOYMENTS_DIGESTS).lines())
+            .collect(Collectors.toList());
+    }
+
+    private static long size(ConfigMap configMap) {
+        return configMap.getData().entrySet().stream()
+            .mapToLong(entry -> entry.getKey().length() + entry.getValue().length())
+            .sum();
+    }
+
+    private static ConnectorDeployment deployment(String id, long revision) {
+        return createDeployment(revision, d -> {
+            d.setId(id);
+            d.getSpec().getServiceAccount().setClientId(id);
+            d.getSpec().getServiceAccount().setClientSecret(id);
+        });
+    }
+
+    private static ResourceCheckpoint checkpoint() {
+        final ResourceCheckpoint checkpoint = new ResourceCheckpoint();
+        checkpoint.config = ConnectorTestSupport.config();
+        checkpoint.fleetShard = ConnectorTestSupport.fleetShard(CLUSTER_ID, List.of(), List.of());
+
+        return checkpoint;
+    }
+}
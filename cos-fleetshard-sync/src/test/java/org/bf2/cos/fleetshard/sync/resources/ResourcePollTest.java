@@ -0,0 +1,167 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import org.bf2.cos.fleet.manager.model.ConnectorDeployment;
+import org.bf2.cos.fleetshard.api.ManagedConnector;
+import org.bf2.cos.fleetshard.support.metrics.StaticMetricsRecorder;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncScheduler;
+import org.bf2.cos.fleetshard.sync.client.FleetManagerClient;
+import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.bf2.cos.fleetshard.sync.connector.ConnectorTestSupport.createDeployment;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResourcePollTest {
+    private ResourcePoll poll;
+    private FleetShardSyncConfig.LeaderElection election;
+
+    @BeforeEach
+    void setUp() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        FleetShardSyncConfig config = Mockito.mock(FleetShardSyncConfig.class);
+        FleetShardSyncConfig.AdaptivePoll adaptive = Mockito.mock(FleetShardSyncConfig.AdaptivePoll.class);
+        when(adaptive.enabled()).thenReturn(false);
+        FleetShardSyncConfig.Resources resources = Mockito.mock(FleetShardSyncConfig.Resources.class);
+        when(resources.pollInterval()).thenReturn(Duration.ofSeconds(15));
+        when(resources.adaptivePoll()).thenReturn(adaptive);
+        when(resources.resyncBuckets()).thenReturn(1);
+        when(resources.resyncInterval()).thenReturn(Duration.ofHours(1));
+        when(config.resources()).thenReturn(resources);
+        election = Mockito.mock(FleetShardSyncConfig.LeaderElection.class);
+        when(election.enabled()).thenReturn(true);
+        when(config.leaderElection()).thenReturn(election);
+        FleetShardSyncConfig.Metrics metrics = Mockito.mock(FleetShardSyncConfig.Metrics.class);
+        when(metrics.baseName()).thenReturn("base");
+        when(config.metrics()).thenReturn(metrics);
+
+        ProvisioningExecutor executor = Mockito.mock(ProvisioningExecutor.class);
+        doAnswer(i -> {
+            i.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(executor).exclusively(any(Runnable.class));
+
+        poll = new ResourcePoll();
+        poll.config = config;
+        poll.scheduler = Mockito.mock(FleetShardSyncScheduler.class);
+        poll.connectorClient = Mockito.mock(FleetShardClient.class);
+        poll.fleetManager = Mockito.mock(FleetManagerClient.class);
+        poll.connectorsProvisioner = Mockito.mock(ConnectorDeploymentProvisioner.class);
+        poll.namespaceProvisioner = Mockito.mock(ConnectorNamespaceProvisioner.class);
+        poll.executor = executor;
+        poll.watch = Mockito.mock(ResourceWatch.class);
+        poll.checkpoint = Mockito.mock(ResourceCheckpoint.class);
+        poll.registry = registry;
+        poll.syncRecorder = StaticMetricsRecorder.of(registry, "base.sync");
+        poll.pollRecorder = StaticMetricsRecorder.of(registry, "base.poll");
+    }
+
+    @Test
+    void electedReplicaWithWarmCachesResumesFromRevisions() throws Exception {
+        when(poll.connectorClient.getMaxNamespaceResourceRevision()).thenReturn(3L);
+        when(poll.connectorClient.getMaxDeploymentResourceRevision()).thenReturn(7L);
+
+        poll.start();
+        poll.run();
+
+        // the revisions known from the caches take precedence over the checkpoint
+        verify(poll.checkpoint, never()).restore();
+
+        // no full re-sync, the resources changed since the revisions already provisioned are polled instead
+        verify(poll.checkpoint, never()).beginResync(anyBoolean());
+        verify(poll.namespaceProvisioner, never()).poll(0L);
+        verify(poll.connectorsProvisioner, never()).poll(anyLong(), any(LongConsumer.class));
+        verify(poll.namespaceProvisioner).poll(3L);
+        verify(poll.connectorsProvisioner).poll(7L);
+    }
+
+    @Test
+    void pollResumesPastDeadLetteredRevisions() throws Exception {
+        when(poll.connectorClient.getMaxNamespaceResourceRevision()).thenReturn(3L);
+        when(poll.connectorClient.getMaxDeploymentResourceRevision()).thenReturn(7L);
+        when(poll.connectorsProvisioner.getDeadLetteredRevision()).thenReturn(9L);
+
+        poll.start();
+        poll.run();
+
+        // the dead lettered deployments are retried by the provisioner instead of being fetched again on every poll
+        verify(poll.connectorsProvisioner).poll(9L);
+        verify(poll.connectorsProvisioner).retryDeadLetters();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void slicedResyncSkipsDeploymentsDeletedSinceTheSnapshot() throws Exception {
+        when(poll.config.resources().resyncBuckets()).thenReturn(2);
+        when(poll.config.resources().resyncJitter()).thenReturn(0.0);
+
+        // both deployments belong to the first bucket
+        final ConnectorDeployment deleted = createDeployment(1, d -> d.setId("d2"));
+        final ConnectorDeployment created = createDeployment(2, d -> d.setId("d4"));
+
+        doAnswer(i -> {
+            i.getArgument(1, Consumer.class).accept(List.of(deleted, created));
+            return null;
+        }).when(poll.fleetManager).getDeployments(eq(0L), any(Consumer.class));
+
+        // the connector of the deleted deployment is removed once the snapshot has been taken
+        when(poll.connectorClient.getConnector(deleted))
+            .thenReturn(Optional.of(new ManagedConnector()))
+            .thenReturn(Optional.empty());
+        when(poll.connectorClient.getConnector(created))
+            .thenReturn(Optional.empty());
+
+        poll.start();
+        poll.run();
+
+        // the connector of a new deployment is still provisioned from the snapshot
+        verify(poll.connectorsProvisioner).provisionConnectors(List.of(created));
+    }
+
+    @Test
+    void electedReplicaWithColdCachesResyncs() throws Exception {
+        when(poll.checkpoint.restore()).thenReturn(false);
+
+        poll.start();
+        poll.run();
+
+        verify(poll.checkpoint).beginResync(false);
+        verify(poll.namespaceProvisioner).poll(0L);
+        verify(poll.connectorsProvisioner).poll(eq(0L), any(LongConsumer.class));
+    }
+
+    @Test
+    void singleReplicaResumesFromCheckpoint() throws Exception {
+        when(election.enabled()).thenReturn(false);
+        when(poll.connectorClient.getMaxNamespaceResourceRevision()).thenReturn(3L);
+        when(poll.connectorClient.getMaxDeploymentResourceRevision()).thenReturn(7L);
+        when(poll.checkpoint.restore()).thenReturn(true);
+
+        poll.start();
+        poll.run();
+
+        verify(poll.checkpoint).restore();
+        verify(poll.checkpoint, never()).beginResync(anyBoolean());
+        verify(poll.namespaceProvisioner).poll(3L);
+        verify(poll.connectorsProvisioner).poll(7L);
+    }
+}
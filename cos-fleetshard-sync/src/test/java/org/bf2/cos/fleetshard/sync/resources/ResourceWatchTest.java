@@ -0,0 +1,167 @@
+package org.bf2.cos.fleetshard.sync.resources;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import org.bf2.cos.fleet.manager.model.ConnectorDeployment;
+import org.bf2.cos.fleetshard.support.metrics.StaticMetricsRecorder;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncConfig;
+import org.bf2.cos.fleetshard.sync.FleetShardSyncScheduler;
+import org.bf2.cos.fleetshard.sync.client.FleetManagerClient;
+import org.bf2.cos.fleetshard.sync.client.FleetShardClient;
+import org.bf2.cos.fleetshard.sync.connector.ConnectorTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+public class ResourceWatchTest {
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final CountDownLatch resyncStarted = new CountDownLatch(1);
+    private final CountDownLatch resyncRelease = new CountDownLatch(1);
+    private final CountDownLatch delivered = new CountDownLatch(1);
+    private final CountDownLatch provisioned = new CountDownLatch(1);
+
+    private ResourcePoll poll;
+    private ResourceWatch watch;
+    private ConnectorDeploymentProvisioner connectors;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        FleetShardSyncConfig config = Mockito.mock(FleetShardSyncConfig.class);
+        FleetShardSyncConfig.Watch watchConfig = Mockito.mock(FleetShardSyncConfig.Watch.class);
+        when(watchConfig.enabled()).thenReturn(true);
+        when(watchConfig.timeout()).thenReturn(Duration.ofMinutes(1));
+        when(watchConfig.retryInterval()).thenReturn(Duration.ofMillis(100));
+        FleetShardSyncConfig.Resources resources = Mockito.mock(FleetShardSyncConfig.Resources.class);
+        when(resources.watch()).thenReturn(watchConfig);
+        when(resources.resyncInterval()).thenReturn(Duration.ofHours(1));
+        when(resources.provisionConcurrency()).thenReturn(1);
+        when(config.resources()).thenReturn(resources);
+        FleetShardSyncConfig.Metrics metrics = Mockito.mock(FleetShardSyncConfig.Metrics.class);
+        when(metrics.baseName()).thenReturn("base");
+        when(config.metrics()).thenReturn(metrics);
+
+        ProvisioningExecutor executor = new ProvisioningExecutor();
+        executor.config = config;
+        executor.registry = registry;
+
+        FleetShardClient fleetShard = Mockito.mock(FleetShardClient.class);
+        ConnectorNamespaceProvisioner namespaces = Mockito.mock(ConnectorNamespaceProvisioner.class);
+        connectors = Mockito.mock(ConnectorDeploymentProvisioner.class);
+
+        // the re-sync holds the provisioning lock until released
+        when(connectors.poll(anyLong(), any(LongConsumer.class))).thenAnswer(i -> {
+            events.add("resync-start");
+            resyncStarted.countDown();
+            assertThat(resyncRelease.await(5, TimeUnit.SECONDS)).isTrue();
+            events.add("resync-end");
+            return 0;
+        });
+        doAnswer(i -> {
+            i.getArgument(0, Collection.class).forEach(d -> events.add("watch-" + ((ConnectorDeployment) d).getId()));
+            provisioned.countDown();
+            return null;
+        }).when(connectors).provisionConnectors(anyCollection());
+
+        // the watch delivers a single change once the re-sync is in progress
+        AtomicBoolean once = new AtomicBoolean();
+        FleetManagerClient fleetManager = Mockito.mock(FleetManagerClient.class);
+        doAnswer(i -> {
+            if (once.compareAndSet(false, true)) {
+                assertThat(resyncStarted.await(5, TimeUnit.SECONDS)).isTrue();
+                delivered.countDown();
+                i.getArgument(1, Consumer.class).accept(List.of(ConnectorTestSupport.createDeployment(1)));
+            }
+            return null;
+        }).when(fleetManager).watchDeployments(anyLong(), any(Consumer.class));
+
+        watch = new ResourceWatch();
+        watch.config = config;
+        watch.fleetManager = fleetManager;
+        watch.connectorClient = fleetShard;
+        watch.connectorsProvisioner = connectors;
+        watch.namespaceProvisioner = namespaces;
+        watch.provisioning = executor;
+        watch.registry = registry;
+
+        poll = new ResourcePoll();
+        poll.config = config;
+        poll.scheduler = Mockito.mock(FleetShardSyncScheduler.class);
+        poll.connectorClient = fleetShard;
+        poll.fleetManager = fleetManager;
+        poll.connectorsProvisioner = connectors;
+        poll.namespaceProvisioner = namespaces;
+        poll.executor = executor;
+        poll.watch = watch;
+        poll.checkpoint = Mockito.mock(ResourceCheckpoint.class);
+        poll.registry = registry;
+        poll.syncRecorder = StaticMetricsRecorder.of(registry, "base.sync");
+        poll.pollRecorder = StaticMetricsRecorder.of(registry, "base.poll");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        watch.stop();
+    }
+
+    @Test
+    void watchDeliveryWaitsForResync() throws Exception {
+        when(connectors.isStale(any(ConnectorDeployment.class))).thenReturn(false);
+
+        Thread resync = new Thread(poll::run);
+        resync.start();
+
+        watch.start();
+
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // the watch delivery must not be provisioned while the re-sync is in progress
+        assertThat(provisioned.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        resyncRelease.countDown();
+        resync.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(provisioned.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(events).containsExactly("resync-start", "resync-end", "watch-did");
+    }
+
+    @Test
+    void watchDeliverySupersededByResyncIsDropped() throws Exception {
+        // the re-sync has provisioned a newer revision of the delivered deployment
+        when(connectors.isStale(any(ConnectorDeployment.class))).thenReturn(true);
+
+        Thread resync = new Thread(poll::run);
+        resync.start();
+
+        watch.start();
+
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        resyncRelease.countDown();
+        resync.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(provisioned.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(events).containsExactly("resync-start", "resync-end");
+    }
+}